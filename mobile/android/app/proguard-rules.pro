@@ -45,15 +45,22 @@
 -keep,includedescriptorclasses class com.facebook.react.bridge.** { *; }
 
 # ============================================================================
-# Custom Native Modules (Battery Manager & WorkManager)
+# Custom Native Modules (Battery Manager, WorkManager, SMS Dispatch, Log Store & KV Store)
 # ============================================================================
 
 # Keep our custom native modules
 -keep class com.sphyra.smsreminder.BatteryManagerModule { *; }
--keep class com.sphyra.smsreminder.BatteryManagerPackage { *; }
 -keep class com.sphyra.smsreminder.WorkManagerModule { *; }
--keep class com.sphyra.smsreminder.WorkManagerPackage { *; }
+-keep class com.sphyra.smsreminder.SphyraTurboPackage { *; }
+-keep class com.sphyra.smsreminder.NativeBatteryManagerSpec { *; }
+-keep class com.sphyra.smsreminder.NativeWorkManagerSpec { *; }
 -keep class com.sphyra.smsreminder.ReminderSyncWorker { *; }
+-keep class com.sphyra.smsreminder.SmsDispatchModule { *; }
+-keep class com.sphyra.smsreminder.SmsDispatchPackage { *; }
+-keep class com.sphyra.smsreminder.LogStoreModule { *; }
+-keep class com.sphyra.smsreminder.LogStorePackage { *; }
+-keep class com.sphyra.smsreminder.KvStoreModule { *; }
+-keep class com.sphyra.smsreminder.KvStorePackage { *; }
 
 # ============================================================================
 # AndroidX WorkManager
@@ -0,0 +1,85 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkManager Worker that drains the AckOutbox when the network is available
+ * Retries with exponential backoff until the backend has every outcome
+ */
+public class AckFlushWorker extends Worker {
+    private static final String TAG = "AckFlushWorker";
+    public static final String WORK_NAME = "SphyraAckFlush";
+
+    public AckFlushWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule a flush as soon as the device is connected
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(AckFlushWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .addTag(WORK_NAME)
+                .build();
+
+        // Append so entries recorded while a flush is running are not missed
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        AckOutbox outbox = AckOutbox.getInstance(context);
+
+        if (outbox.count() == 0) {
+            return Result.success();
+        }
+
+        if (!SyncSettings.isConfigured(context)) {
+            Log.w(TAG, "⚠️ API not configured - keeping " + outbox.count() + " acks for later");
+            return Result.retry();
+        }
+
+        SyncMetrics metrics = SyncMetrics.getInstance(context);
+        long startedAt = System.nanoTime();
+        try {
+            ReminderApiClient apiClient = new ReminderApiClient(
+                    SyncSettings.getApiUrl(context), SyncSettings.getToken(context));
+            int flushed = new AckFlusher(outbox, apiClient).flush();
+            long remaining = outbox.count();
+
+            Log.d(TAG, "✅ Flushed " + flushed + " acks, " + remaining + " remaining");
+            return remaining == 0 ? Result.success() : Result.retry();
+
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Ack flush failed, will retry: " + e.getMessage());
+            return Result.retry();
+        } finally {
+            metrics.record(SyncMetrics.Metric.ACK_FLUSH_LATENCY,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            metrics.save();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sphyra.smsreminder;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains the AckOutbox to POST /reminders/mobile/ack-batch
+ * One request per page of entries instead of one per reminder
+ */
+public class AckFlusher {
+    private static final String TAG = "AckFlusher";
+
+    // Server accepts up to 500 acks per request
+    private static final int PAGE_SIZE = 200;
+    // Entries the backend keeps rejecting are dropped after this many attempts
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final AckOutbox outbox;
+    private final ReminderApiClient apiClient;
+
+    public AckFlusher(AckOutbox outbox, ReminderApiClient apiClient) {
+        this.outbox = outbox;
+        this.apiClient = apiClient;
+    }
+
+    /**
+     * Send every pending entry
+     * @return number of entries acknowledged by the backend
+     * @throws IOException when the backend is unreachable (entries stay in the outbox)
+     */
+    public int flush() throws IOException {
+        int acknowledged = 0;
+
+        while (true) {
+            List<AckOutbox.Entry> page = outbox.peek(PAGE_SIZE);
+            if (page.isEmpty()) {
+                return acknowledged;
+            }
+
+            boolean[] results = apiClient.acknowledgeBatch(page);
+
+            List<Long> done = new ArrayList<>();
+            List<Long> rejected = new ArrayList<>();
+            for (int i = 0; i < page.size(); i++) {
+                AckOutbox.Entry entry = page.get(i);
+                if (results[i]) {
+                    done.add(entry.id);
+                } else if (entry.attempts + 1 >= MAX_ATTEMPTS) {
+                    Log.w(TAG, "⚠️ Dropping ack for " + entry.appointmentId + " after " + MAX_ATTEMPTS + " attempts");
+                    done.add(entry.id);
+                } else {
+                    rejected.add(entry.id);
+                }
+            }
+
+            outbox.remove(done);
+            outbox.incrementAttempts(rejected);
+            acknowledged += done.size();
+
+            Log.d(TAG, "📨 Flushed " + done.size() + " acks (" + rejected.size() + " rejected)");
+
+            if (!rejected.isEmpty()) {
+                // Rejected entries would come back on the next page - retry them on the next flush
+                return acknowledged;
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.sphyra.smsreminder;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Durable outbox of SMS dispatch outcomes (SQLite)
+ * Every result is written here before the backend is told about it, so a
+ * dropped connection never makes the backend forget a sent SMS.
+ * AckFlusher drains it with one batch request.
+ */
+public class AckOutbox extends SQLiteOpenHelper {
+    private static final String DB_NAME = "sphyra_outbox.db";
+    private static final int DB_VERSION = 1;
+
+    private static final String TABLE = "acks";
+    private static final String COL_ID = "id";
+    private static final String COL_APPOINTMENT_ID = "appointment_id";
+    private static final String COL_SUCCESS = "success";
+    private static final String COL_ERROR = "error_message";
+    private static final String COL_RECORDED_AT = "recorded_at";
+    private static final String COL_ATTEMPTS = "attempts";
+
+    private static AckOutbox instance;
+
+    /**
+     * One recorded dispatch outcome
+     */
+    public static class Entry {
+        public final long id;
+        public final String appointmentId;
+        public final boolean success;
+        @Nullable public final String errorMessage;
+        public final long recordedAt;
+        public final int attempts;
+
+        Entry(long id, String appointmentId, boolean success, @Nullable String errorMessage,
+              long recordedAt, int attempts) {
+            this.id = id;
+            this.appointmentId = appointmentId;
+            this.success = success;
+            this.errorMessage = errorMessage;
+            this.recordedAt = recordedAt;
+            this.attempts = attempts;
+        }
+    }
+
+    private AckOutbox(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    public static synchronized AckOutbox getInstance(Context context) {
+        if (instance == null) {
+            instance = new AckOutbox(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COL_APPOINTMENT_ID + " TEXT NOT NULL, "
+                + COL_SUCCESS + " INTEGER NOT NULL, "
+                + COL_ERROR + " TEXT, "
+                + COL_RECORDED_AT + " INTEGER NOT NULL, "
+                + COL_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // No migrations yet
+    }
+
+    /**
+     * Record a dispatch outcome (durable once this returns)
+     */
+    public void record(String appointmentId, boolean success, @Nullable String errorMessage) {
+        ContentValues values = new ContentValues();
+        values.put(COL_APPOINTMENT_ID, appointmentId);
+        values.put(COL_SUCCESS, success ? 1 : 0);
+        values.put(COL_ERROR, errorMessage);
+        values.put(COL_RECORDED_AT, System.currentTimeMillis());
+        getWritableDatabase().insertOrThrow(TABLE, null, values);
+    }
+
+    /**
+     * Oldest entries first, in recording order
+     */
+    public List<Entry> peek(int limit) {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE, null, null, null, null, null,
+                COL_ID + " ASC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                entries.add(new Entry(
+                        cursor.getLong(cursor.getColumnIndexOrThrow(COL_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(COL_APPOINTMENT_ID)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(COL_SUCCESS)) == 1,
+                        cursor.getString(cursor.getColumnIndexOrThrow(COL_ERROR)),
+                        cursor.getLong(cursor.getColumnIndexOrThrow(COL_RECORDED_AT)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(COL_ATTEMPTS))
+                ));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Appointments whose SMS went out but the backend has not been told yet
+     */
+    public Set<String> getUnacknowledgedSentIds() {
+        Set<String> ids = new HashSet<>();
+        try (Cursor cursor = getReadableDatabase().query(true, TABLE, new String[]{COL_APPOINTMENT_ID},
+                COL_SUCCESS + " = 1", null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(0));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Delete entries the backend has acknowledged
+     */
+    public void remove(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Long id : ids) {
+                db.delete(TABLE, COL_ID + " = ?", new String[]{String.valueOf(id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Count a failed delivery attempt for these entries
+     */
+    public void incrementAttempts(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Long id : ids) {
+                db.execSQL("UPDATE " + TABLE + " SET " + COL_ATTEMPTS + " = " + COL_ATTEMPTS
+                        + " + 1 WHERE " + COL_ID + " = ?", new Object[]{id});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public long count() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Persistent app log for native components
+ * Writes to logcat and to the shared LogStore ring buffer, so entries from
+ * workers and receivers show up in LogViewerScreen next to the JS ones
+ */
+public final class AppLog {
+    private static final String TAG = "AppLog";
+    private static final String FILE_NAME = "sphyra_logs.bin";
+
+    private static volatile LogStore store;
+
+    private AppLog() {
+    }
+
+    /**
+     * Shared LogStore instance (null if the log file cannot be mapped)
+     */
+    @Nullable
+    public static LogStore getStore(Context context) {
+        if (store == null) {
+            synchronized (AppLog.class) {
+                if (store == null) {
+                    try {
+                        File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+                        store = new LogStore(file, LogStore.DEFAULT_CAPACITY);
+                    } catch (IOException e) {
+                        Log.e(TAG, "❌ Cannot open log store: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        return store;
+    }
+
+    public static void debug(Context context, String category, String message) {
+        write(context, LogStore.LEVEL_DEBUG, category, message, null);
+    }
+
+    public static void info(Context context, String category, String message) {
+        write(context, LogStore.LEVEL_INFO, category, message, null);
+    }
+
+    public static void info(Context context, String category, String message, @Nullable String payloadJson) {
+        write(context, LogStore.LEVEL_INFO, category, message, payloadJson);
+    }
+
+    public static void warn(Context context, String category, String message) {
+        write(context, LogStore.LEVEL_WARN, category, message, null);
+    }
+
+    public static void error(Context context, String category, String message) {
+        write(context, LogStore.LEVEL_ERROR, category, message, null);
+    }
+
+    public static void success(Context context, String category, String message, @Nullable String payloadJson) {
+        write(context, LogStore.LEVEL_SUCCESS, category, message, payloadJson);
+    }
+
+    private static void write(Context context, int level, String category, String message,
+                              @Nullable String payloadJson) {
+        Log.println(priority(level), category, message);
+        LogStore logStore = getStore(context);
+        if (logStore != null) {
+            logStore.append(System.currentTimeMillis(), level, category, message, payloadJson);
+        }
+    }
+
+    private static int priority(int level) {
+        switch (level) {
+            case LogStore.LEVEL_DEBUG:
+                return Log.DEBUG;
+            case LogStore.LEVEL_WARN:
+                return Log.WARN;
+            case LogStore.LEVEL_ERROR:
+                return Log.ERROR;
+            default:
+                return Log.INFO;
+        }
+    }
+}
@@ -1,60 +1,62 @@
 package com.sphyra.smsreminder;
 
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.os.BatteryManager;
-import android.os.Build;
-
-import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
-import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 /**
  * Native module for battery status monitoring
  * Provides real battery level and charging status to React Native
+ * Reads come from the BatteryStateMonitor cache; threshold crossings are pushed as events
+ * Energy sessions (EnergyMeter) measure what an operation costs in µAh; every
+ * native sync run is measured, and their history feeds getEnergyStats
+ * Spec: src/specs/NativeBatteryManager.ts (TurboModule on the New Architecture)
  */
-public class BatteryManagerModule extends ReactContextBaseJavaModule {
-    private static final String MODULE_NAME = "BatteryManager";
+public class BatteryManagerModule extends NativeBatteryManagerSpec {
+    private static final String EVENT_BATTERY_CHANGED = "batteryChanged";
+
     private final ReactApplicationContext reactContext;
+    private final BatteryStateMonitor monitor;
+    private int listenerCount = 0;
+    // Session started from JS, if running
+    @Nullable private EnergySession energySession;
+
+    private final BatteryStateMonitor.Listener batteryListener = this::emitBatteryChanged;
 
     public BatteryManagerModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
+        this.monitor = BatteryStateMonitor.getInstance(reactContext);
+        this.monitor.addListener(batteryListener);
     }
 
-    @NonNull
     @Override
-    public String getName() {
-        return MODULE_NAME;
+    public void invalidate() {
+        monitor.removeListener(batteryListener);
+        // JS is going away (reload, crash): nobody would stop its session
+        synchronized (this) {
+            if (energySession != null) {
+                EnergyMeter.getInstance(reactContext).stop(energySession);
+                energySession = null;
+            }
+        }
+        super.invalidate();
     }
 
     /**
      * Get current battery level (0.0 - 1.0)
      */
-    @ReactMethod
+    @Override
     public void getBatteryLevel(Promise promise) {
         try {
-            IntentFilter ifilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = reactContext.registerReceiver(null, ifilter);
-
-            if (batteryStatus != null) {
-                int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-                int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-
-                float batteryPct = level / (float) scale;
-
-                WritableMap result = Arguments.createMap();
-                result.putDouble("batteryLevel", batteryPct);
-                promise.resolve(result);
-            } else {
-                promise.reject("BATTERY_ERROR", "Could not retrieve battery status");
-            }
+            WritableMap result = Arguments.createMap();
+            result.putDouble("batteryLevel", monitor.getSnapshot().level);
+            promise.resolve(result);
         } catch (Exception e) {
             promise.reject("BATTERY_ERROR", "Error getting battery level: " + e.getMessage());
         }
@@ -63,23 +65,12 @@ public class BatteryManagerModule extends ReactContextBaseJavaModule {
     /**
      * Check if device is charging
      */
-    @ReactMethod
+    @Override
     public void isCharging(Promise promise) {
         try {
-            IntentFilter ifilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = reactContext.registerReceiver(null, ifilter);
-
-            if (batteryStatus != null) {
-                int status = batteryStatus.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
-                boolean isCharging = status == BatteryManager.BATTERY_STATUS_CHARGING ||
-                                   status == BatteryManager.BATTERY_STATUS_FULL;
-
-                WritableMap result = Arguments.createMap();
-                result.putBoolean("isCharging", isCharging);
-                promise.resolve(result);
-            } else {
-                promise.reject("BATTERY_ERROR", "Could not retrieve charging status");
-            }
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("isCharging", monitor.getSnapshot().isCharging);
+            promise.resolve(result);
         } catch (Exception e) {
             promise.reject("BATTERY_ERROR", "Error checking charging status: " + e.getMessage());
         }
@@ -88,43 +79,198 @@ public class BatteryManagerModule extends ReactContextBaseJavaModule {
     /**
      * Get complete battery information
      */
-    @ReactMethod
+    @Override
     public void getBatteryInfo(Promise promise) {
         try {
-            IntentFilter ifilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = reactContext.registerReceiver(null, ifilter);
-
-            if (batteryStatus != null) {
-                // Battery level
-                int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-                int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-                float batteryPct = level / (float) scale;
-
-                // Charging status
-                int status = batteryStatus.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
-                boolean isCharging = status == BatteryManager.BATTERY_STATUS_CHARGING ||
-                                   status == BatteryManager.BATTERY_STATUS_FULL;
-
-                // Charging source
-                int chargePlug = batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, -1);
-                boolean usbCharge = chargePlug == BatteryManager.BATTERY_PLUGGED_USB;
-                boolean acCharge = chargePlug == BatteryManager.BATTERY_PLUGGED_AC;
-                boolean wirelessCharge = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 &&
-                                        chargePlug == BatteryManager.BATTERY_PLUGGED_WIRELESS;
-
-                WritableMap result = Arguments.createMap();
-                result.putDouble("batteryLevel", batteryPct);
-                result.putBoolean("isCharging", isCharging);
-                result.putBoolean("usbCharge", usbCharge);
-                result.putBoolean("acCharge", acCharge);
-                result.putBoolean("wirelessCharge", wirelessCharge);
-
-                promise.resolve(result);
-            } else {
-                promise.reject("BATTERY_ERROR", "Could not retrieve battery information");
-            }
+            promise.resolve(toMap(monitor.getSnapshot()));
         } catch (Exception e) {
             promise.reject("BATTERY_ERROR", "Error getting battery info: " + e.getMessage());
         }
     }
+
+    /**
+     * Synchronous read of the cached battery state (no bridge round trip, no IPC)
+     */
+    @Override
+    public WritableMap getBatterySnapshot() {
+        return toMap(monitor.getSnapshot());
+    }
+
+    /**
+     * Thresholds (percent) used for batteryChanged events - from BATTERY_OPTIMIZATION
+     */
+    @Override
+    public void setThresholds(double lowThreshold, double criticalThreshold) {
+        monitor.setThresholds((int) lowThreshold, (int) criticalThreshold);
+    }
+
+    /**
+     * Start measuring an operation driven from JS (any kind but "sync", kept for worker runs)
+     * Resolves started: false while another session (a sync run, or an earlier one from JS) is measuring
+     * A sync run starting meanwhile ends the session (see EnergyMeter.start)
+     */
+    @Override
+    public void startEnergySession(String kind, Promise promise) {
+        if (EnergySession.KIND_SYNC.equals(kind)) {
+            promise.reject("ENERGY_ERROR", "The \"" + kind + "\" kind is reserved for sync runs");
+            return;
+        }
+        boolean started = false;
+        synchronized (this) {
+            EnergyMeter meter = EnergyMeter.getInstance(reactContext);
+            if (energySession != null && meter.getActive() != energySession) {
+                // Ended by a sync run
+                energySession = null;
+            }
+            if (energySession == null) {
+                energySession = meter.start(kind);
+                started = energySession != null;
+            }
+        }
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("started", started);
+        promise.resolve(result);
+    }
+
+    /**
+     * Stop the session started from JS; resolves its record, or null when none was running
+     * (or a sync run ended it - its record is in the history)
+     */
+    @Override
+    public void stopEnergySession(Promise promise) {
+        EnergyHistory.Record record = null;
+        synchronized (this) {
+            if (energySession != null) {
+                record = EnergyMeter.getInstance(reactContext).stop(energySession);
+                energySession = null;
+            }
+        }
+        promise.resolve(record != null ? toMap(record) : null);
+    }
+
+    /**
+     * Measured sessions, oldest first
+     */
+    @Override
+    public void getEnergyHistory(Promise promise) {
+        try {
+            WritableArray result = Arguments.createArray();
+            for (EnergyHistory.Record record : EnergyMeter.getInstance(reactContext).getHistory().getRecords()) {
+                result.pushMap(toMap(record));
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ENERGY_ERROR", "Error reading energy history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cost per sync, fetch and SMS, and of an idle poll, over the sync runs of the history
+     */
+    @Override
+    public void getEnergyStats(Promise promise) {
+        try {
+            EnergyHistory.Stats stats = EnergyMeter.getInstance(reactContext).getHistory().getStats();
+            WritableMap result = Arguments.createMap();
+            result.putInt("sessions", stats.sessions);
+            result.putMap("perSync", toMap(stats.perSync));
+            result.putMap("perFetch", toMap(stats.perFetch));
+            result.putMap("perSms", toMap(stats.perSms));
+            result.putMap("idlePoll", toMap(stats.idlePoll));
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ENERGY_ERROR", "Error computing energy stats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sample interval of the next sessions (clamped to 100 ms - 10 s)
+     */
+    @Override
+    public void setEnergySampleInterval(double intervalMs) {
+        SyncSettings.setEnergySampleIntervalMs(reactContext, (long) intervalMs);
+    }
+
+    @Override
+    public void resetEnergyHistory(Promise promise) {
+        EnergyMeter.getInstance(reactContext).reset();
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * Required by NativeEventEmitter
+     */
+    @Override
+    public void addListener(String eventName) {
+        listenerCount++;
+    }
+
+    /**
+     * Required by NativeEventEmitter
+     */
+    @Override
+    public void removeListeners(double count) {
+        listenerCount = Math.max(0, listenerCount - (int) count);
+    }
+
+    private void emitBatteryChanged(BatterySnapshot previous, BatterySnapshot current, String reason) {
+        if (listenerCount == 0 || !reactContext.hasActiveReactInstance()) {
+            return;
+        }
+        WritableMap event = toMap(current);
+        event.putString("reason", reason);
+        reactContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(EVENT_BATTERY_CHANGED, event);
+    }
+
+    private WritableMap toMap(BatterySnapshot snapshot) {
+        WritableMap result = Arguments.createMap();
+        result.putDouble("batteryLevel", snapshot.level);
+        result.putBoolean("isCharging", snapshot.isCharging);
+        result.putBoolean("usbCharge", snapshot.usbCharge);
+        result.putBoolean("acCharge", snapshot.acCharge);
+        result.putBoolean("wirelessCharge", snapshot.wirelessCharge);
+        result.putString("band", monitor.getBand().name().toLowerCase());
+        if (snapshot.currentNowMicroAmps != Integer.MIN_VALUE) {
+            result.putInt("currentNowMicroAmps", snapshot.currentNowMicroAmps);
+        }
+        if (snapshot.chargeCounterMicroAmpHours != Integer.MIN_VALUE) {
+            result.putInt("chargeCounterMicroAmpHours", snapshot.chargeCounterMicroAmpHours);
+        }
+        result.putDouble("timestamp", snapshot.timestamp);
+        return result;
+    }
+
+    private static WritableMap toMap(EnergyHistory.Record record) {
+        WritableMap result = Arguments.createMap();
+        result.putString("kind", record.kind);
+        result.putDouble("startedAt", record.startedAt);
+        result.putDouble("durationMs", record.durationMs);
+        result.putInt("samples", record.samples);
+        result.putDouble("microAmpHours", record.microAmpHours);
+        result.putDouble("fetchMicroAmpHours", record.fetchMicroAmpHours);
+        result.putInt("fetches", record.fetches);
+        result.putInt("sms", record.sms);
+        if (record.counterMicroAmpHours != EnergySession.UNKNOWN) {
+            result.putInt("counterMicroAmpHours", record.counterMicroAmpHours);
+        }
+        if (record.averageCurrentMicroAmps != EnergySession.UNKNOWN) {
+            result.putInt("averageCurrentMicroAmps", record.averageCurrentMicroAmps);
+        }
+        result.putBoolean("charging", record.charging);
+        result.putBoolean("integrated", record.integrated);
+        result.putBoolean("measured", record.isMeasured());
+        return result;
+    }
+
+    private static WritableMap toMap(EnergyHistory.Aggregate aggregate) {
+        WritableMap result = Arguments.createMap();
+        result.putDouble("count", aggregate.count);
+        result.putDouble("mean", aggregate.mean);
+        result.putDouble("p95", aggregate.p95);
+        return result;
+    }
 }
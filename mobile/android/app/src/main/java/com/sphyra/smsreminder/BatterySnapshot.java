@@ -0,0 +1,56 @@
+package com.sphyra.smsreminder;
+
+/**
+ * Immutable battery state captured by BatteryStateMonitor
+ * Pure Java so the scheduler policy can use it on the JVM
+ */
+public final class BatterySnapshot {
+    // Same as BATTERY_OPTIMIZATION in config/api.ts
+    public static final int DEFAULT_LOW_THRESHOLD = 20;
+    public static final int DEFAULT_CRITICAL_THRESHOLD = 10;
+
+    /**
+     * Battery band used for scheduling decisions and threshold events
+     */
+    public enum Band { NORMAL, LOW, CRITICAL }
+
+    public static final BatterySnapshot UNKNOWN =
+            new BatterySnapshot(1.0f, false, false, false, false, Integer.MIN_VALUE, Integer.MIN_VALUE, 0);
+
+    public final float level;           // 0.0 - 1.0
+    public final boolean isCharging;
+    public final boolean usbCharge;
+    public final boolean acCharge;
+    public final boolean wirelessCharge;
+    public final int currentNowMicroAmps;         // Integer.MIN_VALUE if unsupported
+    public final int chargeCounterMicroAmpHours;  // Integer.MIN_VALUE if unsupported
+    public final long timestamp;
+
+    public BatterySnapshot(float level, boolean isCharging, boolean usbCharge, boolean acCharge,
+                           boolean wirelessCharge, int currentNowMicroAmps,
+                           int chargeCounterMicroAmpHours, long timestamp) {
+        this.level = level;
+        this.isCharging = isCharging;
+        this.usbCharge = usbCharge;
+        this.acCharge = acCharge;
+        this.wirelessCharge = wirelessCharge;
+        this.currentNowMicroAmps = currentNowMicroAmps;
+        this.chargeCounterMicroAmpHours = chargeCounterMicroAmpHours;
+        this.timestamp = timestamp;
+    }
+
+    public int getPercent() {
+        return Math.round(level * 100);
+    }
+
+    public Band getBand(int lowThreshold, int criticalThreshold) {
+        int percent = getPercent();
+        if (percent < criticalThreshold) {
+            return Band.CRITICAL;
+        }
+        if (percent < lowThreshold) {
+            return Band.LOW;
+        }
+        return Band.NORMAL;
+    }
+}
@@ -0,0 +1,170 @@
+package com.sphyra.smsreminder;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide battery state cache
+ * One long-lived receiver keeps a lock-free snapshot up to date, so reads
+ * never go back to the system server. Listeners are notified only when the
+ * battery band (normal/low/critical) or the charging state changes.
+ */
+public class BatteryStateMonitor {
+    private static final String TAG = "BatteryStateMonitor";
+
+    private static BatteryStateMonitor instance;
+
+    private final Context context;
+    private final BatteryManager batteryManager;
+    private final AtomicReference<BatterySnapshot> snapshot = new AtomicReference<>(BatterySnapshot.UNKNOWN);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile int lowThreshold = BatterySnapshot.DEFAULT_LOW_THRESHOLD;
+    private volatile int criticalThreshold = BatterySnapshot.DEFAULT_CRITICAL_THRESHOLD;
+
+    /**
+     * Notified on threshold crossings and charging transitions (main thread)
+     */
+    public interface Listener {
+        void onBatteryStateChanged(@NonNull BatterySnapshot previous, @NonNull BatterySnapshot current,
+                                   @NonNull String reason);
+    }
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context ctx, Intent intent) {
+            if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                update(intent);
+            } else {
+                // Power connected/disconnected arrives before the next BATTERY_CHANGED
+                Intent sticky = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+                if (sticky != null) {
+                    update(sticky);
+                }
+            }
+        }
+    };
+
+    private BatteryStateMonitor(Context context) {
+        this.context = context.getApplicationContext();
+        this.batteryManager = (BatteryManager) this.context.getSystemService(Context.BATTERY_SERVICE);
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(Intent.ACTION_POWER_CONNECTED);
+        filter.addAction(Intent.ACTION_POWER_DISCONNECTED);
+
+        // BATTERY_CHANGED is sticky: registering returns the current state right away
+        Intent sticky = this.context.registerReceiver(receiver, filter);
+        if (sticky != null) {
+            update(sticky);
+        }
+    }
+
+    public static synchronized BatteryStateMonitor getInstance(Context context) {
+        if (instance == null) {
+            instance = new BatteryStateMonitor(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Current battery state (no IPC)
+     */
+    @NonNull
+    public BatterySnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    public BatterySnapshot.Band getBand() {
+        return snapshot.get().getBand(lowThreshold, criticalThreshold);
+    }
+
+    public void setThresholds(int low, int critical) {
+        this.lowThreshold = low;
+        this.criticalThreshold = critical;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void update(Intent batteryStatus) {
+        int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        int status = batteryStatus.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        int chargePlug = batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, -1);
+
+        // The property is the fuel gauge reading; the sticky extra is what older devices report
+        int capacity = readProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        float batteryPct;
+        if (capacity > 0 && capacity <= 100) {
+            batteryPct = capacity / 100f;
+        } else {
+            // Unsupported (MIN_VALUE, or 0 before Android 9)
+            batteryPct = level >= 0 && scale > 0 ? level / (float) scale : 1.0f;
+        }
+        boolean isCharging = status == BatteryManager.BATTERY_STATUS_CHARGING
+                || status == BatteryManager.BATTERY_STATUS_FULL;
+
+        BatterySnapshot current = new BatterySnapshot(
+                batteryPct,
+                isCharging,
+                chargePlug == BatteryManager.BATTERY_PLUGGED_USB,
+                chargePlug == BatteryManager.BATTERY_PLUGGED_AC,
+                chargePlug == BatteryManager.BATTERY_PLUGGED_WIRELESS,
+                readProperty(BatteryManager.BATTERY_PROPERTY_CURRENT_NOW),
+                readProperty(BatteryManager.BATTERY_PROPERTY_CHARGE_COUNTER),
+                System.currentTimeMillis()
+        );
+        BatterySnapshot previous = snapshot.getAndSet(current);
+
+        String reason = transitionReason(previous, current);
+        if (reason != null) {
+            Log.d(TAG, "🔋 Battery " + reason + " (" + current.getPercent() + "%)");
+            for (Listener listener : listeners) {
+                try {
+                    listener.onBatteryStateChanged(previous, current, reason);
+                } catch (Exception e) {
+                    Log.e(TAG, "Battery listener error: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private String transitionReason(BatterySnapshot previous, BatterySnapshot current) {
+        if (previous == BatterySnapshot.UNKNOWN) {
+            return null;
+        }
+        if (previous.isCharging != current.isCharging) {
+            return current.isCharging ? "charging_started" : "charging_stopped";
+        }
+        BatterySnapshot.Band before = previous.getBand(lowThreshold, criticalThreshold);
+        BatterySnapshot.Band after = current.getBand(lowThreshold, criticalThreshold);
+        if (before != after) {
+            return "band_" + after.name().toLowerCase();
+        }
+        return null;
+    }
+
+    private int readProperty(int property) {
+        if (batteryManager == null) {
+            return Integer.MIN_VALUE;
+        }
+        return batteryManager.getIntProperty(property);
+    }
+}
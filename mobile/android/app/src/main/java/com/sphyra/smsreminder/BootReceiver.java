@@ -3,38 +3,70 @@ package com.sphyra.smsreminder;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.util.Log;
+import android.os.SystemClock;
 
 /**
- * Boot Receiver - Automatically restarts background service after device reboot
+ * Boot Receiver - Re-arms background sync after device reboot
  * if auto-sync was enabled before reboot
+ * Fully native: reads the persisted configuration and re-enqueues the work
+ * without starting MainActivity or React Native
  */
 public class BootReceiver extends BroadcastReceiver {
-    private static final String TAG = "SphyraBootReceiver";
-    private static final String PREFS_NAME = "RN_ASYNC_STORAGE";
-    private static final String AUTO_SYNC_KEY = "@sphyra:autoSyncEnabled";
+    private static final String LOG_CATEGORY = "BOOT";
+
+    // Vendor fast-boot broadcasts (HTC and others) sent instead of BOOT_COMPLETED
+    private static final String ACTION_QUICKBOOT_POWERON = "android.intent.action.QUICKBOOT_POWERON";
+    private static final String ACTION_HTC_QUICKBOOT_POWERON = "com.htc.intent.action.QUICKBOOT_POWERON";
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
-            Log.d(TAG, "Device boot completed - checking if auto-sync was enabled");
-
-            // Check if auto-sync was enabled before reboot
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            boolean autoSyncEnabled = prefs.getBoolean(AUTO_SYNC_KEY, false);
-
-            if (autoSyncEnabled) {
-                Log.d(TAG, "Auto-sync was enabled - launching app to restart background service");
-
-                // Launch MainActivity to initialize React Native and restart service
-                Intent launchIntent = new Intent(context, MainActivity.class);
-                launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                launchIntent.putExtra("autoStartService", true);
-                context.startActivity(launchIntent);
-            } else {
-                Log.d(TAG, "Auto-sync was not enabled - skipping service restart");
+        String action = intent.getAction();
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action)
+                && !ACTION_QUICKBOOT_POWERON.equals(action)
+                && !ACTION_HTC_QUICKBOOT_POWERON.equals(action)) {
+            return;
+        }
+
+        // Storage and WorkManager I/O off the main thread, receiver kept alive until done
+        PendingResult pendingResult = goAsync();
+        Context appContext = context.getApplicationContext();
+        new Thread(() -> {
+            try {
+                recover(appContext);
+            } catch (RuntimeException e) {
+                AppLog.error(appContext, LOG_CATEGORY, "❌ Boot recovery failed: " + e.getMessage());
+            } finally {
+                pendingResult.finish();
             }
+        }, "SphyraBootRecovery").start();
+    }
+
+    private static void recover(Context context) {
+        long startedAt = SystemClock.elapsedRealtime();
+
+        // Check if auto-sync was enabled before reboot (state shared with JS)
+        SyncPolicy.Decision decision = SyncScheduler.recoverAfterBoot(context);
+
+        // Alarms do not survive a reboot; the prefetched reminders do
+        if (decision != null) {
+            ReminderAlarms.schedule(context);
+        }
+
+        // Outcomes recorded before the reboot but never acknowledged
+        long pendingAcks = AckOutbox.getInstance(context).count();
+        if (pendingAcks > 0) {
+            AckFlushWorker.schedule(context);
+        }
+
+        long elapsedMs = SystemClock.elapsedRealtime() - startedAt;
+        SyncSettings.recordBootRecovery(context, elapsedMs);
+
+        if (decision != null) {
+            AppLog.info(context, LOG_CATEGORY, "🔁 Sync re-armed after boot in " + elapsedMs + "ms - next run "
+                    + decision.runAt + " (" + decision.reason + "), " + pendingAcks + " pending acks");
+        } else {
+            AppLog.info(context, LOG_CATEGORY, "Auto-sync was not enabled - skipping (" + elapsedMs + "ms, "
+                    + pendingAcks + " pending acks)");
         }
     }
 }
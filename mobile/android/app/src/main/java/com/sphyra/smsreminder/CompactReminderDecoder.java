@@ -0,0 +1,460 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Options;
+
+/**
+ * Streaming decoder for the compact reminders of /pending, /claim and /upcoming
+ * (Accept: MEDIA_TYPE): { id, phone, message, consent, at } per reminder instead
+ * of the whole appointment, inside the same envelopes as the full format
+ *
+ * Reads the UTF-8 bytes straight from the response's okio buffer, with no Reader
+ * or char buffer in between: field names are matched as bytes, skipped values are
+ * never decoded, and the only Strings created are the ones a PendingReminder keeps
+ */
+public final class CompactReminderDecoder {
+    /** Same as COMPACT_REMINDERS_TYPE in server/src/routes/mobileReminders.ts */
+    public static final String MEDIA_TYPE = "application/vnd.sphyra.reminders.compact+json";
+
+    // Indexes into REMINDER_FIELDS
+    private static final int FIELD_ID = 0;
+    private static final int FIELD_PHONE = 1;
+    private static final int FIELD_MESSAGE = 2;
+    private static final int FIELD_CONSENT = 3;
+    private static final int FIELD_SEND_AT = 4;
+    private static final int FIELD_AT = 5;
+    private static final Options REMINDER_FIELDS = Options.of(
+            ByteString.encodeUtf8("\"id\""),
+            ByteString.encodeUtf8("\"phone\""),
+            ByteString.encodeUtf8("\"message\""),
+            ByteString.encodeUtf8("\"consent\""),
+            ByteString.encodeUtf8("\"sendAt\""),
+            ByteString.encodeUtf8("\"at\""));
+
+    private static final ByteString QUOTE_OR_BACKSLASH = ByteString.encodeUtf8("\"\\");
+    private static final ByteString TRUE = ByteString.encodeUtf8("true");
+    private static final ByteString FALSE = ByteString.encodeUtf8("false");
+    private static final ByteString NULL = ByteString.encodeUtf8("null");
+
+    // Bound for skipped values: nothing in the format nests deeper than the envelope
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * Envelope fields around the reminders: strings, booleans, integers and string
+     * arrays (nextCursor, deltaCursor, cursor, hasMore, remaining, ids); anything
+     * else is skipped
+     */
+    public static final class Envelope {
+        private final Map<String, Object> fields = new HashMap<>();
+
+        @Nullable
+        public String getString(String name) {
+            Object value = fields.get(name);
+            return value instanceof String ? (String) value : null;
+        }
+
+        public boolean getBoolean(String name) {
+            return Boolean.TRUE.equals(fields.get(name));
+        }
+
+        public long getLong(String name, long fallback) {
+            Object value = fields.get(name);
+            return value instanceof Long ? (Long) value : fallback;
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<String> getStrings(String name) {
+            Object value = fields.get(name);
+            return value instanceof List ? (List<String>) value : Collections.emptyList();
+        }
+    }
+
+    private interface ElementReader {
+        void read(BufferedSource source) throws IOException, InterruptedException;
+    }
+
+    private CompactReminderDecoder() {
+    }
+
+    /**
+     * Decode a /pending or /claim response, handing each reminder (of "reminders"
+     * or "added", or of a bare array) to the sink as soon as it is decoded
+     */
+    public static Envelope read(BufferedSource source, PendingReminderDecoder.Sink sink)
+            throws IOException, InterruptedException {
+        return readEnvelope(source, in -> sink.accept(readReminder(in, null)));
+    }
+
+    /**
+     * Decode a GET /upcoming response: the same reminders plus sendAt (ISO)
+     */
+    public static Envelope readUpcoming(BufferedSource source, UpcomingReminders.Sink sink)
+            throws IOException, InterruptedException {
+        long[] sendAt = new long[1];
+        return readEnvelope(source, in -> {
+            sendAt[0] = 0;
+            PendingReminder reminder = readReminder(in, sendAt);
+            if (sendAt[0] == 0) {
+                throw new IOException("Invalid compact reminders payload: missing sendAt");
+            }
+            sink.accept(reminder, sendAt[0]);
+        });
+    }
+
+    private static Envelope readEnvelope(BufferedSource source, ElementReader reminders)
+            throws IOException, InterruptedException {
+        Envelope envelope = new Envelope();
+        // GET /pending without limit answers a bare array
+        if (peek(source) == '[') {
+            readArray(source, reminders);
+            return envelope;
+        }
+
+        expect(source, '{');
+        boolean more = !consume(source, '}');
+        while (more) {
+            String name = readString(source);
+            expect(source, ':');
+            if ("reminders".equals(name) || "added".equals(name)) {
+                readArray(source, reminders);
+            } else {
+                envelope.fields.put(name, readEnvelopeValue(source));
+            }
+            more = nextElement(source, '}');
+        }
+        return envelope;
+    }
+
+    @Nullable
+    private static Object readEnvelopeValue(BufferedSource source) throws IOException {
+        switch (peek(source)) {
+            case '"':
+                return readString(source);
+            case 't':
+            case 'f':
+                return readBoolean(source);
+            case '[':
+                List<String> strings = new ArrayList<>();
+                expect(source, '[');
+                boolean more = !consume(source, ']');
+                while (more) {
+                    if (peek(source) == '"') {
+                        strings.add(readString(source));
+                    } else {
+                        skipValue(source, 1);
+                    }
+                    more = nextElement(source, ']');
+                }
+                return strings;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                return readInteger(source);
+            default:
+                skipValue(source, 0);
+                return null;
+        }
+    }
+
+    private static void readArray(BufferedSource source, ElementReader reader)
+            throws IOException, InterruptedException {
+        expect(source, '[');
+        boolean more = !consume(source, ']');
+        while (more) {
+            reader.read(source);
+            more = nextElement(source, ']');
+        }
+    }
+
+    /**
+     * { id, phone, message, consent, at } - at gives the reminder's due time
+     * @param sendAt when not null, receives sendAt as epoch millis in sendAt[0]
+     */
+    private static PendingReminder readReminder(BufferedSource source, @Nullable long[] sendAt)
+            throws IOException {
+        String appointmentId = null;
+        String phone = null;
+        String message = null;
+        boolean smsConsent = false;
+        long appointmentAt = 0;
+
+        expect(source, '{');
+        boolean more = !consume(source, '}');
+        while (more) {
+            skipWhitespace(source);
+            int field = source.select(REMINDER_FIELDS);
+            if (field == -1) {
+                skipString(source);
+            }
+            expect(source, ':');
+            if (field == FIELD_ID) {
+                appointmentId = readNullableString(source);
+            } else if (field == FIELD_PHONE) {
+                phone = readNullableString(source);
+            } else if (field == FIELD_MESSAGE) {
+                message = readNullableString(source);
+            } else if (field == FIELD_CONSENT && peek(source) != 'n') {
+                smsConsent = readBoolean(source);
+            } else if (field == FIELD_SEND_AT && sendAt != null) {
+                sendAt[0] = parseInstant(readNullableString(source));
+            } else if (field == FIELD_AT) {
+                appointmentAt = parseInstant(readNullableString(source));
+            } else {
+                skipValue(source, 0);
+            }
+            more = nextElement(source, '}');
+        }
+
+        if (appointmentId == null || message == null) {
+            throw new IOException("Invalid compact reminders payload: missing id or message");
+        }
+        return new PendingReminder(appointmentId, phone, message, smsConsent,
+                PendingReminder.dueAtOf(appointmentAt));
+    }
+
+    private static long parseInstant(@Nullable String iso) throws IOException {
+        if (iso == null) {
+            return 0;
+        }
+        try {
+            return Instant.parse(iso).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IOException("Invalid date in compact reminders payload: " + iso, e);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(BufferedSource source) throws IOException {
+        if (peek(source) == 'n') {
+            expectLiteral(source, NULL);
+            return null;
+        }
+        return readString(source);
+    }
+
+    /**
+     * Decodes the UTF-8 bytes up to the closing quote in one go; only strings with
+     * escapes (quotes, newlines in a message) go through a StringBuilder
+     */
+    private static String readString(BufferedSource source) throws IOException {
+        expect(source, '"');
+        StringBuilder builder = null;
+        while (true) {
+            long index = indexOfQuoteOrBackslash(source);
+            if (source.getBuffer().getByte(index) == '"') {
+                String tail = source.readUtf8(index);
+                source.skip(1);
+                return builder == null ? tail : builder.append(tail).toString();
+            }
+            if (builder == null) {
+                builder = new StringBuilder();
+            }
+            builder.append(source.readUtf8(index));
+            source.skip(1);
+            builder.append(readEscape(source));
+        }
+    }
+
+    private static char readEscape(BufferedSource source) throws IOException {
+        byte escaped = source.readByte();
+        switch (escaped) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) escaped;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                // A surrogate pair arrives as two escapes and is joined by the StringBuilder
+                String hex = source.readUtf8(4);
+                try {
+                    return (char) Integer.parseInt(hex, 16);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid escape in compact reminders payload: \\u" + hex, e);
+                }
+            default:
+                throw new IOException("Invalid escape in compact reminders payload: \\" + (char) escaped);
+        }
+    }
+
+    private static void skipString(BufferedSource source) throws IOException {
+        expect(source, '"');
+        while (true) {
+            long index = indexOfQuoteOrBackslash(source);
+            boolean quote = source.getBuffer().getByte(index) == '"';
+            source.skip(index + 1);
+            if (quote) {
+                return;
+            }
+            source.skip(source.readByte() == 'u' ? 4 : 0);
+        }
+    }
+
+    private static long indexOfQuoteOrBackslash(BufferedSource source) throws IOException {
+        long index = source.indexOfElement(QUOTE_OR_BACKSLASH);
+        if (index == -1) {
+            throw new IOException("Invalid compact reminders payload: unterminated string");
+        }
+        return index;
+    }
+
+    private static boolean readBoolean(BufferedSource source) throws IOException {
+        if (peek(source) == 't') {
+            expectLiteral(source, TRUE);
+            return true;
+        }
+        expectLiteral(source, FALSE);
+        return false;
+    }
+
+    private static void skipValue(BufferedSource source, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Invalid compact reminders payload: nested too deep");
+        }
+        byte next = peek(source);
+        if (next == '{' || next == '[') {
+            char close = next == '{' ? '}' : ']';
+            source.skip(1);
+            boolean more = !consume(source, close);
+            while (more) {
+                if (close == '}') {
+                    skipWhitespace(source);
+                    skipString(source);
+                    expect(source, ':');
+                }
+                skipValue(source, depth + 1);
+                more = nextElement(source, close);
+            }
+        } else if (next == '"') {
+            skipString(source);
+        } else if (next == 't' || next == 'f') {
+            readBoolean(source);
+        } else if (next == 'n') {
+            expectLiteral(source, NULL);
+        } else {
+            skipNumber(source);
+        }
+    }
+
+    private static void skipNumber(BufferedSource source) throws IOException {
+        source.skip(numberLength(source));
+    }
+
+    /**
+     * @return the number as a Long, or null (consumed) when it is not an integer
+     */
+    @Nullable
+    private static Long readInteger(BufferedSource source) throws IOException {
+        String text = source.readUtf8(numberLength(source));
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long numberLength(BufferedSource source) throws IOException {
+        long length = 0;
+        while (source.request(length + 1) && isNumberByte(source.getBuffer().getByte(length))) {
+            length++;
+        }
+        if (length == 0) {
+            throw syntaxError(source, "a value");
+        }
+        return length;
+    }
+
+    private static boolean isNumberByte(byte b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    private static void skipWhitespace(BufferedSource source) throws IOException {
+        while (source.request(1)) {
+            byte b = source.getBuffer().getByte(0);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            source.skip(1);
+        }
+    }
+
+    /**
+     * Next non-whitespace byte, not consumed
+     */
+    private static byte peek(BufferedSource source) throws IOException {
+        skipWhitespace(source);
+        if (!source.request(1)) {
+            throw new IOException("Invalid compact reminders payload: truncated");
+        }
+        return source.getBuffer().getByte(0);
+    }
+
+    private static void expect(BufferedSource source, char expected) throws IOException {
+        if (peek(source) != expected) {
+            throw syntaxError(source, "'" + expected + "'");
+        }
+        source.skip(1);
+    }
+
+    private static void expectLiteral(BufferedSource source, ByteString literal) throws IOException {
+        if (!source.rangeEquals(0, literal)) {
+            throw syntaxError(source, literal.utf8());
+        }
+        source.skip(literal.size());
+    }
+
+    /**
+     * Consumes the byte when it is the next one
+     */
+    private static boolean consume(BufferedSource source, char expected) throws IOException {
+        if (peek(source) != expected) {
+            return false;
+        }
+        source.skip(1);
+        return true;
+    }
+
+    /**
+     * After an element: true on ',' (another one follows), false on the closing byte
+     */
+    private static boolean nextElement(BufferedSource source, char close) throws IOException {
+        if (consume(source, ',')) {
+            return true;
+        }
+        expect(source, close);
+        return false;
+    }
+
+    private static IOException syntaxError(BufferedSource source, String expected) throws IOException {
+        String found = source.request(1) ? "'" + (char) source.getBuffer().getByte(0) + "'" : "end of input";
+        return new IOException("Invalid compact reminders payload: expected " + expected + ", found " + found);
+    }
+}
@@ -0,0 +1,262 @@
+package com.sphyra.smsreminder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rolling history of measured sessions (EnergySession), oldest dropped first,
+ * with the aggregates that drive interval decisions: cost per sync, per fetch,
+ * per SMS, and of a poll that found nothing to send
+ * Aggregates only use sync runs measured on battery: a session while charging
+ * says nothing about drain
+ *
+ * EnergyMeter persists it
+ */
+public final class EnergyHistory {
+    public static final int DEFAULT_CAPACITY = 200;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final double P95 = 0.95;
+
+    /**
+     * One measured session
+     */
+    public static final class Record {
+        public final String kind;
+        /** Epoch millis */
+        public final long startedAt;
+        public final long durationMs;
+        public final int samples;
+        /** Whole session */
+        public final double microAmpHours;
+        /** Part of microAmpHours with a fetch in flight */
+        public final double fetchMicroAmpHours;
+        public final int fetches;
+        /** SMS handed to the radio */
+        public final int sms;
+        /** Drop of the charge counter, EnergySession.UNKNOWN if unsupported */
+        public final int counterMicroAmpHours;
+        /** Mean of CURRENT_AVERAGE, EnergySession.UNKNOWN if unsupported */
+        public final int averageCurrentMicroAmps;
+        public final boolean charging;
+        /** False when microAmpHours comes from the charge counter alone (coarse) */
+        public final boolean integrated;
+
+        public Record(String kind, long startedAt, long durationMs, int samples, double microAmpHours,
+                      double fetchMicroAmpHours, int fetches, int sms, int counterMicroAmpHours,
+                      int averageCurrentMicroAmps, boolean charging, boolean integrated) {
+            this.kind = kind;
+            this.startedAt = startedAt;
+            this.durationMs = durationMs;
+            this.samples = samples;
+            this.microAmpHours = microAmpHours;
+            this.fetchMicroAmpHours = fetchMicroAmpHours;
+            this.fetches = fetches;
+            this.sms = sms;
+            this.counterMicroAmpHours = counterMicroAmpHours;
+            this.averageCurrentMicroAmps = averageCurrentMicroAmps;
+            this.charging = charging;
+            this.integrated = integrated;
+        }
+
+        /**
+         * On battery, with a current reading or at least the charge counter
+         */
+        public boolean isMeasured() {
+            return !charging && (integrated || counterMicroAmpHours != EnergySession.UNKNOWN);
+        }
+
+        /**
+         * Everything but the fetches: SMS, acks, and what the run costs anyway
+         */
+        public double getSmsMicroAmpHours() {
+            return Math.max(0, microAmpHours - fetchMicroAmpHours);
+        }
+
+        /**
+         * A sync run that sent nothing: what a poll costs when there is nothing to do
+         */
+        public boolean isIdlePoll() {
+            return EnergySession.KIND_SYNC.equals(kind) && sms == 0;
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeUTF(kind);
+            out.writeLong(startedAt);
+            out.writeLong(durationMs);
+            out.writeInt(samples);
+            out.writeDouble(microAmpHours);
+            out.writeDouble(fetchMicroAmpHours);
+            out.writeInt(fetches);
+            out.writeInt(sms);
+            out.writeInt(counterMicroAmpHours);
+            out.writeInt(averageCurrentMicroAmps);
+            out.writeBoolean(charging);
+            out.writeBoolean(integrated);
+        }
+
+        static Record readFrom(DataInput in) throws IOException {
+            return new Record(in.readUTF(), in.readLong(), in.readLong(), in.readInt(), in.readDouble(),
+                    in.readDouble(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readBoolean(),
+                    in.readBoolean());
+        }
+    }
+
+    /**
+     * Mean and p95 of a cost in µAh; count is the number of units (syncs, fetches, SMS)
+     */
+    public static final class Aggregate {
+        public static final Aggregate EMPTY = new Aggregate(0, 0, 0);
+
+        public final long count;
+        public final double mean;
+        public final double p95;
+
+        Aggregate(long count, double mean, double p95) {
+            this.count = count;
+            this.mean = mean;
+            this.p95 = p95;
+        }
+    }
+
+    /**
+     * Aggregates over the measured sync runs of the history
+     * perFetch and perSms: mean over all units (total µAh / total count), p95 over
+     * the per-run unit costs, so one expensive run stands out
+     */
+    public static final class Stats {
+        public final int sessions;
+        public final Aggregate perSync;
+        public final Aggregate perFetch;
+        public final Aggregate perSms;
+        public final Aggregate idlePoll;
+
+        Stats(int sessions, Aggregate perSync, Aggregate perFetch, Aggregate perSms, Aggregate idlePoll) {
+            this.sessions = sessions;
+            this.perSync = perSync;
+            this.perFetch = perFetch;
+            this.perSms = perSms;
+            this.idlePoll = idlePoll;
+        }
+    }
+
+    private final int capacity;
+    private final ArrayDeque<Record> records;
+
+    public EnergyHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EnergyHistory(int capacity) {
+        this.capacity = capacity;
+        this.records = new ArrayDeque<>(capacity);
+    }
+
+    public synchronized void add(Record record) {
+        if (records.size() == capacity) {
+            records.pollFirst();
+        }
+        records.addLast(record);
+    }
+
+    /**
+     * Copy of the records, oldest first
+     */
+    public synchronized List<Record> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+    public synchronized void clear() {
+        records.clear();
+    }
+
+    public synchronized Stats getStats() {
+        List<Double> syncs = new ArrayList<>();
+        List<Double> idle = new ArrayList<>();
+        List<Double> fetchCosts = new ArrayList<>();
+        List<Double> smsCosts = new ArrayList<>();
+        double fetchTotal = 0;
+        long fetches = 0;
+        double smsTotal = 0;
+        long sms = 0;
+
+        for (Record record : records) {
+            if (!EnergySession.KIND_SYNC.equals(record.kind) || !record.isMeasured()) {
+                continue;
+            }
+            syncs.add(record.microAmpHours);
+            if (record.isIdlePoll()) {
+                idle.add(record.microAmpHours);
+            }
+            // Only integrated runs tell fetch and SMS apart
+            if (record.integrated && record.fetches > 0) {
+                fetchCosts.add(record.fetchMicroAmpHours / record.fetches);
+                fetchTotal += record.fetchMicroAmpHours;
+                fetches += record.fetches;
+            }
+            if (record.integrated && record.sms > 0) {
+                smsCosts.add(record.getSmsMicroAmpHours() / record.sms);
+                smsTotal += record.getSmsMicroAmpHours();
+                sms += record.sms;
+            }
+        }
+
+        return new Stats(syncs.size(),
+                aggregate(syncs.size(), sum(syncs), syncs),
+                aggregate(fetches, fetchTotal, fetchCosts),
+                aggregate(sms, smsTotal, smsCosts),
+                aggregate(idle.size(), sum(idle), idle));
+    }
+
+    private static Aggregate aggregate(long count, double total, List<Double> values) {
+        if (count == 0 || values.isEmpty()) {
+            return Aggregate.EMPTY;
+        }
+        Collections.sort(values);
+        // Nearest rank
+        int rank = (int) Math.ceil(P95 * values.size());
+        return new Aggregate(count, total / count, values.get(Math.max(0, rank - 1)));
+    }
+
+    private static double sum(List<Double> values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(records.size());
+        for (Record record : records) {
+            record.writeTo(out);
+        }
+    }
+
+    /**
+     * Replace the records with the ones written by writeTo (the newest ones beyond the capacity)
+     */
+    public synchronized void readFrom(DataInput in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown energy history format");
+        }
+        int count = in.readInt();
+        if (count < 0 || count > 100_000) {
+            throw new IOException("Corrupt energy history");
+        }
+        records.clear();
+        for (int i = 0; i < count; i++) {
+            add(Record.readFrom(in));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.os.BatteryManager;
+import android.os.SystemClock;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a sync costs in battery charge
+ * While a session runs, CURRENT_NOW, CURRENT_AVERAGE and CHARGE_COUNTER are
+ * read every sample interval (SyncSettings, set from JS) and integrated by the
+ * EnergySession; finished sessions go to a rolling EnergyHistory in
+ * files/energy_history.bin, read by BatteryManagerModule
+ *
+ * One session at a time: a second start gets null, except for a sync run,
+ * which ends a session started from JS (recorded as it stands) rather than
+ * going unmeasured - a JS session left running by a reload or a crash must
+ * not keep every later sync from being measured
+ */
+public final class EnergyMeter {
+    private static final String TAG = "EnergyMeter";
+    private static final String FILE_NAME = "energy_history.bin";
+
+    public static final long DEFAULT_SAMPLE_INTERVAL_MS = 1000;
+    // Fuel gauges rarely refresh faster than this; slower would miss a whole SMS
+    public static final long MIN_SAMPLE_INTERVAL_MS = 100;
+    public static final long MAX_SAMPLE_INTERVAL_MS = 10_000;
+
+    private static volatile EnergyMeter instance;
+
+    private final Context context;
+    @Nullable private final BatteryManager batteryManager;
+    private final AtomicFile file;
+    private final EnergyHistory history = new EnergyHistory();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SphyraEnergySampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Nullable private EnergySession active;
+    @Nullable private ScheduledFuture<?> sampling;
+
+    private EnergyMeter(Context context) {
+        this.context = context.getApplicationContext();
+        this.batteryManager = (BatteryManager) this.context.getSystemService(Context.BATTERY_SERVICE);
+        this.file = new AtomicFile(new File(this.context.getFilesDir(), FILE_NAME));
+        load();
+    }
+
+    public static EnergyMeter getInstance(Context context) {
+        if (instance == null) {
+            synchronized (EnergyMeter.class) {
+                if (instance == null) {
+                    instance = new EnergyMeter(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start sampling for a new session
+     * @return null when another session is running (for a sync run: another sync run)
+     */
+    @Nullable
+    public synchronized EnergySession start(String kind) {
+        if (active != null) {
+            if (!EnergySession.KIND_SYNC.equals(kind) || EnergySession.KIND_SYNC.equals(active.getKind())) {
+                return null;
+            }
+            Log.w(TAG, "⚠️ Sync run ends the \"" + active.getKind() + "\" session still measuring");
+            stop(active);
+        }
+        EnergySession session = new EnergySession(kind, System.currentTimeMillis(), SystemClock.elapsedRealtime());
+        long intervalMs = SyncSettings.getEnergySampleIntervalMs(context);
+        active = session;
+        sampling = sampler.scheduleAtFixedRate(() -> sample(session), 0, intervalMs, TimeUnit.MILLISECONDS);
+        return session;
+    }
+
+    /**
+     * Stop the session and add it to the history
+     * @return null when the session is not the running one (already stopped)
+     */
+    @Nullable
+    public synchronized EnergyHistory.Record stop(EnergySession session) {
+        if (active != session) {
+            return null;
+        }
+        if (sampling != null) {
+            sampling.cancel(false);
+            sampling = null;
+        }
+        active = null;
+
+        // Closes the last interval, however short
+        sample(session);
+        EnergyHistory.Record record = session.finish(SystemClock.elapsedRealtime());
+        history.add(record);
+        save();
+        Log.d(TAG, String.format("🔋 %s: %.1f µAh in %d ms (%d fetches, %d SMS, %d samples)%s",
+                record.kind, record.microAmpHours, record.durationMs, record.fetches, record.sms, record.samples,
+                record.isMeasured() ? "" : " - not measured"));
+        return record;
+    }
+
+    @Nullable
+    public synchronized EnergySession getActive() {
+        return active;
+    }
+
+    public EnergyHistory getHistory() {
+        return history;
+    }
+
+    public synchronized void reset() {
+        history.clear();
+        file.delete();
+    }
+
+    private void sample(EnergySession session) {
+        session.sample(SystemClock.elapsedRealtime(),
+                readProperty(BatteryManager.BATTERY_PROPERTY_CURRENT_NOW),
+                readProperty(BatteryManager.BATTERY_PROPERTY_CURRENT_AVERAGE),
+                readProperty(BatteryManager.BATTERY_PROPERTY_CHARGE_COUNTER),
+                BatteryStateMonitor.getInstance(context).getSnapshot().isCharging);
+    }
+
+    private int readProperty(int property) {
+        if (batteryManager == null) {
+            return EnergySession.UNKNOWN;
+        }
+        return batteryManager.getIntProperty(property);
+    }
+
+    private void save() {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            history.writeTo(out);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Could not save energy history: " + e.getMessage());
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private void load() {
+        if (!file.getBaseFile().exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            history.readFrom(in);
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Unreadable energy history, starting over: " + e.getMessage());
+            history.clear();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.sphyra.smsreminder;
+
+/**
+ * Battery drain of one measured operation (a sync run, or a session started from JS)
+ * EnergyMeter feeds it BatteryManager samples at a fixed rate; the current is
+ * integrated over time (trapezoids) into µAh, with the intervals that had a
+ * fetch in flight counted apart, so a run splits into fetch and SMS cost
+ *
+ * Thread-safe: the sampler thread, the fetcher thread and the SMS result
+ * receiver call it concurrently
+ */
+public final class EnergySession {
+    /** Sync runs of ReminderSyncWorker, the only kind EnergyHistory aggregates */
+    public static final String KIND_SYNC = "sync";
+
+    // Same as BatterySnapshot: Integer.MIN_VALUE when the property is not supported
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final double MS_PER_HOUR = 3_600_000.0;
+
+    private final String kind;
+    private final long startedAt;
+    private final long startedElapsedMs;
+
+    private int samples;
+    // Sample intervals integrated (both ends with a current reading)
+    private int intervals;
+    private boolean charging;
+    private double microAmpHours;
+    private double fetchMicroAmpHours;
+    private long lastDrainMicroAmps = -1;
+    private long lastSampleMs;
+    private int firstCounter = UNKNOWN;
+    private int lastCounter = UNKNOWN;
+    private long averageCurrentSum;
+    private int averageCurrentSamples;
+
+    private int fetchesInFlight;
+    // A fetch was in flight at some point since the previous sample
+    private boolean fetchSinceLastSample;
+    private int fetches;
+    private int sms;
+
+    /**
+     * @param startedAt epoch millis, for the history
+     * @param startedElapsedMs monotonic clock of the first sample (SystemClock.elapsedRealtime)
+     */
+    public EnergySession(String kind, long startedAt, long startedElapsedMs) {
+        this.kind = kind;
+        this.startedAt = startedAt;
+        this.startedElapsedMs = startedElapsedMs;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * One reading of BATTERY_PROPERTY_CURRENT_NOW, CURRENT_AVERAGE (µA) and CHARGE_COUNTER (µAh)
+     * Manufacturers disagree on the sign of the current, so its magnitude is taken
+     * as the drain; samples taken while charging mark the whole session unmeasured
+     * @param elapsedMs monotonic clock of the reading
+     */
+    public synchronized void sample(long elapsedMs, int currentNowMicroAmps, int currentAverageMicroAmps,
+                                    int chargeCounterMicroAmpHours, boolean isCharging) {
+        if (elapsedMs < lastSampleMs) {
+            // Read before the sample that closed the session, delivered after it
+            return;
+        }
+        samples++;
+        charging |= isCharging;
+
+        if (chargeCounterMicroAmpHours != UNKNOWN && chargeCounterMicroAmpHours > 0) {
+            if (firstCounter == UNKNOWN) {
+                firstCounter = chargeCounterMicroAmpHours;
+            }
+            lastCounter = chargeCounterMicroAmpHours;
+        }
+        if (isKnownCurrent(currentAverageMicroAmps)) {
+            averageCurrentSum += Math.abs((long) currentAverageMicroAmps);
+            averageCurrentSamples++;
+        }
+
+        // CURRENT_NOW follows short radio bursts; CURRENT_AVERAGE stands in where it is missing
+        long drain = isKnownCurrent(currentNowMicroAmps) ? Math.abs((long) currentNowMicroAmps)
+                : isKnownCurrent(currentAverageMicroAmps) ? Math.abs((long) currentAverageMicroAmps) : -1;
+        if (drain < 0) {
+            return;
+        }
+        if (lastDrainMicroAmps >= 0 && elapsedMs > lastSampleMs) {
+            double interval = (lastDrainMicroAmps + drain) / 2.0 * (elapsedMs - lastSampleMs) / MS_PER_HOUR;
+            microAmpHours += interval;
+            intervals++;
+            if (fetchSinceLastSample) {
+                fetchMicroAmpHours += interval;
+            }
+        }
+        lastDrainMicroAmps = drain;
+        lastSampleMs = elapsedMs;
+        fetchSinceLastSample = fetchesInFlight > 0;
+    }
+
+    /**
+     * A request to the backend starts (claim, page, delta)
+     */
+    public synchronized void beginFetch() {
+        fetches++;
+        fetchesInFlight++;
+        fetchSinceLastSample = true;
+    }
+
+    public synchronized void endFetch() {
+        fetchesInFlight = Math.max(0, fetchesInFlight - 1);
+    }
+
+    /**
+     * An SMS went to the radio (already sent ones skipped by the ledger do not count)
+     */
+    public synchronized void recordSms() {
+        sms++;
+    }
+
+    /**
+     * The session as a history record
+     * @param endedElapsedMs monotonic clock at the end (after the last sample)
+     */
+    public synchronized EnergyHistory.Record finish(long endedElapsedMs) {
+        boolean integrated = intervals > 0;
+        int counterDrop = firstCounter != UNKNOWN && lastCounter != UNKNOWN
+                ? Math.max(0, firstCounter - lastCounter) : UNKNOWN;
+        // Without a current reading, the charge counter (often in 1000 µAh steps) is all there is
+        double total = integrated ? microAmpHours : counterDrop != UNKNOWN ? counterDrop : 0;
+        return new EnergyHistory.Record(kind, startedAt, Math.max(0, endedElapsedMs - startedElapsedMs), samples,
+                total, integrated ? fetchMicroAmpHours : 0, fetches, sms, counterDrop,
+                averageCurrentSamples > 0 ? (int) (averageCurrentSum / averageCurrentSamples) : UNKNOWN,
+                charging, integrated);
+    }
+
+    // Some devices answer 0 instead of Integer.MIN_VALUE for an unsupported current
+    private static boolean isKnownCurrent(int microAmps) {
+        return microAmps != UNKNOWN && microAmps != 0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.sphyra.smsreminder;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Thin native module over SharedHttpClient for apiClient.ts
+ * JS keeps building the requests (base URL, token, ETag cache); this module
+ * only sends them over the shared connection pool
+ */
+public class HttpModule extends ReactContextBaseJavaModule {
+    private static final String TAG = "HttpModule";
+    private static final String MODULE_NAME = "HttpModule";
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    public HttpModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return MODULE_NAME;
+    }
+
+    /**
+     * Send one request; any HTTP status resolves, only network errors reject
+     * @param options { method, url, headers?, body? (JSON string) }
+     * @return { status, headers (lower-case names), body }
+     */
+    @ReactMethod
+    public void request(ReadableMap options, Promise promise) {
+        Request request;
+        try {
+            String method = options.getString("method");
+            String body = options.hasKey("body") && !options.isNull("body") ? options.getString("body") : null;
+            Request.Builder builder = new Request.Builder()
+                    .url(options.getString("url"))
+                    .method(method, body != null ? RequestBody.create(body, JSON) : null);
+            if (options.hasKey("headers") && !options.isNull("headers")) {
+                ReadableMap headers = options.getMap("headers");
+                ReadableMapKeySetIterator names = headers.keySetIterator();
+                while (names.hasNextKey()) {
+                    String name = names.nextKey();
+                    builder.header(name, headers.getString(name));
+                }
+            }
+            request = builder.build();
+        } catch (Exception e) {
+            promise.reject("HTTP_ERROR", "Invalid request: " + e.getMessage());
+            return;
+        }
+
+        SharedHttpClient.get().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                try (Response closing = response) {
+                    WritableMap headers = Arguments.createMap();
+                    Headers received = closing.headers();
+                    for (int i = 0; i < received.size(); i++) {
+                        headers.putString(received.name(i).toLowerCase(), received.value(i));
+                    }
+
+                    WritableMap result = Arguments.createMap();
+                    result.putInt("status", closing.code());
+                    result.putMap("headers", headers);
+                    result.putString("body", closing.body().string());
+                    promise.resolve(result);
+                } catch (IOException e) {
+                    promise.reject("HTTP_ERROR", "Failed to read response: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                Log.w(TAG, "⚠️ " + call.request().method() + " " + call.request().url().encodedPath()
+                        + " failed: " + e.getMessage());
+                promise.reject("HTTP_ERROR", "Request failed: " + e.getMessage());
+            }
+        });
+    }
+}
@@ -10,9 +10,9 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * Package to register WorkManager native module
+ * Package to register Http native module
  */
-public class WorkManagerPackage implements ReactPackage {
+public class HttpPackage implements ReactPackage {
 
     @Override
     public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
@@ -22,7 +22,7 @@ public class WorkManagerPackage implements ReactPackage {
     @Override
     public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
         List<NativeModule> modules = new ArrayList<>();
-        modules.add(new WorkManagerModule(reactContext));
+        modules.add(new HttpModule(reactContext));
         return modules;
     }
 }
@@ -0,0 +1,372 @@
+package com.sphyra.smsreminder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Typed key-value store backed by a memory-mapped append log
+ * Reads are HashMap lookups; each commit appends one checksummed batch and
+ * then advances the committed end in the header, so multi-key updates are
+ * atomic (a batch interrupted by a crash is ignored on the next load).
+ * When the log is full it is compacted into a new file and renamed over.
+ *
+ * File layout:
+ *   [magic:int][version:int][end:int][reserved:int]
+ *   batches: [len:int][crc32:int][count:int] entries...
+ *   entry:   [type:byte][keyLen:short][key utf8][value]
+ */
+public class KvStore {
+    private static final int MAGIC = 0x534B5653; // "SKVS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int OFF_END = 8;
+    private static final int BATCH_HEADER = 12;
+    private static final int DEFAULT_MAP_SIZE = 64 * 1024;
+
+    private static final byte TYPE_REMOVED = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_DOUBLE = 3;
+    private static final byte TYPE_STRING = 4;
+
+    private final File file;
+    private final Map<String, Object> values = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int mapSize;
+
+    /**
+     * Pending changes, written in one atomic batch by commit()
+     * A null value removes the key
+     */
+    public final class Editor {
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+
+        public Editor putString(String key, String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        public Editor putLong(String key, long value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        public Editor putDouble(String key, double value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        public Editor putBoolean(String key, boolean value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        /**
+         * Boolean, Long/Integer, Double, String or null (= remove)
+         */
+        public Editor put(String key, Object value) {
+            if (value instanceof Integer) {
+                value = ((Integer) value).longValue();
+            }
+            if (value != null && !(value instanceof Boolean || value instanceof Long
+                    || value instanceof Double || value instanceof String)) {
+                throw new IllegalArgumentException("Unsupported value type for " + key);
+            }
+            changes.put(key, value);
+            return this;
+        }
+
+        public Editor remove(String key) {
+            changes.put(key, null);
+            return this;
+        }
+
+        public void commit() throws IOException {
+            if (!changes.isEmpty()) {
+                KvStore.this.commit(changes);
+            }
+        }
+    }
+
+    public KvStore(File file) throws IOException {
+        this.file = file;
+        long existing = file.exists() ? file.length() : 0;
+        this.mapSize = (int) Math.max(DEFAULT_MAP_SIZE, existing);
+        this.buffer = map(file, mapSize);
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(OFF_END, HEADER_SIZE);
+        } else {
+            load();
+        }
+    }
+
+    public Editor edit() {
+        return new Editor();
+    }
+
+    public synchronized boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    public synchronized Object get(String key) {
+        return values.get(key);
+    }
+
+    public synchronized String getString(String key, String defaultValue) {
+        Object value = values.get(key);
+        return value instanceof String ? (String) value : defaultValue;
+    }
+
+    public synchronized long getLong(String key, long defaultValue) {
+        Object value = values.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    public synchronized double getDouble(String key, double defaultValue) {
+        Object value = values.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+    }
+
+    public synchronized boolean getBoolean(String key, boolean defaultValue) {
+        Object value = values.get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    /**
+     * Copy of all entries
+     */
+    public synchronized Map<String, Object> getAll() {
+        return new HashMap<>(values);
+    }
+
+    /**
+     * Remove every key (one atomic batch)
+     */
+    public synchronized void clear() throws IOException {
+        Map<String, Object> removals = new LinkedHashMap<>();
+        for (String key : values.keySet()) {
+            removals.put(key, null);
+        }
+        if (!removals.isEmpty()) {
+            commit(removals);
+        }
+    }
+
+    private synchronized void commit(Map<String, Object> changes) throws IOException {
+        byte[] batch = encodeBatch(changes);
+        int end = buffer.getInt(OFF_END);
+
+        if (end + batch.length > mapSize) {
+            Map<String, Object> merged = new HashMap<>(values);
+            apply(merged, changes);
+            compact(merged);
+            values.clear();
+            values.putAll(merged);
+            return;
+        }
+
+        writeBytes(end, batch);
+        // Header last: the batch only becomes visible once it is fully written
+        buffer.putInt(OFF_END, end + batch.length);
+        apply(values, changes);
+    }
+
+    /**
+     * Rewrite live entries as a single batch into a fresh file, then swap it in
+     */
+    private void compact(Map<String, Object> live) throws IOException {
+        byte[] batch = encodeBatch(live);
+        int size = DEFAULT_MAP_SIZE;
+        while (size < (HEADER_SIZE + batch.length) * 2) {
+            size *= 2;
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        if (tmp.exists() && !tmp.delete()) {
+            throw new IOException("Cannot delete " + tmp);
+        }
+        MappedByteBuffer fresh = map(tmp, size);
+        fresh.putInt(0, MAGIC);
+        fresh.putInt(4, VERSION);
+        ByteBuffer view = fresh.duplicate();
+        view.position(HEADER_SIZE);
+        view.put(batch);
+        fresh.putInt(OFF_END, HEADER_SIZE + batch.length);
+        fresh.force();
+
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+        buffer = fresh;
+        mapSize = size;
+    }
+
+    private void load() {
+        int end = buffer.getInt(OFF_END);
+        if (end < HEADER_SIZE || end > mapSize) {
+            end = HEADER_SIZE;
+        }
+
+        int pos = HEADER_SIZE;
+        while (pos + BATCH_HEADER <= end) {
+            int length = buffer.getInt(pos);
+            if (length < BATCH_HEADER || pos + length > end) {
+                break;
+            }
+            byte[] batch = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(pos);
+            view.get(batch);
+            if (!checksumMatches(batch)) {
+                break;
+            }
+            decodeBatch(ByteBuffer.wrap(batch));
+            pos += length;
+        }
+        // Drop anything after the last valid batch
+        buffer.putInt(OFF_END, pos);
+    }
+
+    private void decodeBatch(ByteBuffer batch) {
+        batch.position(8);
+        int count = batch.getInt();
+        for (int i = 0; i < count; i++) {
+            byte type = batch.get();
+            String key = readString(batch, batch.getShort() & 0xFFFF);
+            switch (type) {
+                case TYPE_BOOLEAN:
+                    values.put(key, batch.get() != 0);
+                    break;
+                case TYPE_LONG:
+                    values.put(key, batch.getLong());
+                    break;
+                case TYPE_DOUBLE:
+                    values.put(key, batch.getDouble());
+                    break;
+                case TYPE_STRING:
+                    values.put(key, readString(batch, batch.getInt()));
+                    break;
+                default:
+                    values.remove(key);
+                    break;
+            }
+        }
+    }
+
+    private static byte[] encodeBatch(Map<String, Object> changes) {
+        int size = BATCH_HEADER;
+        Map<String, byte[]> keyBytes = new HashMap<>();
+        Map<String, byte[]> stringBytes = new HashMap<>();
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            keyBytes.put(entry.getKey(), key);
+            size += 1 + 2 + key.length;
+            Object value = entry.getValue();
+            if (value instanceof Boolean) {
+                size += 1;
+            } else if (value instanceof Long || value instanceof Double) {
+                size += 8;
+            } else if (value instanceof String) {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                stringBytes.put(entry.getKey(), bytes);
+                size += 4 + bytes.length;
+            }
+        }
+
+        ByteBuffer batch = ByteBuffer.allocate(size);
+        batch.putInt(size);
+        batch.putInt(0); // crc placeholder
+        batch.putInt(changes.size());
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            Object value = entry.getValue();
+            byte[] key = keyBytes.get(entry.getKey());
+            batch.put(typeOf(value));
+            batch.putShort((short) key.length);
+            batch.put(key);
+            if (value instanceof Boolean) {
+                batch.put((byte) ((Boolean) value ? 1 : 0));
+            } else if (value instanceof Long) {
+                batch.putLong((Long) value);
+            } else if (value instanceof Double) {
+                batch.putDouble((Double) value);
+            } else if (value instanceof String) {
+                byte[] bytes = stringBytes.get(entry.getKey());
+                batch.putInt(bytes.length);
+                batch.put(bytes);
+            }
+        }
+
+        byte[] bytes = batch.array();
+        ByteBuffer.wrap(bytes).putInt(4, crc(bytes));
+        return bytes;
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof Boolean) {
+            return TYPE_BOOLEAN;
+        } else if (value instanceof Long) {
+            return TYPE_LONG;
+        } else if (value instanceof Double) {
+            return TYPE_DOUBLE;
+        } else if (value instanceof String) {
+            return TYPE_STRING;
+        }
+        return TYPE_REMOVED;
+    }
+
+    private static boolean checksumMatches(byte[] batch) {
+        int stored = ByteBuffer.wrap(batch).getInt(4);
+        return stored == crc(batch);
+    }
+
+    /**
+     * CRC32 of the batch with the crc field itself excluded
+     */
+    private static int crc(byte[] batch) {
+        CRC32 crc = new CRC32();
+        crc.update(batch, 0, 4);
+        crc.update(batch, 8, batch.length - 8);
+        return (int) crc.getValue();
+    }
+
+    private static void apply(Map<String, Object> target, Map<String, Object> changes) {
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            if (entry.getValue() == null) {
+                target.remove(entry.getKey());
+            } else {
+                target.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void writeBytes(int index, byte[] bytes) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(index);
+        view.put(bytes);
+    }
+
+    private static String readString(ByteBuffer source, int length) {
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer map(File target, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(target, "rw");
+             FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
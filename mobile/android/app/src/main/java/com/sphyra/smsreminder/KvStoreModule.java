@@ -0,0 +1,107 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Native module for the shared key-value store
+ * Reads and writes are synchronous: values live in memory and commits are
+ * appended to a memory-mapped file, so a call costs microseconds
+ */
+public class KvStoreModule extends ReactContextBaseJavaModule {
+    private static final String MODULE_NAME = "KvStoreModule";
+    private static final String LOG_CATEGORY = "KVSTORE";
+
+    private final ReactApplicationContext reactContext;
+
+    public KvStoreModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return MODULE_NAME;
+    }
+
+    /**
+     * Read one key
+     * @return { value } or an empty map if the key is missing
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap get(String key) {
+        WritableMap result = Arguments.createMap();
+        putValue(result, "value", SyncSettings.store(reactContext).get(key));
+        return result;
+    }
+
+    /**
+     * Read several keys at once (missing keys are omitted)
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getMany(ReadableArray keys) {
+        KvStore store = SyncSettings.store(reactContext);
+        WritableMap result = Arguments.createMap();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.getString(i);
+            putValue(result, key, store.get(key));
+        }
+        return result;
+    }
+
+    /**
+     * Write several keys atomically (null removes the key)
+     * @param values { key: string | number | boolean | null }
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean commit(ReadableMap values) {
+        try {
+            KvStore.Editor editor = SyncSettings.store(reactContext).edit();
+            ReadableMapKeySetIterator iterator = values.keySetIterator();
+            while (iterator.hasNextKey()) {
+                String key = iterator.nextKey();
+                switch (values.getType(key)) {
+                    case Boolean:
+                        editor.putBoolean(key, values.getBoolean(key));
+                        break;
+                    case Number:
+                        editor.putDouble(key, values.getDouble(key));
+                        break;
+                    case String:
+                        editor.putString(key, values.getString(key));
+                        break;
+                    case Null:
+                        editor.remove(key);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported value type for " + key);
+                }
+            }
+            editor.commit();
+            return true;
+        } catch (Exception e) {
+            AppLog.error(reactContext, LOG_CATEGORY, "❌ Error committing " + values.toHashMap().keySet()
+                    + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void putValue(WritableMap map, String key, Object value) {
+        if (value instanceof Boolean) {
+            map.putBoolean(key, (Boolean) value);
+        } else if (value instanceof Number) {
+            map.putDouble(key, ((Number) value).doubleValue());
+        } else if (value instanceof String) {
+            map.putString(key, (String) value);
+        }
+    }
+}
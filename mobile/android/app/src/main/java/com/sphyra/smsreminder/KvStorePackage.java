@@ -10,9 +10,9 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * Package to register BatteryManager native module
+ * Package to register KvStore native module
  */
-public class BatteryManagerPackage implements ReactPackage {
+public class KvStorePackage implements ReactPackage {
 
     @Override
     public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
@@ -22,7 +22,7 @@ public class BatteryManagerPackage implements ReactPackage {
     @Override
     public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
         List<NativeModule> modules = new ArrayList<>();
-        modules.add(new BatteryManagerModule(reactContext));
+        modules.add(new KvStoreModule(reactContext));
         return modules;
     }
 }
@@ -0,0 +1,303 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads one batch over the send lanes (one per SIM)
+ * Every lane runs on its own thread and takes the next message as soon as its
+ * governor allows it, so a faster SIM sends more and a throttled SIM simply
+ * sends less; a retryable failure is handed back for whichever lane is free.
+ * With a SentLedger, a message already sent within its horizon is reported as
+ * sent without touching the radio. Each text goes through SmsEncoder first,
+ * so the radio sends as few segments as the encoding policy allows
+ */
+public class LaneDispatcher {
+    static final long SENT_TIMEOUT_MS = 60_000;
+    static final int MAX_ATTEMPTS = 3;
+
+    public static final String ERROR_INTERRUPTED = "Invio interrotto";
+    private static final String ERROR_SEND = "Errore durante invio SMS";
+
+    // A lane waiting out a throttle pause checks this often whether the batch is over
+    private static final long IDLE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final List<SendLane> lanes;
+    private final long sentTimeoutMs;
+    @Nullable private final SentLedger ledger;
+    private final SmsEncoder.Policy encoding;
+
+    public LaneDispatcher(List<SendLane> lanes) {
+        this(lanes, null, SmsEncoder.Policy.NONE);
+    }
+
+    public LaneDispatcher(List<SendLane> lanes, @Nullable SentLedger ledger, SmsEncoder.Policy encoding) {
+        this(lanes, ledger, encoding, SENT_TIMEOUT_MS);
+    }
+
+    LaneDispatcher(List<SendLane> lanes, @Nullable SentLedger ledger, SmsEncoder.Policy encoding,
+                   long sentTimeoutMs) {
+        if (lanes.isEmpty()) {
+            throw new IllegalArgumentException("At least one send lane is required");
+        }
+        this.lanes = lanes;
+        this.ledger = ledger;
+        this.encoding = encoding;
+        this.sentTimeoutMs = sentTimeoutMs;
+    }
+
+    /**
+     * Send every message of the source; the first lane runs on the calling thread
+     * On interrupt the messages not sent yet are reported as failed
+     * @param total batch size passed to the listener (-1 when streamed)
+     */
+    public List<SmsDispatcher.Outcome> dispatch(SmsDispatcher.Source source, int total,
+                                                @Nullable SmsDispatcher.Listener listener) {
+        Run run = new Run(source, total, listener);
+
+        List<Thread> threads = new ArrayList<>(lanes.size() - 1);
+        for (int i = 1; i < lanes.size(); i++) {
+            SendLane lane = lanes.get(i);
+            Thread thread = new Thread(() -> run.drive(lane), "SphyraSmsLane-" + lane.getSubscriptionId());
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        run.drive(lanes.get(0));
+
+        boolean interrupted = Thread.currentThread().isInterrupted();
+        for (Thread thread : threads) {
+            if (interrupted) {
+                thread.interrupt();
+            }
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    thread.interrupt();
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            run.drainRetries();
+            drain(source, ERROR_INTERRUPTED, run.outcomes, total, listener);
+        }
+        return run.outcomes;
+    }
+
+    /**
+     * Report every remaining message as failed
+     * After an interrupt a blocking source throws instead of waiting, so only
+     * what it already holds is reported; the rest stays pending on the backend
+     */
+    static void drain(SmsDispatcher.Source source, String error, List<SmsDispatcher.Outcome> outcomes,
+                      int total, @Nullable SmsDispatcher.Listener listener) {
+        while (true) {
+            SmsDispatcher.Message message;
+            try {
+                message = source.next();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (message == null) {
+                return;
+            }
+            report(SmsDispatcher.Outcome.failed(message.appointmentId, error, 0), outcomes, total, listener);
+        }
+    }
+
+    private static void report(SmsDispatcher.Outcome outcome, List<SmsDispatcher.Outcome> outcomes, int total,
+                               @Nullable SmsDispatcher.Listener listener) {
+        synchronized (outcomes) {
+            outcomes.add(outcome);
+            if (listener != null) {
+                listener.onOutcome(outcome, outcomes.size(), total);
+            }
+        }
+    }
+
+    /**
+     * A message and its attempts so far (it can move between lanes)
+     */
+    private static class Pending {
+        final SmsDispatcher.Message message;
+        String phone;
+        List<String> parts;
+        int segmentsSaved;
+        int attempts;
+
+        Pending(SmsDispatcher.Message message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * State of one dispatch call, shared by its lane threads
+     */
+    private class Run {
+        final SmsDispatcher.Source source;
+        final int total;
+        @Nullable final SmsDispatcher.Listener listener;
+        final List<SmsDispatcher.Outcome> outcomes;
+        final Queue<Pending> retries = new ConcurrentLinkedQueue<>();
+        final Object sourceLock = new Object();
+        volatile boolean exhausted;
+
+        Run(SmsDispatcher.Source source, int total, @Nullable SmsDispatcher.Listener listener) {
+            this.source = source;
+            this.total = total;
+            this.listener = listener;
+            this.outcomes = new ArrayList<>(Math.max(total, 16));
+        }
+
+        void drive(SendLane lane) {
+            try {
+                while (awaitPermit(lane)) {
+                    Pending next = take();
+                    if (next == null) {
+                        return;
+                    }
+                    send(lane, next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Wait for the lane's next send slot
+         * @return false when the batch ended meanwhile
+         */
+        boolean awaitPermit(SendLane lane) throws InterruptedException {
+            long waitNanos = lane.getGovernor().reserve();
+            while (waitNanos > 0) {
+                if (isDone()) {
+                    return false;
+                }
+                long slice = Math.min(waitNanos, IDLE_CHECK_NANOS);
+                TimeUnit.NANOSECONDS.sleep(slice);
+                waitNanos -= slice;
+            }
+            return !isDone();
+        }
+
+        /**
+         * The lane that queues a retry keeps running until it is taken,
+         * so the other lanes may stop as soon as nothing is left
+         */
+        boolean isDone() {
+            return exhausted && retries.isEmpty();
+        }
+
+        @Nullable
+        Pending take() throws InterruptedException {
+            Pending retry = retries.poll();
+            if (retry != null) {
+                return retry;
+            }
+            synchronized (sourceLock) {
+                if (!exhausted) {
+                    SmsDispatcher.Message message = source.next();
+                    if (message != null) {
+                        return new Pending(message);
+                    }
+                    exhausted = true;
+                }
+            }
+            return retries.poll();
+        }
+
+        void send(SendLane lane, Pending pending) throws InterruptedException {
+            SmsDispatcher.Message message = pending.message;
+            if (message.phone == null || message.phone.isEmpty()) {
+                // Not the lane's fault - not counted in its stats
+                report(SmsDispatcher.Outcome.failed(message.appointmentId, SmsDispatcher.ERROR_MISSING_PHONE, 0),
+                        outcomes, total, listener);
+                return;
+            }
+            if (pending.attempts == 0 && ledger != null
+                    && ledger.contains(message.appointmentId, message.text, System.currentTimeMillis())) {
+                // Sent earlier but the ack never reached the backend: acknowledge again, don't resend
+                report(SmsDispatcher.Outcome.alreadySent(message.appointmentId), outcomes, total, listener);
+                return;
+            }
+            if (pending.parts == null) {
+                pending.phone = PhoneNumberNormalizer.normalize(message.phone);
+                SmsEncoder.Encoded encoded = SmsEncoder.encode(message.text, encoding);
+                pending.segmentsSaved = encoded.getSegmentsSaved();
+                pending.parts = lane.getTransport().divideMessage(encoded.text);
+            }
+
+            pending.attempts++;
+            int subscriptionId = lane.getSubscriptionId();
+            long startedAt = System.nanoTime();
+            SmsTransport.Result result;
+            try {
+                result = lane.attempt(pending.phone, pending.parts, sentTimeoutMs);
+            } catch (InterruptedException e) {
+                complete(lane, SmsDispatcher.Outcome.failed(message.appointmentId, ERROR_INTERRUPTED,
+                        pending.attempts));
+                throw e;
+            } catch (RuntimeException e) {
+                // The radio rejected the message outright (invalid destination, empty text)
+                complete(lane, SmsDispatcher.Outcome.failed(message.appointmentId,
+                        e.getMessage() != null ? e.getMessage() : ERROR_SEND, pending.attempts));
+                return;
+            }
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+            if (result.status == SmsTransport.Status.SENT) {
+                if (ledger != null) {
+                    ledger.record(message.appointmentId, message.text, System.currentTimeMillis());
+                }
+                complete(lane, new SmsDispatcher.Outcome(message.appointmentId, true, null, pending.parts.size(),
+                        pending.attempts, result.delivered, latencyMs, subscriptionId, pending.segmentsSaved));
+                return;
+            }
+
+            if (result.status == SmsTransport.Status.TIMEOUT || result.partsSent > 0) {
+                // It may have reached the customer: in the ledger, so no later sync sends it again
+                if (ledger != null) {
+                    ledger.record(message.appointmentId, message.text, System.currentTimeMillis());
+                }
+                complete(lane, SmsDispatcher.Outcome.uncertain(message.appointmentId,
+                        result.error != null ? result.error : ERROR_SEND, pending.parts.size(), pending.attempts,
+                        latencyMs, subscriptionId));
+                return;
+            }
+
+            boolean retryable = result.status == SmsTransport.Status.THROTTLED
+                    || result.status == SmsTransport.Status.RETRYABLE;
+            if (retryable && pending.attempts < MAX_ATTEMPTS) {
+                retries.add(pending);
+                return;
+            }
+            complete(lane, new SmsDispatcher.Outcome(message.appointmentId, false,
+                    result.error != null ? result.error : ERROR_SEND, pending.parts.size(), pending.attempts,
+                    false, latencyMs, subscriptionId, 0));
+        }
+
+        void complete(SendLane lane, SmsDispatcher.Outcome outcome) {
+            lane.countOutcome(outcome.success);
+            report(outcome, outcomes, total, listener);
+        }
+
+        void drainRetries() {
+            Pending pending;
+            while ((pending = retries.poll()) != null) {
+                report(SmsDispatcher.Outcome.failed(pending.message.appointmentId, ERROR_INTERRUPTED,
+                        pending.attempts), outcomes, total, listener);
+            }
+        }
+    }
+}
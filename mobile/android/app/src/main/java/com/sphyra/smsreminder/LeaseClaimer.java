@@ -0,0 +1,205 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Takes pending reminders from the backend in leased batches (POST /claim)
+ * Several phones can share one backend: every claim leases its batch to this
+ * device alone, so each phone sends a different part of the pool with its own
+ * SIMs. A batch that is never acknowledged (the phone went offline) goes back
+ * to the pool when its lease expires, and another phone claims it.
+ *
+ * A batch stops handing out reminders a margin before its lease ends, timed on
+ * the local clock from before the claim request (latency and clock skew only
+ * make it stop earlier): after that another phone may own them. What is left
+ * is returned by unsent(), to be released.
+ */
+public final class LeaseClaimer {
+    // At 1 SMS/s on a single SIM (the governor's starting rate) a batch takes under a minute
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    public static final int DEFAULT_LEASE_SECONDS = 300;
+    /** Pool size not reported */
+    public static final int UNKNOWN = -1;
+
+    // The last reminders handed out still need their send, retries and ack flush
+    private static final long MIN_MARGIN_MS = TimeUnit.SECONDS.toMillis(30);
+    // Claims in a row that lost every row to other phones before giving up the run
+    private static final int MAX_LOST_CLAIMS = 3;
+
+    /**
+     * Where batches come from (ReminderApiClient, or a stand-in in tests)
+     */
+    public interface Backend {
+        Claim claim(int limit, int leaseSeconds) throws IOException;
+    }
+
+    /**
+     * Reminders leased by one claim request
+     */
+    public static final class Claim {
+        public final List<PendingReminder> reminders;
+        /** The batch was full or lost rows to another phone: the pool may have more */
+        public final boolean hasMore;
+        /** Reminders left in the pool for this device after the claim, UNKNOWN on older backends */
+        public final int remaining;
+
+        public Claim(List<PendingReminder> reminders, boolean hasMore) {
+            this(reminders, hasMore, UNKNOWN);
+        }
+
+        public Claim(List<PendingReminder> reminders, boolean hasMore, int remaining) {
+            this.reminders = reminders;
+            this.hasMore = hasMore;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * One leased batch; thread-safe, every send lane pulls from it
+     */
+    public static final class Batch {
+        private final List<PendingReminder> reminders;
+        private final long deadline;
+        private final int poolRemaining;
+        private final LongSupplier clock;
+        private int next;
+        private boolean expired;
+
+        Batch(List<PendingReminder> reminders, long deadline, int poolRemaining, LongSupplier clock) {
+            this.reminders = reminders;
+            this.deadline = deadline;
+            this.poolRemaining = poolRemaining;
+            this.clock = clock;
+        }
+
+        /**
+         * @return the next reminder, or null when the batch is used up or its lease is about to end
+         */
+        @Nullable
+        public synchronized PendingReminder next() {
+            if (next >= reminders.size()) {
+                return null;
+            }
+            if (clock.getAsLong() >= deadline) {
+                expired = true;
+                return null;
+            }
+            return reminders.get(next++);
+        }
+
+        public int size() {
+            return reminders.size();
+        }
+
+        /**
+         * Reminders the backend still had for this device after this batch was claimed
+         * (UNKNOWN on older backends and for resumed batches)
+         */
+        public int getPoolRemaining() {
+            return poolRemaining;
+        }
+
+        /**
+         * Epoch millis this batch stops handing out reminders
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * True when the lease ran out before every reminder was handed out
+         */
+        public synchronized boolean isExpired() {
+            return expired;
+        }
+
+        /**
+         * Ids never handed out, to give back to the pool
+         */
+        public synchronized List<String> unsent() {
+            if (next >= reminders.size()) {
+                return Collections.emptyList();
+            }
+            List<String> ids = new ArrayList<>(reminders.size() - next);
+            for (int i = next; i < reminders.size(); i++) {
+                ids.add(reminders.get(i).appointmentId);
+            }
+            return ids;
+        }
+
+        /**
+         * Reminders never handed out, to checkpoint when the run stops early
+         */
+        public synchronized List<PendingReminder> remaining() {
+            return new ArrayList<>(reminders.subList(Math.min(next, reminders.size()), reminders.size()));
+        }
+    }
+
+    private final Backend backend;
+    private final int batchSize;
+    private final int leaseSeconds;
+    private final LongSupplier clock;
+
+    public LeaseClaimer(Backend backend) {
+        this(backend, DEFAULT_BATCH_SIZE, DEFAULT_LEASE_SECONDS, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock epoch millis
+     */
+    public LeaseClaimer(Backend backend, int batchSize, int leaseSeconds, LongSupplier clock) {
+        if (batchSize < 1 || leaseSeconds < 1) {
+            throw new IllegalArgumentException("Invalid lease configuration");
+        }
+        this.backend = backend;
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.clock = clock;
+    }
+
+    /**
+     * Lease the next batch
+     * @return null when the pool has nothing left that another phone does not hold
+     */
+    @Nullable
+    public Batch claim() throws IOException {
+        for (int attempt = 0; attempt < MAX_LOST_CLAIMS; attempt++) {
+            long claimedAt = clock.getAsLong();
+            Claim claim = backend.claim(batchSize, leaseSeconds);
+            if (!claim.reminders.isEmpty()) {
+                return new Batch(claim.reminders, claimedAt + leaseMs() - marginMs(), claim.remaining, clock);
+            }
+            if (!claim.hasMore) {
+                return null;
+            }
+            // Every row went to another phone; they are leased now, the next claim skips them
+        }
+        return null;
+    }
+
+    /**
+     * Continue a batch claimed by an earlier run (SyncCheckpoint), still leased to this device
+     * @param deadline the deadline of the original batch
+     */
+    public Batch resume(List<PendingReminder> reminders, long deadline) {
+        return new Batch(reminders, deadline, UNKNOWN, clock);
+    }
+
+    long leaseMs() {
+        return TimeUnit.SECONDS.toMillis(leaseSeconds);
+    }
+
+    /**
+     * A quarter of the lease, at least MIN_MARGIN_MS (but never the whole lease)
+     */
+    long marginMs() {
+        return Math.min(Math.max(MIN_MARGIN_MS, leaseMs() / 4), leaseMs() / 2);
+    }
+}
@@ -0,0 +1,178 @@
+package com.sphyra.smsreminder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fixed-memory histogram with log-linear buckets
+ * Each power of two is split into 8 linear sub-buckets, so any recorded value
+ * is reported within 12.5% of its real value; values 0-7 are exact. A
+ * histogram is 272 longs whatever the number of samples, so it can be kept
+ * (and persisted) forever
+ */
+public final class LogHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Largest tracked value: 2^36 - 1 (about 19 hours in ms, 64 GB in bytes)
+    private static final int MAX_EXPONENT = 35;
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Add one sample; negative values count as 0, values above MAX_VALUE as MAX_VALUE
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+        counts[bucketOf(clamped)]++;
+        count++;
+        sum += clamped;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count > 0 ? min : 0;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    /**
+     * Value at the given quantile (0.5 = median, 0.99 = p99)
+     * Reported as the upper bound of the bucket holding that rank, clamped to min/max
+     */
+    public long getValueAtQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(quantile, 0), 1) * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(upperBoundOf(i), max));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Non-empty buckets as { lowerBound, count } pairs (for exports)
+     */
+    public long[][] getBuckets() {
+        int used = 0;
+        for (long c : counts) {
+            if (c > 0) {
+                used++;
+            }
+        }
+        long[][] buckets = new long[used][];
+        int next = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                buckets[next++] = new long[] {lowerBoundOf(i), counts[i]};
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Compact form: totals, then only the non-empty buckets
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(sum);
+        out.writeLong(getMin());
+        out.writeLong(max);
+        int used = 0;
+        for (long c : counts) {
+            if (c > 0) {
+                used++;
+            }
+        }
+        out.writeShort(used);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                out.writeShort(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Replace the content with data written by writeTo
+     */
+    public void readFrom(DataInput in) throws IOException {
+        clear();
+        long readCount = in.readLong();
+        long readSum = in.readLong();
+        long readMin = in.readLong();
+        long readMax = in.readLong();
+        int used = in.readUnsignedShort();
+        for (int n = 0; n < used; n++) {
+            int index = in.readUnsignedShort();
+            long c = in.readLong();
+            if (index >= BUCKET_COUNT || c < 0) {
+                clear();
+                throw new IOException("Corrupt histogram bucket " + index);
+            }
+            counts[index] = c;
+        }
+        count = readCount;
+        sum = readSum;
+        min = readCount > 0 ? readMin : Long.MAX_VALUE;
+        max = readMax;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return lowerBoundOf(bucket) + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
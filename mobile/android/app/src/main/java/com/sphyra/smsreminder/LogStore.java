@@ -0,0 +1,409 @@
+package com.sphyra.smsreminder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only ring buffer of log records in a fixed-size memory-mapped file
+ * Appends are O(1): a record is written at the tail and the header is updated
+ * in place; when the buffer is full the oldest records are evicted.
+ *
+ * File layout:
+ *   [header 4 KiB: magic, version, capacity, head, tail, wrapAt, count, nextSeq, category table]
+ *   [data: records]
+ * Record layout (length at both ends so the buffer can be walked newest first):
+ *   [len:int][seq:long][timestamp:long][level:byte][category:byte][msgLen:short][payloadLen:int]
+ *   [message utf8][payload utf8][len:int]
+ */
+public class LogStore {
+    public static final int LEVEL_DEBUG = 0;
+    public static final int LEVEL_INFO = 1;
+    public static final int LEVEL_WARN = 2;
+    public static final int LEVEL_ERROR = 3;
+    public static final int LEVEL_SUCCESS = 4;
+    static final String[] LEVEL_NAMES = {"DEBUG", "INFO", "WARN", "ERROR", "SUCCESS"};
+
+    public static final int DEFAULT_CAPACITY = 1024 * 1024; // 1 MiB of records
+
+    private static final int MAGIC = 0x534C4F47; // "SLOG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4096;
+
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_CAPACITY = 8;
+    private static final int OFF_HEAD = 12;
+    private static final int OFF_TAIL = 16;
+    private static final int OFF_WRAP_AT = 20;
+    private static final int OFF_COUNT = 24;
+    private static final int OFF_NEXT_SEQ = 32;
+    private static final int OFF_CATEGORY_COUNT = 40;
+    private static final int OFF_CATEGORIES = 64;
+
+    private static final int CATEGORY_SLOT = 32; // 1 length byte + up to 31 utf8 bytes
+    private static final int MAX_CATEGORIES = (HEADER_SIZE - OFF_CATEGORIES) / CATEGORY_SLOT;
+    private static final int CATEGORY_OTHER = 0xFF;
+
+    private static final int RECORD_OVERHEAD = 4 + 8 + 8 + 1 + 1 + 2 + 4 + 4;
+    private static final int MAX_MESSAGE_BYTES = 2048;
+    private static final int MAX_PAYLOAD_BYTES = 8192;
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> categoryIds = new LinkedHashMap<>();
+
+    /**
+     * One decoded log record
+     */
+    public static final class Entry {
+        public final long seq;
+        public final long timestamp;
+        public final int level;
+        public final String category;
+        public final String message;
+        public final String payload; // JSON or null
+
+        Entry(long seq, long timestamp, int level, String category, String message, String payload) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.level = level;
+            this.category = category;
+            this.message = message;
+            this.payload = payload;
+        }
+
+        public String getLevelName() {
+            return level >= 0 && level < LEVEL_NAMES.length ? LEVEL_NAMES[level] : "INFO";
+        }
+    }
+
+    /**
+     * A page of entries, newest first
+     * nextCursor is passed as beforeSeq to read the following page (-1 = no more entries)
+     */
+    public static final class Page {
+        public final List<Entry> entries;
+        public final long nextCursor;
+
+        Page(List<Entry> entries, long nextCursor) {
+            this.entries = entries;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    public LogStore(File file, int capacity) throws IOException {
+        if (capacity < RECORD_OVERHEAD + MAX_MESSAGE_BYTES + MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Log store capacity too small: " + capacity);
+        }
+        this.capacity = capacity;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity);
+        }
+
+        if (!isValidHeader()) {
+            reset();
+        } else {
+            loadCategories();
+        }
+    }
+
+    public static int parseLevel(String name) {
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            if (LEVEL_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return LEVEL_INFO;
+    }
+
+    /**
+     * Append a record, evicting the oldest ones if needed
+     * @param payload optional JSON string (truncated payloads are replaced by a marker)
+     * @return sequence number of the new record
+     */
+    public synchronized long append(long timestamp, int level, String category, String message, String payload) {
+        byte[] messageBytes = truncate(message != null ? message : "", MAX_MESSAGE_BYTES);
+        byte[] payloadBytes = payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (payloadBytes.length > MAX_PAYLOAD_BYTES) {
+            payloadBytes = ("{\"truncated\":true,\"size\":" + payloadBytes.length + "}")
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+
+        int length = RECORD_OVERHEAD + messageBytes.length + payloadBytes.length;
+        int categoryId = categoryId(category);
+        ensureSpace(length);
+
+        long seq = buffer.getLong(OFF_NEXT_SEQ);
+        int tail = buffer.getInt(OFF_TAIL);
+        int pos = HEADER_SIZE + tail;
+
+        buffer.putInt(pos, length);
+        buffer.putLong(pos + 4, seq);
+        buffer.putLong(pos + 12, timestamp);
+        buffer.put(pos + 20, (byte) level);
+        buffer.put(pos + 21, (byte) categoryId);
+        buffer.putShort(pos + 22, (short) messageBytes.length);
+        buffer.putInt(pos + 24, payloadBytes.length);
+        putBytes(pos + 28, messageBytes);
+        putBytes(pos + 28 + messageBytes.length, payloadBytes);
+        buffer.putInt(pos + length - 4, length);
+
+        // Header last: a crash mid-record leaves the previous state intact
+        buffer.putInt(OFF_TAIL, tail + length);
+        buffer.putInt(OFF_COUNT, buffer.getInt(OFF_COUNT) + 1);
+        buffer.putLong(OFF_NEXT_SEQ, seq + 1);
+        return seq;
+    }
+
+    /**
+     * Read entries newest first
+     * @param beforeSeq only entries with seq lower than this (-1 = from the newest)
+     * @param limit maximum entries returned
+     * @param levelMask bit per level (1 << LEVEL_x), 0 = all levels
+     * @param category exact category or null for all
+     */
+    public synchronized Page read(long beforeSeq, int limit, int levelMask, String category) {
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 256));
+        int count = buffer.getInt(OFF_COUNT);
+        int wrapAt = buffer.getInt(OFF_WRAP_AT);
+        int pos = buffer.getInt(OFF_TAIL);
+        long lastSeq = -1;
+
+        for (int i = 0; i < count; i++) {
+            if (pos == 0 && wrapAt >= 0) {
+                pos = wrapAt;
+            }
+            int length = buffer.getInt(HEADER_SIZE + pos - 4);
+            pos -= length;
+            int start = HEADER_SIZE + pos;
+
+            long seq = buffer.getLong(start + 4);
+            if (beforeSeq >= 0 && seq >= beforeSeq) {
+                continue;
+            }
+            if (entries.size() == limit) {
+                // At least one more matching candidate may exist
+                return new Page(entries, lastSeq);
+            }
+
+            int level = buffer.get(start + 20);
+            if (levelMask != 0 && (levelMask & (1 << level)) == 0) {
+                continue;
+            }
+            String entryCategory = categoryName(buffer.get(start + 21) & 0xFF);
+            if (category != null && !category.equals(entryCategory)) {
+                continue;
+            }
+
+            entries.add(decode(start, seq, level, entryCategory));
+            lastSeq = seq;
+        }
+        return new Page(entries, -1);
+    }
+
+    /**
+     * Counts by level name and by category over all stored records
+     */
+    public synchronized Map<String, Map<String, Integer>> stats() {
+        Map<String, Integer> byLevel = new LinkedHashMap<>();
+        Map<String, Integer> byCategory = new LinkedHashMap<>();
+        int count = buffer.getInt(OFF_COUNT);
+        int wrapAt = buffer.getInt(OFF_WRAP_AT);
+        int pos = buffer.getInt(OFF_HEAD);
+
+        for (int i = 0; i < count; i++) {
+            if (wrapAt >= 0 && pos >= wrapAt) {
+                pos = 0;
+            }
+            int start = HEADER_SIZE + pos;
+            int level = buffer.get(start + 20);
+            String levelName = level >= 0 && level < LEVEL_NAMES.length ? LEVEL_NAMES[level] : "INFO";
+            byLevel.merge(levelName, 1, Integer::sum);
+            byCategory.merge(categoryName(buffer.get(start + 21) & 0xFF), 1, Integer::sum);
+            pos += buffer.getInt(start);
+        }
+
+        Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+        result.put("byLevel", byLevel);
+        result.put("byCategory", byCategory);
+        return result;
+    }
+
+    public synchronized int count() {
+        return buffer.getInt(OFF_COUNT);
+    }
+
+    /**
+     * Drop all records (the category table is kept)
+     */
+    public synchronized void clear() {
+        buffer.putInt(OFF_HEAD, 0);
+        buffer.putInt(OFF_TAIL, 0);
+        buffer.putInt(OFF_WRAP_AT, -1);
+        buffer.putInt(OFF_COUNT, 0);
+    }
+
+    /**
+     * Ask the kernel to write dirty pages now (records already survive a process crash)
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    private void ensureSpace(int length) {
+        while (true) {
+            int count = buffer.getInt(OFF_COUNT);
+            int head = buffer.getInt(OFF_HEAD);
+            int tail = buffer.getInt(OFF_TAIL);
+            int wrapAt = buffer.getInt(OFF_WRAP_AT);
+
+            if (count == 0) {
+                buffer.putInt(OFF_HEAD, 0);
+                buffer.putInt(OFF_TAIL, 0);
+                buffer.putInt(OFF_WRAP_AT, -1);
+                return;
+            }
+
+            if (wrapAt < 0) {
+                // Records in [head, tail)
+                if (capacity - tail >= length) {
+                    return;
+                }
+                // Not enough room before the end: continue from the start of the buffer
+                buffer.putInt(OFF_WRAP_AT, tail);
+                buffer.putInt(OFF_TAIL, 0);
+                continue;
+            }
+
+            // Records in [head, wrapAt) and [0, tail)
+            if (head - tail >= length) {
+                return;
+            }
+            evictOldest(head, wrapAt, count);
+        }
+    }
+
+    private void evictOldest(int head, int wrapAt, int count) {
+        int newHead = head + buffer.getInt(HEADER_SIZE + head);
+        if (newHead >= wrapAt) {
+            newHead = 0;
+            buffer.putInt(OFF_WRAP_AT, -1);
+        }
+        buffer.putInt(OFF_HEAD, newHead);
+        buffer.putInt(OFF_COUNT, count - 1);
+    }
+
+    private Entry decode(int start, long seq, int level, String category) {
+        long timestamp = buffer.getLong(start + 12);
+        int messageLength = buffer.getShort(start + 22) & 0xFFFF;
+        int payloadLength = buffer.getInt(start + 24);
+        String message = getString(start + 28, messageLength);
+        String payload = payloadLength > 0 ? getString(start + 28 + messageLength, payloadLength) : null;
+        return new Entry(seq, timestamp, level, category, message, payload);
+    }
+
+    private int categoryId(String category) {
+        String name = category != null ? category : "";
+        Integer id = categoryIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (categories.size() >= MAX_CATEGORIES) {
+            return CATEGORY_OTHER;
+        }
+
+        byte[] bytes = truncate(name, CATEGORY_SLOT - 1);
+        int newId = categories.size();
+        int slot = OFF_CATEGORIES + newId * CATEGORY_SLOT;
+        buffer.put(slot, (byte) bytes.length);
+        putBytes(slot + 1, bytes);
+        buffer.putInt(OFF_CATEGORY_COUNT, newId + 1);
+
+        String stored = new String(bytes, StandardCharsets.UTF_8);
+        categories.add(stored);
+        categoryIds.put(name, newId);
+        return newId;
+    }
+
+    private String categoryName(int id) {
+        return id < categories.size() ? categories.get(id) : "OTHER";
+    }
+
+    private void loadCategories() {
+        int categoryCount = buffer.getInt(OFF_CATEGORY_COUNT);
+        for (int id = 0; id < categoryCount; id++) {
+            int slot = OFF_CATEGORIES + id * CATEGORY_SLOT;
+            String name = getString(slot + 1, buffer.get(slot) & 0xFF);
+            categories.add(name);
+            categoryIds.put(name, id);
+        }
+    }
+
+    private boolean isValidHeader() {
+        if (buffer.getInt(OFF_MAGIC) != MAGIC || buffer.getInt(OFF_VERSION) != VERSION
+                || buffer.getInt(OFF_CAPACITY) != capacity) {
+            return false;
+        }
+        int head = buffer.getInt(OFF_HEAD);
+        int tail = buffer.getInt(OFF_TAIL);
+        int wrapAt = buffer.getInt(OFF_WRAP_AT);
+        int categoryCount = buffer.getInt(OFF_CATEGORY_COUNT);
+        return head >= 0 && head <= capacity && tail >= 0 && tail <= capacity
+                && wrapAt >= -1 && wrapAt <= capacity && buffer.getInt(OFF_COUNT) >= 0
+                && categoryCount >= 0 && categoryCount <= MAX_CATEGORIES;
+    }
+
+    private void reset() {
+        for (int i = 0; i < HEADER_SIZE; i += 8) {
+            buffer.putLong(i, 0);
+        }
+        buffer.putInt(OFF_MAGIC, MAGIC);
+        buffer.putInt(OFF_VERSION, VERSION);
+        buffer.putInt(OFF_CAPACITY, capacity);
+        buffer.putInt(OFF_WRAP_AT, -1);
+        buffer.putLong(OFF_NEXT_SEQ, 1);
+        categories.clear();
+        categoryIds.clear();
+    }
+
+    private void putBytes(int index, byte[] bytes) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(index);
+        view.put(bytes);
+    }
+
+    private String getString(int index, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(index);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] truncate(String value, int maxBytes) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return bytes;
+        }
+        // Cut on a UTF-8 character boundary
+        int end = maxBytes;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        byte[] truncated = new byte[end];
+        System.arraycopy(bytes, 0, truncated, 0, end);
+        return truncated;
+    }
+}
@@ -0,0 +1,163 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+
+/**
+ * Native module for the persistent app log
+ * Backed by the memory-mapped LogStore ring buffer shared with native components
+ */
+public class LogStoreModule extends ReactContextBaseJavaModule {
+    private static final String MODULE_NAME = "LogStoreModule";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final ReactApplicationContext reactContext;
+
+    public LogStoreModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return MODULE_NAME;
+    }
+
+    /**
+     * Append one entry (fire-and-forget)
+     * @param data JSON string or null
+     */
+    @ReactMethod
+    public void append(String level, String category, String message, String data) {
+        LogStore store = AppLog.getStore(reactContext);
+        if (store != null) {
+            store.append(System.currentTimeMillis(), LogStore.parseLevel(level), category, message, data);
+        }
+    }
+
+    /**
+     * Append several entries at once (e.g. logs migrated from AsyncStorage)
+     * @param entries Array of { timestamp, level, category, message, data? }
+     */
+    @ReactMethod
+    public void appendBatch(ReadableArray entries, Promise promise) {
+        try {
+            LogStore store = requireStore();
+            for (int i = 0; i < entries.size(); i++) {
+                ReadableMap entry = entries.getMap(i);
+                store.append(
+                        (long) entry.getDouble("timestamp"),
+                        LogStore.parseLevel(entry.getString("level")),
+                        entry.getString("category"),
+                        entry.getString("message"),
+                        entry.hasKey("data") && !entry.isNull("data") ? entry.getString("data") : null
+                );
+            }
+            promise.resolve(entries.size());
+        } catch (Exception e) {
+            promise.reject("LOGSTORE_ERROR", "Failed to append logs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read a page of entries, newest first
+     * @param options { before?: number, limit?: number, level?: string, category?: string }
+     */
+    @ReactMethod
+    public void query(ReadableMap options, Promise promise) {
+        try {
+            LogStore store = requireStore();
+            long before = options.hasKey("before") && !options.isNull("before")
+                    ? (long) options.getDouble("before") : -1;
+            int limit = options.hasKey("limit") ? options.getInt("limit") : DEFAULT_PAGE_SIZE;
+            int levelMask = options.hasKey("level") && !options.isNull("level")
+                    ? 1 << LogStore.parseLevel(options.getString("level")) : 0;
+            String category = options.hasKey("category") && !options.isNull("category")
+                    ? options.getString("category") : null;
+
+            LogStore.Page page = store.read(before, limit, levelMask, category);
+
+            WritableArray entries = Arguments.createArray();
+            for (LogStore.Entry entry : page.entries) {
+                WritableMap item = Arguments.createMap();
+                item.putDouble("seq", entry.seq);
+                item.putDouble("timestamp", entry.timestamp);
+                item.putString("level", entry.getLevelName());
+                item.putString("category", entry.category);
+                item.putString("message", entry.message);
+                if (entry.payload != null) {
+                    item.putString("data", entry.payload);
+                }
+                entries.pushMap(item);
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putArray("entries", entries);
+            if (page.nextCursor >= 0) {
+                result.putDouble("nextCursor", page.nextCursor);
+            } else {
+                result.putNull("nextCursor");
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("LOGSTORE_ERROR", "Failed to read logs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Counts by level and category
+     */
+    @ReactMethod
+    public void getStats(Promise promise) {
+        try {
+            LogStore store = requireStore();
+            Map<String, Map<String, Integer>> stats = store.stats();
+
+            WritableMap result = Arguments.createMap();
+            result.putInt("total", store.count());
+            result.putMap("byLevel", toMap(stats.get("byLevel")));
+            result.putMap("byCategory", toMap(stats.get("byCategory")));
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("LOGSTORE_ERROR", "Failed to get log stats: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void clear(Promise promise) {
+        try {
+            requireStore().clear();
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("LOGSTORE_ERROR", "Failed to clear logs: " + e.getMessage());
+        }
+    }
+
+    private LogStore requireStore() {
+        LogStore store = AppLog.getStore(reactContext);
+        if (store == null) {
+            throw new IllegalStateException("Log store not available");
+        }
+        return store;
+    }
+
+    private static WritableMap toMap(Map<String, Integer> counts) {
+        WritableMap map = Arguments.createMap();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            map.putInt(entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+}
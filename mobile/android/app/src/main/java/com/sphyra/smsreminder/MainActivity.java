@@ -1,7 +1,5 @@
 package com.sphyra.smsreminder;
 
-import android.content.Intent;
-import android.os.Bundle;
 import com.facebook.react.ReactActivity;
 import com.facebook.react.ReactActivityDelegate;
 import com.facebook.react.defaults.DefaultNewArchitectureEntryPoint;
@@ -18,24 +16,6 @@ public class MainActivity extends ReactActivity {
     return "SphyraSMSReminder";
   }
 
-  /**
-   * Handle intent extras - used by BootReceiver to signal auto-start
-   */
-  @Override
-  protected void onCreate(Bundle savedInstanceState) {
-    super.onCreate(savedInstanceState);
-
-    Intent intent = getIntent();
-    if (intent != null && intent.hasExtra("autoStartService")) {
-      boolean autoStart = intent.getBooleanExtra("autoStartService", false);
-      if (autoStart) {
-        // Signal to React Native that service should auto-start
-        // This will be handled in App.tsx via Linking.getInitialURL()
-        android.util.Log.d("MainActivity", "Auto-start service requested after boot");
-      }
-    }
-  }
-
   /**
    * Returns the instance of the {@link ReactActivityDelegate}. Here we use a util class {@link
    * DefaultReactActivityDelegate} which allows you to easily enable Fabric and Concurrent React
@@ -1,18 +1,35 @@
 package com.sphyra.smsreminder;
 
+import android.app.ActivityManager;
 import android.app.Application;
+import android.os.Process;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Configuration;
 import com.facebook.react.PackageList;
 import com.facebook.react.ReactApplication;
 import com.facebook.react.ReactHost;
+import com.facebook.react.ReactInstanceManager;
 import com.facebook.react.ReactNativeHost;
 import com.facebook.react.ReactPackage;
+import com.facebook.react.bridge.ReactMarker;
+import com.facebook.react.bridge.ReactMarkerConstants;
 import com.facebook.react.defaults.DefaultNewArchitectureEntryPoint;
 import com.facebook.react.defaults.DefaultReactHost;
 import com.facebook.react.defaults.DefaultReactNativeHost;
 import com.facebook.soloader.SoLoader;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class MainApplication extends Application implements ReactApplication {
+public class MainApplication extends Application implements ReactApplication, Configuration.Provider {
+
+  // One per worker (sync, alarm, ack flush) - WorkManager's default pool sizes itself on the CPU count
+  private static final int WORKER_THREADS = 3;
+
+  private volatile boolean nativeLoaded;
+  private volatile boolean reactHostCreated;
 
   private final ReactNativeHost mReactNativeHost =
       new DefaultReactNativeHost(this) {
@@ -29,8 +46,11 @@ public class MainApplication extends Application implements ReactApplication {
           // packages.add(new MyReactNativePackage());
 
           // Add custom native modules
-          packages.add(new BatteryManagerPackage());
-          packages.add(new WorkManagerPackage());
+          packages.add(new SphyraTurboPackage());
+          packages.add(new SmsDispatchPackage());
+          packages.add(new LogStorePackage());
+          packages.add(new KvStorePackage());
+          packages.add(new HttpPackage());
 
           return packages;
         }
@@ -49,25 +69,123 @@ public class MainApplication extends Application implements ReactApplication {
         protected Boolean isHermesEnabled() {
           return BuildConfig.IS_HERMES_ENABLED;
         }
+
+        @Override
+        protected ReactInstanceManager createReactInstanceManager() {
+          StartupTrace.begin(StartupTrace.REACT_HOST);
+          try {
+            return super.createReactInstanceManager();
+          } finally {
+            StartupTrace.end(StartupTrace.REACT_HOST);
+          }
+        }
       };
 
   @Override
   public ReactNativeHost getReactNativeHost() {
+    ensureNativeLoaded();
     return mReactNativeHost;
   }
 
   @Override
   public ReactHost getReactHost() {
-    return DefaultReactHost.getDefaultReactHost(getApplicationContext(), getReactNativeHost());
+    ensureNativeLoaded();
+    if (reactHostCreated) {
+      return DefaultReactHost.getDefaultReactHost(getApplicationContext(), getReactNativeHost());
+    }
+    StartupTrace.begin(StartupTrace.REACT_HOST);
+    try {
+      return DefaultReactHost.getDefaultReactHost(getApplicationContext(), getReactNativeHost());
+    } finally {
+      reactHostCreated = true;
+      StartupTrace.end(StartupTrace.REACT_HOST);
+    }
   }
 
   @Override
   public void onCreate() {
+    StartupTrace.mark(StartupTrace.PROCESS_TO_APPLICATION);
+    StartupTrace.begin(StartupTrace.APPLICATION);
     super.onCreate();
-    SoLoader.init(this, false);
-    if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
-      // If you opted-in for the New Architecture, we load the native entry point for this app.
-      DefaultNewArchitectureEntryPoint.load();
+    if (isUiStart()) {
+      StartupTrace.beginFirstFrame();
+      ReactMarker.addListener(new ReactMarker.MarkerListener() {
+        @Override
+        public void logMarker(ReactMarkerConstants name, String tag, int instanceKey) {
+          if (name == ReactMarkerConstants.CONTENT_APPEARED) {
+            ReactMarker.removeListener(this);
+            StartupTrace.firstFrame(MainApplication.this);
+          }
+        }
+      });
+      ensureNativeLoaded();
+      StartupTrace.end(StartupTrace.APPLICATION);
+    } else {
+      // Worker, alarm or boot wake: the native sync is plain Java, React Native's
+      // libraries load only when something asks for them (an activity, a headless task)
+      StartupTrace.end(StartupTrace.APPLICATION);
+      StartupTrace.backgroundStart(this);
     }
   }
+
+  /**
+   * WorkManager is initialized on demand with this configuration (its startup
+   * initializer is removed in AndroidManifest.xml), so a process start that
+   * never touches WorkManager does not pay for it
+   */
+  @NonNull
+  @Override
+  public Configuration getWorkManagerConfiguration() {
+    return new Configuration.Builder()
+        .setExecutor(newWorkerExecutor())
+        .setMinimumLoggingLevel(BuildConfig.DEBUG ? Log.DEBUG : Log.ERROR)
+        .build();
+  }
+
+  /**
+   * Load the React Native native libraries, once (idempotent, any thread)
+   */
+  public void ensureNativeLoaded() {
+    if (nativeLoaded) {
+      return;
+    }
+    synchronized (this) {
+      if (nativeLoaded) {
+        return;
+      }
+      StartupTrace.begin(StartupTrace.SOLOADER);
+      try {
+        SoLoader.init(this, false);
+        if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
+          // If you opted-in for the New Architecture, we load the native entry point for this app.
+          DefaultNewArchitectureEntryPoint.load();
+        }
+      } finally {
+        StartupTrace.end(StartupTrace.SOLOADER);
+      }
+      nativeLoaded = true;
+    }
+  }
+
+  /**
+   * True when the process is started to show an activity (launcher, deep link),
+   * false for workers, alarms and broadcasts
+   */
+  private static boolean isUiStart() {
+    ActivityManager.RunningAppProcessInfo info = new ActivityManager.RunningAppProcessInfo();
+    ActivityManager.getMyMemoryState(info);
+    return info.importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND;
+  }
+
+  private static ExecutorService newWorkerExecutor() {
+    AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(WORKER_THREADS, runnable -> {
+      Thread thread = new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        runnable.run();
+      }, "SphyraWorker-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
 }
@@ -0,0 +1,39 @@
+package com.sphyra.smsreminder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact native view of a pending reminder
+ * Only the fields the dispatch path needs, not the full appointment
+ */
+public class PendingReminder {
+    /** A reminder is due this long before its appointment (PENDING_WINDOW_MS in server/src/routes/mobileReminders.ts) */
+    public static final long DUE_BEFORE_MS = TimeUnit.HOURS.toMillis(24);
+
+    public final String appointmentId;
+    public final String phone;
+    public final String message;
+    public final boolean smsConsent;
+    /** Epoch millis the reminder became due, origin of its end-to-end latency (0 = not known) */
+    public final long dueAt;
+
+    public PendingReminder(String appointmentId, String phone, String message, boolean smsConsent) {
+        this(appointmentId, phone, message, smsConsent, 0);
+    }
+
+    public PendingReminder(String appointmentId, String phone, String message, boolean smsConsent, long dueAt) {
+        this.appointmentId = appointmentId;
+        this.phone = phone;
+        this.message = message;
+        this.smsConsent = smsConsent;
+        this.dueAt = dueAt;
+    }
+
+    /**
+     * @param appointmentAt epoch millis of the appointment (0 = not known)
+     * @return when its reminder became due (0 = not known)
+     */
+    public static long dueAtOf(long appointmentAt) {
+        return appointmentAt > 0 ? appointmentAt - DUE_BEFORE_MS : 0;
+    }
+}
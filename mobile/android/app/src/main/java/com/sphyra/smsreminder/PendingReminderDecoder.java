@@ -0,0 +1,141 @@
+package com.sphyra.smsreminder;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming decoder for the reminders of GET /reminders/mobile/pending (and /upcoming)
+ * Only uses JsonReader, so it also runs off-device (see the benchmarks module)
+ */
+public final class PendingReminderDecoder {
+
+    /**
+     * Receives reminders as they are decoded from the response stream
+     */
+    public interface Sink {
+        void accept(PendingReminder reminder) throws InterruptedException;
+    }
+
+    private PendingReminderDecoder() {
+    }
+
+    /**
+     * Decode a JSON array of reminders, handing each one to the sink
+     */
+    public static void readArray(JsonReader reader, Sink sink) throws IOException, InterruptedException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            sink.accept(read(reader));
+        }
+        reader.endArray();
+    }
+
+    /**
+     * { appointment: { id, customer: { phone, smsReminderConsent }, ... }, message }
+     * Everything else (service, staff, names) is skipped without being materialized
+     */
+    public static PendingReminder read(JsonReader reader) throws IOException {
+        return read(reader, null);
+    }
+
+    /**
+     * Decode a JSON array of GET /upcoming reminders: the same objects plus sendAt (ISO)
+     */
+    public static void readUpcomingArray(JsonReader reader, UpcomingReminders.Sink sink)
+            throws IOException {
+        long[] sendAt = new long[1];
+        reader.beginArray();
+        while (reader.hasNext()) {
+            sendAt[0] = 0;
+            PendingReminder reminder = read(reader, sendAt);
+            if (sendAt[0] == 0) {
+                throw new IOException("Invalid upcoming reminders payload: missing sendAt");
+            }
+            sink.accept(reminder, sendAt[0]);
+        }
+        reader.endArray();
+    }
+
+    /**
+     * @param sendAt when not null, receives sendAt as epoch millis in sendAt[0]
+     */
+    private static PendingReminder read(JsonReader reader, @Nullable long[] sendAt) throws IOException {
+        String appointmentId = null;
+        String phone = null;
+        String message = null;
+        boolean smsConsent = false;
+        long appointmentAt = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("message".equals(name)) {
+                message = readNullableString(reader);
+            } else if ("sendAt".equals(name) && sendAt != null) {
+                sendAt[0] = parseInstant(readNullableString(reader));
+            } else if ("appointment".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if ("id".equals(field)) {
+                        appointmentId = readNullableString(reader);
+                    } else if ("appointmentDate".equals(field)) {
+                        appointmentAt = parseInstant(readNullableString(reader));
+                    } else if ("customer".equals(field) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String customerField = reader.nextName();
+                            if ("phone".equals(customerField)) {
+                                phone = readNullableString(reader);
+                            } else if ("smsReminderConsent".equals(customerField)
+                                    && reader.peek() == JsonToken.BOOLEAN) {
+                                smsConsent = reader.nextBoolean();
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (appointmentId == null || message == null) {
+            throw new IOException("Invalid pending reminders payload: missing appointment id or message");
+        }
+        return new PendingReminder(appointmentId, phone, message, smsConsent,
+                PendingReminder.dueAtOf(appointmentAt));
+    }
+
+    private static long parseInstant(@Nullable String iso) throws IOException {
+        if (iso == null) {
+            return 0;
+        }
+        try {
+            return Instant.parse(iso).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IOException("Invalid date in reminders payload: " + iso, e);
+        }
+    }
+
+    @Nullable
+    public static String readNullableString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+}
@@ -0,0 +1,258 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.JsonReader;
+import android.util.JsonWriter;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last pending set received from the backend, with its delta cursor and ETag
+ * Lets the next sync ask only for changes (or get a 304) instead of the full list
+ */
+public class PendingSnapshot {
+    private static final String TAG = "PendingSnapshot";
+    private static final String FILE_NAME = "pending_snapshot.json";
+
+    @Nullable public final String apiUrl;
+    @Nullable public final String etag;
+    @Nullable public final String cursor;
+    public final List<PendingReminder> reminders;
+
+    private PendingSnapshot(@Nullable String apiUrl, @Nullable String etag, @Nullable String cursor,
+                            List<PendingReminder> reminders) {
+        this.apiUrl = apiUrl;
+        this.etag = etag;
+        this.cursor = cursor;
+        this.reminders = reminders;
+    }
+
+    /**
+     * Streams a new snapshot to disk; it replaces the old one only on commit
+     * Write errors never reach the caller: the snapshot is an optimization, a
+     * failed write only means the next sync does a full fetch
+     */
+    public static class Writer {
+        private final AtomicFile file;
+        @Nullable private FileOutputStream stream;
+        @Nullable private JsonWriter json;
+
+        private Writer(AtomicFile file) {
+            this.file = file;
+            try {
+                stream = file.startWrite();
+                json = new JsonWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+                json.beginObject();
+                json.name("reminders").beginArray();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        public void add(PendingReminder reminder) {
+            if (json == null) {
+                return;
+            }
+            try {
+                json.beginObject()
+                        .name("id").value(reminder.appointmentId)
+                        .name("phone").value(reminder.phone)
+                        .name("message").value(reminder.message)
+                        .name("consent").value(reminder.smsConsent)
+                        .name("dueAt").value(reminder.dueAt)
+                        .endObject();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * @return false when the snapshot could not be written (the old one was removed)
+         */
+        public boolean commit(String apiUrl, @Nullable String etag, @Nullable String cursor) {
+            if (json == null) {
+                return false;
+            }
+            try {
+                json.endArray();
+                json.name("apiUrl").value(apiUrl);
+                json.name("etag").value(etag);
+                json.name("cursor").value(cursor);
+                json.endObject();
+                json.flush();
+                file.finishWrite(stream);
+                return true;
+            } catch (IOException e) {
+                fail(e);
+                return false;
+            }
+        }
+
+        public void abort() {
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+            json = null;
+            stream = null;
+        }
+
+        private void fail(IOException e) {
+            Log.w(TAG, "⚠️ Snapshot write failed: " + e.getMessage());
+            abort();
+            // A stale snapshot must not be used with a newer cursor
+            file.delete();
+        }
+    }
+
+    private static AtomicFile getFile(Context context) {
+        return new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    public static Writer openWriter(Context context) {
+        return new Writer(getFile(context));
+    }
+
+    /**
+     * Read the snapshot; empty (no cursor) when missing or unreadable
+     */
+    public static PendingSnapshot load(Context context) {
+        AtomicFile file = getFile(context);
+        if (!file.getBaseFile().exists()) {
+            return empty();
+        }
+
+        try (FileInputStream in = file.openRead();
+             JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String apiUrl = null;
+            String etag = null;
+            String cursor = null;
+            List<PendingReminder> reminders = new ArrayList<>();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("reminders".equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reminders.add(readReminder(reader));
+                    }
+                    reader.endArray();
+                } else if ("apiUrl".equals(name)) {
+                    apiUrl = PendingReminderDecoder.readNullableString(reader);
+                } else if ("etag".equals(name)) {
+                    etag = PendingReminderDecoder.readNullableString(reader);
+                } else if ("cursor".equals(name)) {
+                    cursor = PendingReminderDecoder.readNullableString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new PendingSnapshot(apiUrl, etag, cursor, reminders);
+        } catch (IOException | IllegalStateException e) {
+            Log.w(TAG, "⚠️ Unreadable snapshot, starting over: " + e.getMessage());
+            return empty();
+        }
+    }
+
+    /**
+     * Save a complete pending set in one write
+     */
+    public static boolean save(Context context, String apiUrl, @Nullable String etag, @Nullable String cursor,
+                               List<PendingReminder> reminders) {
+        Writer writer = openWriter(context);
+        for (PendingReminder reminder : reminders) {
+            writer.add(reminder);
+        }
+        return writer.commit(apiUrl, etag, cursor);
+    }
+
+    public static void clear(Context context) {
+        getFile(context).delete();
+    }
+
+    /**
+     * Whether a delta request can be made against the given backend
+     */
+    public boolean canDelta(String apiUrl) {
+        return cursor != null && apiUrl.equals(this.apiUrl);
+    }
+
+    /**
+     * Current pending set after a delta: the delta order, with added reminders
+     * replacing the stored ones
+     * @return null when the delta references a reminder this snapshot does not have
+     *         (a full fetch is needed)
+     */
+    @Nullable
+    public List<PendingReminder> apply(ReminderApiClient.Delta delta) {
+        Map<String, PendingReminder> known = new HashMap<>(reminders.size() + delta.added.size());
+        for (PendingReminder reminder : reminders) {
+            known.put(reminder.appointmentId, reminder);
+        }
+        for (PendingReminder reminder : delta.added) {
+            known.put(reminder.appointmentId, reminder);
+        }
+
+        List<PendingReminder> current = new ArrayList<>(delta.ids.size());
+        for (String id : delta.ids) {
+            PendingReminder reminder = known.get(id);
+            if (reminder == null) {
+                return null;
+            }
+            current.add(reminder);
+        }
+        return current;
+    }
+
+    private static PendingSnapshot empty() {
+        return new PendingSnapshot(null, null, null, Collections.emptyList());
+    }
+
+    private static PendingReminder readReminder(JsonReader reader) throws IOException {
+        String id = null;
+        String phone = null;
+        String message = null;
+        boolean consent = false;
+        long dueAt = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("id".equals(name)) {
+                id = PendingReminderDecoder.readNullableString(reader);
+            } else if ("phone".equals(name)) {
+                phone = PendingReminderDecoder.readNullableString(reader);
+            } else if ("message".equals(name)) {
+                message = PendingReminderDecoder.readNullableString(reader);
+            } else if ("consent".equals(name)) {
+                consent = reader.nextBoolean();
+            } else if ("dueAt".equals(name)) {
+                dueAt = reader.nextLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (id == null || message == null) {
+            throw new IOException("Snapshot entry without id or message");
+        }
+        return new PendingReminder(id, phone, message, consent, dueAt);
+    }
+}
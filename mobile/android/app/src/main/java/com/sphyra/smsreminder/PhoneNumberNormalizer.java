@@ -0,0 +1,36 @@
+package com.sphyra.smsreminder;
+
+/**
+ * Phone number normalization for SMS sending
+ * Same rules as smsService.normalizePhoneNumber on the JS side
+ */
+public final class PhoneNumberNormalizer {
+
+    private PhoneNumberNormalizer() {
+    }
+
+    /**
+     * Remove spaces, dashes and parentheses; add +39 to bare Italian mobile numbers
+     */
+    public static String normalize(String phone) {
+        if (phone == null) {
+            return null;
+        }
+
+        StringBuilder normalized = new StringBuilder(phone.length() + 3);
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c == '-' || c == '(' || c == ')' || Character.isWhitespace(c)) {
+                continue;
+            }
+            normalized.append(c);
+        }
+
+        // If starts with 3 (Italian mobile) and has 10 digits, add +39
+        if (normalized.length() == 10 && normalized.charAt(0) == '3') {
+            normalized.insert(0, "+39");
+        }
+
+        return normalized.toString();
+    }
+}
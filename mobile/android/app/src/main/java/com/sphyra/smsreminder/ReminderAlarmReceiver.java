@@ -0,0 +1,21 @@
+package com.sphyra.smsreminder;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Receives the reminder alarm armed by ReminderAlarms
+ * The send itself can take minutes, longer than a receiver may run: it is
+ * handed to ReminderAlarmWorker
+ */
+public class ReminderAlarmReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ReminderAlarms.ACTION_FIRE.equals(intent.getAction())) {
+            return;
+        }
+        ReminderAlarmWorker.enqueue(context,
+                intent.getLongExtra(ReminderAlarms.EXTRA_FIRE_AT, System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Sends the reminders due when a ReminderAlarms alarm fires
+ * Runs a normal sync first (current data, leases), so nothing changes when the
+ * backend is reachable except the timing; when it is not, the prefetched copies
+ * the backend leased to this device are sent and their results wait in the
+ * AckOutbox. Copies that are not leased (older backend) or whose lease is over
+ * are left to the next sync: another phone may be sending them
+ *
+ * No network constraint: being independent of the network at send time is the point
+ */
+public class ReminderAlarmWorker extends Worker {
+    private static final String LOG_CATEGORY = "ALARM";
+    public static final String WORK_NAME = "SphyraReminderAlarm";
+
+    private static final String KEY_FIRE_AT = "fireAt";
+
+    public ReminderAlarmWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    static void enqueue(Context context, long fireAt) {
+        OneTimeWorkRequest.Builder request = new OneTimeWorkRequest.Builder(ReminderAlarmWorker.class)
+                .setInputData(new Data.Builder().putLong(KEY_FIRE_AT, fireAt).build())
+                .addTag(WORK_NAME);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            // Below Android 12 expedited work needs a foreground notification; a plain
+            // constraint-free request starts right away there while the alarm holds the wake lock
+            request.setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST);
+        }
+        // An alarm run still going covers the next group too (it sends everything pending)
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, request.build());
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        long fireAt = getInputData().getLong(KEY_FIRE_AT, System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+
+        if (!SyncSettings.isAutoSyncEnabled(context)) {
+            ReminderAlarms.cancel(context);
+            return Result.success();
+        }
+        if (SyncScheduler.loadPolicy(context).isQuietHours(Instant.now())) {
+            // Fired early or the policy changed: re-arm for the end of the quiet hours
+            ReminderAlarms.schedule(context);
+            return Result.success();
+        }
+        if (!SyncSettings.isConfigured(context) || !SmsDispatcher.getInstance(context).hasSendPermission()) {
+            AppLog.info(context, LOG_CATEGORY, "Native sync not configured - alarm skipped");
+            ReminderAlarms.completeDue(context, now);
+            return Result.success();
+        }
+
+        List<PendingReminder> due = ReminderAlarms.load(context).dueOffline(now);
+        ReminderSyncPipeline pipeline = ReminderSyncPipeline.fromSettings(context);
+        ReminderSyncPipeline.Report report;
+        try {
+            report = pipeline.run();
+            AppLog.success(context, LOG_CATEGORY, "⏰ Alarm sync completed " + (now - fireAt) / 1000
+                    + "s after the alarm time: " + report.sent + "/" + report.total + " sent", null);
+        } catch (IOException e) {
+            // Backend unreachable: send what was prefetched and leased to this device for this time
+            report = pipeline.sendPrefetched(due);
+            AppLog.warn(context, LOG_CATEGORY, "⏰ Backend unreachable (" + e.getMessage() + "), sent "
+                    + report.sent + "/" + report.total + " prefetched reminders");
+        } finally {
+            ReminderAlarms.completeDue(context, now);
+        }
+        return Result.success();
+    }
+}
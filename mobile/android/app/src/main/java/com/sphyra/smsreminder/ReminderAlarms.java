@@ -0,0 +1,190 @@
+package com.sphyra.smsreminder;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.net.ConnectivityManager;
+import android.os.Build;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefetched reminders and the alarms that send them on time
+ * Each sync run (network known to be up) stores the reminders due over the
+ * next PREFETCH_HOURS; an exact alarm then wakes the device at their send
+ * time, through Doze, and ReminderAlarmWorker sends them - from the backend
+ * when it is reachable, from the prefetched copies when it is not and the
+ * backend leased them to this device
+ *
+ * Only the next alarm is armed; each one arms the following when it is done.
+ * Send times within BATCH_WINDOW_MS share one alarm.
+ */
+public final class ReminderAlarms {
+    private static final String TAG = "ReminderAlarms";
+    private static final String FILE_NAME = "upcoming_reminders.bin";
+
+    static final String ACTION_FIRE = "com.sphyra.smsreminder.action.REMINDER_ALARM";
+    static final String EXTRA_FIRE_AT = "fireAt";
+
+    // Look-ahead of each prefetch (the backend allows up to 48)
+    static final int PREFETCH_HOURS = 12;
+    // Send times closer than this share one alarm (and one wake-up)
+    static final long BATCH_WINDOW_MS = TimeUnit.MINUTES.toMillis(5);
+    // On a metered network a prefetch younger than this is kept as it is
+    private static final long METERED_REFRESH_MS = TimeUnit.HOURS.toMillis(1);
+
+    @Nullable private static volatile UpcomingReminders current;
+
+    private ReminderAlarms() {
+    }
+
+    /**
+     * Prefetch the upcoming reminders and re-arm the alarm
+     * Called after a successful sync run; on a metered network a recent prefetch is kept
+     */
+    public static void refresh(Context context, ReminderApiClient apiClient) throws IOException {
+        long now = System.currentTimeMillis();
+        UpcomingReminders previous = load(context);
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        boolean metered = connectivity == null || connectivity.isActiveNetworkMetered();
+        if (metered && now - previous.fetchedAt < METERED_REFRESH_MS) {
+            schedule(context);
+            return;
+        }
+
+        UpcomingReminders upcoming;
+        try {
+            upcoming = apiClient.fetchUpcoming(PREFETCH_HOURS, SyncSettings.getDeviceId(context));
+        } catch (ReminderApiClient.HttpStatusException e) {
+            if (e.statusCode != HttpURLConnection.HTTP_NOT_FOUND) {
+                throw e;
+            }
+            // Backend without prefetch support: the poll keeps doing all the work
+            upcoming = UpcomingReminders.empty();
+        }
+        save(context, upcoming);
+        Log.d(TAG, "📥 Prefetched " + upcoming.size() + " reminders due in the next " + PREFETCH_HOURS + "h");
+        schedule(context);
+    }
+
+    /**
+     * Arm the alarm of the next group of send times (or cancel it when there is none)
+     */
+    public static void schedule(Context context) {
+        AlarmManager alarms = context.getSystemService(AlarmManager.class);
+        long fireAt = load(context).nextFireTime(System.currentTimeMillis(), BATCH_WINDOW_MS,
+                SyncScheduler.loadPolicy(context));
+        if (fireAt == 0) {
+            alarms.cancel(pendingIntent(context, 0));
+            return;
+        }
+
+        PendingIntent intent = pendingIntent(context, fireAt);
+        if (canScheduleExact(alarms)) {
+            alarms.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, fireAt, intent);
+        } else {
+            // Exact alarm permission revoked: the system may deliver it some minutes late
+            alarms.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, fireAt, intent);
+        }
+        Log.d(TAG, "⏰ Reminder alarm at " + Instant.ofEpochMilli(fireAt)
+                + (canScheduleExact(alarms) ? "" : " (inexact)"));
+    }
+
+    /**
+     * Drop what was due at now (sent, or handled by the backend) and arm the next alarm
+     */
+    static void completeDue(Context context, long now) {
+        save(context, load(context).withoutDue(now));
+        schedule(context);
+    }
+
+    /**
+     * Stop the alarms and forget the prefetch (auto-sync turned off)
+     */
+    public static void cancel(Context context) {
+        context.getSystemService(AlarmManager.class).cancel(pendingIntent(context, 0));
+        save(context, UpcomingReminders.empty());
+    }
+
+    /**
+     * Reminders due before this time already have their alarm (0 = none)
+     */
+    public static long getPrefetchedUntil(Context context) {
+        return load(context).coversUntil;
+    }
+
+    public static UpcomingReminders load(Context context) {
+        UpcomingReminders loaded = current;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (ReminderAlarms.class) {
+            if (current == null) {
+                current = read(getFile(context));
+            }
+            return current;
+        }
+    }
+
+    private static UpcomingReminders read(AtomicFile file) {
+        if (!file.getBaseFile().exists()) {
+            return UpcomingReminders.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            return UpcomingReminders.readFrom(in);
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Cannot read prefetched reminders, starting empty: " + e.getMessage());
+            return UpcomingReminders.empty();
+        }
+    }
+
+    private static synchronized void save(Context context, UpcomingReminders upcoming) {
+        current = upcoming;
+        AtomicFile file = getFile(context);
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            upcoming.writeTo(out);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            // Kept in memory; after a restart the next sync prefetches again
+            Log.w(TAG, "⚠️ Cannot save prefetched reminders: " + e.getMessage());
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private static AtomicFile getFile(Context context) {
+        return new AtomicFile(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+    }
+
+    private static PendingIntent pendingIntent(Context context, long fireAt) {
+        Intent intent = new Intent(context, ReminderAlarmReceiver.class)
+                .setAction(ACTION_FIRE)
+                .putExtra(EXTRA_FIRE_AT, fireAt);
+        // One alarm at a time: the same request code replaces the armed one
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static boolean canScheduleExact(AlarmManager alarms) {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarms.canScheduleExactAlarms();
+    }
+}
@@ -0,0 +1,457 @@
+package com.sphyra.smsreminder;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Minimal native client for the mobile reminders API
+ * Mirrors reminderService.ts (fetch pending, acknowledge results), plus the
+ * lease and prefetch endpoints only the native worker uses
+ * Requests go through SharedHttpClient, so they reuse its pooled connections
+ *
+ * Reminders are asked in the compact format (CompactReminderDecoder), decoded
+ * straight from the response buffer; backends without it answer the full
+ * format, decoded with PendingReminderDecoder
+ */
+public class ReminderApiClient {
+    // Same paths as ENDPOINTS in config/api.ts
+    static final String PATH_PENDING = "/reminders/mobile/pending";
+    static final String PATH_ACK_BATCH = "/reminders/mobile/ack-batch";
+    static final String PATH_CLAIM = "/reminders/mobile/claim";
+    static final String PATH_RELEASE = "/reminders/mobile/release";
+    static final String PATH_UPCOMING = "/reminders/mobile/upcoming";
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    // Compact reminders where the backend has them, plain JSON for everything else
+    private static final String ACCEPT = CompactReminderDecoder.MEDIA_TYPE + ", application/json;q=0.9";
+
+    private final String apiUrl;
+    @Nullable private final String token;
+
+    /**
+     * Non-2xx response from the backend
+     */
+    public static class HttpStatusException extends IOException {
+        public final int statusCode;
+
+        HttpStatusException(int statusCode, String path) {
+            super("HTTP " + statusCode + " for " + path);
+            this.statusCode = statusCode;
+        }
+
+        public boolean isClientError() {
+            return statusCode >= 400 && statusCode < 500;
+        }
+    }
+
+    public ReminderApiClient(String apiUrl, @Nullable String token) {
+        // Accept both ".../api" and ".../api/"
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.token = token;
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    /**
+     * Paging metadata of one GET /pending page
+     */
+    public static class PageInfo {
+        /** Cursor of the next page, null on the last one */
+        @Nullable public final String nextCursor;
+        /** Cursor for a later delta request (null on backends without delta support) */
+        @Nullable public final String deltaCursor;
+        /** Version of the whole pending set, for If-None-Match */
+        @Nullable public final String etag;
+        /** Request sent until response headers received */
+        public final long latencyMs;
+        /** Response body size */
+        public final long bytes;
+
+        PageInfo(@Nullable String nextCursor, @Nullable String deltaCursor, @Nullable String etag,
+                 long latencyMs, long bytes) {
+            this.nextCursor = nextCursor;
+            this.deltaCursor = deltaCursor;
+            this.etag = etag;
+            this.latencyMs = latencyMs;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Changes since a delta cursor
+     */
+    public static class Delta {
+        /** Every pending appointment id, in send order */
+        public final List<String> ids;
+        /** Reminders added or changed since the cursor */
+        public final List<PendingReminder> added;
+        @Nullable public final String cursor;
+        @Nullable public final String etag;
+        /** Response body size */
+        public final long bytes;
+
+        Delta(List<String> ids, List<PendingReminder> added, @Nullable String cursor, @Nullable String etag,
+              long bytes) {
+            this.ids = ids;
+            this.added = added;
+            this.cursor = cursor;
+            this.etag = etag;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * GET /reminders/mobile/pending?limit=&cursor=
+     * Streams the page: each reminder reaches the sink as soon as it is decoded,
+     * the full payload is never held in memory
+     */
+    public PageInfo fetchPendingPage(@Nullable String cursor, int limit, PendingReminderDecoder.Sink sink)
+            throws IOException, InterruptedException {
+        String path = PATH_PENDING + "?limit=" + limit
+                + (cursor != null ? "&cursor=" + URLEncoder.encode(cursor, "UTF-8") : "");
+
+        long startedAt = System.nanoTime();
+        Response response = execute("GET", path, null, null);
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        String etag = response.header("ETag");
+        CountingSource counter = new CountingSource(response.body().source());
+        BufferedSource body = Okio.buffer(counter);
+        if (isCompact(response)) {
+            try {
+                CompactReminderDecoder.Envelope page = CompactReminderDecoder.read(body, sink);
+                return new PageInfo(page.getString("nextCursor"), page.getString("deltaCursor"), etag,
+                        latencyMs, counter.count);
+            } finally {
+                response.close();
+            }
+        }
+        try (JsonReader reader = newReader(body.inputStream())) {
+            // Older backends ignore limit and return the whole list as a bare array
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                PendingReminderDecoder.readArray(reader, sink);
+                return new PageInfo(null, null, etag, latencyMs, counter.count);
+            }
+
+            String nextCursor = null;
+            String deltaCursor = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("reminders".equals(name)) {
+                    PendingReminderDecoder.readArray(reader, sink);
+                } else if ("nextCursor".equals(name)) {
+                    nextCursor = PendingReminderDecoder.readNullableString(reader);
+                } else if ("deltaCursor".equals(name)) {
+                    deltaCursor = PendingReminderDecoder.readNullableString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new PageInfo(nextCursor, deltaCursor, etag, latencyMs, counter.count);
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader reports malformed input as unchecked exceptions
+            throw new IOException("Invalid pending reminders payload: " + e.getMessage(), e);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * GET /reminders/mobile/pending?since= with If-None-Match
+     * @return null when the pending set did not change (304, no body)
+     */
+    @Nullable
+    public Delta fetchPendingDelta(String since, @Nullable String etag) throws IOException {
+        String path = PATH_PENDING + "?since=" + URLEncoder.encode(since, "UTF-8");
+
+        Response response = execute("GET", path, null, etag);
+        try {
+            if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return null;
+            }
+
+            List<String> ids = new ArrayList<>();
+            List<PendingReminder> added = new ArrayList<>();
+            String cursor = null;
+            CountingSource counter = new CountingSource(response.body().source());
+            BufferedSource body = Okio.buffer(counter);
+            if (isCompact(response)) {
+                CompactReminderDecoder.Envelope delta = CompactReminderDecoder.read(body, added::add);
+                return new Delta(delta.getStrings("ids"), added, delta.getString("cursor"),
+                        response.header("ETag"), counter.count);
+            }
+            try (JsonReader reader = newReader(body.inputStream())) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("ids".equals(name)) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            ids.add(reader.nextString());
+                        }
+                        reader.endArray();
+                    } else if ("added".equals(name)) {
+                        PendingReminderDecoder.readArray(reader, added::add);
+                    } else if ("cursor".equals(name)) {
+                        cursor = PendingReminderDecoder.readNullableString(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            return new Delta(ids, added, cursor, response.header("ETag"), counter.count);
+        } catch (IllegalStateException | NumberFormatException | InterruptedException e) {
+            throw new IOException("Invalid pending delta payload: " + e.getMessage(), e);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * GET /reminders/mobile/upcoming?hours=&deviceId=
+     * Reminders that become pending within the next hours, with their send times,
+     * leased to this device on backends that support it (see UpcomingReminders.leased)
+     * @throws HttpStatusException 404 on backends without prefetch support
+     */
+    public UpcomingReminders fetchUpcoming(int hours, String deviceId) throws IOException {
+        long fetchedAt = System.currentTimeMillis();
+        // Timed from before the request: a reminder added meanwhile is found by the next fetch
+        long coversUntil = fetchedAt + TimeUnit.HOURS.toMillis(hours);
+        Response response = execute("GET", PATH_UPCOMING + "?hours=" + hours
+                + "&deviceId=" + URLEncoder.encode(deviceId, "UTF-8"), null, null);
+        List<UpcomingReminders.Entry> entries = new ArrayList<>();
+        if (isCompact(response)) {
+            try {
+                CompactReminderDecoder.Envelope upcoming = CompactReminderDecoder.readUpcoming(
+                        response.body().source(),
+                        (reminder, sendAt) -> entries.add(new UpcomingReminders.Entry(reminder, sendAt)));
+                return new UpcomingReminders(entries, fetchedAt, coversUntil, upcoming.getBoolean("leased"));
+            } catch (InterruptedException e) {
+                throw new IOException("Invalid upcoming reminders payload: " + e.getMessage(), e);
+            } finally {
+                response.close();
+            }
+        }
+        try (JsonReader reader = newReader(response.body().byteStream())) {
+            boolean leased = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("reminders".equals(name)) {
+                    PendingReminderDecoder.readUpcomingArray(reader,
+                            (reminder, sendAt) -> entries.add(new UpcomingReminders.Entry(reminder, sendAt)));
+                } else if ("leased".equals(name)) {
+                    leased = reader.nextBoolean();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new UpcomingReminders(entries, fetchedAt, coversUntil, leased);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Invalid upcoming reminders payload: " + e.getMessage(), e);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * POST /reminders/mobile/claim
+     * Leases up to limit pending reminders to this device for leaseSeconds
+     * @throws HttpStatusException 404 on backends without leases
+     */
+    public LeaseClaimer.Claim claimBatch(String deviceId, int limit, int leaseSeconds) throws IOException {
+        String body;
+        try {
+            body = new JSONObject()
+                    .put("deviceId", deviceId)
+                    .put("limit", limit)
+                    .put("leaseSeconds", leaseSeconds)
+                    .toString();
+        } catch (JSONException e) {
+            throw new IOException("Invalid claim request: " + e.getMessage(), e);
+        }
+
+        Response response = execute("POST", PATH_CLAIM, body, null);
+        List<PendingReminder> reminders = new ArrayList<>();
+        if (isCompact(response)) {
+            try {
+                CompactReminderDecoder.Envelope claim = CompactReminderDecoder.read(response.body().source(),
+                        reminders::add);
+                return new LeaseClaimer.Claim(reminders, claim.getBoolean("hasMore"),
+                        (int) claim.getLong("remaining", LeaseClaimer.UNKNOWN));
+            } catch (InterruptedException e) {
+                throw new IOException("Invalid claim payload: " + e.getMessage(), e);
+            } finally {
+                response.close();
+            }
+        }
+        try (JsonReader reader = newReader(response.body().byteStream())) {
+            boolean hasMore = false;
+            int remaining = LeaseClaimer.UNKNOWN;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("reminders".equals(name)) {
+                    PendingReminderDecoder.readArray(reader, reminders::add);
+                } else if ("hasMore".equals(name)) {
+                    hasMore = reader.nextBoolean();
+                } else if ("remaining".equals(name)) {
+                    remaining = reader.nextInt();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new LeaseClaimer.Claim(reminders, hasMore, remaining);
+        } catch (IllegalStateException | NumberFormatException | InterruptedException e) {
+            throw new IOException("Invalid claim payload: " + e.getMessage(), e);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * POST /reminders/mobile/release - give leased reminders back to the pool
+     */
+    public void releaseLeases(String deviceId, List<String> appointmentIds) throws IOException {
+        try {
+            request("POST", PATH_RELEASE, new JSONObject()
+                    .put("deviceId", deviceId)
+                    .put("appointmentIds", new JSONArray(appointmentIds))
+                    .toString());
+        } catch (JSONException e) {
+            throw new IOException("Invalid release request: " + e.getMessage(), e);
+        }
+    }
+
+    private static JsonReader newReader(InputStream in) {
+        return new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * True when the backend answered with compact reminders (it ignores the Accept
+     * type it does not know and answers application/json)
+     */
+    private static boolean isCompact(Response response) {
+        ResponseBody body = response.body();
+        MediaType type = body != null ? body.contentType() : null;
+        return type != null
+                && CompactReminderDecoder.MEDIA_TYPE.equalsIgnoreCase(type.type() + "/" + type.subtype());
+    }
+
+    /**
+     * Counts the response bytes read by the decoder (for SyncMetrics)
+     * These are decoded bytes: a gzip or brotli body is counted uncompressed
+     */
+    private static class CountingSource extends ForwardingSource {
+        long count;
+
+        CountingSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * POST /reminders/mobile/ack-batch
+     * @return per-entry result, in the same order as entries (true = recorded by the backend)
+     */
+    public boolean[] acknowledgeBatch(List<AckOutbox.Entry> entries) throws IOException {
+        try {
+            JSONArray acks = new JSONArray();
+            for (AckOutbox.Entry entry : entries) {
+                JSONObject ack = new JSONObject()
+                        .put("appointmentId", entry.appointmentId)
+                        .put("status", entry.success ? "sent" : "failed");
+                if (entry.errorMessage != null) {
+                    ack.put("errorMessage", entry.errorMessage);
+                }
+                acks.put(ack);
+            }
+
+            String body = request("POST", PATH_ACK_BATCH, new JSONObject().put("acks", acks).toString());
+            JSONArray results = new JSONObject(body).getJSONArray("results");
+
+            boolean[] acknowledged = new boolean[entries.size()];
+            for (int i = 0; i < acknowledged.length && i < results.length(); i++) {
+                acknowledged[i] = !"error".equals(results.getJSONObject(i).optString("status"));
+            }
+            return acknowledged;
+        } catch (JSONException e) {
+            throw new IOException("Invalid ack-batch payload: " + e.getMessage(), e);
+        }
+    }
+
+    private String request(String method, String path, @Nullable String jsonBody) throws IOException {
+        try (Response response = execute(method, path, jsonBody, null)) {
+            return response.body().string();
+        }
+    }
+
+    /**
+     * Send the request and check the status; the caller reads the body and closes the response
+     * With ifNoneMatch set, 304 Not Modified is also accepted
+     */
+    private Response execute(String method, String path, @Nullable String jsonBody,
+                             @Nullable String ifNoneMatch) throws IOException {
+        Request.Builder request = new Request.Builder()
+                .url(apiUrl + path)
+                .header("Accept", ACCEPT)
+                .method(method, jsonBody != null ? RequestBody.create(jsonBody, JSON) : null);
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+
+        Response response = SharedHttpClient.get().newCall(request.build()).execute();
+        int status = response.code();
+        boolean notModified = ifNoneMatch != null && status == HttpURLConnection.HTTP_NOT_MODIFIED;
+        if (!response.isSuccessful() && !notModified) {
+            response.close();
+            throw new HttpStatusException(status, path);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,596 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Native reminder sync: claim pending reminders, send SMS, acknowledge results
+ * Same flow as reminderService.syncAndSendReminders, without React Native
+ */
+public class ReminderSyncPipeline {
+    private static final String TAG = "ReminderSyncPipeline";
+
+    // Reminders per GET /pending page (server maximum is 200)
+    static final int PAGE_SIZE = 100;
+
+    // The fetcher stays at most about one page ahead of the SMS sender
+    private static final int QUEUE_CAPACITY = PAGE_SIZE;
+
+    // Marks the end of the fetched stream in the queue
+    private static final SmsDispatcher.Message END_OF_STREAM = new SmsDispatcher.Message(null, null, null);
+
+    private final Context context;
+    private final ReminderApiClient apiClient;
+    private final AckOutbox outbox;
+    private final SyncMetrics metrics;
+
+    // Due time of each SMS handed out, origin of its end-to-end latency
+    private final Map<String, Long> dueTimes = new ConcurrentHashMap<>();
+
+    @Nullable private ProgressListener progressListener;
+    @Nullable private BooleanSupplier stopSignal;
+    @Nullable private EnergySession energy;
+    // SMS handed to the dispatcher so far and their results, for progress reports
+    private final AtomicInteger queued = new AtomicInteger();
+    // SMS this run expects to send, when known before they are handed out (-1 = not known)
+    private final AtomicInteger expected = new AtomicInteger(-1);
+    private final AtomicInteger sentCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    /**
+     * Called before each batch is dispatched and after every SMS result (on the dispatch threads)
+     */
+    public interface ProgressListener {
+        /**
+         * @param total SMS to send: with leased batches, those claimed so far plus what the pool
+         *              still holds; when paging, grows while pages are still being fetched
+         */
+        void onProgress(int sent, int failed, int total);
+    }
+
+    /**
+     * Summary of one sync run
+     */
+    public static class Report {
+        public final int total;
+        public final int sent;
+        public final int failed;
+
+        Report(int total, int sent, int failed) {
+            this.total = total;
+            this.sent = sent;
+            this.failed = failed;
+        }
+    }
+
+    public ReminderSyncPipeline(Context context, ReminderApiClient apiClient) {
+        this.context = context.getApplicationContext();
+        this.apiClient = apiClient;
+        this.outbox = AckOutbox.getInstance(context);
+        this.metrics = SyncMetrics.getInstance(context);
+    }
+
+    public void setProgressListener(@Nullable ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Checked before every SMS: once it returns true no new SMS is started, the
+     * ones in flight finish and are acknowledged, and the current leased batch is
+     * checkpointed for the next run (see SyncCheckpoint)
+     */
+    public void setStopSignal(@Nullable BooleanSupplier stopSignal) {
+        this.stopSignal = stopSignal;
+    }
+
+    private boolean isStopRequested() {
+        return stopSignal != null && stopSignal.getAsBoolean();
+    }
+
+    /**
+     * Session measuring this run: told when each fetch starts and ends and when
+     * each SMS goes to the radio, so its cost splits into fetches and SMS
+     */
+    public void setEnergySession(@Nullable EnergySession energy) {
+        this.energy = energy;
+    }
+
+    private void beginFetch() {
+        if (energy != null) {
+            energy.beginFetch();
+        }
+    }
+
+    private void endFetch() {
+        if (energy != null) {
+            energy.endFetch();
+        }
+    }
+
+    /**
+     * Build a pipeline from the configuration mirrored by JS
+     */
+    public static ReminderSyncPipeline fromSettings(Context context) {
+        return new ReminderSyncPipeline(context,
+                new ReminderApiClient(SyncSettings.getApiUrl(context), SyncSettings.getToken(context)));
+    }
+
+    /**
+     * Run one full sync
+     * Reminders are claimed in leased batches, see {@link #claimAndSend}; on older
+     * backends, with a stored snapshot only the changes are requested (usually a
+     * bare 304), otherwise every page is fetched, see {@link #fetchAllAndSend}
+     * @throws IOException when pending reminders cannot be fetched (caller retries)
+     */
+    public Report run() throws IOException {
+        // Outcomes left over from an earlier run must reach the backend first,
+        // otherwise those reminders come back as pending and get sent twice
+        if (outbox.count() > 0) {
+            flushAcks();
+        }
+
+        // Already sent but not yet acknowledged (backend unreachable) - never send twice
+        Set<String> alreadySent = outbox.getUnacknowledgedSentIds();
+
+        Report claimed = claimAndSend(alreadySent);
+        if (claimed != null) {
+            return claimed;
+        }
+
+        // Backend without leases: this phone sends the whole pending set
+        PendingSnapshot snapshot = PendingSnapshot.load(context);
+        if (snapshot.canDelta(apiClient.getApiUrl())) {
+            List<PendingReminder> reminders = fetchChanges(snapshot);
+            if (reminders != null) {
+                return sendAll(reminders, alreadySent);
+            }
+        }
+        return fetchAllAndSend(alreadySent);
+    }
+
+    /**
+     * Send reminders prefetched earlier, without asking the backend (unreachable at their send time)
+     * Only reminders the backend leased to this device, see UpcomingReminders.dueOffline
+     * The results wait in the outbox and reach the backend once it is reachable again
+     */
+    public Report sendPrefetched(List<PendingReminder> reminders) {
+        return sendAll(reminders, outbox.getUnacknowledgedSentIds());
+    }
+
+    /**
+     * Claim a leased batch, send it, acknowledge it, until the pool is empty
+     * Other phones claiming from the same backend get other batches, so each
+     * reminder is sent by one phone only; the acks are flushed after every batch,
+     * ending its leases before the next claim
+     * Each batch is checkpointed while it is sent, so a run stopped halfway goes
+     * on with it next time rather than claiming from the top
+     * @return null when the backend has no lease endpoint (404)
+     */
+    @Nullable
+    private Report claimAndSend(Set<String> alreadySent) throws IOException {
+        String deviceId = SyncSettings.getDeviceId(context);
+        LeaseClaimer claimer = new LeaseClaimer(
+                (limit, leaseSeconds) -> apiClient.claimBatch(deviceId, limit, leaseSeconds));
+        SmsDispatcher dispatcher = SmsDispatcher.getInstance(context);
+
+        int total = 0;
+        int batches = 0;
+        AtomicInteger rejected = new AtomicInteger();
+        List<SmsDispatcher.Outcome> outcomes = new ArrayList<>();
+        LeaseClaimer.Batch resumed = resumeCheckpoint(claimer, dispatcher);
+        while (!isStopRequested()) {
+            LeaseClaimer.Batch batch = resumed;
+            resumed = null;
+            if (batch == null) {
+                long startedAt = System.nanoTime();
+                beginFetch();
+                try {
+                    batch = claimer.claim();
+                } catch (ReminderApiClient.HttpStatusException e) {
+                    if (batches == 0 && e.statusCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                        Log.d(TAG, "ℹ️ Backend has no lease endpoint, fetching the pending list");
+                        return null;
+                    }
+                    throw e;
+                } finally {
+                    endFetch();
+                }
+                metrics.record(SyncMetrics.Metric.FETCH_LATENCY,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                if (batch == null) {
+                    break;
+                }
+                SyncCheckpoint.save(context,
+                        new SyncCheckpoint(apiClient.getApiUrl(), batch.getDeadline(), batch.remaining()));
+            }
+            batches++;
+            total += batch.size();
+
+            // Known before the batch goes out, so a large run is seen as one from its first SMS
+            expected.set(queued.get() + batch.size() + Math.max(0, batch.getPoolRemaining()));
+            reportProgress(sentCount.get(), failedCount.get());
+
+            LeaseClaimer.Batch current = batch;
+            outcomes.addAll(dispatcher.dispatch(() -> {
+                if (isStopRequested()) {
+                    return null;
+                }
+                PendingReminder reminder;
+                while ((reminder = current.next()) != null) {
+                    SmsDispatcher.Message message = validate(reminder, alreadySent);
+                    if (message != null) {
+                        queued.incrementAndGet();
+                        return message;
+                    }
+                    // Not an SMS to send after all
+                    expected.decrementAndGet();
+                    if (!alreadySent.contains(reminder.appointmentId)) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }, this::acknowledge));
+            flushAcks();
+
+            if (batch.isExpired()) {
+                releaseUnsent(deviceId, batch.unsent());
+                SyncCheckpoint.clear(context);
+            } else if (isStopRequested() && !batch.remaining().isEmpty()) {
+                // Still leased to this device: the next run sends the rest
+                SyncCheckpoint.save(context,
+                        new SyncCheckpoint(apiClient.getApiUrl(), batch.getDeadline(), batch.remaining()));
+                Log.w(TAG, "⏸️ Sync stopped, " + batch.remaining().size() + " reminders of the batch checkpointed");
+            } else {
+                SyncCheckpoint.clear(context);
+            }
+        }
+
+        Log.d(TAG, "📥 Claimed " + total + " reminders in " + batches + " batch(es) as " + deviceId);
+        return finish(total, rejected.get(), outcomes);
+    }
+
+    /**
+     * The batch an interrupted run left, when its lease still lasts
+     * @return null when there is nothing to resume
+     */
+    @Nullable
+    private LeaseClaimer.Batch resumeCheckpoint(LeaseClaimer claimer, SmsDispatcher dispatcher) {
+        SyncCheckpoint checkpoint = SyncCheckpoint.load(context);
+        if (checkpoint == null) {
+            return null;
+        }
+        if (!checkpoint.canResume(apiClient.getApiUrl(), System.currentTimeMillis())) {
+            // Lease over: those reminders are back in the pool and get claimed again
+            SyncCheckpoint.clear(context);
+            return null;
+        }
+        // The checkpoint still lists what went out before a hard kill; the SMS ledger,
+        // saved after every send, knows those: acked as sent, not handed out again
+        List<PendingReminder> unsent = new ArrayList<>();
+        for (PendingReminder reminder : checkpoint.reminders) {
+            if (dispatcher.wasSent(reminder.appointmentId, reminder.message)) {
+                acknowledge(reminder.appointmentId, true, null);
+            } else {
+                unsent.add(reminder);
+            }
+        }
+        int skipped = checkpoint.reminders.size() - unsent.size();
+        if (unsent.isEmpty()) {
+            Log.d(TAG, "⏭️ Interrupted batch already sent (" + skipped + " reminders)");
+            SyncCheckpoint.clear(context);
+            return null;
+        }
+        Log.d(TAG, "▶️ Resuming " + unsent.size() + " reminders of an interrupted batch"
+                + (skipped > 0 ? " (" + skipped + " already sent)" : ""));
+        return claimer.resume(unsent, checkpoint.deadline);
+    }
+
+    /**
+     * Give back what a batch could not send in time, so another phone takes it now
+     * rather than when the lease expires
+     */
+    private void releaseUnsent(String deviceId, List<String> unsent) {
+        if (unsent.isEmpty()) {
+            return;
+        }
+        Log.w(TAG, "⚠️ Lease ending, releasing " + unsent.size() + " unsent reminders");
+        try {
+            apiClient.releaseLeases(deviceId, unsent);
+        } catch (IOException e) {
+            // They go back to the pool anyway when the lease expires
+            Log.w(TAG, "⚠️ Lease release failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Current pending set from the snapshot plus a delta request
+     * @return null when a full fetch is needed
+     */
+    private List<PendingReminder> fetchChanges(PendingSnapshot snapshot) throws IOException {
+        ReminderApiClient.Delta delta;
+        long startedAt = System.nanoTime();
+        beginFetch();
+        try {
+            delta = apiClient.fetchPendingDelta(snapshot.cursor, snapshot.etag);
+            metrics.record(SyncMetrics.Metric.FETCH_LATENCY,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            metrics.record(SyncMetrics.Metric.FETCH_BYTES, delta != null ? delta.bytes : 0);
+        } catch (ReminderApiClient.HttpStatusException e) {
+            if (!e.isClientError()) {
+                throw e;
+            }
+            // Cursor rejected - start over with a full fetch
+            Log.w(TAG, "⚠️ Delta request rejected (" + e.statusCode + "), doing a full fetch");
+            PendingSnapshot.clear(context);
+            return null;
+        } finally {
+            endFetch();
+        }
+
+        if (delta == null) {
+            Log.d(TAG, "📭 Pending set unchanged (304), " + snapshot.reminders.size() + " reminders");
+            return snapshot.reminders;
+        }
+
+        List<PendingReminder> current = snapshot.apply(delta);
+        if (current == null) {
+            Log.w(TAG, "⚠️ Delta does not match the snapshot, doing a full fetch");
+            return null;
+        }
+
+        Log.d(TAG, "📥 Delta: " + delta.added.size() + " added/changed, " + current.size() + " pending");
+        PendingSnapshot.save(context, apiClient.getApiUrl(), delta.etag,
+                delta.cursor != null ? delta.cursor : snapshot.cursor, current);
+        return current;
+    }
+
+    /**
+     * Send an already known pending set
+     */
+    private Report sendAll(List<PendingReminder> reminders, Set<String> alreadySent) {
+        List<SmsDispatcher.Message> batch = new ArrayList<>(reminders.size());
+        int rejected = 0;
+        for (PendingReminder reminder : reminders) {
+            SmsDispatcher.Message message = validate(reminder, alreadySent);
+            if (message != null) {
+                batch.add(message);
+            } else if (!alreadySent.contains(reminder.appointmentId)) {
+                rejected++;
+            }
+        }
+
+        queued.set(batch.size());
+        expected.set(batch.size());
+        if (!batch.isEmpty()) {
+            reportProgress(0, 0);
+        }
+        Iterator<SmsDispatcher.Message> messages = batch.iterator();
+        List<SmsDispatcher.Outcome> outcomes = batch.isEmpty()
+                ? Collections.emptyList()
+                : SmsDispatcher.getInstance(context).dispatch(
+                        () -> messages.hasNext() && !isStopRequested() ? messages.next() : null, this::acknowledge);
+        return finish(reminders.size(), rejected, outcomes);
+    }
+
+    /**
+     * Fetch every page and send while fetching
+     * Pages are downloaded and decoded on a fetcher thread while the current
+     * thread sends, so the first SMS goes out after the first reminder is decoded;
+     * the fetched set is streamed into a new snapshot for the next delta sync
+     */
+    private Report fetchAllAndSend(Set<String> alreadySent) throws IOException {
+        BlockingQueue<SmsDispatcher.Message> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicReference<Exception> fetchError = new AtomicReference<>();
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        Thread fetcher = new Thread(() -> {
+            PendingSnapshot.Writer snapshot = PendingSnapshot.openWriter(context);
+            try {
+                ReminderApiClient.PageInfo first = null;
+                ReminderApiClient.PageInfo page = null;
+                int pages = 0;
+                do {
+                    beginFetch();
+                    try {
+                        page = apiClient.fetchPendingPage(page != null ? page.nextCursor : null, PAGE_SIZE,
+                                reminder -> {
+                                    fetched.incrementAndGet();
+                                    snapshot.add(reminder);
+                                    SmsDispatcher.Message message = validate(reminder, alreadySent);
+                                    if (message != null) {
+                                        queued.incrementAndGet();
+                                        queue.put(message);
+                                    } else if (!alreadySent.contains(reminder.appointmentId)) {
+                                        rejected.incrementAndGet();
+                                    }
+                                });
+                    } finally {
+                        endFetch();
+                    }
+                    metrics.record(SyncMetrics.Metric.FETCH_LATENCY, page.latencyMs);
+                    metrics.record(SyncMetrics.Metric.FETCH_BYTES, page.bytes);
+                    if (first == null) {
+                        first = page;
+                    }
+                    pages++;
+                } while (page.nextCursor != null);
+                Log.d(TAG, "📥 Fetched " + fetched.get() + " pending reminders in " + pages + " page(s)");
+
+                // The first page's cursor and ETag are the oldest: changes made while
+                // paging show up in the next delta instead of being missed
+                if (first.deltaCursor != null) {
+                    snapshot.commit(apiClient.getApiUrl(), first.etag, first.deltaCursor);
+                } else {
+                    snapshot.abort();
+                    PendingSnapshot.clear(context);
+                }
+            } catch (IOException | RuntimeException e) {
+                snapshot.abort();
+                fetchError.set(e);
+            } catch (InterruptedException e) {
+                // Sender stopped - nobody is waiting for the end marker
+                snapshot.abort();
+                return;
+            }
+            try {
+                queue.put(END_OF_STREAM);
+            } catch (InterruptedException ignored) {
+                // Sender stopped
+            }
+        }, "SphyraReminderFetch");
+        fetcher.setDaemon(true);
+        fetcher.start();
+
+        List<SmsDispatcher.Outcome> outcomes;
+        try {
+            outcomes = SmsDispatcher.getInstance(context).dispatch(() -> {
+                if (isStopRequested()) {
+                    // What was not sent stays pending on the backend for the next run
+                    return null;
+                }
+                metrics.record(SyncMetrics.Metric.QUEUE_DEPTH, queue.size());
+                SmsDispatcher.Message message = queue.take();
+                return message != END_OF_STREAM ? message : null;
+            }, this::acknowledge);
+        } finally {
+            fetcher.interrupt();
+        }
+
+        // Reminders of the pages that did arrive were handled; the rest stay pending for the retry
+        Exception error = fetchError.get();
+        if (error != null) {
+            flushAcks();
+            Log.w(TAG, "⚠️ Fetch stopped after " + fetched.get() + " reminders: " + error.getMessage());
+            throw error instanceof IOException ? (IOException) error : new IOException(error);
+        }
+
+        return finish(fetched.get(), rejected.get(), outcomes);
+    }
+
+    private Report finish(int total, int rejected, List<SmsDispatcher.Outcome> outcomes) {
+        int sent = 0;
+        int failed = rejected;
+        for (SmsDispatcher.Outcome outcome : outcomes) {
+            if (outcome.success) {
+                sent++;
+            } else {
+                failed++;
+            }
+        }
+
+        if (sent + failed > 0) {
+            flushAcks();
+        }
+
+        SyncSettings.recordSync(context, "completed", total > 0);
+        Log.d(TAG, "✅ Sync complete: " + sent + " sent, " + failed + " failed out of " + total);
+        return new Report(total, sent, failed);
+    }
+
+    /**
+     * Validation: phone number and GDPR consent, same as smsService.sendReminderSMS
+     * Invalid reminders are acknowledged as failed right away
+     * @return the message to send, or null when the reminder must not be sent
+     */
+    private SmsDispatcher.Message validate(PendingReminder reminder, Set<String> alreadySent) {
+        if (alreadySent.contains(reminder.appointmentId)) {
+            Log.d(TAG, "⏭️ Skipping " + reminder.appointmentId + " - sent, ack still in outbox");
+            return null;
+        }
+        if (reminder.phone == null || reminder.phone.isEmpty()) {
+            acknowledge(reminder.appointmentId, false, SmsDispatcher.ERROR_MISSING_PHONE);
+            return null;
+        }
+        if (!reminder.smsConsent) {
+            acknowledge(reminder.appointmentId, false, "Cliente non ha dato consenso SMS (GDPR)");
+            return null;
+        }
+        if (reminder.dueAt > 0) {
+            dueTimes.put(reminder.appointmentId, reminder.dueAt);
+        }
+        return new SmsDispatcher.Message(reminder.appointmentId, reminder.phone, reminder.message);
+    }
+
+    /**
+     * Persist each result as soon as it is known, not at the end of the batch
+     */
+    private void acknowledge(SmsDispatcher.Outcome outcome, int completed, int total) {
+        if (outcome.uncertain) {
+            // No failed ack: the backend would hand it out again. It stays leased (or pending)
+            // until a later sync finds it in the SMS ledger and acks it as sent
+            Log.w(TAG, "⚠️ SMS " + outcome.appointmentId + " may have gone out (" + outcome.error + ") - not acked");
+        } else {
+            acknowledge(outcome.appointmentId, outcome.success, outcome.error);
+        }
+
+        if (outcome.attempts > 0) {
+            metrics.record(SyncMetrics.Metric.SMS_ATTEMPTS, outcome.attempts);
+        }
+        if (outcome.parts > 0) {
+            metrics.record(SyncMetrics.Metric.SMS_SEND_LATENCY, outcome.sendLatencyMs);
+            if (energy != null) {
+                energy.recordSms();
+            }
+        }
+        Long dueAt = dueTimes.remove(outcome.appointmentId);
+        if (outcome.success && !outcome.alreadySent && dueAt != null) {
+            // Not negative: a reminder sent early (prefetched alarm batch) counts as on time
+            metrics.record(SyncMetrics.Metric.REMINDER_LATENCY, Math.max(0, System.currentTimeMillis() - dueAt));
+        }
+
+        int sent = outcome.success ? sentCount.incrementAndGet() : sentCount.get();
+        int failed = outcome.success ? failedCount.get() : failedCount.incrementAndGet();
+        reportProgress(sent, failed);
+    }
+
+    private void reportProgress(int sent, int failed) {
+        if (progressListener != null) {
+            int planned = expected.get();
+            progressListener.onProgress(sent, failed, Math.max(planned >= 0 ? planned : queued.get(), sent + failed));
+        }
+    }
+
+    /**
+     * Record a dispatch result in the durable outbox (flushed in one batch later)
+     */
+    private void acknowledge(String appointmentId, boolean success, String error) {
+        outbox.record(appointmentId, success, success ? null : (error != null ? error : "Unknown error"));
+    }
+
+    /**
+     * Send the outbox now with one request; on failure AckFlushWorker retries with backoff
+     */
+    private void flushAcks() {
+        long startedAt = System.nanoTime();
+        try {
+            new AckFlusher(outbox, apiClient).flush();
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Ack flush failed, scheduling background retry: " + e.getMessage());
+        } finally {
+            metrics.record(SyncMetrics.Metric.ACK_FLUSH_LATENCY,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+        if (outbox.count() > 0) {
+            AckFlushWorker.schedule(context);
+        }
+    }
+}
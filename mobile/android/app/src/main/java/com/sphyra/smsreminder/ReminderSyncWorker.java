@@ -1,25 +1,75 @@
 package com.sphyra.smsreminder;
 
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
 import android.content.Context;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.ForegroundInfo;
+import androidx.work.WorkManager;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 import androidx.work.Data;
 
-import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContext;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
 
 /**
  * WorkManager Worker for periodic reminder synchronization
  * Runs in background respecting Android battery optimization (Doze mode)
+ *
+ * The whole sync (fetch, SMS dispatch, acknowledge) runs natively through
+ * ReminderSyncPipeline, so reminders go out without React Native running.
+ * Falls back to the pending_sync flag (handled by JS on next app open)
+ * when the API config has not been mirrored yet or SMS permission is missing.
+ *
+ * Each completed run prefetches the reminders due in the next hours (sent on
+ * time by ReminderAlarms) and schedules the next one through SyncScheduler.
+ * Dispatch progress is published with setProgressAsync (see WorkManagerModule
+ * for the JS events).
+ *
+ * Small runs stay plain background work. A run with FOREGROUND_THRESHOLD SMS
+ * to send (known from the claim, before the first one goes out) becomes a
+ * foreground service with a progress notification, so a large backlog is
+ * drained in one run instead of being cut at WorkManager's 10 minute limit;
+ * if the run is stopped anyway, the leased batch it was sending is
+ * checkpointed and the next run resumes it (see SyncCheckpoint).
  */
 public class ReminderSyncWorker extends Worker {
     private static final String TAG = "ReminderSyncWorker";
+    private static final String LOG_CATEGORY = "SYNC";
     private static final String EVENT_SYNC_TRIGGER = "REMINDER_SYNC_TRIGGER";
 
+    // Progress data keys, read by WorkManagerModule
+    public static final String PROGRESS_SENT = "sent";
+    public static final String PROGRESS_FAILED = "failed";
+    public static final String PROGRESS_TOTAL = "total";
+
+    // Every progress update is a WorkManager database write
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    // SMS in one run above which the run goes foreground: at about 1 SMS/s per SIM
+    // this is well within the 10 minutes a background worker gets
+    static final int FOREGROUND_THRESHOLD = 100;
+    private static final int NOTIFICATION_ID = 4201;
+    private static final String CHANNEL_ID = "sphyra_sync";
+    // The system drops notification updates posted faster than this
+    private static final long NOTIFICATION_INTERVAL_MS = 2000;
+
+    private long lastProgressAt;
+    private boolean foreground;
+    private volatile boolean foregroundDenied;
+    private long lastNotificationAt;
+
     public ReminderSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
     }
@@ -27,38 +77,183 @@ public class ReminderSyncWorker extends Worker {
     @NonNull
     @Override
     public Result doWork() {
+        Context context = getApplicationContext();
+        SyncMetrics metrics = SyncMetrics.getInstance(context);
+        long startedAt = System.currentTimeMillis();
+
+        // Read before scheduleNext replaces it; retries keep the original due time
+        long dueAt = SyncSettings.getNextRunAt(context);
+        if (dueAt > 0 && getRunAttemptCount() == 0) {
+            metrics.record(SyncMetrics.Metric.START_LAG, startedAt - dueAt);
+        }
+
+        SyncScheduler.setSyncRunning(true);
         try {
-            Log.d(TAG, "🔄 WorkManager sync triggered");
+            Result result = runSync(context);
+            // A stopped run is retried by WorkManager, unless it was cancelled from the
+            // notification: the appended next run keeps the schedule going either way
+            if (!(result instanceof Result.Retry) || isStopped()) {
+                SyncScheduler.scheduleNext(context);
+                metrics.record(SyncMetrics.Metric.SYNC_RETRIES, getRunAttemptCount());
+            }
+            return result;
+        } finally {
+            SyncScheduler.setSyncRunning(false);
+            metrics.recordRun(System.currentTimeMillis() - startedAt);
+            metrics.save();
+        }
+    }
 
-            // Check if we're in night hours (20:00 - 09:00)
-            if (isNightHours()) {
-                Log.d(TAG, "⏸️ Skipping sync during night hours (20:00-09:00)");
+    private Result runSync(Context context) {
+        try {
+            AppLog.info(context, LOG_CATEGORY, "🔄 WorkManager sync triggered");
+
+            // The scheduler never plans a run in quiet hours; this only catches
+            // runs delayed by Doze or constraints into the quiet period
+            if (SyncScheduler.loadPolicy(context).isQuietHours(Instant.now())) {
+                AppLog.info(context, LOG_CATEGORY, "⏸️ Skipping sync during quiet hours");
                 return Result.success(createOutputData("skipped_night", 0));
             }
 
-            // Emit event to React Native to trigger sync
-            // The actual sync logic remains in JavaScript for easier maintenance
-            emitSyncEvent();
+            if (!SyncSettings.isConfigured(context)
+                    || !SmsDispatcher.getInstance(context).hasSendPermission()) {
+                // Native sync not possible yet - let JS handle it when the app opens
+                emitSyncEvent();
+                AppLog.info(context, LOG_CATEGORY, "Native sync not configured - deferred to app");
+                return Result.success(createOutputData("deferred_to_app", 0));
+            }
+
+            ReminderSyncPipeline pipeline = ReminderSyncPipeline.fromSettings(context);
+            pipeline.setProgressListener(this::publishProgress);
+            pipeline.setStopSignal(this::isStopped);
+            // Ends a session started from JS; null only while another sync run is measuring
+            EnergyMeter meter = EnergyMeter.getInstance(context);
+            EnergySession energy = meter.start(EnergySession.KIND_SYNC);
+            pipeline.setEnergySession(energy);
+            ReminderSyncPipeline.Report report;
+            try {
+                report = pipeline.run();
+            } finally {
+                if (energy != null) {
+                    meter.stop(energy);
+                }
+            }
+            if (isStopped()) {
+                AppLog.warn(context, LOG_CATEGORY, "⏸️ Sync stopped (reason " + getStopReason() + ") after "
+                        + report.sent + "/" + report.total + " sent - the next run resumes from the checkpoint");
+                return Result.retry();
+            }
+            prefetch(context);
 
-            Log.d(TAG, "✅ Sync event emitted successfully");
-            return Result.success(createOutputData("completed", 1));
+            AppLog.success(context, LOG_CATEGORY, "✅ Native sync completed: " + report.sent + "/" + report.total + " sent",
+                    "{\"total\":" + report.total + ",\"sent\":" + report.sent + ",\"failed\":" + report.failed + "}");
+            return Result.success(new Data.Builder()
+                    .putAll(createOutputData("completed", 1))
+                    .putInt("total", report.total)
+                    .putInt("sent", report.sent)
+                    .putInt("failed", report.failed)
+                    .build());
 
+        } catch (IOException e) {
+            // Backend unreachable - WorkManager retries with backoff
+            AppLog.warn(context, LOG_CATEGORY, "⚠️ Backend unreachable during sync: " + e.getMessage());
+            SyncSettings.recordSyncError(context, "network_error");
+            return Result.retry();
         } catch (Exception e) {
             Log.e(TAG, "❌ Error during sync: " + e.getMessage(), e);
+            AppLog.error(context, LOG_CATEGORY, "❌ Error during sync: " + e.getMessage());
             return Result.retry();
         }
     }
 
     /**
-     * Check if current time is within night hours (20:00 - 09:00)
+     * The network just worked: fetch what becomes due in the next hours and arm its alarms
+     * A failure here never fails the sync, the next run tries again
      */
-    private boolean isNightHours() {
-        java.util.Calendar calendar = java.util.Calendar.getInstance();
-        int currentHour = calendar.get(java.util.Calendar.HOUR_OF_DAY);
+    private void prefetch(Context context) {
+        try {
+            ReminderAlarms.refresh(context,
+                    new ReminderApiClient(SyncSettings.getApiUrl(context), SyncSettings.getToken(context)));
+        } catch (IOException | RuntimeException e) {
+            AppLog.warn(context, LOG_CATEGORY, "⚠️ Reminder prefetch failed: " + e.getMessage());
+        }
+    }
 
-        // Night hours: 20:00 (20) to 09:00 (9)
-        // This means: hour >= 20 OR hour < 9
-        return currentHour >= 20 || currentHour < 9;
+    /**
+     * Publish dispatch progress, at most every PROGRESS_INTERVAL_MS (the last update always goes out)
+     */
+    private synchronized void publishProgress(int sent, int failed, int total) {
+        long now = SystemClock.elapsedRealtime();
+        boolean promote = !foreground && !foregroundDenied && total >= FOREGROUND_THRESHOLD;
+        if (!promote && sent + failed < total && now - lastProgressAt < PROGRESS_INTERVAL_MS) {
+            return;
+        }
+        lastProgressAt = now;
+        setProgressAsync(new Data.Builder()
+                .putInt(PROGRESS_SENT, sent)
+                .putInt(PROGRESS_FAILED, failed)
+                .putInt(PROGRESS_TOTAL, total)
+                .build());
+        updateForeground(sent + failed, total, now);
+    }
+
+    /**
+     * Go foreground once the run is large, then keep the notification's progress current
+     */
+    private void updateForeground(int done, int total, long now) {
+        if (foregroundDenied || (!foreground && total < FOREGROUND_THRESHOLD)) {
+            return;
+        }
+        if (foreground && done < total && now - lastNotificationAt < NOTIFICATION_INTERVAL_MS) {
+            return;
+        }
+        if (!foreground) {
+            AppLog.info(getApplicationContext(), LOG_CATEGORY,
+                    "📣 " + total + " SMS to send - running as a foreground service");
+        }
+        foreground = true;
+        lastNotificationAt = now;
+
+        ListenableFuture<Void> future = setForegroundAsync(createForegroundInfo(done, total));
+        future.addListener(() -> {
+            try {
+                future.get();
+            } catch (ExecutionException | InterruptedException e) {
+                // Android 12+ refuses foreground services started from the background unless
+                // the app is exempt from battery optimization: the run goes on as plain
+                // work, and is checkpointed if the system stops it
+                foregroundDenied = true;
+                AppLog.warn(getApplicationContext(), LOG_CATEGORY,
+                        "⚠️ Cannot run as a foreground service: " + e.getMessage());
+            }
+        }, Runnable::run);
+    }
+
+    private ForegroundInfo createForegroundInfo(int done, int total) {
+        Context context = getApplicationContext();
+        NotificationManager notifications = context.getSystemService(NotificationManager.class);
+        if (notifications.getNotificationChannel(CHANNEL_ID) == null) {
+            notifications.createNotificationChannel(new NotificationChannel(
+                    CHANNEL_ID, "Invio promemoria", NotificationManager.IMPORTANCE_LOW));
+        }
+
+        Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setContentTitle("Invio promemoria in corso")
+                .setContentText(done + " di " + total + " SMS")
+                .setSmallIcon(R.mipmap.ic_launcher)
+                .setProgress(total, done, false)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setSilent(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                // Cancelling keeps the checkpoint: the next run goes on from there
+                .addAction(0, "Interrompi", WorkManager.getInstance(context).createCancelPendingIntent(getId()))
+                .build();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return new ForegroundInfo(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+        }
+        return new ForegroundInfo(NOTIFICATION_ID, notification);
     }
 
     /**
@@ -66,17 +261,11 @@ public class ReminderSyncWorker extends Worker {
      */
     private void emitSyncEvent() {
         try {
-            // Store sync trigger flag in SharedPreferences
+            // Store sync trigger flag in the shared key-value store
             // The React Native app will check this flag and perform sync
-            android.content.SharedPreferences prefs = getApplicationContext()
-                    .getSharedPreferences("SphyraPrefs", Context.MODE_PRIVATE);
-
-            prefs.edit()
-                    .putBoolean("pending_sync", true)
-                    .putLong("sync_triggered_at", System.currentTimeMillis())
-                    .apply();
+            SyncSettings.setPendingSync(getApplicationContext(), true);
 
-            Log.d(TAG, "📝 Sync trigger flag set in SharedPreferences");
+            Log.d(TAG, "📝 Sync trigger flag set");
         } catch (Exception e) {
             Log.e(TAG, "Error setting sync flag: " + e.getMessage(), e);
         }
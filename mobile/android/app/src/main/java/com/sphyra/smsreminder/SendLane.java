@@ -0,0 +1,96 @@
+package com.sphyra.smsreminder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Send lane of one SIM: its transport, its own rate governor (rate limit and
+ * throttle backoff) and its counters
+ * A throttled SIM only slows down its own lane
+ */
+public class SendLane {
+    private final SmsTransport transport;
+    private final SendRateGovernor governor;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong attempts = new AtomicLong();
+
+    /**
+     * Snapshot of a lane's counters
+     */
+    public static class Stats {
+        public final int subscriptionId;
+        public final String label;
+        public final long sent;
+        public final long failed;
+        public final long attempts;
+        public final long throttled;
+        public final double ratePerSecond;
+
+        Stats(int subscriptionId, String label, long sent, long failed, long attempts, long throttled,
+              double ratePerSecond) {
+            this.subscriptionId = subscriptionId;
+            this.label = label;
+            this.sent = sent;
+            this.failed = failed;
+            this.attempts = attempts;
+            this.throttled = throttled;
+            this.ratePerSecond = ratePerSecond;
+        }
+    }
+
+    public SendLane(SmsTransport transport, SendRateGovernor governor) {
+        this.transport = transport;
+        this.governor = governor;
+    }
+
+    public SmsTransport getTransport() {
+        return transport;
+    }
+
+    public SendRateGovernor getGovernor() {
+        return governor;
+    }
+
+    public int getSubscriptionId() {
+        return transport.getSubscriptionId();
+    }
+
+    /**
+     * One attempt on this lane; feeds the result back to the governor
+     */
+    SmsTransport.Result attempt(String phone, List<String> parts, long timeoutMs)
+            throws InterruptedException {
+        attempts.incrementAndGet();
+        SmsTransport.Result result;
+        try {
+            result = transport.send(phone, parts, timeoutMs);
+        } catch (RuntimeException e) {
+            governor.onFailure();
+            throw e;
+        }
+
+        switch (result.status) {
+            case SENT:
+                governor.onSuccess();
+                break;
+            case THROTTLED:
+                governor.onThrottled();
+                break;
+            default:
+                governor.onFailure();
+                break;
+        }
+        return result;
+    }
+
+    void countOutcome(boolean success) {
+        (success ? sent : failed).incrementAndGet();
+    }
+
+    public Stats getStats() {
+        return new Stats(transport.getSubscriptionId(), transport.getLabel(), sent.get(), failed.get(),
+                attempts.get(), governor.getThrottleCount(), governor.getRatePerSecond());
+    }
+}
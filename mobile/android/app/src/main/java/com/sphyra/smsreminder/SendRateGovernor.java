@@ -0,0 +1,151 @@
+package com.sphyra.smsreminder;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate governor for outgoing SMS
+ * Grows the send rate additively while the carrier accepts messages and
+ * halves it (with a pause) as soon as the radio reports a queue limit,
+ * so a batch runs at the fastest rate the carrier actually tolerates
+ */
+public class SendRateGovernor {
+    // Default tuning - 1 msg/s matches the old JS loop, the rest is earned
+    public static final double DEFAULT_INITIAL_RATE = 1.0;
+    public static final double DEFAULT_MIN_RATE = 1.0 / 30.0;
+    public static final double DEFAULT_MAX_RATE = 4.0;
+    public static final int DEFAULT_BURST = 3;
+
+    private static final double INCREASE_STEP = 0.25;
+    private static final double THROTTLE_DECREASE = 0.5;
+    private static final double FAILURE_DECREASE = 0.75;
+    private static final long BASE_BACKOFF_NANOS = 2_000_000_000L; // 2 s
+    private static final long MAX_BACKOFF_NANOS = 120_000_000_000L; // 2 min
+
+    private final double minRate;
+    private final double maxRate;
+    private final int burst;
+    private final LongSupplier clock;
+
+    private double ratePerSecond;
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private int consecutiveThrottles;
+
+    private long successCount;
+    private long throttleCount;
+    private long failureCount;
+
+    public SendRateGovernor() {
+        this(DEFAULT_INITIAL_RATE, DEFAULT_MIN_RATE, DEFAULT_MAX_RATE, DEFAULT_BURST, System::nanoTime);
+    }
+
+    public SendRateGovernor(double initialRate, double minRate, double maxRate, int burst,
+                            LongSupplier nanoClock) {
+        if (minRate <= 0 || maxRate < minRate || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate governor configuration");
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.burst = burst;
+        this.clock = nanoClock;
+        this.ratePerSecond = clamp(initialRate);
+        this.tokens = 1;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Take one send permit
+     * @return nanoseconds the caller must wait before sending (0 = send now)
+     */
+    public synchronized long reserve() {
+        long now = clock.getAsLong();
+        refill(now);
+
+        long wait = Math.max(0, pausedUntilNanos - now);
+        if (tokens < 1) {
+            long tokenWait = (long) Math.ceil((1 - tokens) / ratePerSecond * 1_000_000_000L);
+            wait = Math.max(wait, tokenWait);
+        }
+
+        // The permit is consumed now; the bucket goes negative until the wait elapses
+        tokens -= 1;
+        return wait;
+    }
+
+    /**
+     * Carrier accepted the message - probe for a higher rate
+     */
+    public synchronized void onSuccess() {
+        successCount++;
+        consecutiveThrottles = 0;
+        ratePerSecond = clamp(ratePerSecond + INCREASE_STEP);
+    }
+
+    /**
+     * Radio reported RESULT_ERROR_LIMIT_EXCEEDED - halve the rate and pause
+     */
+    public synchronized void onThrottled() {
+        throttleCount++;
+        consecutiveThrottles++;
+        ratePerSecond = clamp(ratePerSecond * THROTTLE_DECREASE);
+        pause(backoffNanos(consecutiveThrottles));
+    }
+
+    /**
+     * Generic failure (radio off, no service, ...) - slow down a little
+     */
+    public synchronized void onFailure() {
+        failureCount++;
+        ratePerSecond = clamp(ratePerSecond * FAILURE_DECREASE);
+        pause(BASE_BACKOFF_NANOS);
+    }
+
+    public synchronized double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public synchronized long getSuccessCount() {
+        return successCount;
+    }
+
+    public synchronized long getThrottleCount() {
+        return throttleCount;
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Nanoseconds until the governor accepts sends again (0 if not paused)
+     */
+    public synchronized long getPauseRemainingNanos() {
+        return Math.max(0, pausedUntilNanos - clock.getAsLong());
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed / 1_000_000_000.0 * ratePerSecond);
+            lastRefillNanos = now;
+        }
+    }
+
+    private void pause(long nanos) {
+        long now = clock.getAsLong();
+        refill(now);
+        pausedUntilNanos = Math.max(pausedUntilNanos, now + nanos);
+        // Drop the accumulated burst so we don't flood right after the pause
+        tokens = Math.min(tokens, 0);
+    }
+
+    private long backoffNanos(int attempt) {
+        long backoff = BASE_BACKOFF_NANOS << Math.min(attempt - 1, 6);
+        return Math.min(backoff, MAX_BACKOFF_NANOS);
+    }
+
+    private double clamp(double rate) {
+        return Math.max(minRate, Math.min(maxRate, rate));
+    }
+}
@@ -0,0 +1,213 @@
+package com.sphyra.smsreminder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger of the SMS sent in the last HORIZON_MS, checked before every send
+ * If an ack is lost the backend returns the same reminder again; the ledger
+ * turns the second send into an "already sent" ack instead of a duplicate SMS
+ *
+ * Each entry is a 64-bit fingerprint of (appointmentId, message text) plus the
+ * send minute, kept in an open-addressing table of primitive arrays: O(1)
+ * lookups, 12 bytes per slot, no objects per entry. A changed text (the
+ * appointment was moved) is a different entry, so the new reminder goes out.
+ * Entries older than the horizon are dropped whenever the table would grow,
+ * so its size follows the reminders of the last two days, not the history.
+ *
+ * Thread-safe: every send lane checks and records concurrently
+ */
+public final class SentLedger {
+    /** The backend returns a reminder for 24 hours before the appointment; twice that is safe */
+    public static final long HORIZON_MS = TimeUnit.HOURS.toMillis(48);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int MIN_CAPACITY = 64;
+    // Slots used at most, before evicting or growing
+    private static final float MAX_LOAD = 0.5f;
+    // Sanity bound for a stored count (a few hundred reminders a day in practice)
+    private static final int MAX_ENTRIES = 1 << 20;
+
+    private final long horizonMs;
+    // 0 = empty slot (fingerprint() never returns 0)
+    private long[] fingerprints;
+    private int[] sentAtMinutes;
+    private int size;
+
+    public SentLedger() {
+        this(HORIZON_MS);
+    }
+
+    public SentLedger(long horizonMs) {
+        this.horizonMs = horizonMs;
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * @return true when this message was sent to this appointment within the horizon
+     */
+    public synchronized boolean contains(String appointmentId, String text, long now) {
+        int slot = find(fingerprint(appointmentId, text));
+        return fingerprints[slot] != 0 && !isExpired(sentAtMinutes[slot], now);
+    }
+
+    public synchronized void record(String appointmentId, String text, long sentAt) {
+        put(fingerprint(appointmentId, text), toMinutes(sentAt), sentAt);
+    }
+
+    /**
+     * Drop the entries older than the horizon
+     * @return how many were dropped
+     */
+    public synchronized int evict(long now) {
+        int before = size;
+        rehash(fingerprints.length, now);
+        return before - size;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Only live entries are written: 12 bytes each
+     */
+    public synchronized void writeTo(DataOutput out, long now) throws IOException {
+        int live = 0;
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (fingerprints[i] != 0 && !isExpired(sentAtMinutes[i], now)) {
+                live++;
+            }
+        }
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(live);
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (fingerprints[i] != 0 && !isExpired(sentAtMinutes[i], now)) {
+                out.writeLong(fingerprints[i]);
+                out.writeInt(sentAtMinutes[i]);
+            }
+        }
+    }
+
+    /**
+     * Replace the content with what writeTo wrote, skipping what expired meanwhile
+     */
+    public synchronized void readFrom(DataInput in, long now) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown sent ledger format");
+        }
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ENTRIES) {
+            throw new IOException("Corrupt sent ledger");
+        }
+        allocate(capacityFor(count));
+        for (int i = 0; i < count; i++) {
+            long fingerprint = in.readLong();
+            int sentAtMinute = in.readInt();
+            if (fingerprint != 0 && !isExpired(sentAtMinute, now)) {
+                put(fingerprint, sentAtMinute, now);
+            }
+        }
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes of the id and the text, then a final mix so
+     * the low bits used for the slot index are well spread
+     */
+    static long fingerprint(String appointmentId, String text) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, appointmentId.getBytes(StandardCharsets.UTF_8));
+        // Separator: ("ab", "c") and ("a", "bc") must differ
+        hash = (hash ^ 0xff) * 0x100000001b3L;
+        hash = fnv(hash, text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long fnv(long hash, byte[] bytes) {
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private void put(long fingerprint, int sentAtMinute, long now) {
+        int slot = find(fingerprint);
+        if (fingerprints[slot] == fingerprint) {
+            sentAtMinutes[slot] = Math.max(sentAtMinutes[slot], sentAtMinute);
+            return;
+        }
+        if (size + 1 > fingerprints.length * MAX_LOAD) {
+            // Expired entries make room first; grow only if the live ones need it
+            rehash(fingerprints.length, now);
+            if (size + 1 > fingerprints.length * MAX_LOAD) {
+                rehash(fingerprints.length * 2, now);
+            }
+            slot = find(fingerprint);
+        }
+        fingerprints[slot] = fingerprint;
+        sentAtMinutes[slot] = sentAtMinute;
+        size++;
+    }
+
+    /**
+     * Linear probing: the slot holding the fingerprint, or the empty slot where it would go
+     */
+    private int find(long fingerprint) {
+        int mask = fingerprints.length - 1;
+        int slot = (int) fingerprint & mask;
+        while (fingerprints[slot] != 0 && fingerprints[slot] != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity, long now) {
+        long[] oldFingerprints = fingerprints;
+        int[] oldSentAt = sentAtMinutes;
+        allocate(capacity);
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            if (oldFingerprints[i] != 0 && !isExpired(oldSentAt[i], now)) {
+                int slot = find(oldFingerprints[i]);
+                fingerprints[slot] = oldFingerprints[i];
+                sentAtMinutes[slot] = oldSentAt[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        fingerprints = new long[capacity];
+        sentAtMinutes = new int[capacity];
+        size = 0;
+    }
+
+    private boolean isExpired(int sentAtMinute, long now) {
+        return (now - TimeUnit.MINUTES.toMillis(sentAtMinute)) > horizonMs;
+    }
+
+    private static int toMinutes(long epochMillis) {
+        return (int) TimeUnit.MILLISECONDS.toMinutes(epochMillis);
+    }
+
+    private static int capacityFor(int count) {
+        int capacity = MIN_CAPACITY;
+        while (count + 1 > capacity * MAX_LOAD) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,53 @@
+package com.sphyra.smsreminder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.brotli.BrotliInterceptor;
+
+/**
+ * The one OkHttp client of the process, used by ReminderApiClient (workers)
+ * and HttpModule (JS)
+ * Sharing it means sharing its connection pool and its TLS session cache:
+ * a sync right after another one, or the acks right after the fetch, reuse
+ * the open HTTP/2 connection, and a new connection resumes the TLS session
+ * instead of a full handshake
+ */
+public final class SharedHttpClient {
+    // Same as API_TIMEOUT in config/api.ts
+    static final long TIMEOUT_MS = 10_000;
+
+    // One backend: a couple of idle connections is plenty; nginx keepalive_timeout is 75 s
+    private static final int MAX_IDLE_CONNECTIONS = 2;
+    private static final long KEEP_ALIVE_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private static volatile OkHttpClient client;
+
+    private SharedHttpClient() {
+    }
+
+    public static OkHttpClient get() {
+        if (client == null) {
+            synchronized (SharedHttpClient.class) {
+                if (client == null) {
+                    client = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MS,
+                                    TimeUnit.MILLISECONDS))
+                            // HTTP/2 when nginx offers it through ALPN, HTTP/1.1 keep-alive otherwise
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            // Asks for "br, gzip" and decodes either
+                            .addInterceptor(BrotliInterceptor.INSTANCE)
+                            .connectTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                            .readTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                            .writeTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                            .retryOnConnectionFailure(true)
+                            .build();
+                }
+            }
+        }
+        return client;
+    }
+}
@@ -0,0 +1,166 @@
+package com.sphyra.smsreminder;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Native module for batch SMS dispatch
+ * Replaces the JS send loop (fixed 1 s delay, assumed success on timeout)
+ * with SmsDispatcher: real SENT/DELIVERED results and carrier-aware pacing
+ */
+public class SmsDispatchModule extends ReactContextBaseJavaModule {
+    private static final String TAG = "SmsDispatchModule";
+    private static final String MODULE_NAME = "SmsDispatchModule";
+
+    private final ReactApplicationContext reactContext;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public SmsDispatchModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return MODULE_NAME;
+    }
+
+    /**
+     * Send a batch of SMS
+     * @param items Array of { appointmentId, phone, message }
+     */
+    @ReactMethod
+    public void sendBatch(ReadableArray items, Promise promise) {
+        final List<SmsDispatcher.Message> batch = new ArrayList<>(items.size());
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                ReadableMap item = items.getMap(i);
+                batch.add(new SmsDispatcher.Message(
+                        item.getString("appointmentId"),
+                        item.hasKey("phone") && !item.isNull("phone") ? item.getString("phone") : null,
+                        item.getString("message")
+                ));
+            }
+        } catch (Exception e) {
+            promise.reject("SMS_DISPATCH_ERROR", "Invalid batch: " + e.getMessage());
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                long startedAt = System.currentTimeMillis();
+                List<SmsDispatcher.Outcome> outcomes = SmsDispatcher.getInstance(reactContext)
+                        .dispatch(batch, null);
+
+                int sent = 0;
+                int segmentsSaved = 0;
+                WritableArray results = Arguments.createArray();
+                for (SmsDispatcher.Outcome outcome : outcomes) {
+                    if (outcome.success) {
+                        sent++;
+                    }
+                    segmentsSaved += outcome.segmentsSaved;
+                    results.pushMap(toMap(outcome));
+                }
+
+                WritableMap result = Arguments.createMap();
+                result.putInt("total", outcomes.size());
+                result.putInt("sent", sent);
+                result.putInt("failed", outcomes.size() - sent);
+                result.putInt("segmentsSaved", segmentsSaved);
+                result.putDouble("durationMs", System.currentTimeMillis() - startedAt);
+                result.putDouble("ratePerSecond", SmsDispatcher.getInstance(reactContext).getRatePerSecond());
+                result.putArray("lanes", lanesToArray(SmsDispatcher.getInstance(reactContext).getLaneStats()));
+                result.putArray("results", results);
+
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error dispatching SMS batch: " + e.getMessage(), e);
+                promise.reject("SMS_DISPATCH_ERROR", "Failed to send batch: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Check if SEND_SMS permission is granted (native dispatch cannot prompt)
+     */
+    @ReactMethod
+    public void hasSendPermission(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("granted", SmsDispatcher.getInstance(reactContext).hasSendPermission());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("SMS_DISPATCH_ERROR", "Failed to check permission: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Per-SIM send lanes of the last batch, with their counters
+     */
+    @ReactMethod
+    public void getSendLanes(Promise promise) {
+        try {
+            promise.resolve(lanesToArray(SmsDispatcher.getInstance(reactContext).getLaneStats()));
+        } catch (Exception e) {
+            promise.reject("SMS_DISPATCH_ERROR", "Failed to get send lanes: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        executor.shutdownNow();
+        super.invalidate();
+    }
+
+    private static WritableMap toMap(SmsDispatcher.Outcome outcome) {
+        WritableMap map = Arguments.createMap();
+        map.putString("appointmentId", outcome.appointmentId);
+        map.putBoolean("success", outcome.success);
+        if (outcome.error != null) {
+            map.putString("error", outcome.error);
+        }
+        map.putInt("parts", outcome.parts);
+        map.putInt("segmentsSaved", outcome.segmentsSaved);
+        map.putInt("attempts", outcome.attempts);
+        map.putBoolean("delivered", outcome.delivered);
+        map.putDouble("sendLatencyMs", outcome.sendLatencyMs);
+        map.putInt("subscriptionId", outcome.subscriptionId);
+        map.putBoolean("alreadySent", outcome.alreadySent);
+        map.putBoolean("uncertain", outcome.uncertain);
+        return map;
+    }
+
+    private static WritableArray lanesToArray(List<SendLane.Stats> lanes) {
+        WritableArray array = Arguments.createArray();
+        for (SendLane.Stats stats : lanes) {
+            WritableMap map = Arguments.createMap();
+            map.putInt("subscriptionId", stats.subscriptionId);
+            map.putString("label", stats.label);
+            map.putDouble("sent", stats.sent);
+            map.putDouble("failed", stats.failed);
+            map.putDouble("attempts", stats.attempts);
+            map.putDouble("throttled", stats.throttled);
+            map.putDouble("ratePerSecond", stats.ratePerSecond);
+            array.pushMap(map);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,611 @@
+package com.sphyra.smsreminder;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Build;
+import android.telephony.SmsManager;
+import android.telephony.SmsMessage;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Native SMS dispatch engine
+ * Sends batches through SmsManager (multipart aware) and waits for the real
+ * SENT result of every part. Every active SIM gets its own send lane with its
+ * own SendRateGovernor; LaneDispatcher spreads the batch over the lanes.
+ * DELIVERED reports are tracked as they arrive. The SentLedger (files/sent_ledger.bin)
+ * keeps a message that was already sent from going out twice.
+ *
+ * Blocking API - call from a background thread (module executor or Worker)
+ */
+public class SmsDispatcher {
+    private static final String TAG = "SmsDispatcher";
+
+    private static final String ACTION_SENT = "com.sphyra.smsreminder.SMS_SENT";
+    private static final String ACTION_DELIVERED = "com.sphyra.smsreminder.SMS_DELIVERED";
+    private static final String EXTRA_SEND_ID = "sendId";
+    private static final String EXTRA_PART = "part";
+    private static final String LEDGER_FILE_NAME = "sent_ledger.bin";
+
+    // Sent messages still waiting for their DELIVERED reports (oldest dropped first)
+    private static final int MAX_AWAITING_DELIVERY = 200;
+
+    public static final String ERROR_NO_PERMISSION = "Permesso SMS non concesso";
+    public static final String ERROR_MISSING_PHONE = "Numero telefono mancante";
+
+    private static SmsDispatcher instance;
+
+    private final Context context;
+    private final SentLedger ledger = new SentLedger();
+    private final AtomicFile ledgerFile;
+    // One lane per subscription id, kept across batches so each governor keeps what it learned
+    private final Map<Integer, SendLane> lanes = new LinkedHashMap<>();
+    private volatile List<SendLane> activeLanes = Collections.emptyList();
+    // Governor of each new lane
+    private Supplier<SendRateGovernor> governors = SendRateGovernor::new;
+    private final Map<Integer, PendingSend> inFlight = new ConcurrentHashMap<>();
+    private final Map<Integer, PendingSend> awaitingDelivery = Collections.synchronizedMap(
+            new LinkedHashMap<Integer, PendingSend>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, PendingSend> eldest) {
+                    return size() > MAX_AWAITING_DELIVERY;
+                }
+            });
+    private final AtomicInteger sendIds = new AtomicInteger();
+    private final Object dispatchLock = new Object();
+    private boolean receiverRegistered = false;
+
+    /**
+     * One SMS to send
+     */
+    public static class Message {
+        public final String appointmentId;
+        public final String phone;
+        public final String text;
+
+        public Message(String appointmentId, String phone, String text) {
+            this.appointmentId = appointmentId;
+            this.phone = phone;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Result of one SMS - success only when every part got RESULT_OK
+     */
+    public static class Outcome {
+        public final String appointmentId;
+        public final boolean success;
+        @Nullable public final String error;
+        public final int parts;
+        public final int attempts;
+        public final boolean delivered;
+        public final long sendLatencyMs;
+        /** SIM of the last attempt (SmsTransport.DEFAULT_SUBSCRIPTION when never attempted) */
+        public final int subscriptionId;
+        /** Segments SmsEncoder saved on this SMS (0 when not sent) */
+        public final int segmentsSaved;
+        /** Found in the SentLedger: reported as sent, nothing went out this time */
+        public final boolean alreadySent;
+        /** Failed, but parts may have gone out (SENT timeout, partial send): never sent again, not acked */
+        public final boolean uncertain;
+
+        Outcome(String appointmentId, boolean success, @Nullable String error, int parts,
+                int attempts, boolean delivered, long sendLatencyMs, int subscriptionId, int segmentsSaved) {
+            this(appointmentId, success, error, parts, attempts, delivered, sendLatencyMs, subscriptionId,
+                    segmentsSaved, false, false);
+        }
+
+        private Outcome(String appointmentId, boolean success, @Nullable String error, int parts,
+                        int attempts, boolean delivered, long sendLatencyMs, int subscriptionId,
+                        int segmentsSaved, boolean alreadySent, boolean uncertain) {
+            this.appointmentId = appointmentId;
+            this.success = success;
+            this.error = error;
+            this.parts = parts;
+            this.attempts = attempts;
+            this.delivered = delivered;
+            this.sendLatencyMs = sendLatencyMs;
+            this.subscriptionId = subscriptionId;
+            this.segmentsSaved = segmentsSaved;
+            this.alreadySent = alreadySent;
+            this.uncertain = uncertain;
+        }
+
+        static Outcome alreadySent(String appointmentId) {
+            return new Outcome(appointmentId, true, null, 0, 0, false, 0, SmsTransport.DEFAULT_SUBSCRIPTION, 0,
+                    true, false);
+        }
+
+        static Outcome uncertain(String appointmentId, String error, int parts, int attempts, long sendLatencyMs,
+                                 int subscriptionId) {
+            return new Outcome(appointmentId, false, error, parts, attempts, false, sendLatencyMs, subscriptionId, 0,
+                    false, true);
+        }
+
+        static Outcome failed(String appointmentId, String error, int attempts) {
+            return new Outcome(appointmentId, false, error, 0, attempts, false, 0,
+                    SmsTransport.DEFAULT_SUBSCRIPTION, 0);
+        }
+    }
+
+    /**
+     * Progress callback, invoked on the lane threads one call at a time
+     */
+    public interface Listener {
+        void onOutcome(Outcome outcome, int completed, int total);
+    }
+
+    /**
+     * Supplies messages one at a time; may block until the next one is available
+     */
+    public interface Source {
+        /**
+         * @return the next message, or null when there are no more
+         */
+        @Nullable
+        Message next() throws InterruptedException;
+    }
+
+    /**
+     * Tracks SENT/DELIVERED results for the parts of one message
+     */
+    private static class PendingSend {
+        final int parts;
+        final CountDownLatch sentLatch;
+        final AtomicInteger sentOk = new AtomicInteger();
+        final AtomicInteger delivered = new AtomicInteger();
+        final long startedAtNanos = System.nanoTime();
+        volatile int errorCode = Activity.RESULT_OK;
+
+        PendingSend(int parts) {
+            this.parts = parts;
+            this.sentLatch = new CountDownLatch(parts);
+        }
+    }
+
+    private final BroadcastReceiver resultReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context ctx, Intent intent) {
+            int sendId = intent.getIntExtra(EXTRA_SEND_ID, -1);
+            PendingSend pending = inFlight.get(sendId);
+            if (pending == null) {
+                // DELIVERED usually arrives after the send has completed
+                pending = awaitingDelivery.get(sendId);
+            }
+            if (pending == null) {
+                return;
+            }
+
+            if (ACTION_SENT.equals(intent.getAction())) {
+                int resultCode = getResultCode();
+                if (resultCode == Activity.RESULT_OK) {
+                    pending.sentOk.incrementAndGet();
+                } else {
+                    pending.errorCode = resultCode;
+                }
+                pending.sentLatch.countDown();
+            } else if (ACTION_DELIVERED.equals(intent.getAction())) {
+                if (isDeliverySuccess(intent) && pending.delivered.incrementAndGet() == pending.parts) {
+                    awaitingDelivery.remove(sendId);
+                    SyncMetrics.getInstance(context).record(SyncMetrics.Metric.SMS_DELIVERY_LATENCY,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pending.startedAtNanos));
+                }
+            }
+        }
+    };
+
+    private SmsDispatcher(Context context) {
+        this.context = context.getApplicationContext();
+        this.ledgerFile = new AtomicFile(new File(this.context.getFilesDir(), LEDGER_FILE_NAME));
+        loadLedger();
+    }
+
+    public static synchronized SmsDispatcher getInstance(Context context) {
+        if (instance == null) {
+            instance = new SmsDispatcher(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Combined send rate of the lanes used by the last batch
+     */
+    public double getRatePerSecond() {
+        double rate = 0;
+        for (SendLane lane : activeLanes) {
+            rate += lane.getGovernor().getRatePerSecond();
+        }
+        return rate;
+    }
+
+    /**
+     * Counters (since app start) of the lanes used by the last batch
+     */
+    public List<SendLane.Stats> getLaneStats() {
+        List<SendLane.Stats> stats = new ArrayList<>();
+        for (SendLane lane : activeLanes) {
+            stats.add(lane.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Drop the lanes, and what their governors learned, and build new ones with
+     * these governors; benchmarks use it to compress the carrier pacing so that
+     * large backlogs finish in minutes (see SyncThroughputBenchmark)
+     */
+    void resetLanes(Supplier<SendRateGovernor> governors) {
+        synchronized (dispatchLock) {
+            this.governors = governors;
+            lanes.clear();
+            activeLanes = Collections.emptyList();
+        }
+    }
+
+    public boolean hasSendPermission() {
+        return context.checkSelfPermission(Manifest.permission.SEND_SMS)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * True when this text went out (or may have) to the appointment within the ledger horizon
+     */
+    public boolean wasSent(String appointmentId, String text) {
+        return ledger.contains(appointmentId, text, System.currentTimeMillis());
+    }
+
+    /**
+     * Send a batch of messages over the SIM lanes, each lane at its governor's pace
+     * Only one batch runs at a time per process
+     */
+    @NonNull
+    public List<Outcome> dispatch(@NonNull List<Message> batch, @Nullable Listener listener) {
+        Iterator<Message> iterator = batch.iterator();
+        return dispatch(() -> iterator.hasNext() ? iterator.next() : null, batch.size(), listener);
+    }
+
+    /**
+     * Send messages as the source produces them, so sending starts before the
+     * whole batch is known; the listener gets total = -1
+     */
+    @NonNull
+    public List<Outcome> dispatch(@NonNull Source source, @Nullable Listener listener) {
+        return dispatch(source, -1, listener);
+    }
+
+    private List<Outcome> dispatch(Source source, int total, @Nullable Listener listener) {
+        synchronized (dispatchLock) {
+            Listener safeListener = (outcome, completed, count) -> {
+                if ((outcome.success && !outcome.alreadySent) || outcome.uncertain) {
+                    // On disk before the listener records the ack: a killed process can't lose it
+                    saveLedger();
+                }
+                notifyListener(listener, outcome, completed, count);
+            };
+
+            if (!hasSendPermission()) {
+                Log.e(TAG, "❌ SEND_SMS permission not granted - batch aborted");
+                List<Outcome> outcomes = new ArrayList<>();
+                LaneDispatcher.drain(source, ERROR_NO_PERMISSION, outcomes, total, safeListener);
+                return outcomes;
+            }
+
+            ensureReceiverRegistered();
+            activeLanes = refreshLanes();
+
+            Log.d(TAG, "📤 Dispatching " + (total >= 0 ? total : "streamed") + " SMS on "
+                    + activeLanes.size() + " SIM lane(s) at "
+                    + String.format("%.2f", getRatePerSecond()) + " msg/s");
+
+            List<Outcome> outcomes = new LaneDispatcher(activeLanes, ledger, SyncSettings.getSmsEncodingPolicy(context))
+                    .dispatch(source, total, safeListener);
+
+            int alreadySent = 0;
+            int segmentsSaved = 0;
+            for (Outcome outcome : outcomes) {
+                if (outcome.alreadySent) {
+                    alreadySent++;
+                }
+                segmentsSaved += outcome.segmentsSaved;
+            }
+            if (alreadySent > 0) {
+                Log.w(TAG, "⏭️ " + alreadySent + " SMS already sent earlier - acknowledged again, not resent");
+            }
+            if (segmentsSaved > 0) {
+                Log.d(TAG, "✂️ GSM-7 encoding saved " + segmentsSaved + " SMS segments in this batch");
+            }
+
+            for (SendLane lane : activeLanes) {
+                SendLane.Stats stats = lane.getStats();
+                Log.d(TAG, "✅ " + stats.label + ": " + stats.sent + " sent, " + stats.failed + " failed, rate "
+                        + String.format("%.2f", stats.ratePerSecond) + " msg/s, throttled "
+                        + stats.throttled + " times");
+            }
+            return outcomes;
+        }
+    }
+
+    private void loadLedger() {
+        if (!ledgerFile.getBaseFile().exists()) {
+            return;
+        }
+        try (FileInputStream stream = ledgerFile.openRead();
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            ledger.readFrom(in, System.currentTimeMillis());
+            Log.d(TAG, "📒 Sent ledger loaded: " + ledger.size() + " recent SMS");
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Unreadable sent ledger, starting over: " + e.getMessage());
+            ledger.clear();
+        }
+    }
+
+    /**
+     * Rewrite the ledger after each recorded SMS (a few KB); expired entries are left out
+     */
+    private void saveLedger() {
+        FileOutputStream stream = null;
+        try {
+            stream = ledgerFile.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            ledger.writeTo(out, System.currentTimeMillis());
+            out.flush();
+            ledgerFile.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Could not save sent ledger: " + e.getMessage());
+            if (stream != null) {
+                ledgerFile.failWrite(stream);
+            }
+        }
+    }
+
+    /**
+     * One lane per active SIM; a single default lane when subscriptions cannot be
+     * listed (one SIM, or READ_PHONE_STATE not granted)
+     */
+    private List<SendLane> refreshLanes() {
+        List<SendLane> current = new ArrayList<>();
+        for (SubscriptionInfo info : getActiveSubscriptions()) {
+            int subscriptionId = info.getSubscriptionId();
+            SendLane lane = lanes.get(subscriptionId);
+            if (lane == null) {
+                String label = "SIM " + (info.getSimSlotIndex() + 1)
+                        + (info.getCarrierName() != null ? " (" + info.getCarrierName() + ")" : "");
+                lane = new SendLane(new RadioTransport(getSmsManager(subscriptionId), subscriptionId, label),
+                        governors.get());
+                lanes.put(subscriptionId, lane);
+            }
+            current.add(lane);
+        }
+
+        if (current.isEmpty()) {
+            SendLane lane = lanes.get(SmsTransport.DEFAULT_SUBSCRIPTION);
+            if (lane == null) {
+                lane = new SendLane(new RadioTransport(getSmsManager(SmsTransport.DEFAULT_SUBSCRIPTION),
+                        SmsTransport.DEFAULT_SUBSCRIPTION, "SIM predefinita"), governors.get());
+                lanes.put(SmsTransport.DEFAULT_SUBSCRIPTION, lane);
+            }
+            current.add(lane);
+        }
+        return current;
+    }
+
+    private List<SubscriptionInfo> getActiveSubscriptions() {
+        if (context.checkSelfPermission(Manifest.permission.READ_PHONE_STATE)
+                != PackageManager.PERMISSION_GRANTED) {
+            return Collections.emptyList();
+        }
+        try {
+            SubscriptionManager subscriptionManager = context.getSystemService(SubscriptionManager.class);
+            List<SubscriptionInfo> subscriptions = subscriptionManager != null
+                    ? subscriptionManager.getActiveSubscriptionInfoList()
+                    : null;
+            return subscriptions != null ? subscriptions : Collections.emptyList();
+        } catch (SecurityException e) {
+            Log.w(TAG, "⚠️ Cannot list SIM subscriptions: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * SmsTransport of one SIM: SmsManager plus the SENT/DELIVERED PendingIntents
+     */
+    private class RadioTransport implements SmsTransport {
+        private final SmsManager smsManager;
+        private final int subscriptionId;
+        private final String label;
+
+        RadioTransport(SmsManager smsManager, int subscriptionId, String label) {
+            this.smsManager = smsManager;
+            this.subscriptionId = subscriptionId;
+            this.label = label;
+        }
+
+        @Override
+        public int getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        @Override
+        public String getLabel() {
+            return label;
+        }
+
+        @Override
+        public List<String> divideMessage(String text) {
+            return smsManager.divideMessage(text);
+        }
+
+        @Override
+        public Result send(String phone, List<String> parts, long timeoutMs) throws InterruptedException {
+            int sendId = sendIds.incrementAndGet();
+            PendingSend pending = new PendingSend(parts.size());
+            inFlight.put(sendId, pending);
+            try {
+                sendParts(phone, new ArrayList<>(parts), sendId);
+                if (!pending.sentLatch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    // No callback is NOT a success, but the radio may still send it: never retried
+                    Log.w(TAG, "⏱️ SENT timeout on " + label);
+                    return new Result(Status.TIMEOUT, pending.sentOk.get(), false, "Timeout invio SMS");
+                }
+
+                if (pending.sentOk.get() == parts.size()) {
+                    boolean delivered = pending.delivered.get() == parts.size();
+                    if (!delivered) {
+                        awaitingDelivery.put(sendId, pending);
+                    }
+                    return new Result(Status.SENT, parts.size(), delivered, null);
+                }
+
+                String error = describeResultCode(pending.errorCode);
+                Log.w(TAG, "⚠️ SMS failed on " + label + ": " + error);
+                Status status;
+                if (pending.errorCode == SmsManager.RESULT_ERROR_LIMIT_EXCEEDED) {
+                    status = Status.THROTTLED;
+                } else if (pending.errorCode == SmsManager.RESULT_ERROR_GENERIC_FAILURE) {
+                    status = Status.RETRYABLE;
+                } else {
+                    status = Status.FAILED;
+                }
+                return new Result(status, pending.sentOk.get(), false, error);
+            } catch (RuntimeException e) {
+                // SmsManager throws on invalid destination or empty text
+                Log.e(TAG, "❌ SmsManager rejected message on " + label + ": " + e.getMessage(), e);
+                if (pending.sentOk.get() > 0) {
+                    // Thrown after some parts went out: a partial send, not a rejection
+                    return new Result(Status.FAILED, pending.sentOk.get(), false,
+                            e.getMessage() != null ? e.getMessage() : "Invio SMS interrotto");
+                }
+                throw e;
+            } finally {
+                inFlight.remove(sendId);
+            }
+        }
+
+        private void sendParts(String phone, ArrayList<String> parts, int sendId) {
+            ArrayList<PendingIntent> sentIntents = new ArrayList<>(parts.size());
+            ArrayList<PendingIntent> deliveredIntents = new ArrayList<>(parts.size());
+            for (int i = 0; i < parts.size(); i++) {
+                sentIntents.add(createResultIntent(ACTION_SENT, sendId, i));
+                deliveredIntents.add(createResultIntent(ACTION_DELIVERED, sendId, i));
+            }
+
+            if (parts.size() == 1) {
+                smsManager.sendTextMessage(phone, null, parts.get(0), sentIntents.get(0), deliveredIntents.get(0));
+            } else {
+                smsManager.sendMultipartTextMessage(phone, null, parts, sentIntents, deliveredIntents);
+            }
+        }
+    }
+
+    private PendingIntent createResultIntent(String action, int sendId, int part) {
+        Intent intent = new Intent(action)
+                .setPackage(context.getPackageName())
+                // Unique data URI so every part gets its own PendingIntent
+                .setData(Uri.parse("sphyra-sms://" + action + "/" + sendId + "/" + part))
+                .putExtra(EXTRA_SEND_ID, sendId)
+                .putExtra(EXTRA_PART, part);
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_ONE_SHOT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private void ensureReceiverRegistered() {
+        if (receiverRegistered) {
+            return;
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(ACTION_SENT);
+        filter.addAction(ACTION_DELIVERED);
+        filter.addDataScheme("sphyra-sms");
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            context.registerReceiver(resultReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            context.registerReceiver(resultReceiver, filter);
+        }
+        receiverRegistered = true;
+    }
+
+    private SmsManager getSmsManager(int subscriptionId) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            SmsManager smsManager = context.getSystemService(SmsManager.class);
+            return subscriptionId != SmsTransport.DEFAULT_SUBSCRIPTION
+                    ? smsManager.createForSubscriptionId(subscriptionId)
+                    : smsManager;
+        }
+        return subscriptionId != SmsTransport.DEFAULT_SUBSCRIPTION
+                ? SmsManager.getSmsManagerForSubscriptionId(subscriptionId)
+                : SmsManager.getDefault();
+    }
+
+    private static boolean isDeliverySuccess(Intent intent) {
+        byte[] pdu = intent.getByteArrayExtra("pdu");
+        if (pdu == null) {
+            return false;
+        }
+        SmsMessage report = SmsMessage.createFromPdu(pdu, intent.getStringExtra("format"));
+        // TP-Status 0x00-0x1F means the short message was received by the handset
+        return report != null && report.getStatus() < 0x20;
+    }
+
+    private static String describeResultCode(int resultCode) {
+        switch (resultCode) {
+            case SmsManager.RESULT_ERROR_GENERIC_FAILURE:
+                return "Errore generico invio SMS";
+            case SmsManager.RESULT_ERROR_RADIO_OFF:
+                return "Radio disattivata";
+            case SmsManager.RESULT_ERROR_NULL_PDU:
+                return "PDU non valido";
+            case SmsManager.RESULT_ERROR_NO_SERVICE:
+                return "Nessun servizio";
+            case SmsManager.RESULT_ERROR_LIMIT_EXCEEDED:
+                return "Limite invio SMS superato";
+            default:
+                return "Errore invio SMS (codice " + resultCode + ")";
+        }
+    }
+
+    private static void notifyListener(@Nullable Listener listener, Outcome outcome, int completed, int total) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.onOutcome(outcome, completed, total);
+        } catch (Exception e) {
+            Log.e(TAG, "Dispatch listener error: " + e.getMessage(), e);
+        }
+    }
+}
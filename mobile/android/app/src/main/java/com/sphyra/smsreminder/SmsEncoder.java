@@ -0,0 +1,286 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.Nullable;
+
+/**
+ * GSM-7 aware SMS encoder
+ * Counts segments the way the radio splits them (GSM 03.38 basic table plus
+ * extension table versus UCS-2) and, depending on the Policy, rewrites
+ * characters that have a GSM-7 equivalent: one curly quote or "È" in a
+ * template is enough to turn a 160-char SMS into three 70-char UCS-2 segments
+ *
+ * National language shift tables are not used (Italian carriers don't need them)
+ */
+public final class SmsEncoder {
+    public static final int GSM7_SINGLE = 160;
+    public static final int GSM7_MULTIPART = 153;
+    public static final int UCS2_SINGLE = 70;
+    public static final int UCS2_MULTIPART = 67;
+
+    private static final String GSM7_BASIC =
+            "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+                    + "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+    // Escape + char: two septets each
+    private static final String GSM7_EXTENSION = "\f^{}\\[~]|€";
+
+    // Septets per char for every char below 0x400 (0 = not in GSM-7); € is checked apart
+    private static final byte[] SEPTETS = new byte[0x400];
+
+    static {
+        for (int i = 0; i < GSM7_BASIC.length(); i++) {
+            SEPTETS[GSM7_BASIC.charAt(i)] = 1;
+        }
+        for (int i = 0; i < GSM7_EXTENSION.length(); i++) {
+            char c = GSM7_EXTENSION.charAt(i);
+            if (c < SEPTETS.length) {
+                SEPTETS[c] = 2;
+            }
+        }
+    }
+
+    public enum Encoding {
+        GSM_7,
+        UCS_2
+    }
+
+    /**
+     * How far the text may be rewritten to stay in GSM-7
+     * The rewritten text is only used when it needs fewer segments
+     */
+    public enum Policy {
+        /** Send the text as it is */
+        NONE("none"),
+        /** Typographic quotes, dashes, spaces and accented letters with a GSM-7 look-alike */
+        TYPOGRAPHIC("typographic"),
+        /** TYPOGRAPHIC, then drop whatever is left outside GSM-7 (emoji) */
+        STRICT("strict");
+
+        public final String key;
+
+        Policy(String key) {
+            this.key = key;
+        }
+
+        public static Policy fromKey(@Nullable String key, Policy fallback) {
+            for (Policy policy : values()) {
+                if (policy.key.equals(key)) {
+                    return policy;
+                }
+            }
+            return fallback;
+        }
+    }
+
+    /**
+     * How the radio would send a text
+     */
+    public static final class Segments {
+        public final Encoding encoding;
+        /** Septets (GSM-7) or UTF-16 code units (UCS-2) */
+        public final int units;
+        public final int count;
+
+        Segments(Encoding encoding, int units, int count) {
+            this.encoding = encoding;
+            this.units = units;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Text to send, with its segments and those of the original
+     */
+    public static final class Encoded {
+        public final String text;
+        public final Segments segments;
+        public final int originalSegments;
+
+        Encoded(String text, Segments segments, int originalSegments) {
+            this.text = text;
+            this.segments = segments;
+            this.originalSegments = originalSegments;
+        }
+
+        public int getSegmentsSaved() {
+            return originalSegments - segments.count;
+        }
+    }
+
+    private SmsEncoder() {
+    }
+
+    /**
+     * Exact segment count; an escape pair or a surrogate pair is never split
+     * between two segments, as the radio does
+     */
+    public static Segments count(CharSequence text) {
+        int length = text.length();
+        int septets = 0;
+        for (int i = 0; i < length; i++) {
+            int size = septets(text.charAt(i));
+            if (size == 0) {
+                return countUcs2(text);
+            }
+            septets += size;
+        }
+        if (septets <= GSM7_SINGLE) {
+            return new Segments(Encoding.GSM_7, septets, 1);
+        }
+
+        int segments = 1;
+        int used = 0;
+        for (int i = 0; i < length; i++) {
+            int size = septets(text.charAt(i));
+            if (used + size > GSM7_MULTIPART) {
+                segments++;
+                used = 0;
+            }
+            used += size;
+        }
+        return new Segments(Encoding.GSM_7, septets, segments);
+    }
+
+    private static Segments countUcs2(CharSequence text) {
+        int length = text.length();
+        if (length <= UCS2_SINGLE) {
+            return new Segments(Encoding.UCS_2, length, 1);
+        }
+
+        int segments = 1;
+        int used = 0;
+        for (int i = 0; i < length; i++) {
+            int size = Character.isHighSurrogate(text.charAt(i)) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1)) ? 2 : 1;
+            if (used + size > UCS2_MULTIPART) {
+                segments++;
+                used = 0;
+            }
+            used += size;
+            i += size - 1;
+        }
+        return new Segments(Encoding.UCS_2, length, segments);
+    }
+
+    /**
+     * The text to send under the policy: the rewritten one only when it is
+     * GSM-7 and needs fewer segments than the original
+     */
+    public static Encoded encode(String text, Policy policy) {
+        Segments original = count(text);
+        if (policy == Policy.NONE || original.encoding == Encoding.GSM_7) {
+            return new Encoded(text, original, original.count);
+        }
+
+        String rewritten = transliterate(text, policy == Policy.STRICT);
+        Segments segments = count(rewritten);
+        if (segments.encoding == Encoding.GSM_7 && segments.count < original.count) {
+            return new Encoded(rewritten, segments, original.count);
+        }
+        return new Encoded(text, original, original.count);
+    }
+
+    /**
+     * Replace every char outside GSM-7 with its look-alike
+     * @param dropUnmapped also remove the chars without one (emoji, symbols)
+     */
+    static String transliterate(String text, boolean dropUnmapped) {
+        StringBuilder out = new StringBuilder(text.length() + 8);
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (septets(c) > 0) {
+                out.append(c);
+                continue;
+            }
+            String replacement = replacementFor(c);
+            if (replacement != null) {
+                out.append(replacement);
+            } else if (!dropUnmapped) {
+                out.append(c);
+            } else if (i + 1 < length && text.charAt(i + 1) == ' '
+                    && (out.length() == 0 || out.charAt(out.length() - 1) == ' ')) {
+                // "Ciao 😊 a presto" -> "Ciao a presto", not a double space
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * GSM-7 replacement for a char outside the table ("" = remove), null when there is none
+     */
+    @Nullable
+    static String replacementFor(char c) {
+        switch (c) {
+            case '‘': case '’': case '‚': case '‛': case '′':
+            case '´': case '`': case '‹': case '›':
+                return "'";
+            case '“': case '”': case '„': case '″': case '«': case '»':
+                return "\"";
+            case '‐': case '‑': case '‒': case '–': case '—': case '−':
+                return "-";
+            case '…':
+                return "...";
+            case '•': case '·':
+                return "-";
+            case '\u00A0': case '\u2002': case '\u2003': case '\u2007': case '\u2009': case '\u202F':
+            case '\t':
+                return " ";
+            case '\u200B': case '\u200C': case '\u200D': case '\uFEFF': case '\uFE0F':
+                return "";
+            // Italian convention for capitals with a grave accent
+            case 'À':
+                return "A'";
+            case 'È':
+                return "E'";
+            case 'Ì':
+                return "I'";
+            case 'Ò':
+                return "O'";
+            case 'Ù':
+                return "U'";
+            case 'Á': case 'Â': case 'Ã':
+                return "A";
+            case 'Ê': case 'Ë':
+                return "E";
+            case 'Í': case 'Î': case 'Ï':
+                return "I";
+            case 'Ó': case 'Ô': case 'Õ':
+                return "O";
+            case 'Ú': case 'Û':
+                return "U";
+            case 'á':
+                return "à";
+            case 'í':
+                return "ì";
+            case 'ó':
+                return "ò";
+            case 'ú':
+                return "ù";
+            case 'â': case 'ã':
+                return "a";
+            case 'ê': case 'ë':
+                return "e";
+            case 'î': case 'ï':
+                return "i";
+            case 'ô': case 'õ':
+                return "o";
+            case 'û':
+                return "u";
+            case 'ç':
+                return "Ç";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 1 or 2 septets, 0 when the char is not in GSM-7
+     */
+    static int septets(char c) {
+        if (c < SEPTETS.length) {
+            return SEPTETS[c];
+        }
+        return c == '€' ? 2 : 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * One way out for SMS: a SIM subscription on the device (see
+ * SmsDispatcher.RadioTransport) or a fake in tests
+ * Keeps SendLane and LaneDispatcher free of Android classes
+ */
+public interface SmsTransport {
+
+    /**
+     * How an attempt ended, already classified from the radio result code
+     */
+    enum Status {
+        /** Every part reported SENT */
+        SENT,
+        /** Carrier queue limit - slow this SIM down and retry */
+        THROTTLED,
+        /** Transient radio error - retry */
+        RETRYABLE,
+        /** Permanent error (radio off, no service, invalid PDU...) */
+        FAILED,
+        /** No SENT result in time - not assumed sent, but it may still go out */
+        TIMEOUT
+    }
+
+    final class Result {
+        public final Status status;
+        public final int partsSent;
+        public final boolean delivered;
+        @Nullable public final String error;
+
+        public Result(Status status, int partsSent, boolean delivered, @Nullable String error) {
+            this.status = status;
+            this.partsSent = partsSent;
+            this.delivered = delivered;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Subscription id of the SIM, or DEFAULT_SUBSCRIPTION for the default SMS SIM
+     */
+    int getSubscriptionId();
+
+    /**
+     * Human readable name, e.g. "SIM 1 (TIM)"
+     */
+    String getLabel();
+
+    List<String> divideMessage(String text);
+
+    /**
+     * Send the parts and block until every part reported its SENT result
+     * @throws RuntimeException when the radio rejects the message outright (invalid destination...)
+     */
+    Result send(String phone, List<String> parts, long timeoutMs) throws InterruptedException;
+
+    int DEFAULT_SUBSCRIPTION = -1;
+}
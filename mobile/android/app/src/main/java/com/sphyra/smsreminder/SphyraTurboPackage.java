@@ -0,0 +1,60 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.TurboReactPackage;
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Package to register the BatteryManager and WorkManager native modules
+ * Modules are created lazily, on first use from JS, and are TurboModules
+ * when the New Architecture is enabled
+ */
+public class SphyraTurboPackage extends TurboReactPackage {
+
+    @Nullable
+    @Override
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        switch (name) {
+            case NativeBatteryManagerSpec.NAME:
+                return new BatteryManagerModule(reactContext);
+            case NativeWorkManagerSpec.NAME:
+                return new WorkManagerModule(reactContext);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        boolean isTurboModule = BuildConfig.IS_NEW_ARCHITECTURE_ENABLED;
+        return () -> {
+            Map<String, ReactModuleInfo> moduleInfos = new HashMap<>();
+            moduleInfos.put(NativeBatteryManagerSpec.NAME, new ReactModuleInfo(
+                    NativeBatteryManagerSpec.NAME,
+                    BatteryManagerModule.class.getName(),
+                    false, // canOverrideExistingModule
+                    false, // needsEagerInit
+                    false, // hasConstants
+                    false, // isCxxModule
+                    isTurboModule
+            ));
+            moduleInfos.put(NativeWorkManagerSpec.NAME, new ReactModuleInfo(
+                    NativeWorkManagerSpec.NAME,
+                    WorkManagerModule.class.getName(),
+                    false, // canOverrideExistingModule
+                    false, // needsEagerInit
+                    false, // hasConstants
+                    false, // isCxxModule
+                    isTurboModule
+            ));
+            return moduleInfos;
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cold start sections, as android.os.Trace sections (visible in a Perfetto or
+ * systrace capture) and as durations for a one-line summary in the app log
+ *
+ * Sections are begun and ended on the same thread (Trace requires it); the
+ * first JS frame is a milestone measured from process start
+ */
+public final class StartupTrace {
+    private static final String TAG = "StartupTrace";
+    private static final String LOG_CATEGORY = "STARTUP";
+
+    // Milestone: fork to Application.onCreate (class loading, content providers)
+    public static final String PROCESS_TO_APPLICATION = "Sphyra.ProcessToApplication";
+    public static final String APPLICATION = "Sphyra.Application";
+    public static final String SOLOADER = "Sphyra.SoLoader";
+    public static final String REACT_HOST = "Sphyra.ReactHost";
+    // Async section from Application.onCreate to the first JS frame
+    private static final String TO_FIRST_FRAME = "Sphyra.ToFirstFrame";
+    private static final int TO_FIRST_FRAME_COOKIE = 1;
+
+    private static final Map<String, Long> startedAt = new LinkedHashMap<>();
+    private static final Map<String, Long> durations = new LinkedHashMap<>();
+    private static boolean reported;
+
+    private StartupTrace() {
+    }
+
+    public static void begin(String section) {
+        Trace.beginSection(section);
+        synchronized (StartupTrace.class) {
+            startedAt.put(section, SystemClock.uptimeMillis());
+        }
+    }
+
+    public static void end(String section) {
+        Trace.endSection();
+        synchronized (StartupTrace.class) {
+            Long started = startedAt.remove(section);
+            if (started != null && !durations.containsKey(section)) {
+                durations.put(section, SystemClock.uptimeMillis() - started);
+            }
+        }
+    }
+
+    /**
+     * Record a milestone as millis since process start (first time only)
+     */
+    public static synchronized void mark(String milestone) {
+        if (!durations.containsKey(milestone)) {
+            durations.put(milestone, sinceProcessStart());
+        }
+    }
+
+    /**
+     * Start of the time-to-first-frame section (UI starts only)
+     */
+    public static void beginFirstFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(TO_FIRST_FRAME, TO_FIRST_FRAME_COOKIE);
+        }
+    }
+
+    /**
+     * First JS frame on screen: close the section and write the summary
+     */
+    public static void firstFrame(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(TO_FIRST_FRAME, TO_FIRST_FRAME_COOKIE);
+        }
+        mark(TO_FIRST_FRAME);
+        report(context, "🚀 Cold start: first frame after " + sinceProcessStart() + "ms");
+    }
+
+    /**
+     * Process started for a worker, receiver or service: no frame will come
+     */
+    public static void backgroundStart(Context context) {
+        report(context, "⚙️ Background start: ready after " + sinceProcessStart() + "ms");
+    }
+
+    /**
+     * Millis from the fork of the process (before Application was created)
+     */
+    public static long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+    }
+
+    /**
+     * {"Sphyra.ProcessToApplication":..,"Sphyra.Application":..,...} in millis
+     */
+    static synchronized String summaryJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Long> entry : durations.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Once per process, off the main thread (opening the log store is disk I/O)
+     */
+    private static void report(Context context, String message) {
+        synchronized (StartupTrace.class) {
+            if (reported) {
+                return;
+            }
+            reported = true;
+        }
+        Context appContext = context.getApplicationContext();
+        String summary = summaryJson();
+        Log.d(TAG, message + " " + summary);
+        new Thread(() -> AppLog.info(appContext, LOG_CATEGORY, message, summary), "SphyraStartupLog").start();
+    }
+}
@@ -0,0 +1,131 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The leased batch a sync run was sending, saved when the batch is claimed and
+ * again when the run is stopped (WorkManager timeout, constraints, "Interrompi")
+ * The next run picks the batch up while its lease lasts, instead of leaving the
+ * reminders locked until the lease expires and claiming from the top
+ *
+ * The checkpoint is not rewritten per SMS: after a hard kill it still lists what
+ * went out before it. Those are skipped on resume through the SMS ledger, saved
+ * after every send; only an SMS still awaiting its SENT result when the process
+ * died can go out twice
+ */
+public final class SyncCheckpoint {
+    private static final String TAG = "SyncCheckpoint";
+    private static final String FILE_NAME = "sync_checkpoint.bin";
+
+    private static final int FORMAT_VERSION = 2;
+    // Sanity bound for a stored count (a batch is at most 200, the server limit)
+    private static final int MAX_REMINDERS = 10_000;
+
+    /** Backend the batch was claimed from */
+    public final String apiUrl;
+    /** Epoch millis the batch stops handing out reminders (LeaseClaimer.Batch deadline) */
+    public final long deadline;
+    /** Reminders of the batch not handed out when it was saved */
+    public final List<PendingReminder> reminders;
+
+    public SyncCheckpoint(String apiUrl, long deadline, List<PendingReminder> reminders) {
+        this.apiUrl = apiUrl;
+        this.deadline = deadline;
+        this.reminders = reminders;
+    }
+
+    /**
+     * True when the batch can still be sent against this backend at now
+     */
+    public boolean canResume(String apiUrl, long now) {
+        return this.apiUrl.equals(apiUrl) && now < deadline && !reminders.isEmpty();
+    }
+
+    /**
+     * @return the saved checkpoint, null when there is none (or it cannot be read)
+     */
+    @Nullable
+    public static SyncCheckpoint load(Context context) {
+        AtomicFile file = getFile(context);
+        if (!file.getBaseFile().exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown checkpoint format");
+            }
+            String apiUrl = in.readUTF();
+            long deadline = in.readLong();
+            int count = in.readInt();
+            if (count < 0 || count > MAX_REMINDERS) {
+                throw new IOException("Corrupt checkpoint");
+            }
+            List<PendingReminder> reminders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String appointmentId = in.readUTF();
+                String phone = in.readBoolean() ? in.readUTF() : null;
+                String message = in.readUTF();
+                boolean smsConsent = in.readBoolean();
+                long dueAt = in.readLong();
+                reminders.add(new PendingReminder(appointmentId, phone, message, smsConsent, dueAt));
+            }
+            return new SyncCheckpoint(apiUrl, deadline, reminders);
+        } catch (IOException e) {
+            // Without it the batch goes back to the pool when its lease expires
+            Log.w(TAG, "⚠️ Cannot read sync checkpoint, ignoring it: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static void save(Context context, SyncCheckpoint checkpoint) {
+        AtomicFile file = getFile(context);
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(checkpoint.apiUrl);
+            out.writeLong(checkpoint.deadline);
+            out.writeInt(checkpoint.reminders.size());
+            for (PendingReminder reminder : checkpoint.reminders) {
+                out.writeUTF(reminder.appointmentId);
+                out.writeBoolean(reminder.phone != null);
+                if (reminder.phone != null) {
+                    out.writeUTF(reminder.phone);
+                }
+                out.writeUTF(reminder.message);
+                out.writeBoolean(reminder.smsConsent);
+                out.writeLong(reminder.dueAt);
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Cannot save sync checkpoint: " + e.getMessage());
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    public static void clear(Context context) {
+        getFile(context).delete();
+    }
+
+    private static AtomicFile getFile(Context context) {
+        return new AtomicFile(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+    }
+}
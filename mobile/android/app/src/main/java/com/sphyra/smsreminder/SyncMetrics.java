@@ -0,0 +1,283 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Performance metrics of the native sync, kept across runs
+ * Every sync records into fixed-size LogHistograms (a few KB in total, no
+ * matter how many runs); they are written to files/sync_metrics.bin at the
+ * end of each run and read by WorkManagerModule.getSyncMetrics
+ *
+ * Thread-safe: the fetcher thread, the dispatch thread and the SMS result
+ * receiver record concurrently
+ */
+public final class SyncMetrics {
+    private static final String TAG = "SyncMetrics";
+    private static final String FILE_NAME = "sync_metrics.bin";
+    private static final int FORMAT_VERSION = 1;
+
+    public static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    public enum Metric {
+        /** Actual start of a sync minus the time it was scheduled for */
+        START_LAG("startLagMs"),
+        /** Whole sync run, from start to last ack flush */
+        SYNC_DURATION("syncDurationMs"),
+        /** Pending request until the response headers (one sample per page / delta) */
+        FETCH_LATENCY("fetchLatencyMs"),
+        /** Response body size of each pending request */
+        FETCH_BYTES("fetchBytes"),
+        /** Reminders waiting between fetcher and sender, sampled before each send */
+        QUEUE_DEPTH("queueDepth"),
+        /** SMS handed to the radio until every part reported SENT */
+        SMS_SEND_LATENCY("smsSendLatencyMs"),
+        /** SMS handed to the radio until every part reported DELIVERED */
+        SMS_DELIVERY_LATENCY("smsDeliveryLatencyMs"),
+        /** Send attempts per SMS (1 = no retry) */
+        SMS_ATTEMPTS("smsAttempts"),
+        /** Reminder due (appointment minus 24 hours) until its SMS was sent (end to end) */
+        REMINDER_LATENCY("reminderLatencyMs"),
+        /** One ack-batch flush of the outbox */
+        ACK_FLUSH_LATENCY("ackFlushLatencyMs"),
+        /** WorkManager retries before a sync run completed */
+        SYNC_RETRIES("syncRetries");
+
+        public final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Copy of one histogram's summary, safe to read outside the lock
+     */
+    public static final class Summary {
+        public final long count;
+        public final long min;
+        public final long max;
+        public final double mean;
+        public final long[] quantiles;
+
+        Summary(LogHistogram histogram) {
+            this.count = histogram.getCount();
+            this.min = histogram.getMin();
+            this.max = histogram.getMax();
+            this.mean = histogram.getMean();
+            this.quantiles = new long[QUANTILES.length];
+            for (int i = 0; i < QUANTILES.length; i++) {
+                quantiles[i] = histogram.getValueAtQuantile(QUANTILES[i]);
+            }
+        }
+    }
+
+    private static volatile SyncMetrics instance;
+
+    private final AtomicFile file;
+    private final Map<Metric, LogHistogram> histograms = new EnumMap<>(Metric.class);
+    private long since;
+    private long updatedAt;
+    private long runs;
+    private boolean dirty;
+
+    private SyncMetrics(File file) {
+        this.file = new AtomicFile(file);
+        for (Metric metric : Metric.values()) {
+            histograms.put(metric, new LogHistogram());
+        }
+        load();
+    }
+
+    public static SyncMetrics getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SyncMetrics.class) {
+                if (instance == null) {
+                    instance = new SyncMetrics(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public synchronized void record(Metric metric, long value) {
+        histograms.get(metric).record(value);
+        touch();
+    }
+
+    /**
+     * Count one worker run, whatever its result
+     */
+    public synchronized void recordRun(long durationMs) {
+        runs++;
+        histograms.get(Metric.SYNC_DURATION).record(durationMs);
+        touch();
+    }
+
+    public synchronized Summary getSummary(Metric metric) {
+        return new Summary(histograms.get(metric));
+    }
+
+    public synchronized long getRuns() {
+        return runs;
+    }
+
+    /**
+     * Epoch millis of the first sample since the last reset (0 = nothing recorded)
+     */
+    public synchronized long getSince() {
+        return since;
+    }
+
+    public synchronized long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public synchronized void reset() {
+        for (LogHistogram histogram : histograms.values()) {
+            histogram.clear();
+        }
+        runs = 0;
+        since = 0;
+        updatedAt = 0;
+        file.delete();
+        dirty = false;
+    }
+
+    /**
+     * Write the histograms if anything was recorded since the last save
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(since);
+            out.writeLong(updatedAt);
+            out.writeLong(runs);
+            out.writeInt(histograms.size());
+            for (Map.Entry<Metric, LogHistogram> entry : histograms.entrySet()) {
+                out.writeUTF(entry.getKey().key);
+                entry.getValue().writeTo(out);
+            }
+            out.flush();
+            file.finishWrite(stream);
+            dirty = false;
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Could not save sync metrics: " + e.getMessage());
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    /**
+     * Full export with the bucket counts, so samples from several devices can be merged
+     * Buckets are [lowerBound, count] pairs
+     */
+    public synchronized JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject()
+                .put("formatVersion", FORMAT_VERSION)
+                .put("since", since)
+                .put("updatedAt", updatedAt)
+                .put("runs", runs);
+
+        JSONObject metrics = new JSONObject();
+        for (Map.Entry<Metric, LogHistogram> entry : histograms.entrySet()) {
+            LogHistogram histogram = entry.getValue();
+            Summary summary = new Summary(histogram);
+            JSONObject metric = new JSONObject()
+                    .put("count", summary.count)
+                    .put("min", summary.min)
+                    .put("max", summary.max)
+                    .put("mean", summary.mean);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                metric.put(quantileKey(QUANTILES[i]), summary.quantiles[i]);
+            }
+            JSONArray buckets = new JSONArray();
+            for (long[] bucket : histogram.getBuckets()) {
+                buckets.put(new JSONArray().put(bucket[0]).put(bucket[1]));
+            }
+            metrics.put(entry.getKey().key, metric.put("buckets", buckets));
+        }
+        return json.put("metrics", metrics);
+    }
+
+    /**
+     * 0.5 -> "p50", 0.99 -> "p99"
+     */
+    public static String quantileKey(double quantile) {
+        return "p" + Math.round(quantile * 100);
+    }
+
+    private void touch() {
+        updatedAt = System.currentTimeMillis();
+        if (since == 0) {
+            since = updatedAt;
+        }
+        dirty = true;
+    }
+
+    private void load() {
+        if (!file.getBaseFile().exists()) {
+            return;
+        }
+        try (FileInputStream stream = file.openRead();
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                Log.w(TAG, "⚠️ Unknown metrics format, starting over");
+                return;
+            }
+            since = in.readLong();
+            updatedAt = in.readLong();
+            runs = in.readLong();
+            int stored = in.readInt();
+            LogHistogram discarded = new LogHistogram();
+            for (int i = 0; i < stored; i++) {
+                LogHistogram histogram = histogramFor(in.readUTF());
+                (histogram != null ? histogram : discarded).readFrom(in);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Unreadable sync metrics, starting over: " + e.getMessage());
+            for (LogHistogram histogram : histograms.values()) {
+                histogram.clear();
+            }
+            since = 0;
+            updatedAt = 0;
+            runs = 0;
+        }
+    }
+
+    @Nullable
+    private LogHistogram histogramFor(String key) {
+        for (Metric metric : Metric.values()) {
+            if (metric.key.equals(key)) {
+                return histograms.get(metric);
+            }
+        }
+        // Written by a version that recorded other metrics
+        return null;
+    }
+}
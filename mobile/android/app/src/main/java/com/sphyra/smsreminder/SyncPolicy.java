@@ -0,0 +1,289 @@
+package com.sphyra.smsreminder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scheduling policy for reminder sync
+ * Native counterpart of BatteryOptimizer.calculateOptimizedInterval plus the
+ * quiet-hours rule: computes when the next sync should run, so the device
+ * is never woken up during quiet hours just to skip
+ */
+public final class SyncPolicy {
+    // Defaults - same values as BATTERY_OPTIMIZATION / DEFAULT_SYNC_INTERVAL in config/api.ts
+    public static final int DEFAULT_BASE_INTERVAL_MINUTES = 60;
+    public static final int DEFAULT_QUIET_START_HOUR = 20;
+    public static final int DEFAULT_QUIET_END_HOUR = 9;
+    public static final double DEFAULT_LOW_BATTERY_MULTIPLIER = 3;
+    public static final double DEFAULT_NO_REMINDERS_MULTIPLIER = 4;
+    public static final double DEFAULT_CHARGING_MULTIPLIER = 0.5;
+    public static final double DEFAULT_PREFETCH_MULTIPLIER = 3;
+    public static final int DEFAULT_NO_REMINDERS_THRESHOLD_HOURS = 12;
+    public static final int DEFAULT_MIN_INTERVAL_MINUTES = 15;
+    public static final int DEFAULT_MAX_INTERVAL_MINUTES = 240;
+
+    public final int baseIntervalMinutes;
+    public final LocalTime quietStart;
+    public final LocalTime quietEnd;
+    public final ZoneId zone;
+    public final double lowBatteryMultiplier;
+    public final double criticalBatteryMultiplier;
+    public final double chargingMultiplier;
+    public final double noRemindersMultiplier;
+    public final double prefetchMultiplier;
+    public final int noRemindersThresholdHours;
+    public final int lowBatteryThreshold;
+    public final int criticalBatteryThreshold;
+    public final int minIntervalMinutes;
+    public final int maxIntervalMinutes;
+
+    /**
+     * When the next sync should run and why
+     */
+    public static final class Decision {
+        public final Instant runAt;
+        public final long delayMillis;
+        public final int intervalMinutes;
+        public final boolean deferredByQuietHours;
+        public final String reason;
+
+        Decision(Instant runAt, long delayMillis, int intervalMinutes, boolean deferredByQuietHours,
+                 String reason) {
+            this.runAt = runAt;
+            this.delayMillis = delayMillis;
+            this.intervalMinutes = intervalMinutes;
+            this.deferredByQuietHours = deferredByQuietHours;
+            this.reason = reason;
+        }
+    }
+
+    private SyncPolicy(Builder builder) {
+        this.baseIntervalMinutes = builder.baseIntervalMinutes;
+        this.quietStart = builder.quietStart;
+        this.quietEnd = builder.quietEnd;
+        this.zone = builder.zone;
+        this.lowBatteryMultiplier = builder.lowBatteryMultiplier;
+        this.criticalBatteryMultiplier = builder.criticalBatteryMultiplier;
+        this.chargingMultiplier = builder.chargingMultiplier;
+        this.noRemindersMultiplier = builder.noRemindersMultiplier;
+        this.prefetchMultiplier = builder.prefetchMultiplier;
+        this.noRemindersThresholdHours = builder.noRemindersThresholdHours;
+        this.lowBatteryThreshold = builder.lowBatteryThreshold;
+        this.criticalBatteryThreshold = builder.criticalBatteryThreshold;
+        this.minIntervalMinutes = builder.minIntervalMinutes;
+        this.maxIntervalMinutes = builder.maxIntervalMinutes;
+    }
+
+    public static SyncPolicy defaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * Quiet hours wrap around midnight when start > end (e.g. 20:00 - 09:00)
+     */
+    public boolean isQuietHours(Instant instant) {
+        if (quietStart.equals(quietEnd)) {
+            return false;
+        }
+        LocalTime time = instant.atZone(zone).toLocalTime();
+        if (quietStart.isBefore(quietEnd)) {
+            return !time.isBefore(quietStart) && time.isBefore(quietEnd);
+        }
+        return !time.isBefore(quietStart) || time.isBefore(quietEnd);
+    }
+
+    /**
+     * First instant after the quiet period containing the given instant
+     */
+    public Instant endOfQuietHours(Instant instant) {
+        ZonedDateTime local = instant.atZone(zone);
+        ZonedDateTime end = local.toLocalDate().atTime(quietEnd).atZone(zone);
+        if (!end.isAfter(local)) {
+            end = end.plusDays(1);
+        }
+        return end.toInstant();
+    }
+
+    /**
+     * Compute the next sync run
+     * @param now current time
+     * @param battery cached battery state
+     * @param lastReminderFoundAt epoch millis of the last sync that found reminders (0 = never)
+     */
+    public Decision nextRun(Instant now, BatterySnapshot battery, long lastReminderFoundAt) {
+        return nextRun(now, battery, lastReminderFoundAt, 0);
+    }
+
+    /**
+     * Compute the next sync run, knowing the reminders due until prefetchedUntil
+     * already have their alarms (see ReminderAlarms): the poll then only refreshes
+     * the prefetch, so it is stretched by prefetchMultiplier, never past prefetchedUntil
+     * @param prefetchedUntil epoch millis covered by prefetched reminders (0 = none)
+     */
+    public Decision nextRun(Instant now, BatterySnapshot battery, long lastReminderFoundAt, long prefetchedUntil) {
+        double multiplier = 1;
+        List<String> reasons = new ArrayList<>();
+
+        if (battery.isCharging) {
+            multiplier *= chargingMultiplier;
+            reasons.add("in carica (" + battery.getPercent() + "%)");
+        } else {
+            switch (battery.getBand(lowBatteryThreshold, criticalBatteryThreshold)) {
+                case CRITICAL:
+                    multiplier *= criticalBatteryMultiplier;
+                    reasons.add("batteria critica (" + battery.getPercent() + "%)");
+                    break;
+                case LOW:
+                    multiplier *= lowBatteryMultiplier;
+                    reasons.add("batteria bassa (" + battery.getPercent() + "%)");
+                    break;
+                default:
+                    reasons.add("batteria OK (" + battery.getPercent() + "%)");
+                    break;
+            }
+        }
+
+        // Never found reminders = no penalty, same as hoursSinceLastReminder in JS
+        if (lastReminderFoundAt > 0) {
+            long hoursSinceReminder = Duration.between(Instant.ofEpochMilli(lastReminderFoundAt), now).toHours();
+            if (hoursSinceReminder >= noRemindersThresholdHours) {
+                multiplier *= noRemindersMultiplier;
+                reasons.add("nessun reminder da " + hoursSinceReminder + "h");
+            }
+        }
+
+        int interval = (int) Math.round(baseIntervalMinutes * multiplier);
+        long coveredMinutes = Duration.between(now, Instant.ofEpochMilli(prefetchedUntil)).toMinutes();
+        int stretched = (int) Math.min(Math.round(interval * prefetchMultiplier), coveredMinutes);
+        if (stretched > interval) {
+            interval = stretched;
+            reasons.add("reminder pre-caricati per " + (coveredMinutes / 60) + "h");
+        }
+        if (interval > maxIntervalMinutes) {
+            interval = maxIntervalMinutes;
+            reasons.add("max interval");
+        }
+        if (interval < minIntervalMinutes) {
+            interval = minIntervalMinutes;
+            reasons.add("min interval");
+        }
+
+        Instant runAt = now.plus(Duration.ofMinutes(interval));
+        boolean deferred = false;
+        if (isQuietHours(runAt)) {
+            runAt = endOfQuietHours(runAt);
+            deferred = true;
+            reasons.add("orario silenzioso fino alle " + quietEnd);
+        }
+
+        return new Decision(runAt, Duration.between(now, runAt).toMillis(), interval, deferred,
+                "Intervallo " + interval + "min (" + String.join(", ", reasons) + ")");
+    }
+
+    /**
+     * Keep a run planned before a reboot: its original time if still ahead,
+     * right away if it fell due while the device was off (quiet hours still apply)
+     */
+    public Decision resume(Instant now, Instant plannedRunAt) {
+        Instant runAt = plannedRunAt.isAfter(now) ? plannedRunAt : now;
+        boolean deferred = false;
+        String reason = plannedRunAt.isAfter(now) ? "Ripristinato dopo riavvio" : "Recupero dopo riavvio";
+        if (isQuietHours(runAt)) {
+            runAt = endOfQuietHours(runAt);
+            deferred = true;
+            reason += " (orario silenzioso fino alle " + quietEnd + ")";
+        }
+        return new Decision(runAt, Duration.between(now, runAt).toMillis(), baseIntervalMinutes, deferred, reason);
+    }
+
+    public static final class Builder {
+        private int baseIntervalMinutes = DEFAULT_BASE_INTERVAL_MINUTES;
+        private LocalTime quietStart = LocalTime.of(DEFAULT_QUIET_START_HOUR, 0);
+        private LocalTime quietEnd = LocalTime.of(DEFAULT_QUIET_END_HOUR, 0);
+        private ZoneId zone = ZoneId.systemDefault();
+        private double lowBatteryMultiplier = DEFAULT_LOW_BATTERY_MULTIPLIER;
+        private double criticalBatteryMultiplier = DEFAULT_LOW_BATTERY_MULTIPLIER * 2;
+        private double chargingMultiplier = DEFAULT_CHARGING_MULTIPLIER;
+        private double noRemindersMultiplier = DEFAULT_NO_REMINDERS_MULTIPLIER;
+        private double prefetchMultiplier = DEFAULT_PREFETCH_MULTIPLIER;
+        private int noRemindersThresholdHours = DEFAULT_NO_REMINDERS_THRESHOLD_HOURS;
+        private int lowBatteryThreshold = BatterySnapshot.DEFAULT_LOW_THRESHOLD;
+        private int criticalBatteryThreshold = BatterySnapshot.DEFAULT_CRITICAL_THRESHOLD;
+        private int minIntervalMinutes = DEFAULT_MIN_INTERVAL_MINUTES;
+        private int maxIntervalMinutes = DEFAULT_MAX_INTERVAL_MINUTES;
+
+        public Builder setBaseIntervalMinutes(int minutes) {
+            this.baseIntervalMinutes = minutes;
+            return this;
+        }
+
+        public Builder setQuietHours(LocalTime start, LocalTime end) {
+            this.quietStart = start;
+            this.quietEnd = end;
+            return this;
+        }
+
+        public Builder setZone(ZoneId zone) {
+            this.zone = zone;
+            return this;
+        }
+
+        public Builder setLowBatteryMultiplier(double multiplier) {
+            this.lowBatteryMultiplier = multiplier;
+            return this;
+        }
+
+        public Builder setCriticalBatteryMultiplier(double multiplier) {
+            this.criticalBatteryMultiplier = multiplier;
+            return this;
+        }
+
+        public Builder setChargingMultiplier(double multiplier) {
+            this.chargingMultiplier = multiplier;
+            return this;
+        }
+
+        public Builder setNoRemindersMultiplier(double multiplier) {
+            this.noRemindersMultiplier = multiplier;
+            return this;
+        }
+
+        public Builder setPrefetchMultiplier(double multiplier) {
+            this.prefetchMultiplier = multiplier;
+            return this;
+        }
+
+        public Builder setNoRemindersThresholdHours(int hours) {
+            this.noRemindersThresholdHours = hours;
+            return this;
+        }
+
+        public Builder setBatteryThresholds(int low, int critical) {
+            this.lowBatteryThreshold = low;
+            this.criticalBatteryThreshold = critical;
+            return this;
+        }
+
+        public Builder setIntervalBounds(int minMinutes, int maxMinutes) {
+            this.minIntervalMinutes = minMinutes;
+            this.maxIntervalMinutes = maxMinutes;
+            return this;
+        }
+
+        public SyncPolicy build() {
+            if (minIntervalMinutes < 15) {
+                // WorkManager cannot honour shorter delays reliably under Doze
+                minIntervalMinutes = 15;
+            }
+            if (maxIntervalMinutes < minIntervalMinutes || baseIntervalMinutes <= 0) {
+                throw new IllegalArgumentException("Invalid sync policy intervals");
+            }
+            return new SyncPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adaptive reminder sync scheduler
+ * Chains OneTimeWorkRequests instead of a fixed PeriodicWorkRequest: each run
+ * schedules the next one with a delay computed by SyncPolicy (battery state,
+ * time since last reminder, quiet hours), so the device sleeps through the night
+ * Reminders prefetched by a run are sent on time by ReminderAlarms, not by the poll
+ */
+public final class SyncScheduler {
+    private static final String TAG = "SyncScheduler";
+    public static final String WORK_NAME = "SphyraReminderSync";
+
+    private static final AtomicBoolean syncRunning = new AtomicBoolean(false);
+    private static final AtomicBoolean batteryListenerInstalled = new AtomicBoolean(false);
+
+    private SyncScheduler() {
+    }
+
+    /**
+     * Enable the schedule and plan the first run (replaces any existing schedule)
+     */
+    public static SyncPolicy.Decision start(Context context) {
+        SyncSettings.setAutoSyncEnabled(context, true);
+        installBatteryListener(context);
+        return enqueue(context, ExistingWorkPolicy.REPLACE);
+    }
+
+    public static void stop(Context context) {
+        SyncSettings.setAutoSyncEnabled(context, false);
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+        ReminderAlarms.cancel(context);
+        SyncSettings.recordNextRun(context, 0, null);
+        Log.d(TAG, "⏸️ Sync schedule stopped");
+    }
+
+    /**
+     * Called by ReminderSyncWorker at the end of a run
+     * Appended to the running work, so it starts once the current run has finished
+     */
+    @Nullable
+    public static SyncPolicy.Decision scheduleNext(Context context) {
+        if (!SyncSettings.isAutoSyncEnabled(context)) {
+            return null;
+        }
+        installBatteryListener(context);
+        return enqueue(context, ExistingWorkPolicy.APPEND_OR_REPLACE);
+    }
+
+    /**
+     * Re-arm the schedule after a reboot, keeping the run planned before it
+     * Called by BootReceiver: no React Native, no activity
+     */
+    @Nullable
+    public static SyncPolicy.Decision recoverAfterBoot(Context context) {
+        if (!SyncSettings.isAutoSyncEnabled(context)) {
+            return null;
+        }
+        long plannedRunAt = SyncSettings.getNextRunAt(context);
+        if (plannedRunAt <= 0) {
+            return enqueue(context, ExistingWorkPolicy.REPLACE);
+        }
+        SyncPolicy.Decision decision = loadPolicy(context).resume(Instant.now(), Instant.ofEpochMilli(plannedRunAt));
+        return enqueue(context, ExistingWorkPolicy.REPLACE, decision);
+    }
+
+    /**
+     * Re-plan the pending run with current conditions (e.g. device plugged in)
+     */
+    @Nullable
+    public static SyncPolicy.Decision reschedule(Context context) {
+        if (!SyncSettings.isAutoSyncEnabled(context) || syncRunning.get()) {
+            // A running sync schedules its successor itself - replacing would cancel it
+            return null;
+        }
+        return enqueue(context, ExistingWorkPolicy.REPLACE);
+    }
+
+    static void setSyncRunning(boolean running) {
+        syncRunning.set(running);
+    }
+
+    /**
+     * Store a new policy (JSON from JS, see configureSchedule in WorkManagerModule)
+     */
+    public static void configure(Context context, JSONObject policy) {
+        SyncSettings.setSchedulePolicy(context, policy.toString());
+    }
+
+    public static SyncPolicy loadPolicy(Context context) {
+        String json = SyncSettings.getSchedulePolicy(context);
+        if (json == null) {
+            return SyncPolicy.defaults();
+        }
+        try {
+            return fromJson(new JSONObject(json));
+        } catch (JSONException | RuntimeException e) {
+            Log.w(TAG, "⚠️ Invalid schedule policy, using defaults: " + e.getMessage());
+            return SyncPolicy.defaults();
+        }
+    }
+
+    private static SyncPolicy.Decision enqueue(Context context, ExistingWorkPolicy existingWorkPolicy) {
+        SyncPolicy policy = loadPolicy(context);
+        SyncPolicy.Decision decision = policy.nextRun(
+                Instant.now(),
+                BatteryStateMonitor.getInstance(context).getSnapshot(),
+                SyncSettings.getLastReminderFoundAt(context),
+                ReminderAlarms.getPrefetchedUntil(context)
+        );
+        return enqueue(context, existingWorkPolicy, decision);
+    }
+
+    private static SyncPolicy.Decision enqueue(Context context, ExistingWorkPolicy existingWorkPolicy,
+                                               SyncPolicy.Decision decision) {
+
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED) // Require network connection
+                .setRequiresBatteryNotLow(false) // Allow on low battery (the policy stretches the delay)
+                .setRequiresStorageNotLow(true) // Require sufficient storage
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ReminderSyncWorker.class)
+                .setConstraints(constraints)
+                .setInitialDelay(decision.delayMillis, TimeUnit.MILLISECONDS)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 1, TimeUnit.MINUTES)
+                .addTag(WORK_NAME)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, existingWorkPolicy, request);
+        SyncSettings.recordNextRun(context, decision.runAt.toEpochMilli(), decision.reason);
+
+        Log.d(TAG, "⏰ Next sync at " + decision.runAt + " - " + decision.reason);
+        return decision;
+    }
+
+    /**
+     * Re-plan as soon as charging starts/stops or the battery crosses a threshold
+     */
+    private static void installBatteryListener(Context context) {
+        if (!batteryListenerInstalled.compareAndSet(false, true)) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        BatteryStateMonitor.getInstance(appContext).addListener((previous, current, reason) -> {
+            SyncPolicy.Decision decision = reschedule(appContext);
+            if (decision != null) {
+                Log.d(TAG, "🔋 Battery " + reason + " - rescheduled sync");
+            }
+        });
+    }
+
+    private static SyncPolicy fromJson(JSONObject json) {
+        SyncPolicy.Builder builder = new SyncPolicy.Builder()
+                .setBaseIntervalMinutes(json.optInt("baseIntervalMinutes", SyncPolicy.DEFAULT_BASE_INTERVAL_MINUTES))
+                .setQuietHours(
+                        LocalTime.of(json.optInt("quietHoursStart", SyncPolicy.DEFAULT_QUIET_START_HOUR), 0),
+                        LocalTime.of(json.optInt("quietHoursEnd", SyncPolicy.DEFAULT_QUIET_END_HOUR), 0))
+                .setLowBatteryMultiplier(json.optDouble("lowBatteryMultiplier", SyncPolicy.DEFAULT_LOW_BATTERY_MULTIPLIER))
+                .setCriticalBatteryMultiplier(json.optDouble("criticalBatteryMultiplier",
+                        SyncPolicy.DEFAULT_LOW_BATTERY_MULTIPLIER * 2))
+                .setChargingMultiplier(json.optDouble("chargingMultiplier", SyncPolicy.DEFAULT_CHARGING_MULTIPLIER))
+                .setNoRemindersMultiplier(json.optDouble("noRemindersMultiplier", SyncPolicy.DEFAULT_NO_REMINDERS_MULTIPLIER))
+                .setPrefetchMultiplier(json.optDouble("prefetchMultiplier", SyncPolicy.DEFAULT_PREFETCH_MULTIPLIER))
+                .setNoRemindersThresholdHours(json.optInt("noRemindersThresholdHours",
+                        SyncPolicy.DEFAULT_NO_REMINDERS_THRESHOLD_HOURS))
+                .setBatteryThresholds(
+                        json.optInt("lowBatteryThreshold", BatterySnapshot.DEFAULT_LOW_THRESHOLD),
+                        json.optInt("criticalBatteryThreshold", BatterySnapshot.DEFAULT_CRITICAL_THRESHOLD))
+                .setIntervalBounds(
+                        json.optInt("minIntervalMinutes", SyncPolicy.DEFAULT_MIN_INTERVAL_MINUTES),
+                        json.optInt("maxIntervalMinutes", SyncPolicy.DEFAULT_MAX_INTERVAL_MINUTES));
+
+        String timeZone = json.optString("timeZone", "");
+        if (!timeZone.isEmpty()) {
+            builder.setZone(ZoneId.of(timeZone));
+        }
+        return builder.build();
+    }
+}
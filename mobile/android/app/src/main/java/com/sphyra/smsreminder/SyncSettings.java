@@ -0,0 +1,296 @@
+package com.sphyra.smsreminder;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Sync state shared between JS, workers and receivers
+ * Backed by the KvStore (sphyra_kv.bin): JS reads and writes the same keys
+ * through KvStoreModule, so native code always sees the real app state
+ * without starting React Native
+ */
+public final class SyncSettings {
+    private static final String TAG = "SyncSettings";
+    private static final String FILE_NAME = "sphyra_kv.bin";
+
+    // Same as DEFAULT_API_URL in config/api.ts
+    public static final String DEFAULT_API_URL = "https://sphyrawellnesslab.duckdns.org/api";
+
+    // Shared with JS - same as STORAGE_KEYS in config/api.ts
+    public static final String KEY_TOKEN = "@sphyra:token";
+    public static final String KEY_API_URL = "@sphyra:apiUrl";
+    public static final String KEY_LAST_SYNC = "@sphyra:lastSync";
+    public static final String KEY_AUTO_SYNC_ENABLED = "@sphyra:autoSyncEnabled";
+    public static final String KEY_SYNC_INTERVAL = "@sphyra:syncInterval";
+    public static final String KEY_LAST_REMINDER_FOUND = "@sphyra:lastReminderFound";
+    public static final String KEY_SMS_ENCODING = "@sphyra:smsEncoding";
+
+    // Native only
+    private static final String KEY_LAST_SYNC_STATUS = "@sphyra:lastSyncStatus";
+    private static final String KEY_SCHEDULE_POLICY = "@sphyra:schedulePolicy";
+    private static final String KEY_NEXT_RUN_AT = "@sphyra:nextRunAt";
+    private static final String KEY_NEXT_RUN_REASON = "@sphyra:nextRunReason";
+    private static final String KEY_PENDING_SYNC = "@sphyra:pendingSync";
+    private static final String KEY_SYNC_TRIGGERED_AT = "@sphyra:syncTriggeredAt";
+    private static final String KEY_BOOT_RECOVERED_AT = "@sphyra:bootRecoveredAt";
+    private static final String KEY_BOOT_RECOVERY_MS = "@sphyra:bootRecoveryMs";
+    private static final String KEY_DEVICE_ID = "@sphyra:deviceId";
+    private static final String KEY_ENERGY_SAMPLE_INTERVAL = "@sphyra:energySampleIntervalMs";
+
+    // SharedPreferences used before the KvStore (migrated once)
+    private static final String LEGACY_PREFS_NAME = "SphyraPrefs";
+
+    private static volatile KvStore store;
+
+    private SyncSettings() {
+    }
+
+    /**
+     * Shared KvStore instance
+     */
+    public static KvStore store(Context context) {
+        if (store == null) {
+            synchronized (SyncSettings.class) {
+                if (store == null) {
+                    Context appContext = context.getApplicationContext();
+                    try {
+                        KvStore opened = new KvStore(new File(appContext.getFilesDir(), FILE_NAME));
+                        migrateLegacyPrefs(appContext, opened);
+                        store = opened;
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Cannot open key-value store", e);
+                    }
+                }
+            }
+        }
+        return store;
+    }
+
+    private static void commit(KvStore.Editor editor) {
+        try {
+            editor.commit();
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Error writing settings: " + e.getMessage(), e);
+        }
+    }
+
+    public static String getApiUrl(Context context) {
+        String apiUrl = store(context).getString(KEY_API_URL, null);
+        return apiUrl != null && !apiUrl.isEmpty() ? apiUrl : DEFAULT_API_URL;
+    }
+
+    @Nullable
+    public static String getToken(Context context) {
+        return store(context).getString(KEY_TOKEN, null);
+    }
+
+    /**
+     * Native sync needs an API URL (the default one counts)
+     */
+    public static boolean isConfigured(Context context) {
+        return !getApiUrl(context).isEmpty();
+    }
+
+    public static boolean isAutoSyncEnabled(Context context) {
+        return store(context).getBoolean(KEY_AUTO_SYNC_ENABLED, false);
+    }
+
+    public static void setAutoSyncEnabled(Context context, boolean enabled) {
+        commit(store(context).edit().putBoolean(KEY_AUTO_SYNC_ENABLED, enabled));
+    }
+
+    /**
+     * Record a completed sync (one atomic commit for all fields)
+     */
+    public static void recordSync(Context context, String status, boolean foundReminders) {
+        String now = Instant.now().toString();
+        KvStore.Editor editor = store(context).edit()
+                .putString(KEY_LAST_SYNC, now)
+                .putString(KEY_LAST_SYNC_STATUS, status);
+        if (foundReminders) {
+            editor.putString(KEY_LAST_REMINDER_FOUND, now);
+        }
+        commit(editor);
+    }
+
+    /**
+     * Record a failed sync attempt without touching the last successful sync time
+     */
+    public static void recordSyncError(Context context, String status) {
+        commit(store(context).edit().putString(KEY_LAST_SYNC_STATUS, status));
+    }
+
+    public static long getLastSyncAt(Context context) {
+        return parseTimestamp(store(context).getString(KEY_LAST_SYNC, null));
+    }
+
+    public static long getLastReminderFoundAt(Context context) {
+        return parseTimestamp(store(context).getString(KEY_LAST_REMINDER_FOUND, null));
+    }
+
+    @Nullable
+    public static String getLastSyncStatus(Context context) {
+        return store(context).getString(KEY_LAST_SYNC_STATUS, null);
+    }
+
+    /**
+     * Stable id of this install, holder of the reminder leases it claims
+     * Generated on first use; a reinstall is a new device (its old leases just expire)
+     */
+    public static synchronized String getDeviceId(Context context) {
+        String deviceId = store(context).getString(KEY_DEVICE_ID, null);
+        if (deviceId == null) {
+            deviceId = UUID.randomUUID().toString();
+            commit(store(context).edit().putString(KEY_DEVICE_ID, deviceId));
+        }
+        return deviceId;
+    }
+
+    /**
+     * How far SmsEncoder may rewrite reminder texts (typographic unless JS chose otherwise)
+     */
+    public static SmsEncoder.Policy getSmsEncodingPolicy(Context context) {
+        return SmsEncoder.Policy.fromKey(store(context).getString(KEY_SMS_ENCODING, null),
+                SmsEncoder.Policy.TYPOGRAPHIC);
+    }
+
+    /**
+     * Scheduling policy as JSON (see SyncScheduler.configure)
+     */
+    public static void setSchedulePolicy(Context context, String policyJson) {
+        commit(store(context).edit().putString(KEY_SCHEDULE_POLICY, policyJson));
+    }
+
+    @Nullable
+    public static String getSchedulePolicy(Context context) {
+        return store(context).getString(KEY_SCHEDULE_POLICY, null);
+    }
+
+    public static void recordNextRun(Context context, long runAt, @Nullable String reason) {
+        commit(store(context).edit()
+                .putLong(KEY_NEXT_RUN_AT, runAt)
+                .put(KEY_NEXT_RUN_REASON, reason));
+    }
+
+    public static long getNextRunAt(Context context) {
+        return store(context).getLong(KEY_NEXT_RUN_AT, 0);
+    }
+
+    @Nullable
+    public static String getNextRunReason(Context context) {
+        return store(context).getString(KEY_NEXT_RUN_REASON, null);
+    }
+
+    /**
+     * Flag a sync for JS to perform on next app open
+     */
+    public static void setPendingSync(Context context, boolean pending) {
+        KvStore.Editor editor = store(context).edit().putBoolean(KEY_PENDING_SYNC, pending);
+        if (pending) {
+            editor.putLong(KEY_SYNC_TRIGGERED_AT, System.currentTimeMillis());
+        }
+        commit(editor);
+    }
+
+    public static boolean hasPendingSync(Context context) {
+        return store(context).getBoolean(KEY_PENDING_SYNC, false);
+    }
+
+    public static long getSyncTriggeredAt(Context context) {
+        return store(context).getLong(KEY_SYNC_TRIGGERED_AT, 0);
+    }
+
+    /**
+     * Boot recovery timing, written by BootReceiver
+     */
+    public static void recordBootRecovery(Context context, long durationMs) {
+        commit(store(context).edit()
+                .putLong(KEY_BOOT_RECOVERED_AT, System.currentTimeMillis())
+                .putLong(KEY_BOOT_RECOVERY_MS, durationMs));
+    }
+
+    public static long getBootRecoveredAt(Context context) {
+        return store(context).getLong(KEY_BOOT_RECOVERED_AT, 0);
+    }
+
+    public static long getBootRecoveryMs(Context context) {
+        return store(context).getLong(KEY_BOOT_RECOVERY_MS, 0);
+    }
+
+    /**
+     * Sample interval of EnergyMeter sessions, clamped to what the fuel gauge can give
+     */
+    public static void setEnergySampleIntervalMs(Context context, long intervalMs) {
+        commit(store(context).edit().putLong(KEY_ENERGY_SAMPLE_INTERVAL, Math.max(EnergyMeter.MIN_SAMPLE_INTERVAL_MS,
+                Math.min(intervalMs, EnergyMeter.MAX_SAMPLE_INTERVAL_MS))));
+    }
+
+    public static long getEnergySampleIntervalMs(Context context) {
+        return store(context).getLong(KEY_ENERGY_SAMPLE_INTERVAL, EnergyMeter.DEFAULT_SAMPLE_INTERVAL_MS);
+    }
+
+    /**
+     * JS stores timestamps as ISO strings (new Date().toISOString())
+     */
+    private static long parseTimestamp(@Nullable String iso) {
+        if (iso == null) {
+            return 0;
+        }
+        try {
+            return Instant.parse(iso).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Move native state kept in SphyraPrefs by earlier versions into the KvStore
+     */
+    private static void migrateLegacyPrefs(Context context, KvStore kv) throws IOException {
+        SharedPreferences prefs = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getAll().isEmpty()) {
+            return;
+        }
+
+        KvStore.Editor editor = kv.edit();
+        copyString(prefs, "api_url", kv, editor, KEY_API_URL);
+        copyString(prefs, "auth_token", kv, editor, KEY_TOKEN);
+        copyString(prefs, "last_sync_status", kv, editor, KEY_LAST_SYNC_STATUS);
+        copyString(prefs, "schedule_policy", kv, editor, KEY_SCHEDULE_POLICY);
+        if (prefs.contains("last_sync_at") && !kv.contains(KEY_LAST_SYNC)) {
+            editor.putString(KEY_LAST_SYNC, Instant.ofEpochMilli(prefs.getLong("last_sync_at", 0)).toString());
+        }
+        if (prefs.contains("last_reminder_found_at") && !kv.contains(KEY_LAST_REMINDER_FOUND)) {
+            editor.putString(KEY_LAST_REMINDER_FOUND,
+                    Instant.ofEpochMilli(prefs.getLong("last_reminder_found_at", 0)).toString());
+        }
+        if (prefs.contains("schedule_enabled") && !kv.contains(KEY_AUTO_SYNC_ENABLED)) {
+            editor.putBoolean(KEY_AUTO_SYNC_ENABLED, prefs.getBoolean("schedule_enabled", false));
+        }
+        if (prefs.getBoolean("pending_sync", false)) {
+            editor.putBoolean(KEY_PENDING_SYNC, true)
+                    .putLong(KEY_SYNC_TRIGGERED_AT, prefs.getLong("sync_triggered_at", 0));
+        }
+        editor.commit();
+
+        prefs.edit().clear().apply();
+        Log.d(TAG, "📦 Migrated SphyraPrefs to key-value store");
+    }
+
+    private static void copyString(SharedPreferences prefs, String prefsKey, KvStore kv,
+                                   KvStore.Editor editor, String key) {
+        String value = prefs.getString(prefsKey, null);
+        if (value != null && !kv.contains(key)) {
+            editor.putString(key, value);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.sphyra.smsreminder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reminders that become due in the next hours, with their send times
+ * Prefetched while the network is up (GET /upcoming), so ReminderAlarms can
+ * wake the device exactly when each one is due and still send it if the
+ * network is down at that moment
+ *
+ * When the backend leased them to this device (GET /upcoming?deviceId=) no other
+ * phone claims them until OFFLINE_SEND_MS after their send time, so only then
+ * are the prefetched copies safe to send without the backend
+ *
+ * Immutable; entries are kept in send time order
+ */
+public final class UpcomingReminders {
+    /** A reminder is pending for 24 hours (the backend window); after that it is not sent */
+    public static final long VALIDITY_MS = TimeUnit.HOURS.toMillis(24);
+    /**
+     * Prefetched copies are sent offline at most this long after their send time: the
+     * backend keeps them leased for 15 minutes (UPCOMING_LEASE_GRACE_MS in
+     * server/src/routes/mobileReminders.ts), the rest is margin for clock skew
+     */
+    public static final long OFFLINE_SEND_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final int FORMAT_VERSION = 2;
+    // Sanity bound for a stored count
+    private static final int MAX_ENTRIES = 100_000;
+
+    /**
+     * Receives reminders as they are decoded
+     */
+    public interface Sink {
+        void accept(PendingReminder reminder, long sendAt);
+    }
+
+    public static final class Entry {
+        public final PendingReminder reminder;
+        /** Epoch millis the reminder becomes pending */
+        public final long sendAt;
+
+        public Entry(PendingReminder reminder, long sendAt) {
+            this.reminder = reminder;
+            this.sendAt = sendAt;
+        }
+    }
+
+    private final List<Entry> entries;
+    /** Epoch millis of the fetch */
+    public final long fetchedAt;
+    /** Every reminder due before this time is in the list (0 = nothing prefetched) */
+    public final long coversUntil;
+    /** The backend leased these reminders to this device until their send time plus a grace period */
+    public final boolean leased;
+
+    public UpcomingReminders(List<Entry> entries, long fetchedAt, long coversUntil, boolean leased) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(entry -> entry.sendAt));
+        this.entries = Collections.unmodifiableList(sorted);
+        this.fetchedAt = fetchedAt;
+        this.coversUntil = coversUntil;
+        this.leased = leased;
+    }
+
+    public static UpcomingReminders empty() {
+        return new UpcomingReminders(Collections.emptyList(), 0, 0, false);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Reminders this device may send without the backend: due, and still leased to it
+     * Empty when the prefetch is not leased, as other phones may send the same reminders
+     */
+    public List<PendingReminder> dueOffline(long now) {
+        List<PendingReminder> due = new ArrayList<>();
+        if (!leased) {
+            return due;
+        }
+        for (Entry entry : entries) {
+            if (entry.sendAt > now) {
+                break;
+            }
+            if (now - entry.sendAt < OFFLINE_SEND_MS) {
+                due.add(entry.reminder);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Copy without the reminders due at now (handled) or expired
+     */
+    public UpcomingReminders withoutDue(long now) {
+        List<Entry> remaining = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (entry.sendAt > now) {
+                remaining.add(entry);
+            }
+        }
+        return new UpcomingReminders(remaining, fetchedAt, coversUntil, leased);
+    }
+
+    /**
+     * When the next alarm should fire, 0 when nothing is left to send
+     * Send times are moved out of quiet hours; those within batchWindowMs of the
+     * first one share its alarm, which fires at the last of them (the backend
+     * only considers a reminder pending from its send time)
+     */
+    public long nextFireTime(long now, long batchWindowMs, SyncPolicy policy) {
+        long first = 0;
+        long fire = 0;
+        for (Entry entry : entries) {
+            if (isExpired(entry, now)) {
+                continue;
+            }
+            long at = fireTimeOf(entry, now, policy);
+            if (first == 0) {
+                first = at;
+            } else if (at - first > batchWindowMs) {
+                break;
+            }
+            // Quiet hours only move times forward, so the order is kept
+            fire = Math.max(fire, at);
+        }
+        return fire;
+    }
+
+    private static long fireTimeOf(Entry entry, long now, SyncPolicy policy) {
+        long at = Math.max(entry.sendAt, now);
+        Instant instant = Instant.ofEpochMilli(at);
+        return policy.isQuietHours(instant) ? policy.endOfQuietHours(instant).toEpochMilli() : at;
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        return now - entry.sendAt >= VALIDITY_MS;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(fetchedAt);
+        out.writeLong(coversUntil);
+        out.writeBoolean(leased);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            PendingReminder reminder = entry.reminder;
+            out.writeUTF(reminder.appointmentId);
+            out.writeBoolean(reminder.phone != null);
+            if (reminder.phone != null) {
+                out.writeUTF(reminder.phone);
+            }
+            out.writeUTF(reminder.message);
+            out.writeBoolean(reminder.smsConsent);
+            out.writeLong(entry.sendAt);
+        }
+    }
+
+    public static UpcomingReminders readFrom(DataInput in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown upcoming reminders format");
+        }
+        long fetchedAt = in.readLong();
+        long coversUntil = in.readLong();
+        boolean leased = in.readBoolean();
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ENTRIES) {
+            throw new IOException("Corrupt upcoming reminders");
+        }
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String appointmentId = in.readUTF();
+            String phone = in.readBoolean() ? in.readUTF() : null;
+            String message = in.readUTF();
+            boolean smsConsent = in.readBoolean();
+            long sendAt = in.readLong();
+            // A prefetched reminder becomes due at its send time
+            entries.add(new Entry(new PendingReminder(appointmentId, phone, message, smsConsent, sendAt), sendAt));
+        }
+        return new UpcomingReminders(entries, fetchedAt, coversUntil, leased);
+    }
+}
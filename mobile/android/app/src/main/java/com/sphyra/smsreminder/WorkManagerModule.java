@@ -1,114 +1,149 @@
 package com.sphyra.smsreminder;
 
-import android.content.Context;
 import android.util.Log;
 
-import androidx.annotation.NonNull;
-import androidx.work.Constraints;
-import androidx.work.ExistingPeriodicWorkPolicy;
-import androidx.work.NetworkType;
-import androidx.work.PeriodicWorkRequest;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.Data;
 import androidx.work.WorkInfo;
 import androidx.work.WorkManager;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
-import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.json.JSONObject;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 /**
  * Native module for WorkManager-based background sync
  * Replaces react-native-background-actions with native Android WorkManager
  * for better battery optimization and Doze mode compliance
+ * Spec: src/specs/NativeWorkManager.ts (TurboModule on the New Architecture)
+ *
+ * While JS listens, the sync work is observed through LiveData and every
+ * change (state, per-message progress, result) is pushed as a workStatusChanged
+ * event; nothing blocks on WorkManager queries
  */
-public class WorkManagerModule extends ReactContextBaseJavaModule {
+public class WorkManagerModule extends NativeWorkManagerSpec {
     private static final String TAG = "WorkManagerModule";
-    private static final String MODULE_NAME = "WorkManagerModule";
-    private static final String WORK_NAME = "SphyraReminderSync";
+    private static final String LOG_CATEGORY = "WORKMANAGER";
+    private static final String EVENT_WORK_STATUS = "workStatusChanged";
 
     private final ReactApplicationContext reactContext;
 
+    // Main thread only (LiveData)
+    private int listenerCount = 0;
+    @Nullable private LiveData<List<WorkInfo>> workInfos;
+    @Nullable private String lastEmitted;
+    private final Observer<List<WorkInfo>> workObserver = this::emitWorkStatus;
+
     public WorkManagerModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
     }
 
-    @NonNull
     @Override
-    public String getName() {
-        return MODULE_NAME;
+    public void invalidate() {
+        UiThreadUtil.runOnUiThread(() -> {
+            listenerCount = 0;
+            stopObserving();
+        });
+        super.invalidate();
     }
 
     /**
-     * Start periodic reminder sync with WorkManager
-     * @param intervalMinutes Sync interval in minutes (minimum 15)
+     * Start adaptive reminder sync with WorkManager
+     * The interval is the base of the SyncPolicy; the actual delay of each run is
+     * adjusted natively (battery, reminders found, quiet hours)
+     * @param interval Base sync interval in minutes (minimum 15)
      */
-    @ReactMethod
-    public void startPeriodicSync(int intervalMinutes, Promise promise) {
+    @Override
+    public void startPeriodicSync(double interval, Promise promise) {
         try {
+            int intervalMinutes = (int) interval;
+
             // WorkManager has a minimum interval of 15 minutes
             if (intervalMinutes < 15) {
                 intervalMinutes = 15;
                 Log.w(TAG, "Interval adjusted to minimum 15 minutes");
             }
 
-            // Create constraints for the work
-            Constraints constraints = new Constraints.Builder()
-                    .setRequiredNetworkType(NetworkType.CONNECTED) // Require network connection
-                    .setRequiresBatteryNotLow(false) // Allow on low battery (we handle it in JS)
-                    .setRequiresCharging(false) // Don't require charging
-                    .setRequiresDeviceIdle(false) // Don't require idle
-                    .setRequiresStorageNotLow(true) // Require sufficient storage
-                    .build();
-
-            // Create periodic work request
-            PeriodicWorkRequest syncWorkRequest = new PeriodicWorkRequest.Builder(
-                    ReminderSyncWorker.class,
-                    intervalMinutes,
-                    TimeUnit.MINUTES
-            )
-                    .setConstraints(constraints)
-                    .addTag(WORK_NAME)
-                    .build();
-
-            // Enqueue the work (replace existing if any)
-            WorkManager.getInstance(reactContext)
-                    .enqueueUniquePeriodicWork(
-                            WORK_NAME,
-                            ExistingPeriodicWorkPolicy.UPDATE, // Update if exists
-                            syncWorkRequest
-                    );
-
-            Log.d(TAG, "✅ Periodic sync started: " + intervalMinutes + " minutes");
+            String stored = SyncSettings.getSchedulePolicy(reactContext);
+            JSONObject policy = stored != null ? new JSONObject(stored) : new JSONObject();
+            policy.put("baseIntervalMinutes", intervalMinutes);
+            SyncScheduler.configure(reactContext, policy);
+
+            SyncPolicy.Decision decision = SyncScheduler.start(reactContext);
+
+            AppLog.info(reactContext, LOG_CATEGORY, "✅ Adaptive sync started: base " + intervalMinutes
+                    + " minutes, next run " + decision.runAt + " - " + decision.reason);
 
             WritableMap result = Arguments.createMap();
             result.putBoolean("success", true);
-            result.putInt("intervalMinutes", intervalMinutes);
-            result.putString("workName", WORK_NAME);
+            result.putInt("intervalMinutes", decision.intervalMinutes);
+            result.putDouble("nextRunAt", decision.runAt.toEpochMilli());
+            result.putString("reason", decision.reason);
+            result.putString("workName", SyncScheduler.WORK_NAME);
 
             promise.resolve(result);
 
         } catch (Exception e) {
             Log.e(TAG, "❌ Error starting periodic sync: " + e.getMessage(), e);
+            AppLog.error(reactContext, LOG_CATEGORY, "❌ Error starting periodic sync: " + e.getMessage());
             promise.reject("WORKMANAGER_ERROR", "Failed to start sync: " + e.getMessage());
         }
     }
 
     /**
-     * Stop periodic reminder sync
+     * Configure the native scheduling policy (values from BATTERY_OPTIMIZATION)
+     * @param config { quietHoursStart, quietHoursEnd, timeZone, lowBatteryMultiplier,
+     *               criticalBatteryMultiplier, chargingMultiplier, noRemindersMultiplier,
+     *               noRemindersThresholdHours, lowBatteryThreshold, criticalBatteryThreshold,
+     *               minIntervalMinutes, maxIntervalMinutes }
+     */
+    @Override
+    public void configureSchedule(ReadableMap config, Promise promise) {
+        try {
+            String stored = SyncSettings.getSchedulePolicy(reactContext);
+            JSONObject policy = stored != null ? new JSONObject(stored) : new JSONObject();
+            for (Map.Entry<String, Object> entry : config.toHashMap().entrySet()) {
+                policy.put(entry.getKey(), entry.getValue());
+            }
+            SyncScheduler.configure(reactContext, policy);
+
+            // Apply the new policy to the pending run right away
+            SyncScheduler.reschedule(reactContext);
+
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", true);
+
+            promise.resolve(result);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error configuring schedule: " + e.getMessage(), e);
+            promise.reject("WORKMANAGER_ERROR", "Failed to configure schedule: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop reminder sync
      */
-    @ReactMethod
+    @Override
     public void stopPeriodicSync(Promise promise) {
         try {
-            WorkManager.getInstance(reactContext)
-                    .cancelUniqueWork(WORK_NAME);
+            SyncScheduler.stop(reactContext);
 
-            Log.d(TAG, "⏸️ Periodic sync stopped");
+            AppLog.info(reactContext, LOG_CATEGORY, "⏸️ Periodic sync stopped");
 
             WritableMap result = Arguments.createMap();
             result.putBoolean("success", true);
@@ -125,77 +160,196 @@ public class WorkManagerModule extends ReactContextBaseJavaModule {
     /**
      * Check if periodic sync is running
      */
-    @ReactMethod
+    @Override
     public void isSyncRunning(Promise promise) {
-        try {
-            WorkManager workManager = WorkManager.getInstance(reactContext);
-            List<WorkInfo> workInfos = workManager.getWorkInfosForUniqueWork(WORK_NAME).get();
-
-            boolean isRunning = false;
-            if (workInfos != null && !workInfos.isEmpty()) {
-                WorkInfo workInfo = workInfos.get(0);
-                isRunning = workInfo.getState() == WorkInfo.State.ENQUEUED ||
-                           workInfo.getState() == WorkInfo.State.RUNNING;
-            }
+        withWorkInfos(promise, "Failed to check status", workInfos -> {
+            WorkInfo current = pickCurrent(workInfos);
+            boolean isRunning = current != null && (current.getState() == WorkInfo.State.ENQUEUED
+                    || current.getState() == WorkInfo.State.RUNNING
+                    || current.getState() == WorkInfo.State.BLOCKED);
 
             WritableMap result = Arguments.createMap();
             result.putBoolean("isRunning", isRunning);
+            return result;
+        });
+    }
 
-            promise.resolve(result);
+    /**
+     * Get work status information
+     */
+    @Override
+    public void getWorkStatus(Promise promise) {
+        withWorkInfos(promise, "Failed to get status", this::toStatusMap);
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error checking sync status: " + e.getMessage(), e);
-            promise.reject("WORKMANAGER_ERROR", "Failed to check status: " + e.getMessage());
+    /**
+     * Required by NativeEventEmitter; the first listener starts observing the sync work
+     */
+    @Override
+    public void addListener(String eventName) {
+        UiThreadUtil.runOnUiThread(() -> {
+            if (listenerCount++ == 0) {
+                workInfos = WorkManager.getInstance(reactContext)
+                        .getWorkInfosForUniqueWorkLiveData(SyncScheduler.WORK_NAME);
+                workInfos.observeForever(workObserver);
+            }
+        });
+    }
+
+    /**
+     * Required by NativeEventEmitter; the last one stops observing
+     */
+    @Override
+    public void removeListeners(double count) {
+        UiThreadUtil.runOnUiThread(() -> {
+            listenerCount = Math.max(0, listenerCount - (int) count);
+            if (listenerCount == 0) {
+                stopObserving();
+            }
+        });
+    }
+
+    private void stopObserving() {
+        if (workInfos != null) {
+            workInfos.removeObserver(workObserver);
+            workInfos = null;
         }
+        lastEmitted = null;
     }
 
     /**
-     * Get work status information
+     * LiveData callback (main thread): push the status if anything JS shows changed
      */
-    @ReactMethod
-    public void getWorkStatus(Promise promise) {
-        try {
-            WorkManager workManager = WorkManager.getInstance(reactContext);
-            List<WorkInfo> workInfos = workManager.getWorkInfosForUniqueWork(WORK_NAME).get();
+    private void emitWorkStatus(@Nullable List<WorkInfo> infos) {
+        if (listenerCount == 0 || !reactContext.hasActiveReactInstance()) {
+            return;
+        }
+        WritableMap event = toStatusMap(infos);
+        String signature = event.toHashMap().toString();
+        if (signature.equals(lastEmitted)) {
+            return;
+        }
+        lastEmitted = signature;
+        reactContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(EVENT_WORK_STATUS, event);
+    }
 
-            WritableMap result = Arguments.createMap();
+    private interface WorkInfosMapper {
+        WritableMap map(@Nullable List<WorkInfo> workInfos);
+    }
 
-            if (workInfos != null && !workInfos.isEmpty()) {
-                WorkInfo workInfo = workInfos.get(0);
+    /**
+     * Resolve once WorkManager answers, without blocking the native modules thread
+     */
+    private void withWorkInfos(Promise promise, String errorMessage, WorkInfosMapper mapper) {
+        ListenableFuture<List<WorkInfo>> future;
+        try {
+            future = WorkManager.getInstance(reactContext).getWorkInfosForUniqueWork(SyncScheduler.WORK_NAME);
+        } catch (Exception e) {
+            promise.reject("WORKMANAGER_ERROR", errorMessage + ": " + e.getMessage());
+            return;
+        }
+        future.addListener(() -> {
+            try {
+                promise.resolve(mapper.map(future.get()));
+            } catch (Exception e) {
+                Log.e(TAG, errorMessage + ": " + e.getMessage(), e);
+                promise.reject("WORKMANAGER_ERROR", errorMessage + ": " + e.getMessage());
+            }
+        }, Runnable::run);
+    }
 
-                result.putString("state", workInfo.getState().name());
-                result.putInt("runAttemptCount", workInfo.getRunAttemptCount());
-                result.putString("id", workInfo.getId().toString());
+    /**
+     * The chain holds the finished run and the next one appended to it:
+     * the running or waiting run is the current one
+     */
+    @Nullable
+    private static WorkInfo pickCurrent(@Nullable List<WorkInfo> workInfos) {
+        if (workInfos == null || workInfos.isEmpty()) {
+            return null;
+        }
+        WorkInfo current = null;
+        for (WorkInfo info : workInfos) {
+            if (info.getState() == WorkInfo.State.RUNNING) {
+                return info;
+            }
+            if (current == null && !info.getState().isFinished()) {
+                current = info;
+            }
+        }
+        return current != null ? current : workInfos.get(workInfos.size() - 1);
+    }
 
-                // Get output data if available
-                if (workInfo.getState() == WorkInfo.State.SUCCEEDED) {
-                    String status = workInfo.getOutputData().getString("status");
-                    result.putString("lastStatus", status != null ? status : "unknown");
+    /**
+     * { state, runAttemptCount, id, progress?: { sent, failed, total },
+     *   lastStatus?, lastResult?: { status, total, sent, failed, timestamp }, nextRunAt?, ... }
+     */
+    private WritableMap toStatusMap(@Nullable List<WorkInfo> workInfos) {
+        WritableMap result = Arguments.createMap();
+
+        WorkInfo current = pickCurrent(workInfos);
+        if (current != null) {
+            result.putString("state", current.getState().name());
+            result.putInt("runAttemptCount", current.getRunAttemptCount());
+            result.putString("id", current.getId().toString());
+
+            Data progress = current.getProgress();
+            if (current.getState() == WorkInfo.State.RUNNING
+                    && progress.getKeyValueMap().containsKey(ReminderSyncWorker.PROGRESS_TOTAL)) {
+                WritableMap map = Arguments.createMap();
+                map.putInt("sent", progress.getInt(ReminderSyncWorker.PROGRESS_SENT, 0));
+                map.putInt("failed", progress.getInt(ReminderSyncWorker.PROGRESS_FAILED, 0));
+                map.putInt("total", progress.getInt(ReminderSyncWorker.PROGRESS_TOTAL, 0));
+                result.putMap("progress", map);
+            }
+
+            WorkInfo finished = null;
+            for (WorkInfo info : workInfos) {
+                if (info.getState() == WorkInfo.State.SUCCEEDED) {
+                    finished = info;
                 }
-            } else {
-                result.putString("state", "NOT_SCHEDULED");
             }
+            if (finished != null) {
+                Data output = finished.getOutputData();
+                String status = output.getString("status");
+                result.putString("lastStatus", status != null ? status : "unknown");
+
+                WritableMap lastResult = Arguments.createMap();
+                lastResult.putString("status", status != null ? status : "unknown");
+                lastResult.putInt("total", output.getInt("total", 0));
+                lastResult.putInt("sent", output.getInt("sent", 0));
+                lastResult.putInt("failed", output.getInt("failed", 0));
+                lastResult.putDouble("timestamp", output.getLong("timestamp", 0));
+                result.putMap("lastResult", lastResult);
+            }
+        } else {
+            result.putString("state", "NOT_SCHEDULED");
+        }
 
-            promise.resolve(result);
+        long nextRunAt = SyncSettings.getNextRunAt(reactContext);
+        if (nextRunAt > 0) {
+            result.putDouble("nextRunAt", nextRunAt);
+            result.putString("nextRunReason", SyncSettings.getNextRunReason(reactContext));
+        }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting work status: " + e.getMessage(), e);
-            promise.reject("WORKMANAGER_ERROR", "Failed to get status: " + e.getMessage());
+        long bootRecoveredAt = SyncSettings.getBootRecoveredAt(reactContext);
+        if (bootRecoveredAt > 0) {
+            result.putDouble("bootRecoveredAt", bootRecoveredAt);
+            result.putDouble("bootRecoveryMs", SyncSettings.getBootRecoveryMs(reactContext));
         }
+        return result;
     }
 
     /**
      * Check if there's a pending sync trigger from WorkManager
      * Returns true if sync should be performed
      */
-    @ReactMethod
+    @Override
     public void checkPendingSync(Promise promise) {
         try {
-            android.content.SharedPreferences prefs = reactContext
-                    .getSharedPreferences("SphyraPrefs", Context.MODE_PRIVATE);
-
-            boolean hasPendingSync = prefs.getBoolean("pending_sync", false);
-            long triggeredAt = prefs.getLong("sync_triggered_at", 0);
+            boolean hasPendingSync = SyncSettings.hasPendingSync(reactContext);
+            long triggeredAt = SyncSettings.getSyncTriggeredAt(reactContext);
 
             WritableMap result = Arguments.createMap();
             result.putBoolean("hasPendingSync", hasPendingSync);
@@ -211,15 +365,10 @@ public class WorkManagerModule extends ReactContextBaseJavaModule {
     /**
      * Clear pending sync flag (call after sync is completed)
      */
-    @ReactMethod
+    @Override
     public void clearPendingSync(Promise promise) {
         try {
-            android.content.SharedPreferences prefs = reactContext
-                    .getSharedPreferences("SphyraPrefs", Context.MODE_PRIVATE);
-
-            prefs.edit()
-                    .putBoolean("pending_sync", false)
-                    .apply();
+            SyncSettings.setPendingSync(reactContext, false);
 
             WritableMap result = Arguments.createMap();
             result.putBoolean("success", true);
@@ -230,4 +379,155 @@ public class WorkManagerModule extends ReactContextBaseJavaModule {
             promise.reject("WORKMANAGER_ERROR", "Failed to clear pending sync: " + e.getMessage());
         }
     }
+
+    /**
+     * Synchronous read of the pending sync flag (checked on every foreground transition)
+     */
+    @Override
+    public WritableMap getPendingSyncState() {
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("hasPendingSync", SyncSettings.hasPendingSync(reactContext));
+        result.putDouble("triggeredAt", SyncSettings.getSyncTriggeredAt(reactContext));
+        return result;
+    }
+
+    /**
+     * Synchronous read of the sync schedule and last result (no WorkManager query)
+     */
+    @Override
+    public WritableMap getSyncStatus() {
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("autoSyncEnabled", SyncSettings.isAutoSyncEnabled(reactContext));
+        result.putDouble("lastSyncAt", SyncSettings.getLastSyncAt(reactContext));
+        result.putDouble("lastReminderFoundAt", SyncSettings.getLastReminderFoundAt(reactContext));
+        String status = SyncSettings.getLastSyncStatus(reactContext);
+        result.putString("lastStatus", status != null ? status : "unknown");
+
+        long nextRunAt = SyncSettings.getNextRunAt(reactContext);
+        if (nextRunAt > 0) {
+            result.putDouble("nextRunAt", nextRunAt);
+            result.putString("nextRunReason", SyncSettings.getNextRunReason(reactContext));
+        }
+        return result;
+    }
+
+    /**
+     * Get the state of the last native (background) sync
+     */
+    @Override
+    public void getNativeSyncState(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            result.putDouble("lastSyncAt", SyncSettings.getLastSyncAt(reactContext));
+            result.putDouble("lastReminderFoundAt", SyncSettings.getLastReminderFoundAt(reactContext));
+            String status = SyncSettings.getLastSyncStatus(reactContext);
+            result.putString("lastStatus", status != null ? status : "unknown");
+
+            promise.resolve(result);
+
+        } catch (Exception e) {
+            promise.reject("WORKMANAGER_ERROR", "Failed to get native sync state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Performance metrics of the native sync, summarized per metric
+     * { since, updatedAt, runs, metrics: { startLagMs: { count, min, max, mean, p50, p90, p99 }, ... } }
+     */
+    @Override
+    public void getSyncMetrics(Promise promise) {
+        try {
+            SyncMetrics metrics = SyncMetrics.getInstance(reactContext);
+
+            WritableMap result = Arguments.createMap();
+            result.putDouble("since", metrics.getSince());
+            result.putDouble("updatedAt", metrics.getUpdatedAt());
+            result.putDouble("runs", metrics.getRuns());
+
+            WritableMap summaries = Arguments.createMap();
+            for (SyncMetrics.Metric metric : SyncMetrics.Metric.values()) {
+                SyncMetrics.Summary summary = metrics.getSummary(metric);
+                WritableMap map = Arguments.createMap();
+                map.putDouble("count", summary.count);
+                map.putDouble("min", summary.min);
+                map.putDouble("max", summary.max);
+                map.putDouble("mean", summary.mean);
+                for (int i = 0; i < SyncMetrics.QUANTILES.length; i++) {
+                    map.putDouble(SyncMetrics.quantileKey(SyncMetrics.QUANTILES[i]), summary.quantiles[i]);
+                }
+                summaries.putMap(metric.key, map);
+            }
+            result.putMap("metrics", summaries);
+
+            promise.resolve(result);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting sync metrics: " + e.getMessage(), e);
+            promise.reject("WORKMANAGER_ERROR", "Failed to get sync metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sync metrics as a JSON string, including the histogram buckets
+     */
+    @Override
+    public void exportSyncMetrics(Promise promise) {
+        try {
+            promise.resolve(SyncMetrics.getInstance(reactContext).toJson().toString());
+        } catch (Exception e) {
+            Log.e(TAG, "Error exporting sync metrics: " + e.getMessage(), e);
+            promise.reject("WORKMANAGER_ERROR", "Failed to export sync metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Clear the sync metrics (e.g. after exporting them)
+     */
+    @Override
+    public void resetSyncMetrics(Promise promise) {
+        try {
+            SyncMetrics.getInstance(reactContext).reset();
+            AppLog.info(reactContext, LOG_CATEGORY, "🧹 Sync metrics reset");
+
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", true);
+
+            promise.resolve(result);
+
+        } catch (Exception e) {
+            promise.reject("WORKMANAGER_ERROR", "Failed to reset sync metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record SMS results in the durable ack outbox and schedule a batched flush
+     * @param results Array of { appointmentId, success, error? }
+     */
+    @Override
+    public void recordAcks(ReadableArray results, Promise promise) {
+        try {
+            AckOutbox outbox = AckOutbox.getInstance(reactContext);
+            for (int i = 0; i < results.size(); i++) {
+                ReadableMap item = results.getMap(i);
+                boolean success = item.getBoolean("success");
+                String error = item.hasKey("error") && !item.isNull("error")
+                        ? item.getString("error")
+                        : "Unknown error";
+                outbox.record(item.getString("appointmentId"), success, success ? null : error);
+            }
+
+            AckFlushWorker.schedule(reactContext);
+
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", true);
+            result.putInt("recorded", results.size());
+
+            promise.resolve(result);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error recording acks: " + e.getMessage(), e);
+            AppLog.error(reactContext, LOG_CATEGORY, "Error recording acks: " + e.getMessage());
+            promise.reject("WORKMANAGER_ERROR", "Failed to record acks: " + e.getMessage());
+        }
+    }
 }
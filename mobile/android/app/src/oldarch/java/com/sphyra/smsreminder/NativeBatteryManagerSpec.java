@@ -0,0 +1,68 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.turbomodule.core.interfaces.TurboModule;
+
+/**
+ * Old Architecture stand-in for the codegen spec of src/specs/NativeBatteryManager.ts
+ * With newArchEnabled=true this source set is not compiled and codegen generates the class
+ * Keep in sync with the TypeScript spec
+ */
+public abstract class NativeBatteryManagerSpec extends ReactContextBaseJavaModule implements TurboModule {
+    public static final String NAME = "BatteryManager";
+
+    public NativeBatteryManagerSpec(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @ReactMethod
+    public abstract void getBatteryLevel(Promise promise);
+
+    @ReactMethod
+    public abstract void isCharging(Promise promise);
+
+    @ReactMethod
+    public abstract void getBatteryInfo(Promise promise);
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public abstract WritableMap getBatterySnapshot();
+
+    @ReactMethod
+    public abstract void setThresholds(double lowThreshold, double criticalThreshold);
+
+    @ReactMethod
+    public abstract void startEnergySession(String kind, Promise promise);
+
+    @ReactMethod
+    public abstract void stopEnergySession(Promise promise);
+
+    @ReactMethod
+    public abstract void getEnergyHistory(Promise promise);
+
+    @ReactMethod
+    public abstract void getEnergyStats(Promise promise);
+
+    @ReactMethod
+    public abstract void setEnergySampleInterval(double intervalMs);
+
+    @ReactMethod
+    public abstract void resetEnergyHistory(Promise promise);
+
+    @ReactMethod
+    public abstract void addListener(String eventName);
+
+    @ReactMethod
+    public abstract void removeListeners(double count);
+}
@@ -0,0 +1,79 @@
+package com.sphyra.smsreminder;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.turbomodule.core.interfaces.TurboModule;
+
+/**
+ * Old Architecture stand-in for the codegen spec of src/specs/NativeWorkManager.ts
+ * With newArchEnabled=true this source set is not compiled and codegen generates the class
+ * Keep in sync with the TypeScript spec
+ */
+public abstract class NativeWorkManagerSpec extends ReactContextBaseJavaModule implements TurboModule {
+    public static final String NAME = "WorkManagerModule";
+
+    public NativeWorkManagerSpec(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @ReactMethod
+    public abstract void startPeriodicSync(double intervalMinutes, Promise promise);
+
+    @ReactMethod
+    public abstract void configureSchedule(ReadableMap config, Promise promise);
+
+    @ReactMethod
+    public abstract void stopPeriodicSync(Promise promise);
+
+    @ReactMethod
+    public abstract void isSyncRunning(Promise promise);
+
+    @ReactMethod
+    public abstract void getWorkStatus(Promise promise);
+
+    @ReactMethod
+    public abstract void checkPendingSync(Promise promise);
+
+    @ReactMethod
+    public abstract void clearPendingSync(Promise promise);
+
+    @ReactMethod
+    public abstract void getNativeSyncState(Promise promise);
+
+    @ReactMethod
+    public abstract void recordAcks(ReadableArray results, Promise promise);
+
+    @ReactMethod
+    public abstract void getSyncMetrics(Promise promise);
+
+    @ReactMethod
+    public abstract void exportSyncMetrics(Promise promise);
+
+    @ReactMethod
+    public abstract void resetSyncMetrics(Promise promise);
+
+    @ReactMethod
+    public abstract void addListener(String eventName);
+
+    @ReactMethod
+    public abstract void removeListeners(double count);
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public abstract WritableMap getPendingSyncState();
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public abstract WritableMap getSyncStatus();
+}
@@ -0,0 +1,175 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Compact payloads as toCompactReminder in mobileReminders.ts writes them (JSON.stringify:
+ * no whitespace, non-ASCII as raw UTF-8, quotes and control characters escaped)
+ */
+public class CompactReminderDecoderTest {
+
+    private static final String PAGE = "{\"reminders\":["
+            + "{\"id\":\"apt-1\",\"phone\":\"+393331234567\",\"message\":\"Ciao Maria, domani alle 10:30\","
+            + "\"consent\":true,\"at\":\"2026-10-17T08:30:00.000Z\"},"
+            + "{\"id\":\"apt-2\",\"phone\":null,\"message\":\"Promemoria\",\"consent\":false,"
+            + "\"at\":\"2026-10-17T09:00:00.000Z\"}"
+            + "],\"nextCursor\":\"MjAyNi0xMC0xN3xhcHQtMg\",\"deltaCursor\":\"MjAyNi0xMC0xNnwyMDI2LTEwLTE3\"}";
+
+    @Test
+    public void decodesPageAndCursors() throws Exception {
+        List<PendingReminder> reminders = new ArrayList<>();
+        CompactReminderDecoder.Envelope page = CompactReminderDecoder.read(source(PAGE), reminders::add);
+
+        assertEquals(2, reminders.size());
+        assertEquals("apt-1", reminders.get(0).appointmentId);
+        assertEquals("+393331234567", reminders.get(0).phone);
+        assertEquals("Ciao Maria, domani alle 10:30", reminders.get(0).message);
+        assertTrue(reminders.get(0).smsConsent);
+        assertNull(reminders.get(1).phone);
+        assertFalse(reminders.get(1).smsConsent);
+        // Due 24 hours before the appointment
+        assertEquals(Instant.parse("2026-10-16T08:30:00Z").toEpochMilli(), reminders.get(0).dueAt);
+        assertEquals("MjAyNi0xMC0xN3xhcHQtMg", page.getString("nextCursor"));
+        assertEquals("MjAyNi0xMC0xNnwyMDI2LTEwLTE3", page.getString("deltaCursor"));
+    }
+
+    @Test
+    public void decodesOneByteAtATime() throws Exception {
+        // Every value straddles okio segment reads, as on a slow connection
+        List<PendingReminder> reminders = new ArrayList<>();
+        CompactReminderDecoder.Envelope page = CompactReminderDecoder.read(
+                Okio.buffer(new TrickleSource(new Buffer().writeUtf8(PAGE))), reminders::add);
+
+        assertEquals(2, reminders.size());
+        assertEquals("Ciao Maria, domani alle 10:30", reminders.get(0).message);
+        assertEquals("MjAyNi0xMC0xN3xhcHQtMg", page.getString("nextCursor"));
+    }
+
+    @Test
+    public void decodesEscapesAndUtf8() throws Exception {
+        String json = "[{\"id\":\"apt-1\",\"phone\":\"+39333\",\"consent\":true,"
+                + "\"message\":\"Gentile \\\"Zoë\\\",\\nci vediamo lunedì \\u00e8 \\ud83d\\ude00 😀 \\\\ \\/\"}]";
+        List<PendingReminder> reminders = new ArrayList<>();
+        CompactReminderDecoder.read(Okio.buffer(new TrickleSource(new Buffer().writeUtf8(json))), reminders::add);
+
+        assertEquals("Gentile \"Zoë\",\nci vediamo lunedì è 😀 😀 \\ /", reminders.get(0).message);
+    }
+
+    @Test
+    public void skipsUnknownFields() throws Exception {
+        String json = "{ \"version\" : 2, \"meta\": {\"served\": [1, 2.5e3, -3], \"by\": {\"node\": \"a\\\"b\"}},"
+                + " \"reminders\": [ { \"extra\": [ {}, [] ], \"id\": \"apt-1\", \"message\": \"Ciao\","
+                + " \"at\": null, \"consent\": true, \"new\": false } ], \"hasMore\": true }";
+        List<PendingReminder> reminders = new ArrayList<>();
+        CompactReminderDecoder.Envelope claim = CompactReminderDecoder.read(source(json), reminders::add);
+
+        assertEquals(1, reminders.size());
+        assertEquals("apt-1", reminders.get(0).appointmentId);
+        assertTrue(reminders.get(0).smsConsent);
+        assertEquals(0, reminders.get(0).dueAt);
+        assertTrue(claim.getBoolean("hasMore"));
+        assertNull(claim.getString("version"));
+    }
+
+    @Test
+    public void readsIntegerEnvelopeFields() throws Exception {
+        String json = "{ \"reminders\": [], \"hasMore\": true, \"remaining\": 120, \"ratio\": 0.5,"
+                + " \"offset\": -3 }";
+        CompactReminderDecoder.Envelope claim = CompactReminderDecoder.read(source(json), reminder -> { });
+
+        assertEquals(120, claim.getLong("remaining", -1));
+        assertEquals(-3, claim.getLong("offset", -1));
+        // Not an integer, or missing: the fallback
+        assertEquals(-1, claim.getLong("ratio", -1));
+        assertEquals(-1, claim.getLong("missing", -1));
+        assertTrue(claim.getBoolean("hasMore"));
+    }
+
+    @Test
+    public void decodesDelta() throws Exception {
+        String json = "{\"ids\":[\"apt-1\",\"apt-2\",\"apt-3\"],\"added\":[{\"id\":\"apt-3\",\"phone\":\"+39333\","
+                + "\"message\":\"Promemoria\",\"consent\":true,\"at\":\"2026-10-17T10:00:00.000Z\"}],"
+                + "\"cursor\":\"abc\"}";
+        List<PendingReminder> added = new ArrayList<>();
+        CompactReminderDecoder.Envelope delta = CompactReminderDecoder.read(source(json), added::add);
+
+        assertEquals(Arrays.asList("apt-1", "apt-2", "apt-3"), delta.getStrings("ids"));
+        assertEquals("apt-3", added.get(0).appointmentId);
+        assertEquals("abc", delta.getString("cursor"));
+    }
+
+    @Test
+    public void decodesUpcomingSendTimes() throws Exception {
+        String json = "{\"reminders\":[{\"sendAt\":\"2026-10-16T08:30:00.000Z\",\"id\":\"apt-1\",\"phone\":\"+39333\","
+                + "\"message\":\"Promemoria\",\"consent\":true,\"at\":\"2026-10-17T08:30:00.000Z\"}],"
+                + "\"until\":\"2026-10-16T20:00:00.000Z\"}";
+        List<Long> sendTimes = new ArrayList<>();
+        CompactReminderDecoder.readUpcoming(source(json), (reminder, sendAt) -> sendTimes.add(sendAt));
+
+        assertEquals(Arrays.asList(Instant.parse("2026-10-16T08:30:00.000Z").toEpochMilli()), sendTimes);
+    }
+
+    @Test
+    public void rejectsTruncatedAndIncompletePayloads() throws Exception {
+        assertInvalid(PAGE.substring(0, PAGE.length() / 2));
+        assertInvalid("{\"reminders\":[{\"id\":\"apt-1\",\"consent\":true}]}");
+        assertInvalid("{\"reminders\":[{\"id\":\"apt-1\",\"message\":\"Ciao\" \"consent\":true}]}");
+        assertInvalid("{\"reminders\":[{\"id\":\"apt-1\",\"message\":\"\\x\"}]}");
+    }
+
+    private static void assertInvalid(String json) throws InterruptedException {
+        try {
+            CompactReminderDecoder.read(source(json), reminder -> { });
+            fail("Accepted " + json);
+        } catch (IOException expected) {
+            // Reported to the sync as a failed fetch
+        }
+    }
+
+    private static BufferedSource source(String json) {
+        return new Buffer().writeUtf8(json);
+    }
+
+    /**
+     * Hands out one byte per read
+     */
+    private static class TrickleSource implements Source {
+        private final Buffer data;
+
+        TrickleSource(Buffer data) {
+            this.data = data;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) {
+            return data.read(sink, Math.min(byteCount, 1));
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
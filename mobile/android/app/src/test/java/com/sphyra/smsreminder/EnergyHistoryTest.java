@@ -0,0 +1,135 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+/**
+ * EnergySession integration and EnergyHistory aggregates, with readings as
+ * BatteryManager reports them (µA, negative while discharging on most devices)
+ */
+public class EnergyHistoryTest {
+    private static final double DELTA = 1e-6;
+    private static final int UNKNOWN = EnergySession.UNKNOWN;
+
+    @Test
+    public void integratesCurrentOverTime() {
+        EnergySession session = new EnergySession(EnergySession.KIND_SYNC, 0, 0);
+        // 360 mA for 10 s = 1000 µAh
+        for (long ms = 0; ms <= 10_000; ms += 1000) {
+            session.sample(ms, -360_000, -350_000, 3_000_000, false);
+        }
+        EnergyHistory.Record record = session.finish(10_000);
+
+        assertTrue(record.integrated);
+        assertTrue(record.isMeasured());
+        assertEquals(1000, record.microAmpHours, DELTA);
+        assertEquals(11, record.samples);
+        assertEquals(350_000, record.averageCurrentMicroAmps);
+    }
+
+    @Test
+    public void splitsFetchFromSmsCost() {
+        EnergySession session = new EnergySession(EnergySession.KIND_SYNC, 0, 0);
+        session.sample(0, 100_000, UNKNOWN, UNKNOWN, false);
+        session.beginFetch();
+        session.sample(1000, 300_000, UNKNOWN, UNKNOWN, false);
+        session.endFetch();
+        // The fetch ended during this interval: it is still counted as fetch time
+        session.sample(2000, 300_000, UNKNOWN, UNKNOWN, false);
+        session.recordSms();
+        session.recordSms();
+        session.sample(3000, 100_000, UNKNOWN, UNKNOWN, false);
+        EnergyHistory.Record record = session.finish(3000);
+
+        double second = 1000 / 3_600_000.0;
+        assertEquals((200_000 + 300_000 + 200_000) * second, record.microAmpHours, DELTA);
+        assertEquals((200_000 + 300_000) * second, record.fetchMicroAmpHours, DELTA);
+        assertEquals(200_000 * second, record.getSmsMicroAmpHours(), DELTA);
+        assertEquals(1, record.fetches);
+        assertEquals(2, record.sms);
+    }
+
+    @Test
+    public void fallsBackToAverageCurrentThenChargeCounter() {
+        EnergySession average = new EnergySession(EnergySession.KIND_SYNC, 0, 0);
+        average.sample(0, 0, -180_000, UNKNOWN, false);
+        average.sample(20_000, 0, -180_000, UNKNOWN, false);
+        assertEquals(1000, average.finish(20_000).microAmpHours, DELTA);
+
+        EnergySession counter = new EnergySession(EnergySession.KIND_SYNC, 0, 0);
+        counter.sample(0, UNKNOWN, UNKNOWN, 2_500_000, false);
+        counter.sample(60_000, UNKNOWN, UNKNOWN, 2_499_000, false);
+        EnergyHistory.Record record = counter.finish(60_000);
+        assertFalse(record.integrated);
+        assertTrue(record.isMeasured());
+        assertEquals(1000, record.microAmpHours, DELTA);
+
+        EnergySession nothing = new EnergySession(EnergySession.KIND_SYNC, 0, 0);
+        nothing.sample(0, UNKNOWN, UNKNOWN, UNKNOWN, false);
+        assertFalse(nothing.finish(1000).isMeasured());
+    }
+
+    @Test
+    public void chargingSessionIsNotMeasured() {
+        EnergySession session = new EnergySession(EnergySession.KIND_SYNC, 0, 0);
+        session.sample(0, 500_000, UNKNOWN, UNKNOWN, false);
+        session.sample(1000, 500_000, UNKNOWN, UNKNOWN, true);
+        assertFalse(session.finish(1000).isMeasured());
+    }
+
+    @Test
+    public void aggregatesSyncRunsOnly() {
+        EnergyHistory history = new EnergyHistory();
+        // 20 idle polls of 10..200 µAh, one fetch each
+        for (int i = 1; i <= 20; i++) {
+            history.add(record(EnergySession.KIND_SYNC, i * 10, i * 10, 1, 0, false));
+        }
+        // Two runs that sent SMS: 10 SMS for 500 µAh, 30 SMS for 900 µAh (fetch 100 each)
+        history.add(record(EnergySession.KIND_SYNC, 600, 100, 2, 10, false));
+        history.add(record(EnergySession.KIND_SYNC, 1000, 100, 2, 30, false));
+        // Ignored: charging, and a session started from JS
+        history.add(record(EnergySession.KIND_SYNC, 99_999, 0, 1, 1, true));
+        history.add(record("manual", 99_999, 0, 0, 0, false));
+
+        EnergyHistory.Stats stats = history.getStats();
+        assertEquals(22, stats.sessions);
+        assertEquals(20, stats.idlePoll.count);
+        assertEquals(105, stats.idlePoll.mean, DELTA);
+        assertEquals(190, stats.idlePoll.p95, DELTA);
+        assertEquals(40, stats.perSms.count);
+        assertEquals((500 + 900) / 40.0, stats.perSms.mean, DELTA);
+        assertEquals(50, stats.perSms.p95, DELTA);
+        assertEquals(24, stats.perFetch.count);
+        assertEquals((2100 + 200) / 24.0, stats.perFetch.mean, DELTA);
+    }
+
+    @Test
+    public void keepsTheNewestRecordsAcrossSaves() throws Exception {
+        EnergyHistory history = new EnergyHistory(3);
+        for (int i = 0; i < 5; i++) {
+            history.add(record(EnergySession.KIND_SYNC, i, 0, 1, 0, false));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        history.writeTo(new DataOutputStream(bytes));
+
+        EnergyHistory loaded = new EnergyHistory(2);
+        loaded.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(2, loaded.size());
+        assertEquals(3, loaded.getRecords().get(0).microAmpHours, DELTA);
+        assertEquals(4, loaded.getRecords().get(1).microAmpHours, DELTA);
+    }
+
+    private static EnergyHistory.Record record(String kind, double microAmpHours, double fetchMicroAmpHours,
+                                               int fetches, int sms, boolean charging) {
+        return new EnergyHistory.Record(kind, 0, 1000, 2, microAmpHours, fetchMicroAmpHours, fetches, sms,
+                UNKNOWN, UNKNOWN, charging, true);
+    }
+}
@@ -0,0 +1,165 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Commit, reload, compaction and crash recovery of the append log on a real file
+ */
+public class KvStoreTest {
+    private static final int OFF_END = 8; // committed end in the header
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopensCommittedValues() throws IOException {
+        File file = folder.newFile();
+        KvStore store = new KvStore(file);
+        store.edit()
+                .putString("baseUrl", "https://api.example.com")
+                .putLong("lastSyncAt", 1_760_000_000_000L)
+                .putDouble("ratio", 0.25)
+                .putBoolean("autoSync", true)
+                .put("count", 3)
+                .commit();
+        store.edit().remove("ratio").putString("baseUrl", "https://other.example.com").commit();
+
+        KvStore reopened = new KvStore(file);
+        assertEquals("https://other.example.com", reopened.getString("baseUrl", null));
+        assertEquals(1_760_000_000_000L, reopened.getLong("lastSyncAt", 0));
+        assertEquals(3L, reopened.get("count"));
+        assertTrue(reopened.getBoolean("autoSync", false));
+        assertFalse(reopened.contains("ratio"));
+        assertEquals(4, reopened.getAll().size());
+    }
+
+    @Test
+    public void clearRemovesEveryKey() throws IOException {
+        File file = folder.newFile();
+        KvStore store = new KvStore(file);
+        store.edit().putString("a", "1").putLong("b", 2).commit();
+        store.clear();
+
+        assertTrue(store.getAll().isEmpty());
+        assertTrue(new KvStore(file).getAll().isEmpty());
+    }
+
+    @Test
+    public void compactsWhenTheLogIsFull() throws IOException {
+        File file = folder.newFile();
+        KvStore store = new KvStore(file);
+        store.edit().putString("deviceId", "phone-1").commit();
+        long mapped = file.length();
+
+        // About 130 bytes a batch: several times the 64 KiB log
+        String padding = new String(new char[100]).replace('\0', 'x');
+        for (int i = 0; i < 3000; i++) {
+            store.edit().putString("status", padding + i).putLong("runs", i).commit();
+        }
+
+        assertEquals(padding + 2999, store.getString("status", null));
+        assertEquals(mapped, file.length());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        KvStore reopened = new KvStore(file);
+        assertEquals("phone-1", reopened.getString("deviceId", null));
+        assertEquals(padding + 2999, reopened.getString("status", null));
+        assertEquals(2999, reopened.getLong("runs", 0));
+        assertEquals(3, reopened.getAll().size());
+    }
+
+    @Test
+    public void growsWhenLiveEntriesOutgrowTheLog() throws IOException {
+        File file = folder.newFile();
+        KvStore store = new KvStore(file);
+        String value = new String(new char[200]).replace('\0', 'v');
+        KvStore.Editor editor = store.edit();
+        for (int i = 0; i < 1000; i++) {
+            editor.putString("key" + i, value);
+        }
+        editor.commit();
+
+        KvStore reopened = new KvStore(file);
+        assertEquals(1000, reopened.getAll().size());
+        assertEquals(value, reopened.getString("key999", null));
+        reopened.edit().putLong("after", 1).commit();
+        assertEquals(1, new KvStore(file).getLong("after", 0));
+    }
+
+    @Test
+    public void ignoresTornFinalBatch() throws IOException {
+        File file = folder.newFile();
+        KvStore store = new KvStore(file);
+        store.edit().putString("token", "first").putLong("runs", 1).commit();
+        int intact = readEnd(file);
+        store.edit().putString("token", "second").putLong("runs", 2).commit();
+        int end = readEnd(file);
+
+        // Crash with the header already advanced: the tail of the last batch never reached the file
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek((intact + end) / 2);
+            raf.write(new byte[end - (intact + end) / 2]);
+        }
+
+        KvStore recovered = new KvStore(file);
+        // Neither key of the torn batch is applied
+        assertEquals("first", recovered.getString("token", null));
+        assertEquals(1, recovered.getLong("runs", 0));
+        assertEquals(intact, readEnd(file));
+
+        // The next commit overwrites the torn bytes
+        recovered.edit().putString("token", "third").commit();
+        KvStore reopened = new KvStore(file);
+        assertEquals("third", reopened.getString("token", null));
+        assertEquals(1, reopened.getLong("runs", 0));
+    }
+
+    @Test
+    public void ignoresBatchPastTheCommittedEnd() throws IOException {
+        File file = folder.newFile();
+        KvStore store = new KvStore(file);
+        store.edit().putString("token", "first").commit();
+        int intact = readEnd(file);
+        store.edit().putString("token", "second").commit();
+
+        // Crash before the header moved: the batch is written but not committed
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(OFF_END);
+            raf.writeInt(intact);
+        }
+
+        assertEquals("first", new KvStore(file).getString("token", null));
+    }
+
+    @Test
+    public void startsEmptyOnForeignFile() throws IOException {
+        File file = folder.newFile();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeBytes("not a store");
+        }
+
+        KvStore store = new KvStore(file);
+        assertTrue(store.getAll().isEmpty());
+        assertNull(store.get("token"));
+        store.edit().putString("token", "fresh").commit();
+        assertEquals("fresh", new KvStore(file).getString("token", null));
+    }
+
+    private static int readEnd(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(OFF_END);
+            return raf.readInt();
+        }
+    }
+}
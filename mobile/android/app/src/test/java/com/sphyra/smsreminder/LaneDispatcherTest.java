@@ -0,0 +1,305 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lane logic with fake SIM subscriptions (no radio, no Android)
+ * The governors run on a fake clock that only the fake sends advance, and lanes
+ * are made to overlap with latches, so nothing depends on real timing
+ */
+public class LaneDispatcherTest {
+    private static final long SEND_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long LATCH_TIMEOUT_S = 10;
+
+    /**
+     * Fake SIM: each send advances the clock by SEND_NANOS, results are scripted
+     * (SENT once the script is empty)
+     */
+    private static class FakeTransport implements SmsTransport {
+        final int subscriptionId;
+        final AtomicLong clock;
+        final Deque<Result> script = new ArrayDeque<>();
+        final List<String> sentTo = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch firstSend = new CountDownLatch(1);
+        // When set, the first send waits for it: another lane is busy meanwhile
+        CountDownLatch holdFirstSendUntil;
+        RuntimeException rejection;
+
+        FakeTransport(int subscriptionId, AtomicLong clock) {
+            this.subscriptionId = subscriptionId;
+            this.clock = clock;
+        }
+
+        @Override
+        public int getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        @Override
+        public String getLabel() {
+            return "SIM " + subscriptionId;
+        }
+
+        @Override
+        public List<String> divideMessage(String text) {
+            return Collections.singletonList(text);
+        }
+
+        @Override
+        public Result send(String phone, List<String> parts, long timeoutMs) throws InterruptedException {
+            if (rejection != null) {
+                throw rejection;
+            }
+            if (holdFirstSendUntil != null && firstSend.getCount() > 0
+                    && !holdFirstSendUntil.await(LATCH_TIMEOUT_S, TimeUnit.SECONDS)) {
+                throw new AssertionError(getLabel() + " waited for a lane that never sent");
+            }
+            clock.addAndGet(SEND_NANOS);
+            Result result;
+            synchronized (script) {
+                result = script.poll();
+            }
+            if (result == null || result.status == Status.SENT) {
+                sentTo.add(phone);
+            }
+            firstSend.countDown();
+            return result != null ? result : new Result(Status.SENT, parts.size(), false, null);
+        }
+    }
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private FakeTransport sim(int subscriptionId) {
+        return new FakeTransport(subscriptionId, clock);
+    }
+
+    private SendLane lane(FakeTransport transport) {
+        // Fast enough that the fake send time, not the governor, is the limit
+        return new SendLane(transport, new SendRateGovernor(1000, 1, 1000, 10, clock::get));
+    }
+
+    private static SmsDispatcher.Source source(List<SmsDispatcher.Message> messages) {
+        Iterator<SmsDispatcher.Message> iterator = messages.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static List<SmsDispatcher.Message> messages(int count) {
+        List<SmsDispatcher.Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new SmsDispatcher.Message("apt-" + i, "333123" + String.format("%04d", i), "Promemoria"));
+        }
+        return messages;
+    }
+
+    private static String normalizedPhone(String appointmentId) {
+        return "+39333123" + String.format("%04d", Integer.parseInt(appointmentId.substring("apt-".length())));
+    }
+
+    private static int countSent(List<SmsDispatcher.Outcome> outcomes) {
+        int sent = 0;
+        for (SmsDispatcher.Outcome outcome : outcomes) {
+            if (outcome.success) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * A lane takes messages in source order (the numbers grow with it)
+     */
+    private static void assertSourceOrder(List<String> sentTo) {
+        for (int i = 1; i < sentTo.size(); i++) {
+            assertTrue(sentTo.get(i - 1) + " before " + sentTo.get(i), sentTo.get(i - 1).compareTo(sentTo.get(i)) < 0);
+        }
+    }
+
+    @Test
+    public void spreadsBatchOverBothSims() {
+        FakeTransport sim1 = sim(1);
+        FakeTransport sim2 = sim(2);
+        // SIM 1 holds its first message until SIM 2 has sent one: both lanes take part
+        sim1.holdFirstSendUntil = sim2.firstSend;
+        SendLane lane1 = lane(sim1);
+        SendLane lane2 = lane(sim2);
+
+        List<SmsDispatcher.Outcome> outcomes = new LaneDispatcher(Arrays.asList(lane1, lane2))
+                .dispatch(source(messages(20)), 20, null);
+
+        assertEquals(20, outcomes.size());
+        assertEquals(20, countSent(outcomes));
+        assertFalse(sim1.sentTo.isEmpty());
+        assertFalse(sim2.sentTo.isEmpty());
+
+        // Each message went out once, on one lane, in source order within the lane
+        Set<String> phones = new HashSet<>(sim1.sentTo);
+        phones.addAll(sim2.sentTo);
+        assertEquals(20, phones.size());
+        assertSourceOrder(sim1.sentTo);
+        assertSourceOrder(sim2.sentTo);
+
+        for (SendLane lane : Arrays.asList(lane1, lane2)) {
+            SendLane.Stats stats = lane.getStats();
+            long sent = (lane == lane1 ? sim1 : sim2).sentTo.size();
+            assertEquals(sent, stats.sent);
+            assertEquals(sent, stats.attempts);
+            assertEquals(0, stats.failed);
+            assertEquals(0, stats.throttled);
+        }
+        // Outcomes name the lane that sent them
+        for (SmsDispatcher.Outcome outcome : outcomes) {
+            List<String> lanePhones = outcome.subscriptionId == 1 ? sim1.sentTo : sim2.sentTo;
+            assertTrue(outcome.appointmentId, lanePhones.contains(normalizedPhone(outcome.appointmentId)));
+        }
+        // Normalized before sending
+        assertTrue(sim1.sentTo.get(0).startsWith("+39"));
+    }
+
+    @Test
+    public void throttledSimDoesNotStallTheBatch() {
+        FakeTransport throttled = sim(1);
+        throttled.script.add(new SmsTransport.Result(SmsTransport.Status.THROTTLED, 0, false, "Limite"));
+        FakeTransport healthy = sim(2);
+        // SIM 1 gets the first send, and with it the throttle
+        healthy.holdFirstSendUntil = throttled.firstSend;
+        SendLane throttledLane = lane(throttled);
+        SendLane healthyLane = lane(healthy);
+
+        List<SmsDispatcher.Outcome> outcomes = new LaneDispatcher(Arrays.asList(throttledLane, healthyLane))
+                .dispatch(source(messages(10)), 10, null);
+
+        // The throttled message is retried, not lost, and the batch completes
+        assertEquals(10, outcomes.size());
+        assertEquals(10, countSent(outcomes));
+        int retried = 0;
+        for (SmsDispatcher.Outcome outcome : outcomes) {
+            if (outcome.attempts == 2) {
+                retried++;
+            } else {
+                assertEquals(1, outcome.attempts);
+            }
+        }
+        assertEquals(1, retried);
+
+        SendLane.Stats throttledStats = throttledLane.getStats();
+        SendLane.Stats healthyStats = healthyLane.getStats();
+        assertEquals(1, throttledStats.throttled);
+        assertEquals(0, healthyStats.throttled);
+        assertEquals(10, throttledStats.sent + healthyStats.sent);
+        assertEquals(11, throttledStats.attempts + healthyStats.attempts);
+        // Eleven fake sends are well short of the throttle pause: the lane is still waiting it out
+        assertTrue(throttledLane.getGovernor().getPauseRemainingNanos() > 0);
+    }
+
+    @Test
+    public void retryableFailureIsRetriedUpToMaxAttempts() {
+        FakeTransport flaky = sim(1);
+        for (int i = 0; i < LaneDispatcher.MAX_ATTEMPTS; i++) {
+            flaky.script.add(new SmsTransport.Result(SmsTransport.Status.RETRYABLE, 0, false, "Errore generico"));
+        }
+
+        List<SmsDispatcher.Outcome> outcomes = new LaneDispatcher(Collections.singletonList(lane(flaky)))
+                .dispatch(source(messages(1)), 1, null);
+
+        assertEquals(1, outcomes.size());
+        assertFalse(outcomes.get(0).success);
+        assertEquals(LaneDispatcher.MAX_ATTEMPTS, outcomes.get(0).attempts);
+        assertEquals("Errore generico", outcomes.get(0).error);
+    }
+
+    @Test
+    public void partiallySentMessageIsNeverResent() {
+        FakeTransport sim = sim(1);
+        sim.script.add(new SmsTransport.Result(SmsTransport.Status.RETRYABLE, 1, false, "Errore generico"));
+
+        List<SmsDispatcher.Outcome> outcomes = new LaneDispatcher(Collections.singletonList(lane(sim)))
+                .dispatch(source(messages(1)), 1, null);
+
+        assertFalse(outcomes.get(0).success);
+        assertTrue(outcomes.get(0).uncertain);
+        assertEquals(1, outcomes.get(0).attempts);
+    }
+
+    @Test
+    public void timedOutMessageIsNeverSentAgain() {
+        FakeTransport sim = sim(1);
+        sim.script.add(new SmsTransport.Result(SmsTransport.Status.TIMEOUT, 0, false, "Timeout invio SMS"));
+        SendLane lane = lane(sim);
+        SentLedger ledger = new SentLedger();
+
+        SmsDispatcher.Outcome timedOut = new LaneDispatcher(Collections.singletonList(lane), ledger,
+                SmsEncoder.Policy.NONE).dispatch(source(messages(1)), 1, null).get(0);
+        assertFalse(timedOut.success);
+        assertTrue(timedOut.uncertain);
+        assertEquals(1, timedOut.attempts);
+
+        // Handed out again by a later sync: the ledger answers, the radio is not touched
+        SmsDispatcher.Outcome again = new LaneDispatcher(Collections.singletonList(lane), ledger,
+                SmsEncoder.Policy.NONE).dispatch(source(messages(1)), 1, null).get(0);
+        assertTrue(again.alreadySent);
+        assertEquals(1, lane.getStats().attempts);
+        assertTrue(sim.sentTo.isEmpty());
+    }
+
+    @Test
+    public void missingPhoneFailsWithoutTouchingTheLane() {
+        FakeTransport sim = sim(1);
+        SendLane lane = lane(sim);
+        List<SmsDispatcher.Message> batch = Collections.singletonList(
+                new SmsDispatcher.Message("apt-1", null, "Promemoria"));
+
+        List<SmsDispatcher.Outcome> outcomes = new LaneDispatcher(Collections.singletonList(lane))
+                .dispatch(source(batch), 1, null);
+
+        assertEquals(SmsDispatcher.ERROR_MISSING_PHONE, outcomes.get(0).error);
+        assertEquals(0, lane.getStats().attempts);
+        assertEquals(0, lane.getStats().failed);
+    }
+
+    @Test
+    public void rejectedMessageIsReportedAsFailed() {
+        FakeTransport sim = sim(1);
+        sim.rejection = new IllegalArgumentException("Invalid destinationAddress");
+
+        List<SmsDispatcher.Outcome> outcomes = new LaneDispatcher(Collections.singletonList(lane(sim)))
+                .dispatch(source(messages(2)), 2, null);
+
+        assertEquals(2, outcomes.size());
+        assertEquals(0, countSent(outcomes));
+        assertEquals("Invalid destinationAddress", outcomes.get(0).error);
+    }
+
+    @Test
+    public void listenerSeesEveryOutcomeOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger lastCompleted = new AtomicInteger();
+
+        new LaneDispatcher(Arrays.asList(lane(sim(1)), lane(sim(2)))).dispatch(source(messages(8)), 8,
+                (outcome, completed, total) -> {
+                    calls.incrementAndGet();
+                    lastCompleted.set(completed);
+                    assertEquals(8, total);
+                });
+
+        assertEquals(8, calls.get());
+        assertEquals(8, lastCompleted.get());
+    }
+}
@@ -0,0 +1,216 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Several simulated phones sharing a stand-in lease server (no network, no radio)
+ */
+public class LeaseClaimerTest {
+    private static final int LEASE_SECONDS = 60;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    /**
+     * Same rules as POST /claim and the acks in mobileReminders.ts: a reminder is
+     * claimable while pending and not leased (or its lease expired); a sent ack
+     * removes it from the pool, a failed one keeps the lease until it expires
+     */
+    private class LeaseServer {
+        final Map<String, PendingReminder> pending = new LinkedHashMap<>();
+        final Map<String, String> holders = new HashMap<>();
+        final Map<String, Long> expiries = new HashMap<>();
+        final Map<String, Integer> sends = new ConcurrentHashMap<>();
+
+        LeaseServer(int reminders) {
+            for (int i = 0; i < reminders; i++) {
+                String id = String.format("apt-%03d", i);
+                pending.put(id, new PendingReminder(id, "333123" + String.format("%04d", i), "Promemoria", true));
+            }
+        }
+
+        LeaseClaimer.Backend backend(String deviceId) {
+            return (limit, leaseSeconds) -> claim(deviceId, limit, leaseSeconds);
+        }
+
+        synchronized LeaseClaimer.Claim claim(String deviceId, int limit, int leaseSeconds) {
+            List<PendingReminder> batch = new ArrayList<>();
+            for (PendingReminder reminder : pending.values()) {
+                Long expiresAt = expiries.get(reminder.appointmentId);
+                if (expiresAt != null && expiresAt > now.get()) {
+                    continue;
+                }
+                holders.put(reminder.appointmentId, deviceId);
+                expiries.put(reminder.appointmentId, now.get() + TimeUnit.SECONDS.toMillis(leaseSeconds));
+                batch.add(reminder);
+                if (batch.size() == limit) {
+                    break;
+                }
+            }
+            return new LeaseClaimer.Claim(batch, batch.size() == limit);
+        }
+
+        synchronized void ackSent(String appointmentId) {
+            pending.remove(appointmentId);
+            holders.remove(appointmentId);
+            expiries.remove(appointmentId);
+        }
+
+        synchronized void release(String deviceId, List<String> appointmentIds) {
+            for (String id : appointmentIds) {
+                if (deviceId.equals(holders.get(id))) {
+                    holders.remove(id);
+                    expiries.remove(id);
+                }
+            }
+        }
+
+        void recordSend(String appointmentId) {
+            sends.merge(appointmentId, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Claim, send every reminder of the batch, ack, until the pool is empty
+     * @return reminders this phone sent
+     */
+    private int runPhone(LeaseServer server, String deviceId, long sendMs) throws Exception {
+        LeaseClaimer claimer = new LeaseClaimer(server.backend(deviceId), 10, LEASE_SECONDS, now::get);
+        int sent = 0;
+        LeaseClaimer.Batch batch;
+        while ((batch = claimer.claim()) != null) {
+            PendingReminder reminder;
+            while ((reminder = batch.next()) != null) {
+                Thread.sleep(sendMs);
+                server.recordSend(reminder.appointmentId);
+                server.ackSent(reminder.appointmentId);
+                sent++;
+            }
+            server.release(deviceId, batch.unsent());
+        }
+        return sent;
+    }
+
+    @Test
+    public void phonesShareThePoolWithoutDuplicates() throws Exception {
+        LeaseServer server = new LeaseServer(120);
+        AtomicInteger[] sentBy = {new AtomicInteger(), new AtomicInteger(), new AtomicInteger()};
+        List<Thread> phones = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < sentBy.length; i++) {
+            int phone = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    sentBy[phone].set(runPhone(server, "phone-" + phone, 2));
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            phones.add(thread);
+            thread.start();
+        }
+        for (Thread thread : phones) {
+            thread.join();
+        }
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(120, server.sends.size());
+        for (Map.Entry<String, Integer> entry : server.sends.entrySet()) {
+            assertEquals(entry.getKey(), 1, (int) entry.getValue());
+        }
+        assertTrue(server.pending.isEmpty());
+        // Each phone took a share of the work
+        for (AtomicInteger sent : sentBy) {
+            assertTrue("sent " + Arrays.toString(sentBy), sent.get() >= 10);
+        }
+    }
+
+    @Test
+    public void batchOfAnOfflinePhoneGoesBackToThePoolAfterTheLease() throws Exception {
+        LeaseServer server = new LeaseServer(15);
+
+        // Phone A claims a batch and disappears without sending or acking
+        LeaseClaimer offline = new LeaseClaimer(server.backend("phone-a"), 10, LEASE_SECONDS, now::get);
+        assertEquals(10, offline.claim().size());
+
+        // Phone B only gets what A does not hold
+        assertEquals(5, runPhone(server, "phone-b", 0));
+        assertEquals(10, server.pending.size());
+
+        // Once the lease is over B takes A's batch
+        now.addAndGet(TimeUnit.SECONDS.toMillis(LEASE_SECONDS) + 1);
+        assertEquals(10, runPhone(server, "phone-b", 0));
+        assertTrue(server.pending.isEmpty());
+        assertEquals(15, server.sends.size());
+    }
+
+    @Test
+    public void batchStopsBeforeTheLeaseEnds() throws Exception {
+        LeaseServer server = new LeaseServer(10);
+        LeaseClaimer claimer = new LeaseClaimer(server.backend("phone-a"), 10, LEASE_SECONDS, now::get);
+        LeaseClaimer.Batch batch = claimer.claim();
+
+        for (int i = 0; i < 4; i++) {
+            server.ackSent(batch.next().appointmentId);
+        }
+        // Past the margin the rest may already belong to another phone
+        now.addAndGet(claimer.leaseMs() - claimer.marginMs());
+
+        assertNull(batch.next());
+        assertTrue(batch.isExpired());
+        assertEquals(6, batch.unsent().size());
+
+        server.release("phone-a", batch.unsent());
+        assertEquals(6, runPhone(server, "phone-b", 0));
+    }
+
+    @Test
+    public void stoppedBatchResumesUntilItsOriginalDeadline() throws Exception {
+        LeaseServer server = new LeaseServer(10);
+        LeaseClaimer claimer = new LeaseClaimer(server.backend("phone-a"), 10, LEASE_SECONDS, now::get);
+        LeaseClaimer.Batch batch = claimer.claim();
+        for (int i = 0; i < 3; i++) {
+            server.ackSent(batch.next().appointmentId);
+        }
+
+        // Run stopped: the rest is checkpointed, the next run picks it up
+        LeaseClaimer.Batch resumed = new LeaseClaimer(server.backend("phone-a"), 10, LEASE_SECONDS, now::get)
+                .resume(batch.remaining(), batch.getDeadline());
+        assertEquals(7, resumed.size());
+        assertEquals("apt-003", resumed.next().appointmentId);
+
+        // The lease was not renewed by the resume
+        now.set(batch.getDeadline());
+        assertNull(resumed.next());
+        assertEquals(6, resumed.unsent().size());
+    }
+
+    @Test
+    public void emptyPoolEndsTheRun() throws Exception {
+        LeaseServer server = new LeaseServer(0);
+        AtomicInteger claims = new AtomicInteger();
+        LeaseClaimer claimer = new LeaseClaimer((limit, leaseSeconds) -> {
+            claims.incrementAndGet();
+            return server.claim("phone-a", limit, leaseSeconds);
+        }, 10, LEASE_SECONDS, now::get);
+
+        assertNull(claimer.claim());
+        assertEquals(1, claims.get());
+    }
+}
@@ -0,0 +1,126 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ring buffer wrap, eviction and reopen on a real mapped file
+ */
+public class LogStoreTest {
+    // Smallest capacity LogStore accepts is just over 10 KiB; 16 records of 1000 bytes fit
+    private static final int CAPACITY = 16 * 1024;
+    private static final int RECORD_BYTES = 1000;
+    private static final int MESSAGE_BYTES = RECORD_BYTES - 32; // record overhead
+    private static final int FITS = CAPACITY / RECORD_BYTES;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsRecordsUntilFull() throws IOException {
+        LogStore store = new LogStore(folder.newFile(), CAPACITY);
+        appendRecords(store, FITS);
+
+        assertEquals(FITS, store.count());
+        assertSeqs(store.read(-1, 100, 0, null).entries, FITS, 1);
+    }
+
+    @Test
+    public void wrapsAndEvictsOldest() throws IOException {
+        LogStore store = new LogStore(folder.newFile(), CAPACITY);
+        // Wraps twice: the head passes the wrap point once along the way
+        appendRecords(store, 2 * FITS + 8);
+
+        assertEquals(FITS, store.count());
+        assertSeqs(store.read(-1, 100, 0, null).entries, 2 * FITS + 8, FITS + 9);
+
+        Map<String, Integer> byCategory = store.stats().get("byCategory");
+        assertEquals(Integer.valueOf(FITS), byCategory.get("SYNC"));
+    }
+
+    @Test
+    public void pagesAcrossTheWrapPoint() throws IOException {
+        LogStore store = new LogStore(folder.newFile(), CAPACITY);
+        appendRecords(store, FITS + 4); // seqs 5..20, the newest 4 at the start of the buffer
+
+        LogStore.Page first = store.read(-1, 6, 0, null);
+        assertSeqs(first.entries, 20, 15);
+        assertEquals(15, first.nextCursor);
+
+        LogStore.Page second = store.read(first.nextCursor, 100, 0, null);
+        assertSeqs(second.entries, 14, 5);
+        assertEquals(-1, second.nextCursor);
+    }
+
+    @Test
+    public void reopensAfterWrap() throws IOException {
+        File file = folder.newFile();
+        LogStore store = new LogStore(file, CAPACITY);
+        appendRecords(store, FITS + 4);
+        store.append(0, LogStore.LEVEL_ERROR, "SMS", "last before restart", "{\"id\":\"apt-1\"}");
+        store.force();
+
+        LogStore reopened = new LogStore(file, CAPACITY);
+        assertEquals(FITS, reopened.count());
+        List<LogStore.Entry> entries = reopened.read(-1, 100, 0, null).entries;
+        assertEquals(21, entries.get(0).seq);
+        assertEquals("SMS", entries.get(0).category);
+        assertEquals("ERROR", entries.get(0).getLevelName());
+        assertEquals("{\"id\":\"apt-1\"}", entries.get(0).payload);
+        assertEquals(6, entries.get(entries.size() - 1).seq);
+
+        // Sequence numbers and categories carry on; the oldest record makes room
+        assertEquals(22, reopened.append(0, LogStore.LEVEL_INFO, "SYNC", message(22), null));
+        assertEquals(FITS, reopened.count());
+        entries = reopened.read(-1, 100, 1 << LogStore.LEVEL_INFO, "SYNC").entries;
+        assertSeqs(entries.subList(0, 1), 22, 22);
+        assertEquals(7, entries.get(entries.size() - 1).seq);
+        assertNull(entries.get(0).payload);
+    }
+
+    @Test
+    public void resetsWhenTheCapacityChanges() throws IOException {
+        File file = folder.newFile();
+        appendRecords(new LogStore(file, CAPACITY), 3);
+
+        LogStore resized = new LogStore(file, CAPACITY - RECORD_BYTES);
+        assertEquals(0, resized.count());
+        assertEquals(1, resized.append(0, LogStore.LEVEL_INFO, "SYNC", "fresh", null));
+    }
+
+    private static void appendRecords(LogStore store, int count) {
+        // Fresh store: sequence numbers start at 1
+        for (long seq = 1; seq <= count; seq++) {
+            assertEquals(seq, store.append(seq * 1000, LogStore.LEVEL_INFO, "SYNC", message(seq), null));
+        }
+    }
+
+    private static String message(long seq) {
+        StringBuilder message = new StringBuilder("record " + seq);
+        while (message.length() < MESSAGE_BYTES) {
+            message.append('.');
+        }
+        return message.toString();
+    }
+
+    /**
+     * Entries are newest first: from down to to, with no gaps
+     */
+    private static void assertSeqs(List<LogStore.Entry> entries, long from, long to) {
+        assertEquals(from - to + 1, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            LogStore.Entry entry = entries.get(i);
+            assertEquals(from - i, entry.seq);
+            assertEquals(message(entry.seq), entry.message);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate detection within the 48 hour horizon, eviction and persistence
+ */
+public class SentLedgerTest {
+    // Minute aligned: the ledger keeps send times to the minute
+    private static final long T0 = 1_760_000_040_000L;
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final String TEXT = "Promemoria: appuntamento domani alle 10:30";
+
+    @Test
+    public void expiresAfter48Hours() {
+        SentLedger ledger = new SentLedger();
+        ledger.record("apt-1", TEXT, T0);
+
+        assertTrue(ledger.contains("apt-1", TEXT, T0));
+        assertTrue(ledger.contains("apt-1", TEXT, T0 + 24 * HOUR));
+        assertTrue(ledger.contains("apt-1", TEXT, T0 + SentLedger.HORIZON_MS));
+        assertFalse(ledger.contains("apt-1", TEXT, T0 + SentLedger.HORIZON_MS + 1));
+    }
+
+    @Test
+    public void keysOnAppointmentAndText() {
+        SentLedger ledger = new SentLedger();
+        ledger.record("apt-1", TEXT, T0);
+
+        assertFalse(ledger.contains("apt-2", TEXT, T0));
+        // Moved appointment: new text, new reminder
+        assertFalse(ledger.contains("apt-1", TEXT.replace("10:30", "11:00"), T0));
+        // The id/text boundary is part of the key
+        ledger.record("ab", "c", T0);
+        assertFalse(ledger.contains("a", "bc", T0));
+    }
+
+    @Test
+    public void recordingAgainExtendsTheHorizon() {
+        SentLedger ledger = new SentLedger();
+        ledger.record("apt-1", TEXT, T0 + 24 * HOUR);
+        // An older send recorded late does not shorten it
+        ledger.record("apt-1", TEXT, T0);
+
+        assertEquals(1, ledger.size());
+        assertTrue(ledger.contains("apt-1", TEXT, T0 + 60 * HOUR));
+        assertFalse(ledger.contains("apt-1", TEXT, T0 + 72 * HOUR + 1));
+    }
+
+    @Test
+    public void evictDropsExpiredEntries() {
+        SentLedger ledger = new SentLedger();
+        ledger.record("apt-1", TEXT, T0);
+        ledger.record("apt-2", TEXT, T0 + 24 * HOUR);
+
+        assertEquals(0, ledger.evict(T0 + SentLedger.HORIZON_MS));
+        assertEquals(1, ledger.evict(T0 + SentLedger.HORIZON_MS + 1));
+        assertEquals(1, ledger.size());
+        assertTrue(ledger.contains("apt-2", TEXT, T0 + SentLedger.HORIZON_MS + 1));
+    }
+
+    @Test
+    public void expiredEntriesMakeRoomBeforeGrowing() {
+        SentLedger ledger = new SentLedger();
+        for (int i = 0; i < 40; i++) {
+            ledger.record("old-" + i, TEXT, T0);
+        }
+        long later = T0 + SentLedger.HORIZON_MS + HOUR;
+        for (int i = 0; i < 30; i++) {
+            ledger.record("new-" + i, TEXT, later);
+        }
+
+        assertEquals(30, ledger.size());
+        for (int i = 0; i < 30; i++) {
+            assertTrue(ledger.contains("new-" + i, TEXT, later));
+        }
+        assertFalse(ledger.contains("old-0", TEXT, later));
+    }
+
+    @Test
+    public void holdsManyLiveEntries() {
+        SentLedger ledger = new SentLedger();
+        for (int i = 0; i < 5000; i++) {
+            ledger.record("apt-" + i, TEXT, T0 + i * 1000L);
+        }
+
+        assertEquals(5000, ledger.size());
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(ledger.contains("apt-" + i, TEXT, T0 + HOUR));
+        }
+        assertFalse(ledger.contains("apt-5000", TEXT, T0 + HOUR));
+    }
+
+    @Test
+    public void persistsLiveEntriesOnly() throws IOException {
+        SentLedger ledger = new SentLedger();
+        ledger.record("apt-1", TEXT, T0);
+        ledger.record("apt-2", TEXT, T0 + 24 * HOUR);
+        ledger.record("apt-3", TEXT, T0 - SentLedger.HORIZON_MS - HOUR);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ledger.writeTo(new DataOutputStream(bytes), T0 + HOUR);
+        // Header plus 12 bytes per live entry: apt-3 had already expired
+        assertEquals(8 + 2 * 12, bytes.size());
+
+        // Read back two days later: apt-1 expired in between
+        SentLedger restored = new SentLedger();
+        long now = T0 + SentLedger.HORIZON_MS + HOUR;
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), now);
+
+        assertEquals(1, restored.size());
+        assertTrue(restored.contains("apt-2", TEXT, now));
+        assertFalse(restored.contains("apt-1", TEXT, now));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnknownFormat() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(99);
+        out.writeInt(0);
+
+        new SentLedger().readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), T0);
+    }
+}
@@ -0,0 +1,135 @@
+package com.sphyra.smsreminder;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.telephony.SmsManager;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fake SmsManager for SyncThroughputBenchmark, installed in place of
+ * Robolectric's ShadowSmsManager: every SMS goes to a simulated carrier, which
+ * answers each part through its SENT PendingIntent after radioLatencyMs, exactly
+ * as the radio does for SmsDispatcher's result receiver
+ */
+@Implements(SmsManager.class)
+public class ShadowCarrierSmsManager {
+    static volatile Carrier carrier;
+
+    /**
+     * Accepts up to ratePerSecond SMS per second (0 = no limit) and answers
+     * RESULT_ERROR_LIMIT_EXCEEDED beyond that; failureRate of the accepted ones
+     * get RESULT_ERROR_GENERIC_FAILURE
+     */
+    static final class Carrier {
+        private final Context context;
+        private final long radioLatencyMs;
+        private final double failureRate;
+        private final int ratePerSecond;
+        private final Random random;
+        private final ScheduledExecutorService radio = Executors.newScheduledThreadPool(2);
+        private final ArrayDeque<Long> acceptedInLastSecond = new ArrayDeque<>();
+
+        /** System.nanoTime() of the first SENT of each reminder */
+        final Map<String, Long> sentAt = new ConcurrentHashMap<>();
+        /** SENT results per reminder: more than one is a duplicate SMS */
+        final Map<String, Integer> sends = new ConcurrentHashMap<>();
+        final AtomicInteger submitted = new AtomicInteger();
+        final AtomicInteger throttled = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        Carrier(Context context, long radioLatencyMs, double failureRate, int ratePerSecond, long seed) {
+            this.context = context;
+            this.radioLatencyMs = radioLatencyMs;
+            this.failureRate = failureRate;
+            this.ratePerSecond = ratePerSecond;
+            this.random = new Random(seed);
+        }
+
+        void submit(String text, List<PendingIntent> sentIntents) {
+            submitted.incrementAndGet();
+            // StandInBackend ends every message with the appointment id
+            String appointmentId = text.substring(text.lastIndexOf(' ') + 1);
+            int result = decide();
+            radio.schedule(() -> report(appointmentId, result, sentIntents), radioLatencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized int decide() {
+            long now = System.nanoTime();
+            if (ratePerSecond > 0) {
+                while (!acceptedInLastSecond.isEmpty()
+                        && now - acceptedInLastSecond.peekFirst() >= TimeUnit.SECONDS.toNanos(1)) {
+                    acceptedInLastSecond.pollFirst();
+                }
+                if (acceptedInLastSecond.size() >= ratePerSecond) {
+                    throttled.incrementAndGet();
+                    return SmsManager.RESULT_ERROR_LIMIT_EXCEEDED;
+                }
+                acceptedInLastSecond.addLast(now);
+            }
+            if (failureRate > 0 && random.nextDouble() < failureRate) {
+                failed.incrementAndGet();
+                return SmsManager.RESULT_ERROR_GENERIC_FAILURE;
+            }
+            return Activity.RESULT_OK;
+        }
+
+        private void report(String appointmentId, int result, List<PendingIntent> sentIntents) {
+            if (result == Activity.RESULT_OK) {
+                sentAt.putIfAbsent(appointmentId, System.nanoTime());
+                sends.merge(appointmentId, 1, Integer::sum);
+            }
+            for (PendingIntent intent : sentIntents) {
+                try {
+                    intent.send(context, result, null);
+                } catch (PendingIntent.CanceledException e) {
+                    // One-shot intent already used - the dispatcher times the SMS out
+                }
+            }
+        }
+
+        void shutdown() {
+            radio.shutdownNow();
+        }
+    }
+
+    @Implementation
+    protected void sendTextMessage(String destinationAddress, String scAddress, String text,
+                                   PendingIntent sentIntent, PendingIntent deliveryIntent) {
+        carrier.submit(text, Collections.singletonList(sentIntent));
+    }
+
+    @Implementation
+    protected void sendMultipartTextMessage(String destinationAddress, String scAddress, ArrayList<String> parts,
+                                            ArrayList<PendingIntent> sentIntents,
+                                            ArrayList<PendingIntent> deliveryIntents) {
+        carrier.submit(String.join("", parts), sentIntents);
+    }
+
+    @Implementation
+    protected ArrayList<String> divideMessage(String text) {
+        ArrayList<String> parts = new ArrayList<>();
+        if (text.length() <= SmsEncoder.GSM7_SINGLE) {
+            parts.add(text);
+            return parts;
+        }
+        for (int start = 0; start < text.length(); start += SmsEncoder.GSM7_MULTIPART) {
+            parts.add(text.substring(start, Math.min(text.length(), start + SmsEncoder.GSM7_MULTIPART)));
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,122 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Segment counts as the radio splits them, and the GSM-7 rewrite policies
+ */
+public class SmsEncoderTest {
+    private static final String EMOJI = "😊"; // one code point, two UTF-16 units
+
+    @Test
+    public void countsGsm7SegmentBoundaries() {
+        assertSegments(SmsEncoder.Encoding.GSM_7, 160, 1, SmsEncoder.count(repeat("a", 160)));
+        assertSegments(SmsEncoder.Encoding.GSM_7, 161, 2, SmsEncoder.count(repeat("a", 161)));
+        assertSegments(SmsEncoder.Encoding.GSM_7, 306, 2, SmsEncoder.count(repeat("a", 306)));
+        assertSegments(SmsEncoder.Encoding.GSM_7, 307, 3, SmsEncoder.count(repeat("a", 307)));
+    }
+
+    @Test
+    public void countsBasicTableAccentsAsOneSeptet() {
+        assertSegments(SmsEncoder.Encoding.GSM_7, 10, 1, SmsEncoder.count("perché è@£"));
+    }
+
+    @Test
+    public void countsExtensionCharsAsTwoSeptets() {
+        for (char c : "\f^{}\\[~]|€".toCharArray()) {
+            assertEquals(String.valueOf(c), 2, SmsEncoder.septets(c));
+        }
+        assertSegments(SmsEncoder.Encoding.GSM_7, 160, 1, SmsEncoder.count(repeat("€", 80)));
+        assertSegments(SmsEncoder.Encoding.GSM_7, 162, 2, SmsEncoder.count(repeat("€", 81)));
+        // 76 pairs fill 152 septets, the 77th starts the second segment
+        assertSegments(SmsEncoder.Encoding.GSM_7, 162, 2, SmsEncoder.count(repeat("[", 80) + "ab"));
+    }
+
+    @Test
+    public void neverSplitsAnEscapePair() {
+        // 306 septets would fill two segments, but the € can't straddle the first boundary
+        String text = repeat("a", 152) + "€" + repeat("a", 152);
+        assertSegments(SmsEncoder.Encoding.GSM_7, 306, 3, SmsEncoder.count(text));
+    }
+
+    @Test
+    public void fallsBackToUcs2() {
+        assertSegments(SmsEncoder.Encoding.UCS_2, 70, 1, SmsEncoder.count("È" + repeat("a", 69)));
+        assertSegments(SmsEncoder.Encoding.UCS_2, 71, 2, SmsEncoder.count("È" + repeat("a", 70)));
+        assertSegments(SmsEncoder.Encoding.UCS_2, 134, 2, SmsEncoder.count("È" + repeat("a", 133)));
+        assertSegments(SmsEncoder.Encoding.UCS_2, 135, 3, SmsEncoder.count("È" + repeat("a", 134)));
+    }
+
+    @Test
+    public void neverSplitsASurrogatePair() {
+        String text = repeat("a", 66) + EMOJI + repeat("a", 66);
+        assertSegments(SmsEncoder.Encoding.UCS_2, 134, 3, SmsEncoder.count(text));
+    }
+
+    @Test
+    public void transliteratesTypography() {
+        assertEquals("E' l'appuntamento \"domani\" - ore 10...",
+                SmsEncoder.transliterate("È l’appuntamento “domani” – ore 10…", false));
+        assertEquals("Citta perche ò",
+                SmsEncoder.transliterate("Citt\u00e2 perch\u00ea\u200B\u00A0\u00f3", false));
+        // No look-alike: kept unless dropped
+        assertEquals("Ciao " + EMOJI + " a presto", SmsEncoder.transliterate("Ciao " + EMOJI + " a presto", false));
+        assertEquals("Ciao a presto", SmsEncoder.transliterate("Ciao " + EMOJI + " a presto", true));
+    }
+
+    @Test
+    public void rewritesWhenItSavesSegments() {
+        String template = "Gentile cliente, le ricordiamo l’appuntamento di domani alle 10:30. "
+                + "È pregato di arrivare con 10 minuti di anticipo. Grazie";
+        SmsEncoder.Encoded encoded = SmsEncoder.encode(template, SmsEncoder.Policy.TYPOGRAPHIC);
+
+        assertEquals(SmsEncoder.Encoding.GSM_7, encoded.segments.encoding);
+        assertEquals(1, encoded.segments.count);
+        assertEquals(2, encoded.originalSegments);
+        assertEquals(1, encoded.getSegmentsSaved());
+        assertEquals(template.replace("’", "'").replace("È", "E'"), encoded.text);
+    }
+
+    @Test
+    public void keepsTheOriginalOtherwise() {
+        String shortText = "È confermato";
+        assertSame(shortText, SmsEncoder.encode(shortText, SmsEncoder.Policy.TYPOGRAPHIC).text);
+
+        String longText = "È confermato l’appuntamento di domani alle 10:30, a presto dallo studio";
+        assertSame(longText, SmsEncoder.encode(longText, SmsEncoder.Policy.NONE).text);
+        assertEquals(2, SmsEncoder.encode(longText, SmsEncoder.Policy.NONE).segments.count);
+
+        // The emoji keeps it UCS-2 unless the policy drops it
+        String withEmoji = longText + " " + EMOJI;
+        assertSame(withEmoji, SmsEncoder.encode(withEmoji, SmsEncoder.Policy.TYPOGRAPHIC).text);
+        SmsEncoder.Encoded strict = SmsEncoder.encode(withEmoji, SmsEncoder.Policy.STRICT);
+        assertEquals(SmsEncoder.Encoding.GSM_7, strict.segments.encoding);
+        assertEquals(1, strict.segments.count);
+    }
+
+    @Test
+    public void parsesPolicyKeys() {
+        assertEquals(SmsEncoder.Policy.STRICT, SmsEncoder.Policy.fromKey("strict", SmsEncoder.Policy.NONE));
+        assertEquals(SmsEncoder.Policy.TYPOGRAPHIC,
+                SmsEncoder.Policy.fromKey("unknown", SmsEncoder.Policy.TYPOGRAPHIC));
+        assertEquals(SmsEncoder.Policy.NONE, SmsEncoder.Policy.fromKey(null, SmsEncoder.Policy.NONE));
+    }
+
+    private static void assertSegments(SmsEncoder.Encoding encoding, int units, int count,
+                                       SmsEncoder.Segments segments) {
+        assertEquals(encoding, segments.encoding);
+        assertEquals(units, segments.units);
+        assertEquals(count, segments.count);
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder out = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            out.append(text);
+        }
+        return out.toString();
+    }
+}
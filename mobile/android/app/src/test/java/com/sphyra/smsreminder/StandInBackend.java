@@ -0,0 +1,214 @@
+package com.sphyra.smsreminder;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Stand-in for server/src/routes/mobileReminders.ts on a MockWebServer
+ * Same rules as the real routes: POST /claim leases what is pending and not
+ * leased, a sent ack removes the reminder, a failed ack keeps it pending with
+ * its lease; GET /pending pages by id for backends without leases
+ *
+ * Reminders are compact (CompactReminderDecoder) when the request's Accept asks
+ * for them, like the real routes. Every response waits latencyMs before its
+ * headers; errorRate of the requests get a 503 instead
+ */
+class StandInBackend extends Dispatcher {
+    private static final String BASE = "/api/reminders/mobile";
+
+    // Typical reminder text: one GSM-7 segment, the id at the end for the carrier
+    static final String MESSAGE_PREFIX = "Gentile cliente, le ricordiamo l'appuntamento di domani alle 10:30 "
+            + "presso Sphyra Wellness Lab. Rif. ";
+
+    // Appointment id to phone
+    private final TreeMap<String, String> pending = new TreeMap<>();
+    private final Map<String, Long> leaseExpiries = new HashMap<>();
+    private final boolean leases;
+    private final long latencyMs;
+    private final double errorRate;
+    private final Random random;
+
+    /** System.nanoTime() the reminder was first handed to the phone */
+    final Map<String, Long> servedAt = new ConcurrentHashMap<>();
+    /** Reminders whose result reached the backend (sent or failed) */
+    final Set<String> settled = ConcurrentHashMap.newKeySet();
+    final Map<String, Integer> requests = new ConcurrentHashMap<>();
+    final AtomicInteger sentAcks = new AtomicInteger();
+    final AtomicInteger failedAcks = new AtomicInteger();
+    final AtomicInteger injectedErrors = new AtomicInteger();
+
+    /**
+     * @param prefix appointment id prefix, unique per scenario (the SMS ledger outlives a scenario)
+     * @param leases false to answer 404 on /claim, like a backend from before leases
+     */
+    StandInBackend(String prefix, int backlog, boolean leases, long latencyMs, double errorRate, long seed) {
+        this.leases = leases;
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        this.random = new Random(seed);
+        for (int i = 0; i < backlog; i++) {
+            String id = String.format("%s-%05d", prefix, i);
+            pending.put(id, String.format("+39333%07d", i));
+        }
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        String path = request.getPath();
+        String route = path.contains("?") ? path.substring(0, path.indexOf('?')) : path;
+        requests.merge(route, 1, Integer::sum);
+
+        String accept = request.getHeader("Accept");
+        boolean compact = accept != null && accept.contains(CompactReminderDecoder.MEDIA_TYPE);
+
+        MockResponse response;
+        try {
+            if (injectError()) {
+                injectedErrors.incrementAndGet();
+                response = new MockResponse().setResponseCode(503);
+            } else if (route.equals(BASE + "/claim")) {
+                response = claim(new JSONObject(request.getBody().readUtf8()), compact);
+            } else if (route.equals(BASE + "/pending")) {
+                response = page(request.getRequestUrl().queryParameter("cursor"),
+                        Integer.parseInt(request.getRequestUrl().queryParameter("limit")), compact);
+            } else if (route.equals(BASE + "/ack-batch")) {
+                response = ackBatch(new JSONObject(request.getBody().readUtf8()).getJSONArray("acks"));
+            } else if (route.equals(BASE + "/release")) {
+                response = release(new JSONObject(request.getBody().readUtf8()).getJSONArray("appointmentIds"));
+            } else {
+                // Includes /upcoming: no prefetch, every reminder goes through the sync
+                response = new MockResponse().setResponseCode(404);
+            }
+        } catch (JSONException | RuntimeException e) {
+            response = new MockResponse().setResponseCode(400).setBody("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+        return response.setHeadersDelay(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private synchronized boolean injectError() {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    private synchronized MockResponse claim(JSONObject body, boolean compact) {
+        if (!leases) {
+            return new MockResponse().setResponseCode(404);
+        }
+        int limit = body.optInt("limit", LeaseClaimer.DEFAULT_BATCH_SIZE);
+        long leaseMs = TimeUnit.SECONDS.toMillis(body.optInt("leaseSeconds", LeaseClaimer.DEFAULT_LEASE_SECONDS));
+        long now = System.currentTimeMillis();
+
+        List<String> batch = new ArrayList<>();
+        for (Map.Entry<String, String> entry : pending.entrySet()) {
+            Long expiresAt = leaseExpiries.get(entry.getKey());
+            if (expiresAt != null && expiresAt > now) {
+                continue;
+            }
+            leaseExpiries.put(entry.getKey(), now + leaseMs);
+            serve(entry.getKey());
+            batch.add(reminderJson(entry.getKey(), entry.getValue(), compact));
+            if (batch.size() == limit) {
+                break;
+            }
+        }
+        int remaining = 0;
+        for (String id : pending.keySet()) {
+            Long expiresAt = leaseExpiries.get(id);
+            if (expiresAt == null || expiresAt <= now) {
+                remaining++;
+            }
+        }
+        return json("{\"reminders\":[" + String.join(",", batch) + "],\"leaseExpiresAt\":\""
+                + Instant.ofEpochMilli(now + leaseMs) + "\",\"hasMore\":" + (batch.size() == limit)
+                + ",\"remaining\":" + remaining + "}", compact);
+    }
+
+    private synchronized MockResponse page(String cursor, int limit, boolean compact) {
+        Map<String, String> rest = cursor != null ? pending.tailMap(cursor, false) : pending;
+        List<String> page = new ArrayList<>();
+        String last = null;
+        for (Map.Entry<String, String> entry : rest.entrySet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            serve(entry.getKey());
+            page.add(reminderJson(entry.getKey(), entry.getValue(), compact));
+            last = entry.getKey();
+        }
+        boolean more = last != null && pending.higherKey(last) != null;
+        return json("{\"reminders\":[" + String.join(",", page) + "],\"nextCursor\":"
+                + (more ? "\"" + last + "\"" : "null") + ",\"deltaCursor\":null}", compact);
+    }
+
+    private synchronized MockResponse ackBatch(JSONArray acks) throws JSONException {
+        JSONArray results = new JSONArray();
+        for (int i = 0; i < acks.length(); i++) {
+            JSONObject ack = acks.getJSONObject(i);
+            String id = ack.getString("appointmentId");
+            if ("sent".equals(ack.getString("status"))) {
+                pending.remove(id);
+                leaseExpiries.remove(id);
+                sentAcks.incrementAndGet();
+                results.put(new JSONObject().put("appointmentId", id).put("status", "sent"));
+            } else {
+                failedAcks.incrementAndGet();
+                results.put(new JSONObject().put("appointmentId", id).put("status", "failed_recorded"));
+            }
+            settled.add(id);
+        }
+        return json(new JSONObject().put("success", true).put("results", results).toString(), false);
+    }
+
+    private synchronized MockResponse release(JSONArray ids) throws JSONException {
+        for (int i = 0; i < ids.length(); i++) {
+            leaseExpiries.remove(ids.getString(i));
+        }
+        return json("{\"success\":true}", false);
+    }
+
+    private void serve(String id) {
+        servedAt.putIfAbsent(id, System.nanoTime());
+    }
+
+    private static MockResponse json(String body, boolean compact) {
+        return new MockResponse()
+                .setHeader("Content-Type", compact ? CompactReminderDecoder.MEDIA_TYPE : "application/json")
+                .setBody(body);
+    }
+
+    /**
+     * Same shapes as toCompactReminder and toMobileReminder: in the full one the
+     * fields the phone skips are there too
+     */
+    private static String reminderJson(String id, String phone, boolean compact) {
+        if (compact) {
+            return "{\"id\":\"" + id + "\",\"phone\":\"" + phone + "\",\"message\":\"" + MESSAGE_PREFIX + id
+                    + "\",\"consent\":true,\"at\":\"2026-10-17T08:30:00.000Z\"}";
+        }
+        return "{\"appointment\":{\"id\":\"" + id + "\",\"date\":\"2026-10-17T00:00:00.000Z\","
+                + "\"startTime\":\"10:30\",\"customer\":{\"firstName\":\"Giulia\",\"lastName\":\"Rossi\","
+                + "\"phone\":\"" + phone + "\",\"smsReminderConsent\":true},"
+                + "\"service\":{\"name\":\"Massaggio decontratturante\"},\"staff\":{\"firstName\":\"Marta\"}},"
+                + "\"message\":\"" + MESSAGE_PREFIX + id + "\"}";
+    }
+}
@@ -0,0 +1,285 @@
+package com.sphyra.smsreminder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.Manifest;
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.Configuration;
+import androidx.work.testing.SynchronousExecutor;
+import androidx.work.testing.TestWorkerBuilder;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * End-to-end sync throughput: ReminderSyncWorker against StandInBackend (a
+ * MockWebServer speaking the mobileReminders.ts routes) and a simulated carrier
+ * behind SmsManager (ShadowCarrierSmsManager); everything in between - HTTP
+ * client, decoder, lease claims, SIM lanes and governors, SENT receiver, ack
+ * outbox - is the production code
+ *
+ * Off by default (minutes for the large backlogs). Run with
+ *     ./gradlew :app:testDebugUnitTest --tests '*SyncThroughputBenchmark' -Psphyra.benchmark=true
+ * Knobs (-Psphyra.benchmark.X=...): backlogs, modes (claim, paged), latencyMs,
+ * radioLatencyMs, smsFailureRate, httpErrorRate, carrierRate (SMS/s, 0 = no
+ * limit), initialRate and maxRate (governor, SMS/s), seed, report (output file)
+ *
+ * The governor runs at benchmark rates unless initialRate/maxRate say otherwise
+ * (1 and 4 are the production defaults): the point is the pipeline, not the pacing
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33, application = Application.class, shadows = ShadowCarrierSmsManager.class)
+@LooperMode(LooperMode.Mode.INSTRUMENTATION_TEST)
+public class SyncThroughputBenchmark {
+    private static final String PROPERTY_PREFIX = "sphyra.benchmark.";
+
+    // Worker runs per scenario (a retried run starts again right away, without WorkManager's backoff)
+    private static final int MAX_RUNS = 200;
+
+    private Context context;
+
+    /**
+     * One backlog size under one set of conditions
+     */
+    private static final class Scenario {
+        final String name;
+        final int backlog;
+        final boolean leases;
+        final long latencyMs = longProperty("latencyMs", 50);
+        final long radioLatencyMs = longProperty("radioLatencyMs", 20);
+        final double smsFailureRate = doubleProperty("smsFailureRate", 0);
+        final double httpErrorRate = doubleProperty("httpErrorRate", 0);
+        final int carrierRate = (int) longProperty("carrierRate", 0);
+        final double initialRate = doubleProperty("initialRate", 50);
+        final double maxRate = doubleProperty("maxRate", 100);
+        final long seed = longProperty("seed", 42);
+
+        Scenario(String mode, int backlog) {
+            this.name = mode + "-" + backlog;
+            this.backlog = backlog;
+            this.leases = "claim".equals(mode);
+        }
+
+        JSONObject toJson() throws Exception {
+            return new JSONObject()
+                    .put("backlog", backlog)
+                    .put("mode", leases ? "claim" : "paged")
+                    .put("latencyMs", latencyMs)
+                    .put("radioLatencyMs", radioLatencyMs)
+                    .put("smsFailureRate", smsFailureRate)
+                    .put("httpErrorRate", httpErrorRate)
+                    .put("carrierRate", carrierRate)
+                    .put("initialRate", initialRate)
+                    .put("maxRate", maxRate)
+                    .put("seed", seed);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Benchmark disabled, run with -Psphyra.benchmark=true", Boolean.getBoolean("sphyra.benchmark"));
+
+        context = ApplicationProvider.getApplicationContext();
+        Shadows.shadowOf((Application) context).grantPermissions(Manifest.permission.SEND_SMS);
+        // AckFlushWorker and the scheduler enqueue work; nothing runs it (constraints never met)
+        WorkManagerTestInitHelper.initializeTestWorkManager(context, new Configuration.Builder()
+                .setExecutor(new SynchronousExecutor())
+                .setMinimumLoggingLevel(Log.ERROR)
+                .build());
+        // No quiet hours, whatever time the benchmark runs at
+        SyncScheduler.configure(context, new JSONObject().put("quietHoursStart", 0).put("quietHoursEnd", 0));
+    }
+
+    @Test
+    public void measureSyncThroughput() throws Exception {
+        JSONArray results = new JSONArray();
+        for (String mode : System.getProperty(PROPERTY_PREFIX + "modes", "claim,paged").split(",")) {
+            for (String backlog : System.getProperty(PROPERTY_PREFIX + "backlogs", "10,100,1000,10000").split(",")) {
+                JSONObject result = run(new Scenario(mode.trim(), Integer.parseInt(backlog.trim())));
+                System.out.println("📊 " + result);
+                results.put(result);
+            }
+        }
+
+        JSONObject report = new JSONObject()
+                .put("generatedAt", Instant.now().toString())
+                .put("java", System.getProperty("java.version"))
+                .put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"))
+                .put("cpus", Runtime.getRuntime().availableProcessors())
+                .put("maxHeapBytes", Runtime.getRuntime().maxMemory())
+                .put("scenarios", results);
+        File file = new File(System.getProperty(PROPERTY_PREFIX + "report", "build/reports/sync-benchmark.json"));
+        File parent = file.getAbsoluteFile().getParentFile();
+        assertTrue("Cannot create " + parent, parent.isDirectory() || parent.mkdirs());
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(report.toString(2));
+        }
+        System.out.println("📄 Sync benchmark report: " + file.getAbsolutePath());
+    }
+
+    private JSONObject run(Scenario scenario) throws Exception {
+        StandInBackend backend = new StandInBackend(scenario.name, scenario.backlog, scenario.leases,
+                scenario.latencyMs, scenario.httpErrorRate, scenario.seed);
+        ShadowCarrierSmsManager.Carrier carrier = new ShadowCarrierSmsManager.Carrier(context,
+                scenario.radioLatencyMs, scenario.smsFailureRate, scenario.carrierRate, scenario.seed);
+        ShadowCarrierSmsManager.carrier = carrier;
+        SmsDispatcher.getInstance(context).resetLanes(() -> new SendRateGovernor(scenario.initialRate,
+                SendRateGovernor.DEFAULT_MIN_RATE, scenario.maxRate, SendRateGovernor.DEFAULT_BURST, System::nanoTime));
+
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(backend);
+        server.start();
+        ExecutorService workerExecutor = Executors.newSingleThreadExecutor();
+        try {
+            SyncSettings.store(context).edit()
+                    .putString(SyncSettings.KEY_API_URL, server.url("/api").toString())
+                    .putString(SyncSettings.KEY_TOKEN, "benchmark")
+                    .commit();
+
+            long baselineHeap = resetHeapPeak();
+            long startedAt = System.nanoTime();
+            int runs = 0;
+            while (backend.settled.size() < scenario.backlog && runs < MAX_RUNS) {
+                TestWorkerBuilder.from(context, ReminderSyncWorker.class, workerExecutor)
+                        .setRunAttemptCount(runs)
+                        .build()
+                        .doWork();
+                runs++;
+            }
+            long elapsedNanos = System.nanoTime() - startedAt;
+            long peakHeap = heapPeak();
+
+            // Never acceptable, whatever the conditions: the same reminder sent twice
+            for (Map.Entry<String, Integer> sends : carrier.sends.entrySet()) {
+                assertEquals("Duplicate SMS for " + sends.getKey(), 1, (int) sends.getValue());
+            }
+
+            List<Long> latencies = new ArrayList<>();
+            long firstSentAt = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> sent : carrier.sentAt.entrySet()) {
+                firstSentAt = Math.min(firstSentAt, sent.getValue());
+                Long servedAt = backend.servedAt.get(sent.getKey());
+                if (servedAt != null) {
+                    latencies.add(TimeUnit.NANOSECONDS.toMillis(sent.getValue() - servedAt));
+                }
+            }
+            Collections.sort(latencies);
+
+            int sent = carrier.sentAt.size();
+            double elapsedSeconds = elapsedNanos / 1e9;
+            JSONObject requests = new JSONObject();
+            for (Map.Entry<String, Integer> route : backend.requests.entrySet()) {
+                requests.put(route.getKey(), route.getValue());
+            }
+            return new JSONObject()
+                    .put("scenario", scenario.toJson())
+                    .put("complete", backend.settled.size() == scenario.backlog)
+                    .put("workerRuns", runs)
+                    .put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                    .put("sent", sent)
+                    .put("failedAcks", backend.failedAcks.get())
+                    .put("leftPending", backend.pendingCount())
+                    .put("throughputPerMinute", elapsedSeconds > 0 ? Math.round(sent * 60 / elapsedSeconds) : 0)
+                    .put("timeToFirstSendMs", sent > 0 ? TimeUnit.NANOSECONDS.toMillis(firstSentAt - startedAt) : -1)
+                    .put("latencyP50Ms", percentile(latencies, 50))
+                    .put("latencyP99Ms", percentile(latencies, 99))
+                    .put("latencyMaxMs", latencies.isEmpty() ? -1 : latencies.get(latencies.size() - 1))
+                    .put("httpRequests", server.getRequestCount())
+                    .put("httpRequestsByRoute", requests)
+                    .put("httpErrorsInjected", backend.injectedErrors.get())
+                    .put("smsAttempts", carrier.submitted.get())
+                    .put("carrierThrottled", carrier.throttled.get())
+                    .put("carrierFailed", carrier.failed.get())
+                    .put("finalRatePerSecond", SmsDispatcher.getInstance(context).getRatePerSecond())
+                    .put("baselineHeapBytes", baselineHeap)
+                    .put("peakHeapBytes", peakHeap);
+        } finally {
+            workerExecutor.shutdownNow();
+            carrier.shutdown();
+            server.shutdown();
+        }
+    }
+
+    /**
+     * Nearest-rank percentile, -1 when there are no samples
+     */
+    private static long percentile(List<Long> sorted, int percent) {
+        if (sorted.isEmpty()) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    /**
+     * Collect what the previous scenario left and restart the peak counters
+     * @return heap in use after the collection
+     */
+    private static long resetHeapPeak() {
+        System.gc();
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Sum of the heap pools' peaks since resetHeapPeak (an upper bound of the real peak)
+     */
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        String value = System.getProperty(PROPERTY_PREFIX + name);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(PROPERTY_PREFIX + name);
+        return value != null ? Double.parseDouble(value.trim()) : defaultValue;
+    }
+}
@@ -0,0 +1,42 @@
+package com.sphyra.smsreminder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Recording cost of the sync metrics (one sample per SMS, page and queue take)
+ * and the percentile read done by getSyncMetrics
+ */
+@State(Scope.Thread)
+public class LogHistogramBenchmark {
+    private final long[] samples = new long[1024];
+    private LogHistogram histogram;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Log-normal latencies around 1 s
+        Random random = new Random(42);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (long) Math.exp(7 + random.nextGaussian());
+        }
+        histogram = new LogHistogram();
+        for (long sample : samples) {
+            histogram.record(sample);
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(samples[next++ & (samples.length - 1)]);
+    }
+
+    @Benchmark
+    public long p99() {
+        return histogram.getValueAtQuantile(0.99);
+    }
+}
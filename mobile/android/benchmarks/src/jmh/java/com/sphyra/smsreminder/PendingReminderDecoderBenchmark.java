@@ -0,0 +1,79 @@
+package com.sphyra.smsreminder;
+
+import android.util.JsonReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import okio.Buffer;
+
+/**
+ * Decoding of one GET /pending page, with the same payload shape the backend sends
+ * (service, staff and names included, so skipping them is part of the cost), and
+ * of the same page in the compact format (CompactReminderDecoder)
+ */
+@State(Scope.Benchmark)
+public class PendingReminderDecoderBenchmark {
+
+    // ReminderSyncPipeline.PAGE_SIZE and the server maximum
+    @Param({"100", "200"})
+    public int reminders;
+
+    private String page;
+    private byte[] compactPage;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < reminders; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"appointment\":{\"id\":\"apt-").append(i).append('"')
+                    .append(",\"date\":\"2026-03-11T00:00:00.000Z\",\"startTime\":\"10:30\",\"endTime\":\"11:30\"")
+                    .append(",\"customer\":{\"id\":\"cust-").append(i).append('"')
+                    .append(",\"firstName\":\"Maria\",\"lastName\":\"Rossi\",\"phone\":\"+39 333 123 ")
+                    .append(String.format("%04d", i)).append('"')
+                    .append(",\"email\":null,\"smsReminderConsent\":true}")
+                    .append(",\"service\":{\"id\":\"srv-1\",\"name\":\"Massaggio rilassante\",\"duration\":60}")
+                    .append(",\"staff\":{\"id\":\"staff-1\",\"firstName\":\"Giulia\",\"lastName\":\"Bianchi\"}}")
+                    .append(",\"message\":\"Ciao Maria! Ti ricordiamo il tuo appuntamento di domani alle 10:30")
+                    .append(" per Massaggio rilassante. Sphyra Wellness\"}");
+        }
+        page = json.append(']').toString();
+
+        StringBuilder compact = new StringBuilder("[");
+        for (int i = 0; i < reminders; i++) {
+            if (i > 0) {
+                compact.append(',');
+            }
+            compact.append("{\"id\":\"apt-").append(i).append('"')
+                    .append(",\"phone\":\"+39 333 123 ").append(String.format("%04d", i)).append('"')
+                    .append(",\"message\":\"Ciao Maria! Ti ricordiamo il tuo appuntamento di domani alle 10:30")
+                    .append(" per Massaggio rilassante. Sphyra Wellness\"")
+                    .append(",\"consent\":true,\"at\":\"2026-03-11T09:30:00.000Z\"}");
+        }
+        compactPage = compact.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void decodePage(Blackhole blackhole) throws IOException, InterruptedException {
+        try (JsonReader reader = new JsonReader(new StringReader(page))) {
+            PendingReminderDecoder.readArray(reader, blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void decodeCompactPage(Blackhole blackhole) throws IOException, InterruptedException {
+        // The copy into the Buffer stands in for OkHttp filling it from the socket
+        CompactReminderDecoder.read(new Buffer().write(compactPage), blackhole::consume);
+    }
+}
@@ -0,0 +1,21 @@
+package com.sphyra.smsreminder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Phone normalization, done once per reminder before sending
+ */
+@State(Scope.Benchmark)
+public class PhoneNumberNormalizerBenchmark {
+
+    @Param({"3331234567", "+39 333 123 4567", "(333) 123-4567"})
+    public String phone;
+
+    @Benchmark
+    public String normalize() {
+        return PhoneNumberNormalizer.normalize(phone);
+    }
+}
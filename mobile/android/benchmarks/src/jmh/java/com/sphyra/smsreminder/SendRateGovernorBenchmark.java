@@ -0,0 +1,37 @@
+package com.sphyra.smsreminder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the rate limiter bookkeeping around each SMS
+ * Uses a fake clock that advances 1 s per call, so reserve() never has to wait
+ */
+@State(Scope.Thread)
+public class SendRateGovernorBenchmark {
+    private long clock;
+    private SendRateGovernor governor;
+
+    @Setup
+    public void setUp() {
+        governor = new SendRateGovernor(SendRateGovernor.DEFAULT_INITIAL_RATE,
+                SendRateGovernor.DEFAULT_MIN_RATE, SendRateGovernor.DEFAULT_MAX_RATE,
+                SendRateGovernor.DEFAULT_BURST, () -> clock += 1_000_000_000L);
+    }
+
+    @Benchmark
+    public long reserveAndSucceed() {
+        long wait = governor.reserve();
+        governor.onSuccess();
+        return wait;
+    }
+
+    @Benchmark
+    public long reserveAndThrottle() {
+        long wait = governor.reserve();
+        governor.onThrottled();
+        return wait;
+    }
+}
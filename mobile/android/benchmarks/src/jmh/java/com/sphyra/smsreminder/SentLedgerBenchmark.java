@@ -0,0 +1,42 @@
+package com.sphyra.smsreminder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Duplicate check done before every send, on a ledger holding two days of reminders
+ */
+@State(Scope.Thread)
+public class SentLedgerBenchmark {
+    private static final String TEXT = "Gentile cliente, le ricordiamo l'appuntamento di domani alle 10:30 "
+            + "presso Sphyra Wellness. Per disdire risponda a questo messaggio.";
+
+    @Param({"200", "5000"})
+    public int entries;
+
+    private final String[] ids = new String[1024];
+    private SentLedger ledger;
+    private long now;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        now = System.currentTimeMillis();
+        ledger = new SentLedger();
+        for (int i = 0; i < entries; i++) {
+            ledger.record("apt-" + i, TEXT, now - i * 1000L);
+        }
+        // Half hits, half misses
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = "apt-" + (i % 2 == 0 ? i % entries : entries + i);
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return ledger.contains(ids[next++ & (ids.length - 1)], TEXT, now);
+    }
+}
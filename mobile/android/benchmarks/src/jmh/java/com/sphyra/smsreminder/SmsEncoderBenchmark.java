@@ -0,0 +1,33 @@
+package com.sphyra.smsreminder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Segment count and GSM-7 rewrite done once per SMS before dispatch
+ */
+@State(Scope.Thread)
+public class SmsEncoderBenchmark {
+    // Already GSM-7: the common case, counted and sent as it is
+    private final String plain = "Gentile Maria, le ricordiamo l'appuntamento di domani 12/03 alle 10:30 "
+            + "presso Sphyra Wellness Lab. Per disdire risponda a questo messaggio.";
+    // Curly quote and "È" push it to UCS-2 (3 segments) until rewritten
+    private final String typographic = "Gentile Maria, le ricordiamo l’appuntamento di domani 12/03 alle 10:30 "
+            + "presso Sphyra Wellness Lab. È gradita la puntualità. Per disdire risponda a questo messaggio.";
+
+    @Benchmark
+    public SmsEncoder.Segments countPlain() {
+        return SmsEncoder.count(plain);
+    }
+
+    @Benchmark
+    public SmsEncoder.Encoded encodePlain() {
+        return SmsEncoder.encode(plain, SmsEncoder.Policy.TYPOGRAPHIC);
+    }
+
+    @Benchmark
+    public SmsEncoder.Encoded encodeTypographic() {
+        return SmsEncoder.encode(typographic, SmsEncoder.Policy.TYPOGRAPHIC);
+    }
+}
@@ -0,0 +1,47 @@
+package com.sphyra.smsreminder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Quiet hours check and next-run calculation (run on every schedule and boot)
+ */
+@State(Scope.Benchmark)
+public class SyncPolicyBenchmark {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Rome");
+
+    // Daytime (no deferral) vs an evening run that gets pushed past quiet hours
+    @Param({"10", "19"})
+    public int hour;
+
+    private SyncPolicy policy;
+    private Instant now;
+    private BatterySnapshot battery;
+    private long lastReminderFoundAt;
+
+    @Setup
+    public void setUp() {
+        policy = new SyncPolicy.Builder().setZone(ZONE).build();
+        now = ZonedDateTime.of(2026, 3, 10, hour, 30, 0, 0, ZONE).toInstant();
+        battery = new BatterySnapshot(0.15f, false, false, false, false,
+                Integer.MIN_VALUE, Integer.MIN_VALUE, now.toEpochMilli());
+        lastReminderFoundAt = now.minusSeconds(24 * 3600).toEpochMilli();
+    }
+
+    @Benchmark
+    public boolean isQuietHours() {
+        return policy.isQuietHours(now);
+    }
+
+    @Benchmark
+    public SyncPolicy.Decision nextRun() {
+        return policy.nextRun(now, battery, lastReminderFoundAt);
+    }
+}
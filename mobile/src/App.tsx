@@ -8,7 +8,6 @@ import {
   StyleSheet,
   View,
   ActivityIndicator,
-  Linking,
 } from 'react-native';
 import { LoginScreen } from './screens/LoginScreen';
 import { DashboardScreen } from './screens/DashboardScreen';
@@ -17,6 +16,7 @@ import { LogViewerScreen } from './screens/LogViewerScreen';
 import authService from './services/authService';
 import apiClient from './services/apiClient';
 import backgroundServiceManager from './services/backgroundService';
+import workManagerService from './services/workManagerService';
 import { Storage } from './utils/storage';
 import { STORAGE_KEYS } from './config/api';
 import type { User } from './types';
@@ -63,21 +63,22 @@ const App: React.FC = () => {
   };
 
   /**
-   * Check if app was launched by BootReceiver to auto-start background service
+   * Make sure the background sync is scheduled when auto-sync is enabled
+   * (after a reboot the sync schedule is already re-armed natively by BootReceiver)
    */
   const checkAutoStartService = async () => {
     try {
-      // Check if launched from boot with auto-start intent
-      const initialUrl = await Linking.getInitialURL();
+      // The old JS loop kept a notification up all the time; WorkManager replaces it
+      await backgroundServiceManager.shutdownLegacy();
 
-      // Also check if auto-sync was enabled before potential reboot
+      // Check if auto-sync was enabled
       const autoSyncEnabled = await Storage.get<boolean>(STORAGE_KEYS.AUTO_SYNC_ENABLED);
 
       if (autoSyncEnabled) {
         console.log('Auto-sync was enabled - checking if service is running');
 
         // Check if service is already running
-        const isRunning = await backgroundServiceManager.isServiceRunning();
+        const isRunning = await workManagerService.isServiceRunning();
 
         if (!isRunning) {
           console.log('Service not running - attempting to restart');
@@ -87,7 +88,7 @@ const App: React.FC = () => {
             const isAuth = await authService.isAuthenticated();
             if (isAuth) {
               try {
-                await backgroundServiceManager.start();
+                await workManagerService.start();
                 console.log('Background service auto-started successfully after boot');
               } catch (error) {
                 console.error('Failed to auto-start background service:', error);
@@ -36,6 +36,9 @@ export const BATTERY_OPTIMIZATION = {
   NO_REMINDERS_THRESHOLD_HOURS: 12, // Hours without reminders before increasing interval (was 24)
   MAX_ADAPTIVE_INTERVAL: 240, // Maximum interval in minutes (4 hours)
   MIN_ADAPTIVE_INTERVAL: 15, // Minimum interval (WorkManager constraint)
+
+  // Battery sampling while a sync is measured (native EnergyMeter, 100 - 10000 ms)
+  ENERGY_SAMPLE_INTERVAL_MS: 1000,
 };
 
 // Storage keys
@@ -47,8 +50,12 @@ export const STORAGE_KEYS = {
   AUTO_SYNC_ENABLED: '@sphyra:autoSyncEnabled',
   SYNC_INTERVAL: '@sphyra:syncInterval',
   LAST_REMINDER_FOUND: '@sphyra:lastReminderFound', // Track when we last found reminders
+  SMS_ENCODING: '@sphyra:smsEncoding', // GSM-7 transliteration policy of native dispatch
 };
 
+// Accept type for compact reminders on /pending, /claim and /upcoming (CompactPendingReminder)
+export const COMPACT_REMINDERS_MEDIA_TYPE = 'application/vnd.sphyra.reminders.compact+json';
+
 // API endpoints
 export const ENDPOINTS = {
   LOGIN: '/auth/login',
@@ -56,4 +63,7 @@ export const ENDPOINTS = {
   PENDING_REMINDERS: '/reminders/mobile/pending',
   MARK_SENT: '/reminders/mobile/mark-sent',
   MARK_FAILED: '/reminders/mobile/mark-failed',
+  ACK_BATCH: '/reminders/mobile/ack-batch', // Used by the native ack outbox
+  CLAIM: '/reminders/mobile/claim', // Used by the native sync worker
+  RELEASE: '/reminders/mobile/release',
 };
@@ -17,6 +17,7 @@ import reminderService from '@/services/reminderService';
 import smsService from '@/services/smsService';
 import workManagerService from '@/services/workManagerService';
 import type { User, PendingReminder } from '@/types';
+import type { WorkProgress } from '@/specs/NativeWorkManager';
 
 interface DashboardScreenProps {
   user: User;
@@ -36,11 +37,25 @@ export const DashboardScreen: React.FC<DashboardScreenProps> = ({
   const [syncing, setSyncing] = useState(false);
   const [lastSync, setLastSync] = useState<Date | null>(null);
   const [autoSyncEnabled, setAutoSyncEnabled] = useState(false);
+  const [workProgress, setWorkProgress] = useState<WorkProgress | null>(null);
 
   useEffect(() => {
     loadInitialData();
   }, []);
 
+  // Background sync pushed by native code: live progress, new last sync when a run ends
+  useEffect(() => {
+    let lastResultAt = 0;
+    const subscription = workManagerService.onWorkStatus(async (status) => {
+      setWorkProgress(status.progress ?? null);
+      if (status.lastResult && status.lastResult.timestamp !== lastResultAt) {
+        lastResultAt = status.lastResult.timestamp;
+        setLastSync(await reminderService.getLastSync());
+      }
+    });
+    return () => subscription?.remove();
+  }, []);
+
   const loadInitialData = async () => {
     try {
       // Check SMS permission
@@ -63,9 +78,9 @@ export const DashboardScreen: React.FC<DashboardScreenProps> = ({
       const lastSyncTime = await reminderService.getLastSync();
       setLastSync(lastSyncTime);
 
-      // Check if auto-sync is enabled (WorkManager)
-      const isRunning = await workManagerService.isServiceRunning();
-      setAutoSyncEnabled(isRunning);
+      // Check if auto-sync is enabled (synchronous native read, WorkManager query as fallback)
+      const syncStatus = workManagerService.getSyncStatus();
+      setAutoSyncEnabled(syncStatus ? syncStatus.autoSyncEnabled : await workManagerService.isServiceRunning());
 
       // Fetch pending reminders
       await fetchPendingReminders();
@@ -204,6 +219,12 @@ export const DashboardScreen: React.FC<DashboardScreenProps> = ({
               Ultimo sync: {lastSync.toLocaleString('it-IT')}
             </Text>
           )}
+          {workProgress && (
+            <Text style={styles.lastSyncText}>
+              Invio in corso: {workProgress.sent + workProgress.failed}/{workProgress.total} SMS
+              {workProgress.failed > 0 ? ` (${workProgress.failed} falliti)` : ''}
+            </Text>
+          )}
         </View>
 
         {/* Actions */}
@@ -16,6 +16,8 @@ import {
 import logger, { LogEntry, LogLevel } from '@/utils/logger';
 import { format } from 'date-fns';
 
+const PAGE_SIZE = 100;
+
 interface LogViewerScreenProps {
   onBack: () => void;
 }
@@ -23,6 +25,8 @@ interface LogViewerScreenProps {
 export const LogViewerScreen: React.FC<LogViewerScreenProps> = ({ onBack }) => {
   const [logs, setLogs] = useState<LogEntry[]>([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState<number | null>(null);
   const [filter, setFilter] = useState<LogLevel | 'ALL'>('ALL');
   const [stats, setStats] = useState<{
     total: number;
@@ -31,13 +35,18 @@ export const LogViewerScreen: React.FC<LogViewerScreenProps> = ({ onBack }) => {
 
   useEffect(() => {
     loadLogs();
-  }, []);
+  }, [filter]);
 
   const loadLogs = async () => {
     setLoading(true);
     try {
-      const allLogs = await logger.getLogs();
-      setLogs(allLogs.reverse()); // Show newest first
+      // Newest first, filtered natively by level
+      const page = await logger.getLogsPage({
+        limit: PAGE_SIZE,
+        level: filter === 'ALL' ? undefined : filter,
+      });
+      setLogs(page.entries);
+      setNextCursor(page.nextCursor);
 
       const statistics = await logger.getStats();
       setStats(statistics);
@@ -49,6 +58,25 @@ export const LogViewerScreen: React.FC<LogViewerScreenProps> = ({ onBack }) => {
     }
   };
 
+  const loadMoreLogs = async () => {
+    if (nextCursor === null || loadingMore) return;
+
+    setLoadingMore(true);
+    try {
+      const page = await logger.getLogsPage({
+        before: nextCursor,
+        limit: PAGE_SIZE,
+        level: filter === 'ALL' ? undefined : filter,
+      });
+      setLogs(current => [...current, ...page.entries]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error('Error loading more logs:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleClearLogs = () => {
     Alert.alert(
       'Cancella Log',
@@ -81,11 +109,6 @@ export const LogViewerScreen: React.FC<LogViewerScreenProps> = ({ onBack }) => {
     }
   };
 
-  const getFilteredLogs = () => {
-    if (filter === 'ALL') return logs;
-    return logs.filter(log => log.level === filter);
-  };
-
   const getColorForLevel = (level: LogLevel): string => {
     switch (level) {
       case LogLevel.DEBUG:
@@ -128,8 +151,6 @@ export const LogViewerScreen: React.FC<LogViewerScreenProps> = ({ onBack }) => {
     }
   };
 
-  const filteredLogs = getFilteredLogs();
-
   return (
     <View style={styles.container}>
       {/* Header */}
@@ -205,13 +226,13 @@ export const LogViewerScreen: React.FC<LogViewerScreenProps> = ({ onBack }) => {
           refreshControl={
             <RefreshControl refreshing={loading} onRefresh={loadLogs} />
           }>
-          {filteredLogs.length === 0 ? (
+          {logs.length === 0 ? (
             <View style={styles.emptyContainer}>
               <Text style={styles.emptyText}>Nessun log da visualizzare</Text>
             </View>
           ) : (
-            filteredLogs.map((log, index) => (
-              <View key={index} style={styles.logEntry}>
+            logs.map((log, index) => (
+              <View key={log.seq ?? index} style={styles.logEntry}>
                 <View style={styles.logHeader}>
                   <Text style={styles.logTimestamp}>
                     {formatTimestamp(log.timestamp)}
@@ -243,6 +264,18 @@ export const LogViewerScreen: React.FC<LogViewerScreenProps> = ({ onBack }) => {
               </View>
             ))
           )}
+          {nextCursor !== null && (
+            <TouchableOpacity
+              style={styles.loadMoreButton}
+              onPress={loadMoreLogs}
+              disabled={loadingMore}>
+              {loadingMore ? (
+                <ActivityIndicator size="small" color="#db2777" />
+              ) : (
+                <Text style={styles.loadMoreText}>Carica altri</Text>
+              )}
+            </TouchableOpacity>
+          )}
         </ScrollView>
       )}
     </View>
@@ -427,4 +460,17 @@ const styles = StyleSheet.create({
     color: '#374151',
     fontFamily: 'monospace',
   },
+  loadMoreButton: {
+    marginHorizontal: 15,
+    marginBottom: 20,
+    padding: 12,
+    borderRadius: 8,
+    backgroundColor: '#fff',
+    alignItems: 'center',
+  },
+  loadMoreText: {
+    color: '#db2777',
+    fontSize: 14,
+    fontWeight: '600',
+  },
 });
@@ -1,12 +1,31 @@
 /**
  * API Client for communicating with Sphyra backend
  * Includes intelligent caching with ETag support for battery optimization
+ * On Android requests go through the native HttpModule (shared OkHttp client:
+ * pooled keep-alive connections, HTTP/2, TLS session reuse), axios otherwise
  */
-import axios, { AxiosInstance, AxiosError } from 'axios';
+import axios, { AxiosInstance, AxiosError, Method } from 'axios';
+import { NativeModules } from 'react-native';
 import { Storage } from '@/utils/storage';
 import { APICache } from '@/utils/apiCache';
 import { STORAGE_KEYS, DEFAULT_API_URL, API_TIMEOUT } from '@/config/api';
 
+const { HttpModule } = NativeModules;
+
+interface HttpResponse<T> {
+  status: number;
+  data: T;
+  headers: Record<string, string>;
+}
+
+interface RequestOptions {
+  params?: Record<string, any>;
+  data?: any;
+  headers?: Record<string, string>;
+  // Resolve 304 Not Modified instead of throwing
+  allowNotModified?: boolean;
+}
+
 class APIClient {
   private client: AxiosInstance;
   private apiUrl: string = DEFAULT_API_URL;
@@ -122,37 +141,31 @@ class APIClient {
         return cached.data;
       }
 
-      // Check if we have an ETag for conditional request
-      const etag = await APICache.getETag(cacheKey);
-      if (etag) {
+      // Expired entry with an ETag: conditional request
+      const stale = await APICache.getStale(cacheKey);
+      if (stale?.etag) {
         try {
-          // Make conditional request with If-None-Match header
-          const response = await this.client.get<T>(url, {
-            params,
-            headers: { 'If-None-Match': etag },
-          });
+          const response = await this.getConditional<T>(url, stale.etag, params);
 
-          // Server returned new data
-          const newEtag = response.headers['etag'];
-          await APICache.set(cacheKey, response.data, 5 * 60 * 1000, newEtag);
-
-          console.log(`🔄 Data updated for ${url}`);
-          return response.data;
-        } catch (error: any) {
-          // 304 Not Modified - use cached data
-          if (error.response?.status === 304 && cached) {
+          if (response.notModified) {
             console.log(`✅ 304 Not Modified - using cache for ${url}`);
             // Extend cache expiration
-            await APICache.set(cacheKey, cached.data, 5 * 60 * 1000, etag);
-            return cached.data;
+            await APICache.set(cacheKey, stale.data, 5 * 60 * 1000, stale.etag);
+            return stale.data;
           }
+
+          // Server returned new data
+          await APICache.set(cacheKey, response.data, 5 * 60 * 1000, response.etag);
+          console.log(`🔄 Data updated for ${url}`);
+          return response.data as T;
+        } catch (error) {
           // Other errors - fetch without cache
         }
       }
     }
 
     // Normal request without cache
-    const response = await this.client.get<T>(url, { params });
+    const response = await this.request<T>('GET', url, { params });
 
     // Save to cache if enabled
     if (useCache) {
@@ -163,11 +176,31 @@ class APIClient {
     return response.data;
   }
 
+  /**
+   * GET with If-None-Match: a 304 resolves with notModified instead of throwing
+   */
+  async getConditional<T>(
+    url: string,
+    etag?: string | null,
+    params?: any
+  ): Promise<{ data: T | null; etag?: string; notModified: boolean }> {
+    const response = await this.request<T>('GET', url, {
+      params,
+      headers: etag ? { 'If-None-Match': etag } : undefined,
+      allowNotModified: true,
+    });
+
+    if (response.status === 304) {
+      return { data: null, etag: etag ?? undefined, notModified: true };
+    }
+    return { data: response.data, etag: response.headers['etag'], notModified: false };
+  }
+
   /**
    * Make POST request
    */
   async post<T>(url: string, data?: any): Promise<T> {
-    const response = await this.client.post<T>(url, data);
+    const response = await this.request<T>('POST', url, { data });
     return response.data;
   }
 
@@ -175,7 +208,7 @@ class APIClient {
    * Make PUT request
    */
   async put<T>(url: string, data?: any): Promise<T> {
-    const response = await this.client.put<T>(url, data);
+    const response = await this.request<T>('PUT', url, { data });
     return response.data;
   }
 
@@ -183,10 +216,75 @@ class APIClient {
    * Make DELETE request
    */
   async delete<T>(url: string): Promise<T> {
-    const response = await this.client.delete<T>(url);
+    const response = await this.request<T>('DELETE', url);
     return response.data;
   }
 
+  /**
+   * Send a request natively when HttpModule is available, through axios otherwise
+   * Errors look like axios errors either way (error.response.status / data)
+   */
+  private async request<T>(method: Method, url: string, options: RequestOptions = {}): Promise<HttpResponse<T>> {
+    const { params, data, headers, allowNotModified } = options;
+    const isAccepted = (status: number) =>
+      (status >= 200 && status < 300) || (!!allowNotModified && status === 304);
+
+    if (!HttpModule) {
+      const response = await this.client.request<T>({
+        method,
+        url,
+        params,
+        data,
+        headers,
+        validateStatus: isAccepted,
+      });
+      return { status: response.status, data: response.data, headers: response.headers as Record<string, string> };
+    }
+
+    const raw: { status: number; headers: Record<string, string>; body: string } = await HttpModule.request({
+      method,
+      url: this.buildUrl(url, params),
+      headers: {
+        'Content-Type': 'application/json',
+        Accept: 'application/json',
+        ...(this.token ? { Authorization: `Bearer ${this.token}` } : {}),
+        ...headers,
+      },
+      body: data !== undefined ? JSON.stringify(data) : null,
+    });
+
+    let body: any = raw.body;
+    if (raw.body) {
+      try {
+        body = JSON.parse(raw.body);
+      } catch {
+        // Not JSON (nginx error page): keep the text
+      }
+    } else {
+      body = null;
+    }
+
+    if (!isAccepted(raw.status)) {
+      if (raw.status === 401) {
+        // Token expired or invalid
+        this.clearToken();
+      }
+      const error: any = new Error(`Request failed with status code ${raw.status}`);
+      error.response = { status: raw.status, data: body, headers: raw.headers };
+      throw error;
+    }
+    return { status: raw.status, data: body as T, headers: raw.headers };
+  }
+
+  private buildUrl(url: string, params?: Record<string, any>): string {
+    const base = this.apiUrl.endsWith('/') ? this.apiUrl.slice(0, -1) : this.apiUrl;
+    const query = Object.entries(params ?? {})
+      .filter(([, value]) => value !== undefined && value !== null)
+      .map(([key, value]) => `${encodeURIComponent(key)}=${encodeURIComponent(String(value))}`)
+      .join('&');
+    return `${base}${url}${query ? `?${query}` : ''}`;
+  }
+
   /**
    * Test connection to API
    */
@@ -1,6 +1,10 @@
 /**
  * Background Service - Automatic reminder synchronization
  * Runs periodically in the background even when app is closed
+ *
+ * Legacy: superseded by workManagerService (native ReminderSyncWorker, which
+ * only shows a notification while it drains a large backlog). Kept so that
+ * installs still running this loop can be shut down, see shutdownLegacy()
  */
 import BackgroundService from 'react-native-background-actions';
 import reminderService from './reminderService';
@@ -157,6 +161,19 @@ class BackgroundServiceManager {
     }
   }
 
+  /**
+   * Stop a loop left running by an older version, without touching AUTO_SYNC_ENABLED
+   * (the setting now drives the WorkManager schedule)
+   */
+  async shutdownLegacy(): Promise<void> {
+    if (!BackgroundService.isRunning()) {
+      return;
+    }
+    await BackgroundService.stop();
+    this.isRunning = false;
+    console.log('Legacy background service stopped - WorkManager handles sync');
+  }
+
   /**
    * Check if background service is running
    */
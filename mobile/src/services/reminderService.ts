@@ -6,8 +6,22 @@ import smsService from './smsService';
 import { Storage } from '@/utils/storage';
 import { STORAGE_KEYS, ENDPOINTS } from '@/config/api';
 import logger from '@/utils/logger';
+import { APICache } from '@/utils/apiCache';
 import { retryWithBackoff, NETWORK_RETRY_OPTIONS, CRITICAL_RETRY_OPTIONS } from '@/utils/retry';
 import type { PendingReminder, SyncResult, SMSResult } from '@/types';
+import WorkManagerModule from '@/specs/NativeWorkManager';
+
+
+// Page size for GET /pending (server accepts up to 200)
+const PENDING_PAGE_SIZE = 100;
+
+// Last full pending list and its ETag, reused when the server answers 304
+const PENDING_CACHE_TTL = 24 * 60 * 60 * 1000;
+
+interface PendingPage {
+  reminders: PendingReminder[];
+  nextCursor: string | null;
+}
 
 class ReminderService {
   /**
@@ -18,19 +32,49 @@ class ReminderService {
       async () => {
         try {
           logger.info('SYNC', 'Fetching pending reminders from backend...');
-          // Add timestamp to force cache bypass
-          const timestamp = new Date().getTime();
-          const reminders = await apiClient.get<PendingReminder[]>(
-            `${ENDPOINTS.PENDING_REMINDERS}?_t=${timestamp}`
-          );
+          const cached = await APICache.getStale(ENDPOINTS.PENDING_REMINDERS);
+          const reminders: PendingReminder[] = [];
+          let cursor: string | null = null;
+          let etag: string | undefined;
+          let pages = 0;
+
+          do {
+            // The ETag versions the whole pending set: only the first page is conditional
+            const response: { data: PendingPage | PendingReminder[] | null; etag?: string; notModified: boolean } =
+              await apiClient.getConditional(
+                ENDPOINTS.PENDING_REMINDERS,
+                pages === 0 ? cached?.etag : undefined,
+                { limit: PENDING_PAGE_SIZE, ...(cursor ? { cursor } : {}) }
+              );
+
+            if (response.notModified && cached) {
+              logger.info('SYNC', `Pending reminders unchanged (304), ${cached.data.length} cached`);
+              return cached.data as PendingReminder[];
+            }
+            if (pages === 0) {
+              etag = response.etag;
+            }
+
+            const page = response.data as PendingPage | PendingReminder[];
+
+            // Older backends ignore `limit` and return the whole array
+            if (Array.isArray(page)) {
+              reminders.push(...page);
+              cursor = null;
+            } else {
+              reminders.push(...page.reminders);
+              cursor = page.nextCursor;
+            }
+            pages++;
+          } while (cursor);
+
+          await APICache.set(ENDPOINTS.PENDING_REMINDERS, reminders, PENDING_CACHE_TTL, etag);
+
+          // Ids only: names and phone numbers stay out of the logs
           logger.success('SYNC', `Fetched ${reminders.length} pending reminders`, {
             count: reminders.length,
-            reminders: reminders.map(r => ({
-              appointmentId: r.appointment.id,
-              customerName: r.appointment.customer.name,
-              customerPhone: r.appointment.customer.phone,
-              appointmentDate: r.appointment.appointmentDate,
-            })),
+            pages,
+            appointmentIds: reminders.map(r => r.appointment.id),
           });
           return reminders;
         } catch (error: any) {
@@ -115,6 +159,40 @@ class ReminderService {
     });
   }
 
+  /**
+   * Report SMS results to the backend
+   * Uses the native durable outbox (one batched request, retried until
+   * delivered) when available, otherwise per-reminder fire-and-forget calls
+   */
+  async acknowledgeResults(allResults: SMSResult[]): Promise<void> {
+    // A failed ack would make the backend hand an SMS that may have gone out to a phone again
+    const results = allResults.filter(result => !result.uncertain);
+    if (results.length === 0) {
+      return;
+    }
+
+    if (WorkManagerModule?.recordAcks) {
+      try {
+        await WorkManagerModule.recordAcks(
+          results.map(({ appointmentId, success, error }) => ({ appointmentId, success, error }))
+        );
+        return;
+      } catch (error: any) {
+        logger.error('SYNC', 'Error recording acks in native outbox, falling back to HTTP', {
+          error: error.message,
+        });
+      }
+    }
+
+    for (const result of results) {
+      if (result.success) {
+        this.markReminderSent(result.appointmentId); // No await - fire and forget
+      } else {
+        this.markReminderFailed(result.appointmentId, result.error || 'Unknown error'); // No await - fire and forget
+      }
+    }
+  }
+
   /**
    * Synchronize and send all pending reminders
    */
@@ -127,61 +205,33 @@ class ReminderService {
 
       if (pendingReminders.length === 0) {
         logger.info('SYNC', 'No pending reminders to send');
-        await this.updateLastSync();
+        await this.updateLastSync(false);
         return { total: 0, sent: 0, failed: 0, results: [] };
       }
 
       logger.info('SYNC', `📤 Processing ${pendingReminders.length} reminders...`);
 
-      // 2. Send SMS for each reminder
-      const results: SMSResult[] = [];
-      let sent = 0;
-      let failed = 0;
-
-      for (const reminder of pendingReminders) {
-        const { appointment, message } = reminder;
-        logger.info('SYNC', `Sending reminder ${sent + failed + 1}/${pendingReminders.length}`, {
-          appointmentId: appointment.id,
-          customerName: appointment.customer.name,
-          customerPhone: appointment.customer.phone,
-          messageLength: message.length,
-        });
+      // 2. Send SMS - natively in one batch when available, otherwise one by one
+      const results: SMSResult[] = smsService.hasNativeDispatch()
+        ? await smsService.sendReminderBatch(pendingReminders)
+        : await this.sendRemindersSequentially(pendingReminders);
+      const sent = results.filter(r => r.success).length;
+      const failed = results.length - sent;
 
-        const result = await smsService.sendReminderSMS(reminder);
-        results.push(result);
-
-        // 3. Update backend based on result (non-blocking)
-        if (result.success) {
-          this.markReminderSent(result.appointmentId); // No await - fire and forget
-          sent++;
-          logger.success('SYNC', `✅ SMS sent successfully to ${appointment.customer.name}`, {
-            appointmentId: result.appointmentId,
-            phone: appointment.customer.phone,
-          });
-        } else {
-          this.markReminderFailed(
-            result.appointmentId,
-            result.error || 'Unknown error'
-          ); // No await - fire and forget
-          failed++;
-          logger.error('SYNC', `❌ SMS failed for ${appointment.customer.name}`, {
+      for (const result of results) {
+        if (!result.success) {
+          logger.error('SYNC', `❌ SMS failed for appointment ${result.appointmentId}`, {
             appointmentId: result.appointmentId,
-            phone: appointment.customer.phone,
             error: result.error,
           });
         }
-
-        // Small delay between SMS
-        await this.delay(1000);
       }
 
-      // 4. Update last sync time
-      await this.updateLastSync();
+      // 3. Update backend based on results
+      await this.acknowledgeResults(results);
 
-      // 5. Track when we last found reminders (for battery optimization)
-      if (pendingReminders.length > 0) {
-        await Storage.set(STORAGE_KEYS.LAST_REMINDER_FOUND, new Date().toISOString());
-      }
+      // 4. Update last sync time and when we last found reminders (for battery optimization)
+      await this.updateLastSync(true);
 
       const summary = `Sync complete: ${sent} sent, ${failed} failed out of ${pendingReminders.length} total`;
       logger.success('SYNC', summary, {
@@ -207,19 +257,46 @@ class ReminderService {
   }
 
   /**
-   * Update last sync timestamp
+   * Legacy send loop (JS SMS module, fixed delay between messages)
    */
-  private async updateLastSync(): Promise<void> {
+  private async sendRemindersSequentially(
+    pendingReminders: PendingReminder[]
+  ): Promise<SMSResult[]> {
+    const results: SMSResult[] = [];
+
+    for (const reminder of pendingReminders) {
+      const { appointment, message } = reminder;
+      logger.info('SYNC', `Sending reminder ${results.length + 1}/${pendingReminders.length}`, {
+        appointmentId: appointment.id,
+        messageLength: message.length,
+      });
+
+      results.push(await smsService.sendReminderSMS(reminder));
+
+      // Small delay between SMS
+      await this.delay(1000);
+    }
+
+    return results;
+  }
+
+  /**
+   * Update last sync timestamp (shared with the native scheduler)
+   * Both keys are written in one atomic commit
+   */
+  private async updateLastSync(foundReminders: boolean): Promise<void> {
     try {
-      const now = new Date();
-      await Storage.set(STORAGE_KEYS.LAST_SYNC, now.toISOString());
+      const now = new Date().toISOString();
+      await Storage.setMany(foundReminders
+        ? { [STORAGE_KEYS.LAST_SYNC]: now, [STORAGE_KEYS.LAST_REMINDER_FOUND]: now }
+        : { [STORAGE_KEYS.LAST_SYNC]: now });
     } catch (error) {
       console.error('Error updating last sync:', error);
     }
   }
 
   /**
-   * Get last sync timestamp
+   * Get last sync timestamp (JS or native background sync)
    */
   async getLastSync(): Promise<Date | null> {
     try {
@@ -231,6 +308,18 @@ class ReminderService {
     }
   }
 
+  /**
+   * Get when reminders were last found (JS or native background sync)
+   */
+  async getLastReminderFound(): Promise<string | null> {
+    try {
+      return await Storage.get<string>(STORAGE_KEYS.LAST_REMINDER_FOUND);
+    } catch (error) {
+      console.error('Error getting last reminder found:', error);
+      return null;
+    }
+  }
+
   /**
    * Utility delay function
    */
@@ -1,10 +1,14 @@
 /**
  * SMS Service - Native SMS sending via Android SIM card
  */
-import { Platform, PermissionsAndroid, Linking } from 'react-native';
+import { Platform, PermissionsAndroid, Linking, NativeModules } from 'react-native';
 import SmsAndroid from 'react-native-get-sms-android';
 import logger from '@/utils/logger';
-import type { PendingReminder, SMSResult } from '@/types';
+import { Storage } from '@/utils/storage';
+import { STORAGE_KEYS } from '@/config/api';
+import type { PendingReminder, SMSResult, SMSBatchItem, SmsEncodingPolicy } from '@/types';
+
+const { SmsDispatchModule } = NativeModules;
 
 class SMSService {
   /**
@@ -28,7 +32,19 @@ class SMSService {
         }
       );
 
-      return granted === PermissionsAndroid.RESULTS.GRANTED;
+      if (granted !== PermissionsAndroid.RESULTS.GRANTED) {
+        return false;
+      }
+
+      // Optional: lets native dispatch send on every SIM of dual-SIM phones
+      await PermissionsAndroid.request(PermissionsAndroid.PERMISSIONS.READ_PHONE_STATE, {
+        title: 'Doppia SIM',
+        message: 'Consenti l\'accesso alle SIM per inviare i promemoria da tutte le SIM del telefono',
+        buttonNegative: 'Nega',
+        buttonPositive: 'Consenti',
+      });
+
+      return true;
     } catch (error) {
       console.error('Error requesting SMS permission:', error);
       return false;
@@ -217,6 +233,84 @@ class SMSService {
     };
   }
 
+  /**
+   * Check if native batch dispatch (SmsDispatchModule) is available
+   */
+  hasNativeDispatch(): boolean {
+    return Platform.OS === 'android' && !!SmsDispatchModule;
+  }
+
+  /**
+   * Send reminder SMS in one native batch
+   * Pacing and retries are handled natively (carrier-aware rate governor),
+   * results reflect the real SENT callback of every SMS part
+   */
+  async sendReminderBatch(reminders: PendingReminder[]): Promise<SMSResult[]> {
+    const results = new Map<string, SMSResult>();
+    const batch: SMSBatchItem[] = [];
+
+    // Same validations as sendReminderSMS, without touching the radio
+    for (const { appointment, message } of reminders) {
+      const { customer } = appointment;
+      if (!customer.phone) {
+        results.set(appointment.id, {
+          success: false,
+          appointmentId: appointment.id,
+          error: 'Numero telefono mancante',
+        });
+      } else if (!customer.smsReminderConsent) {
+        results.set(appointment.id, {
+          success: false,
+          appointmentId: appointment.id,
+          error: 'Cliente non ha dato consenso SMS (GDPR)',
+        });
+      } else {
+        batch.push({ appointmentId: appointment.id, phone: customer.phone, message });
+      }
+    }
+
+    if (batch.length > 0) {
+      // Native dispatch cannot prompt for permission - ask here first
+      const hasPermission = await this.hasSMSPermission();
+      if (!hasPermission) {
+        await this.requestSMSPermission();
+      }
+
+      logger.info('SMS', `📤 Native dispatch of ${batch.length} SMS`);
+      const batchResult = await SmsDispatchModule.sendBatch(batch);
+
+      for (const result of batchResult.results as SMSResult[]) {
+        results.set(result.appointmentId, result);
+      }
+
+      logger.info('SMS', `Native dispatch completed: ${batchResult.sent}/${batchResult.total} sent`, {
+        durationMs: batchResult.durationMs,
+        ratePerSecond: batchResult.ratePerSecond,
+        segmentsSaved: batchResult.segmentsSaved,
+        lanes: batchResult.lanes,
+      });
+    }
+
+    return reminders.map(({ appointment }) => results.get(appointment.id) ?? {
+      success: false,
+      appointmentId: appointment.id,
+      error: 'Nessun risultato dal dispatcher',
+    });
+  }
+
+  /**
+   * How far native dispatch may rewrite texts to stay in GSM-7 (160 chars per
+   * segment instead of 70): 'none', 'typographic' (default) or 'strict'
+   */
+  async getEncodingPolicy(): Promise<SmsEncodingPolicy> {
+    return (await Storage.get<SmsEncodingPolicy>(STORAGE_KEYS.SMS_ENCODING)) ?? 'typographic';
+  }
+
+  async setEncodingPolicy(policy: SmsEncodingPolicy): Promise<void> {
+    await Storage.set(STORAGE_KEYS.SMS_ENCODING, policy);
+    logger.info('SMS', `SMS encoding policy set to ${policy}`);
+  }
+
   /**
    * Send multiple reminder SMS
    */
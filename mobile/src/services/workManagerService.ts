@@ -3,14 +3,16 @@
  * Replaces react-native-background-actions with native Android WorkManager
  * Respects Doze mode and battery constraints for optimal battery life
  */
-import { NativeModules, AppState, AppStateStatus } from 'react-native';
+import { AppState, AppStateStatus, EmitterSubscription, NativeEventEmitter } from 'react-native';
 import reminderService from './reminderService';
 import { Storage } from '@/utils/storage';
-import { STORAGE_KEYS, DEFAULT_SYNC_INTERVAL } from '@/config/api';
+import { STORAGE_KEYS, DEFAULT_SYNC_INTERVAL, BATTERY_OPTIMIZATION } from '@/config/api';
 import { BatteryOptimizer } from '@/utils/batteryOptimization';
 import logger from '@/utils/logger';
+import WorkManagerModule from '@/specs/NativeWorkManager';
+import type { SyncMetrics, SyncStatus, WorkStatus } from '@/specs/NativeWorkManager';
 
-const { WorkManagerModule } = NativeModules;
+let workEmitter: NativeEventEmitter | null = null;
 
 class WorkManagerService {
   private isRunning: boolean = false;
@@ -54,7 +56,10 @@ class WorkManagerService {
         return;
       }
 
-      const result = await WorkManagerModule.checkPendingSync();
+      // Synchronous read, no bridge round trip on every foreground transition
+      const result = WorkManagerModule.getPendingSyncState
+        ? WorkManagerModule.getPendingSyncState()
+        : await WorkManagerModule.checkPendingSync();
 
       if (result.hasPendingSync) {
         logger.info('WORKMANAGER', '🔔 Pending sync detected from WorkManager');
@@ -115,31 +120,26 @@ class WorkManagerService {
         return;
       }
 
-      // Get sync interval (with optimization)
       const baseInterval = await this.getSyncInterval();
-      const lastReminderFound = await Storage.get<string>(STORAGE_KEYS.LAST_REMINDER_FOUND);
 
-      const { interval, reason } = await BatteryOptimizer.calculateOptimizedInterval(
-        baseInterval,
-        lastReminderFound
-      );
+      // The native scheduler adapts each delay (battery, reminders found, quiet hours)
+      await this.configureNativeSchedule();
+      const result = await WorkManagerModule.startPeriodicSync(baseInterval);
 
       logger.info('WORKMANAGER', `🚀 Starting WorkManager sync`, {
         baseInterval,
-        optimizedInterval: interval,
-        reason,
+        optimizedInterval: result.intervalMinutes,
+        nextRunAt: result.nextRunAt ? new Date(result.nextRunAt).toISOString() : undefined,
+        reason: result.reason,
       });
 
-      // Start WorkManager periodic sync
-      await WorkManagerModule.startPeriodicSync(interval);
-
       this.isRunning = true;
 
       // Save state
       await Storage.set(STORAGE_KEYS.AUTO_SYNC_ENABLED, true);
 
       logger.success('WORKMANAGER', '✅ WorkManager service started successfully', {
-        interval: `${interval} minutes`,
+        interval: `${result.intervalMinutes} minutes`,
       });
     } catch (error: any) {
       logger.error('WORKMANAGER', 'Error starting service', {
@@ -149,6 +149,30 @@ class WorkManagerService {
     }
   }
 
+  /**
+   * Send the scheduling policy (BATTERY_OPTIMIZATION) to the native scheduler
+   */
+  private async configureNativeSchedule(): Promise<void> {
+    if (!WorkManagerModule?.configureSchedule) {
+      return;
+    }
+
+    await WorkManagerModule.configureSchedule({
+      quietHoursStart: BATTERY_OPTIMIZATION.NIGHT_HOURS_START,
+      quietHoursEnd: BATTERY_OPTIMIZATION.NIGHT_HOURS_END,
+      timeZone: Intl.DateTimeFormat().resolvedOptions().timeZone,
+      lowBatteryMultiplier: BATTERY_OPTIMIZATION.LOW_BATTERY_MULTIPLIER,
+      criticalBatteryMultiplier: BATTERY_OPTIMIZATION.LOW_BATTERY_MULTIPLIER * 2,
+      chargingMultiplier: BATTERY_OPTIMIZATION.CHARGING_MULTIPLIER,
+      noRemindersMultiplier: BATTERY_OPTIMIZATION.NO_REMINDERS_MULTIPLIER,
+      noRemindersThresholdHours: BATTERY_OPTIMIZATION.NO_REMINDERS_THRESHOLD_HOURS,
+      lowBatteryThreshold: BATTERY_OPTIMIZATION.LOW_BATTERY_THRESHOLD,
+      criticalBatteryThreshold: BATTERY_OPTIMIZATION.CRITICAL_BATTERY_THRESHOLD,
+      minIntervalMinutes: BATTERY_OPTIMIZATION.MIN_ADAPTIVE_INTERVAL,
+      maxIntervalMinutes: BATTERY_OPTIMIZATION.MAX_ADAPTIVE_INTERVAL,
+    });
+  }
+
   /**
    * Stop periodic sync
    */
@@ -200,6 +224,14 @@ class WorkManagerService {
     }
   }
 
+  /**
+   * Schedule and last result, read synchronously from native storage
+   * Returns null when the native module is not available
+   */
+  getSyncStatus(): SyncStatus | null {
+    return WorkManagerModule?.getSyncStatus ? WorkManagerModule.getSyncStatus() : null;
+  }
+
   /**
    * Get current work status
    */
@@ -216,6 +248,48 @@ class WorkManagerService {
     }
   }
 
+  /**
+   * Subscribe to sync work changes pushed by native code: state transitions,
+   * per-SMS progress while a batch is sending, result of the last run
+   * Returns null when the native module is not available
+   */
+  onWorkStatus(listener: (status: WorkStatus) => void): EmitterSubscription | null {
+    if (!WorkManagerModule) {
+      return null;
+    }
+
+    if (!workEmitter) {
+      workEmitter = new NativeEventEmitter(WorkManagerModule);
+    }
+
+    return workEmitter.addListener('workStatusChanged', listener);
+  }
+
+  /**
+   * Native sync performance (latency histograms summarized as p50/p90/p99)
+   * Returns null when the native module is not available
+   */
+  async getSyncMetrics(): Promise<SyncMetrics | null> {
+    try {
+      return WorkManagerModule ? await WorkManagerModule.getSyncMetrics() : null;
+    } catch (error) {
+      console.error('Error getting sync metrics:', error);
+      return null;
+    }
+  }
+
+  /**
+   * Sync metrics as JSON, with histogram buckets (for sharing/diagnostics)
+   */
+  async exportSyncMetrics(): Promise<string | null> {
+    try {
+      return WorkManagerModule ? await WorkManagerModule.exportSyncMetrics() : null;
+    } catch (error) {
+      console.error('Error exporting sync metrics:', error);
+      return null;
+    }
+  }
+
   /**
    * Update sync interval (will restart service if running)
    */
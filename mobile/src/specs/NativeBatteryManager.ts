@@ -0,0 +1,73 @@
+/**
+ * Codegen spec for the BatteryManager native module
+ * Reads come from a native cache: getBatterySnapshot is synchronous (JSI on the
+ * New Architecture, no bridge round trip)
+ */
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+export type BatteryState = {
+  batteryLevel: number;
+  isCharging: boolean;
+  usbCharge: boolean;
+  acCharge: boolean;
+  wirelessCharge: boolean;
+  band: string;
+  currentNowMicroAmps?: number;
+  chargeCounterMicroAmpHours?: number;
+  timestamp: number;
+};
+
+// One measured session (a native sync run or a session started from JS); charges in µAh
+export type EnergyRecord = {
+  kind: string;
+  startedAt: number;
+  durationMs: number;
+  samples: number;
+  microAmpHours: number;
+  fetchMicroAmpHours: number;
+  fetches: number;
+  sms: number;
+  counterMicroAmpHours?: number;
+  averageCurrentMicroAmps?: number;
+  charging: boolean;
+  integrated: boolean; // false: estimated from the charge counter alone
+  measured: boolean; // on battery, with a usable reading
+};
+
+export type EnergyAggregate = {
+  count: number;
+  mean: number;
+  p95: number;
+};
+
+// Over the measured sync runs of the history
+export type EnergyStats = {
+  sessions: number;
+  perSync: EnergyAggregate;
+  perFetch: EnergyAggregate;
+  perSms: EnergyAggregate;
+  idlePoll: EnergyAggregate; // sync runs that sent nothing
+};
+
+export interface Spec extends TurboModule {
+  getBatteryLevel(): Promise<{ batteryLevel: number }>;
+  isCharging(): Promise<{ isCharging: boolean }>;
+  getBatteryInfo(): Promise<BatteryState>;
+  getBatterySnapshot(): BatteryState;
+  setThresholds(lowThreshold: number, criticalThreshold: number): void;
+
+  // Energy sessions: every native sync run is measured, JS can measure its own operations
+  startEnergySession(kind: string): Promise<{ started: boolean }>;
+  stopEnergySession(): Promise<EnergyRecord | null>;
+  getEnergyHistory(): Promise<Array<EnergyRecord>>;
+  getEnergyStats(): Promise<EnergyStats>;
+  setEnergySampleInterval(intervalMs: number): void;
+  resetEnergyHistory(): Promise<{ success: boolean }>;
+
+  // NativeEventEmitter (batteryChanged)
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+}
+
+export default TurboModuleRegistry.get<Spec>('BatteryManager');
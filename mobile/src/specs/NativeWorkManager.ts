@@ -0,0 +1,107 @@
+/**
+ * Codegen spec for the WorkManagerModule native module
+ * getPendingSyncState and getSyncStatus are synchronous reads of the native
+ * key-value store, cheap enough for every foreground transition
+ * Work status changes are pushed as 'workStatusChanged' events (WorkStatus)
+ */
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+export type PendingSyncState = {
+  hasPendingSync: boolean;
+  triggeredAt: number;
+};
+
+export type SyncStatus = {
+  autoSyncEnabled: boolean;
+  lastSyncAt: number;
+  lastReminderFoundAt: number;
+  lastStatus: string;
+  nextRunAt?: number;
+  nextRunReason?: string;
+};
+
+export type WorkProgress = {
+  sent: number;
+  failed: number;
+  total: number;
+};
+
+export type WorkResult = {
+  status: string;
+  total: number;
+  sent: number;
+  failed: number;
+  timestamp: number;
+};
+
+export type WorkStatus = {
+  state: string;
+  runAttemptCount?: number;
+  id?: string;
+  // Only while RUNNING and sending
+  progress?: WorkProgress;
+  lastStatus?: string;
+  lastResult?: WorkResult;
+  nextRunAt?: number;
+  nextRunReason?: string;
+  bootRecoveredAt?: number;
+  bootRecoveryMs?: number;
+};
+
+export type MetricSummary = {
+  count: number;
+  min: number;
+  max: number;
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+};
+
+// Keys: startLagMs, syncDurationMs, fetchLatencyMs, fetchBytes, queueDepth,
+// smsSendLatencyMs, smsDeliveryLatencyMs, smsAttempts, reminderLatencyMs,
+// ackFlushLatencyMs, syncRetries
+export type SyncMetrics = {
+  since: number;
+  updatedAt: number;
+  runs: number;
+  metrics: { [key: string]: MetricSummary };
+};
+
+export type AckResult = {
+  appointmentId: string;
+  success: boolean;
+  error?: string;
+};
+
+export interface Spec extends TurboModule {
+  startPeriodicSync(intervalMinutes: number): Promise<{
+    success: boolean;
+    intervalMinutes: number;
+    nextRunAt: number;
+    reason: string;
+    workName: string;
+  }>;
+  configureSchedule(config: Object): Promise<{ success: boolean }>;
+  stopPeriodicSync(): Promise<{ success: boolean; message: string }>;
+  isSyncRunning(): Promise<{ isRunning: boolean }>;
+  getWorkStatus(): Promise<WorkStatus>;
+  checkPendingSync(): Promise<PendingSyncState>;
+  clearPendingSync(): Promise<{ success: boolean }>;
+  getNativeSyncState(): Promise<{ lastSyncAt: number; lastReminderFoundAt: number; lastStatus: string }>;
+  recordAcks(results: Array<AckResult>): Promise<{ success: boolean; recorded: number }>;
+  getSyncMetrics(): Promise<SyncMetrics>;
+  exportSyncMetrics(): Promise<string>;
+  resetSyncMetrics(): Promise<{ success: boolean }>;
+
+  // Event emitter
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+
+  // Synchronous reads
+  getPendingSyncState(): PendingSyncState;
+  getSyncStatus(): SyncStatus;
+}
+
+export default TurboModuleRegistry.get<Spec>('WorkManagerModule');
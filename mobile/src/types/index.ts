@@ -57,10 +57,36 @@ export interface PendingReminder {
   message: string;
 }
 
+/**
+ * Compact form of a pending reminder, for clients that ask for
+ * COMPACT_REMINDERS_MEDIA_TYPE (the native sync worker): `at` is the appointment time (ISO)
+ */
+export interface CompactPendingReminder {
+  id: string;
+  phone: string | null;
+  message: string;
+  consent: boolean;
+  at: string;
+}
+
 export interface SMSResult {
   success: boolean;
   appointmentId: string;
   error?: string;
+  parts?: number; // Native dispatch only: SMS segments sent
+  segmentsSaved?: number; // Native dispatch only: segments saved by GSM-7 encoding
+  delivered?: boolean; // Native dispatch only: delivery report received
+  subscriptionId?: number; // Native dispatch only: SIM used (-1 = default SIM)
+  alreadySent?: boolean; // Native dispatch only: found in the sent ledger, acknowledged without resending
+  uncertain?: boolean; // Native dispatch only: failed after parts may have gone out, never acknowledged
+}
+
+export type SmsEncodingPolicy = 'none' | 'typographic' | 'strict';
+
+export interface SMSBatchItem {
+  appointmentId: string;
+  phone: string;
+  message: string;
 }
 
 export interface SyncResult {
@@ -66,6 +66,14 @@ export class APICache {
     };
   }
 
+  /**
+   * Get cache entry even if expired (data to reuse on 304 Not Modified)
+   */
+  static async getStale(url: string): Promise<{ data: any; etag?: string } | null> {
+    const entry = await Storage.get<CacheEntry>(this.getCacheKey(url));
+    return entry ? { data: entry.data, etag: entry.etag } : null;
+  }
+
   /**
    * Get ETag for conditional request
    */
@@ -3,16 +3,32 @@
  * Smart interval calculation based on various conditions
  * Uses native BatteryManager for real battery status
  */
-import { NativeModules } from 'react-native';
+import { NativeEventEmitter, EmitterSubscription } from 'react-native';
 import { BATTERY_OPTIMIZATION } from '@/config/api';
-
-const { BatteryManager } = NativeModules;
+import BatteryManager from '@/specs/NativeBatteryManager';
+import type { EnergyRecord, EnergyStats } from '@/specs/NativeBatteryManager';
 
 interface BatteryInfo {
   batteryLevel: number; // 0-100
   isCharging: boolean;
 }
 
+export interface BatteryChangeEvent extends BatteryInfo {
+  band: 'normal' | 'low' | 'critical';
+  reason: string; // charging_started, charging_stopped, band_low, ...
+}
+
+let batteryEmitter: NativeEventEmitter | null = null;
+
+if (BatteryManager) {
+  // Native events use the same thresholds as calculateOptimizedInterval
+  BatteryManager.setThresholds?.(
+    BATTERY_OPTIMIZATION.LOW_BATTERY_THRESHOLD,
+    BATTERY_OPTIMIZATION.CRITICAL_BATTERY_THRESHOLD
+  );
+  BatteryManager.setEnergySampleInterval?.(BATTERY_OPTIMIZATION.ENERGY_SAMPLE_INTERVAL_MS);
+}
+
 export class BatteryOptimizer {
   /**
    * Get current battery information from native module
@@ -24,8 +40,10 @@ export class BatteryOptimizer {
         return { batteryLevel: 100, isCharging: false };
       }
 
-      // Get battery info from native module
-      const info = await BatteryManager.getBatteryInfo();
+      // Cached native snapshot: synchronous, no system server round trip
+      const info = BatteryManager.getBatterySnapshot
+        ? BatteryManager.getBatterySnapshot()
+        : await BatteryManager.getBatteryInfo();
 
       return {
         batteryLevel: info.batteryLevel * 100, // Convert to percentage (0.0-1.0 → 0-100)
@@ -41,6 +59,75 @@ export class BatteryOptimizer {
     }
   }
 
+  /**
+   * Subscribe to battery threshold crossings (low/critical/charging transitions)
+   * Native side only emits when the band or charging state changes
+   */
+  static onBatteryChange(listener: (event: BatteryChangeEvent) => void): EmitterSubscription | null {
+    if (!BatteryManager) {
+      return null;
+    }
+
+    if (!batteryEmitter) {
+      batteryEmitter = new NativeEventEmitter(BatteryManager);
+    }
+
+    return batteryEmitter.addListener('batteryChanged', (info: any) => {
+      listener({
+        batteryLevel: info.batteryLevel * 100,
+        isCharging: info.isCharging,
+        band: info.band,
+        reason: info.reason,
+      });
+    });
+  }
+
+  /**
+   * Measured cost of the native syncs (µAh per sync, fetch, SMS and idle poll)
+   * Null when the native module is missing
+   */
+  static async getEnergyStats(): Promise<EnergyStats | null> {
+    try {
+      return BatteryManager?.getEnergyStats ? await BatteryManager.getEnergyStats() : null;
+    } catch (error) {
+      console.warn('Unable to get energy stats:', error);
+      return null;
+    }
+  }
+
+  static async getEnergyHistory(): Promise<EnergyRecord[]> {
+    try {
+      return BatteryManager?.getEnergyHistory ? await BatteryManager.getEnergyHistory() : [];
+    } catch (error) {
+      console.warn('Unable to get energy history:', error);
+      return [];
+    }
+  }
+
+  /**
+   * Measure an operation driven from JS, e.g. to compare two scheduling settings
+   * Returns false while a native sync is being measured
+   */
+  static async startEnergySession(kind: string): Promise<boolean> {
+    try {
+      return BatteryManager?.startEnergySession
+        ? (await BatteryManager.startEnergySession(kind)).started
+        : false;
+    } catch (error) {
+      console.warn('Unable to start energy session:', error);
+      return false;
+    }
+  }
+
+  static async stopEnergySession(): Promise<EnergyRecord | null> {
+    try {
+      return BatteryManager?.stopEnergySession ? await BatteryManager.stopEnergySession() : null;
+    } catch (error) {
+      console.warn('Unable to stop energy session:', error);
+      return null;
+    }
+  }
+
   /**
    * Check if current time is within night hours (20:00 - 09:00)
    * During night hours, NO SMS should be sent
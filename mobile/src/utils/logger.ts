@@ -1,9 +1,14 @@
 /**
  * Logging System for Sphyra SMS Reminder
  * Persistent logging with in-app viewer for debugging
+ * Entries are appended to the native LogStoreModule (memory-mapped ring buffer,
+ * shared with native workers); AsyncStorage is only used as a fallback
  */
+import { NativeModules } from 'react-native';
 import { Storage } from './storage';
 
+const { LogStoreModule } = NativeModules;
+
 export enum LogLevel {
   DEBUG = 'DEBUG',
   INFO = 'INFO',
@@ -13,6 +18,7 @@ export enum LogLevel {
 }
 
 export interface LogEntry {
+  seq?: number; // Native store sequence number (used as paging cursor)
   timestamp: string;
   level: LogLevel;
   category: string;
@@ -20,8 +26,14 @@ export interface LogEntry {
   data?: any;
 }
 
+export interface LogPage {
+  entries: LogEntry[]; // Newest first
+  nextCursor: number | null;
+}
+
 const STORAGE_KEY = '@sphyra:logs';
-const MAX_LOGS = 500; // Keep last 500 log entries
+const MAX_LOGS = 500; // Keep last 500 log entries (AsyncStorage fallback)
+const EXPORT_LIMIT = 10000; // The native ring buffer holds more than MAX_LOGS
 
 class Logger {
   private logs: LogEntry[] = [];
@@ -33,6 +45,12 @@ class Logger {
   async initialize(): Promise<void> {
     if (this.initialized) return;
 
+    if (LogStoreModule) {
+      this.initialized = true;
+      await this.migrateLegacyLogs();
+      return;
+    }
+
     try {
       const storedLogs = await Storage.get<LogEntry[]>(STORAGE_KEY);
       if (storedLogs && Array.isArray(storedLogs)) {
@@ -47,6 +65,30 @@ class Logger {
     }
   }
 
+  /**
+   * Move logs persisted by older versions (AsyncStorage) into the native store, once
+   */
+  private async migrateLegacyLogs(): Promise<void> {
+    try {
+      const storedLogs = await Storage.get<LogEntry[]>(STORAGE_KEY);
+      if (storedLogs && Array.isArray(storedLogs) && storedLogs.length > 0) {
+        await LogStoreModule.appendBatch(
+          storedLogs.map(log => ({
+            timestamp: new Date(log.timestamp).getTime(),
+            level: log.level,
+            category: log.category,
+            message: log.message,
+            data: log.data !== undefined ? this.serializeData(log.data) : null,
+          }))
+        );
+        console.log(`Logger migrated ${storedLogs.length} logs to native store`);
+      }
+      await Storage.remove(STORAGE_KEY);
+    } catch (error) {
+      console.error('Error migrating legacy logs:', error);
+    }
+  }
+
   /**
    * Add a log entry
    */
@@ -56,6 +98,18 @@ class Logger {
     message: string,
     data?: any
   ): Promise<void> {
+    if (LogStoreModule) {
+      // O(1) native append, nothing re-serialized on the JS thread
+      LogStoreModule.append(
+        level,
+        category,
+        message,
+        data !== undefined ? this.serializeData(data) : null
+      );
+      this.logToConsole(level, category, message, data);
+      return;
+    }
+
     await this.initialize();
 
     const entry: LogEntry = {
@@ -79,12 +133,48 @@ class Logger {
       console.error('Error persisting logs:', err)
     );
 
-    // Also log to console for immediate debugging
+    this.logToConsole(level, category, message, data);
+  }
+
+  /**
+   * Also log to console for immediate debugging
+   */
+  private logToConsole(level: LogLevel, category: string, message: string, data?: any): void {
     const emoji = this.getEmojiForLevel(level);
     const logData = data ? `\nData: ${JSON.stringify(data, null, 2)}` : '';
     console.log(`${emoji} [${category}] ${message}${logData}`);
   }
 
+  private serializeData(data: any): string | null {
+    try {
+      return JSON.stringify(data);
+    } catch {
+      return null;
+    }
+  }
+
+  /**
+   * Convert a native LogStore entry to LogEntry
+   */
+  private fromNative(entry: any): LogEntry {
+    let data: any;
+    if (entry.data) {
+      try {
+        data = JSON.parse(entry.data);
+      } catch {
+        data = entry.data;
+      }
+    }
+    return {
+      seq: entry.seq,
+      timestamp: new Date(entry.timestamp).toISOString(),
+      level: entry.level as LogLevel,
+      category: entry.category,
+      message: entry.message,
+      data,
+    };
+  }
+
   /**
    * Persist logs to storage
    */
@@ -139,10 +229,54 @@ class Logger {
   }
 
   /**
-   * Get all logs
+   * Get one page of logs, newest first
+   * Pass the returned nextCursor as `before` to load the following page
+   */
+  async getLogsPage(options: {
+    before?: number | null;
+    limit?: number;
+    level?: LogLevel;
+    category?: string;
+  } = {}): Promise<LogPage> {
+    await this.initialize();
+    const limit = options.limit ?? 100;
+
+    if (LogStoreModule) {
+      const page = await LogStoreModule.query({
+        before: options.before ?? null,
+        limit,
+        level: options.level ?? null,
+        category: options.category ?? null,
+      });
+      return {
+        entries: page.entries.map((entry: any) => this.fromNative(entry)),
+        nextCursor: page.nextCursor ?? null,
+      };
+    }
+
+    // Fallback: page over the in-memory array (index used as cursor)
+    const matching = this.logs
+      .map((log, index) => ({ ...log, seq: index }))
+      .filter(log => (!options.level || log.level === options.level)
+        && (!options.category || log.category === options.category)
+        && (options.before == null || log.seq < options.before))
+      .reverse();
+    const entries = matching.slice(0, limit);
+    return {
+      entries,
+      nextCursor: matching.length > limit ? entries[entries.length - 1].seq : null,
+    };
+  }
+
+  /**
+   * Get all logs (oldest first)
    */
   async getLogs(): Promise<LogEntry[]> {
     await this.initialize();
+    if (LogStoreModule) {
+      const page = await this.getLogsPage({ limit: MAX_LOGS });
+      return page.entries.reverse();
+    }
     return [...this.logs]; // Return copy
   }
 
@@ -151,6 +285,10 @@ class Logger {
    */
   async getLogsByCategory(category: string): Promise<LogEntry[]> {
     await this.initialize();
+    if (LogStoreModule) {
+      const page = await this.getLogsPage({ limit: MAX_LOGS, category });
+      return page.entries.reverse();
+    }
     return this.logs.filter(log => log.category === category);
   }
 
@@ -159,6 +297,10 @@ class Logger {
    */
   async getLogsByLevel(level: LogLevel): Promise<LogEntry[]> {
     await this.initialize();
+    if (LogStoreModule) {
+      const page = await this.getLogsPage({ limit: MAX_LOGS, level });
+      return page.entries.reverse();
+    }
     return this.logs.filter(log => log.level === level);
   }
 
@@ -167,6 +309,10 @@ class Logger {
    */
   async getRecentLogs(count: number = 50): Promise<LogEntry[]> {
     await this.initialize();
+    if (LogStoreModule) {
+      const page = await this.getLogsPage({ limit: count });
+      return page.entries.reverse();
+    }
     return this.logs.slice(-count);
   }
 
@@ -175,6 +321,9 @@ class Logger {
    */
   async clearLogs(): Promise<void> {
     this.logs = [];
+    if (LogStoreModule) {
+      await LogStoreModule.clear();
+    }
     await Storage.remove(STORAGE_KEY);
     console.log('All logs cleared');
   }
@@ -185,12 +334,16 @@ class Logger {
   async exportLogsAsText(): Promise<string> {
     await this.initialize();
 
+    const logs = LogStoreModule
+      ? (await this.getLogsPage({ limit: EXPORT_LIMIT })).entries.reverse()
+      : this.logs;
+
     let text = `=== Sphyra SMS Reminder - Log Export ===\n`;
     text += `Exported: ${new Date().toISOString()}\n`;
-    text += `Total entries: ${this.logs.length}\n`;
+    text += `Total entries: ${logs.length}\n`;
     text += `\n${'='.repeat(50)}\n\n`;
 
-    for (const log of this.logs) {
+    for (const log of logs) {
       const emoji = this.getEmojiForLevel(log.level);
       text += `${emoji} ${log.timestamp} [${log.level}] [${log.category}]\n`;
       text += `   ${log.message}\n`;
@@ -213,6 +366,10 @@ class Logger {
   }> {
     await this.initialize();
 
+    if (LogStoreModule) {
+      return LogStoreModule.getStats();
+    }
+
     const byLevel: Record<string, number> = {};
     const byCategory: Record<string, number> = {};
 
@@ -1,14 +1,114 @@
 /**
- * Storage utility using AsyncStorage
+ * Storage utility
+ * Shared settings (token, API URL, interval, last sync, auto-sync, SMS
+ * encoding) live in the native KvStoreModule, so WorkManager workers and
+ * BootReceiver read the same values; everything else uses AsyncStorage
  */
 import AsyncStorage from '@react-native-async-storage/async-storage';
+import { NativeModules } from 'react-native';
+import { STORAGE_KEYS } from '@/config/api';
+
+const { KvStoreModule } = NativeModules;
+
+type SharedValue = string | number | boolean | null;
+
+// Keys held by the native key-value store (primitive values only)
+const SHARED_KEYS = new Set<string>([
+  STORAGE_KEYS.TOKEN,
+  STORAGE_KEYS.API_URL,
+  STORAGE_KEYS.LAST_SYNC,
+  STORAGE_KEYS.AUTO_SYNC_ENABLED,
+  STORAGE_KEYS.SYNC_INTERVAL,
+  STORAGE_KEYS.LAST_REMINDER_FOUND,
+  STORAGE_KEYS.SMS_ENCODING,
+]);
+
+// Keys that were written with setString (not JSON) in AsyncStorage
+const RAW_STRING_KEYS = new Set<string>([STORAGE_KEYS.TOKEN, STORAGE_KEYS.API_URL]);
+
+const MIGRATED_FLAG = '@sphyra:kvMigrated';
+
+let migration: Promise<void> | null = null;
 
 export class Storage {
+  private static isShared(key: string): boolean {
+    return !!KvStoreModule && SHARED_KEYS.has(key);
+  }
+
+  /**
+   * Move shared keys from AsyncStorage to the native store (once)
+   */
+  private static ensureMigrated(): Promise<void> {
+    if (!KvStoreModule) {
+      return Promise.resolve();
+    }
+    if (!migration) {
+      migration = (async () => {
+        try {
+          if (KvStoreModule.get(MIGRATED_FLAG).value) {
+            return;
+          }
+
+          const keys = Array.from(SHARED_KEYS);
+          const existing = KvStoreModule.getMany(keys);
+          const values: Record<string, SharedValue> = { [MIGRATED_FLAG]: true };
+
+          for (const [key, raw] of await AsyncStorage.multiGet(keys)) {
+            if (raw == null || existing[key] !== undefined) continue;
+            values[key] = RAW_STRING_KEYS.has(key) ? raw : JSON.parse(raw);
+          }
+
+          KvStoreModule.commit(values);
+          await AsyncStorage.multiRemove(keys);
+        } catch (error) {
+          console.error('Error migrating settings to native store:', error);
+        }
+      })();
+    }
+    return migration;
+  }
+
+  /**
+   * Synchronous read of a shared key (no bridge round trip)
+   * Returns null for keys not held by the native store
+   */
+  static getSync<T extends SharedValue>(key: string): T | null {
+    if (!this.isShared(key)) {
+      return null;
+    }
+    const result = KvStoreModule.get(key);
+    return result.value !== undefined ? result.value : null;
+  }
+
+  /**
+   * Write several shared keys in one atomic commit (null removes a key)
+   */
+  static async setMany(values: Record<string, SharedValue>): Promise<void> {
+    await this.ensureMigrated();
+    const shared: Record<string, SharedValue> = {};
+    for (const [key, value] of Object.entries(values)) {
+      if (this.isShared(key)) {
+        shared[key] = value;
+      } else if (value === null) {
+        await this.remove(key);
+      } else {
+        await this.set(key, value);
+      }
+    }
+    if (Object.keys(shared).length > 0 && !KvStoreModule.commit(shared)) {
+      throw new Error('Error saving to native store');
+    }
+  }
+
   /**
    * Save data to storage
    */
   static async set(key: string, value: any): Promise<void> {
     try {
+      if (this.isShared(key)) {
+        await this.setMany({ [key]: value });
+        return;
+      }
       const jsonValue = JSON.stringify(value);
       await AsyncStorage.setItem(key, jsonValue);
     } catch (error) {
@@ -22,6 +122,10 @@ export class Storage {
    */
   static async get<T>(key: string): Promise<T | null> {
     try {
+      if (this.isShared(key)) {
+        await this.ensureMigrated();
+        return this.getSync(key) as T | null;
+      }
       const jsonValue = await AsyncStorage.getItem(key);
       return jsonValue != null ? JSON.parse(jsonValue) : null;
     } catch (error) {
@@ -35,6 +139,10 @@ export class Storage {
    */
   static async remove(key: string): Promise<void> {
     try {
+      if (this.isShared(key)) {
+        await this.setMany({ [key]: null });
+        return;
+      }
       await AsyncStorage.removeItem(key);
     } catch (error) {
       console.error('Error removing from storage:', error);
@@ -44,10 +152,22 @@ export class Storage {
 
   /**
    * Clear all storage
+   * Only the shared keys leave the native store: the state it keeps for native
+   * code alone (device id, sync schedule) belongs to the device, not to the user
    */
   static async clear(): Promise<void> {
     try {
       await AsyncStorage.clear();
+      if (KvStoreModule) {
+        // Nothing left to migrate
+        const values: Record<string, SharedValue> = { [MIGRATED_FLAG]: true };
+        for (const key of Array.from(SHARED_KEYS)) {
+          values[key] = null;
+        }
+        if (!KvStoreModule.commit(values)) {
+          throw new Error('Error clearing native store');
+        }
+      }
     } catch (error) {
       console.error('Error clearing storage:', error);
       throw error;
@@ -59,6 +179,10 @@ export class Storage {
    */
   static async getString(key: string): Promise<string | null> {
     try {
+      if (this.isShared(key)) {
+        const value = await this.get<SharedValue>(key);
+        return value != null ? String(value) : null;
+      }
       return await AsyncStorage.getItem(key);
     } catch (error) {
       console.error('Error reading string from storage:', error);
@@ -71,6 +195,10 @@ export class Storage {
    */
   static async setString(key: string, value: string): Promise<void> {
     try {
+      if (this.isShared(key)) {
+        await this.setMany({ [key]: value });
+        return;
+      }
       await AsyncStorage.setItem(key, value);
     } catch (error) {
       console.error('Error saving string to storage:', error);
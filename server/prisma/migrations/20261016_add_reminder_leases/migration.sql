@@ -0,0 +1,19 @@
+-- CreateTable
+CREATE TABLE "reminder_leases" (
+    "appointment_id" TEXT NOT NULL,
+    "device_id" VARCHAR(100) NOT NULL,
+    "claim_id" VARCHAR(36) NOT NULL,
+    "leased_at" TIMESTAMP(3) NOT NULL,
+    "expires_at" TIMESTAMP(3) NOT NULL,
+
+    CONSTRAINT "reminder_leases_pkey" PRIMARY KEY ("appointment_id")
+);
+
+-- CreateIndex
+CREATE INDEX "reminder_leases_expires_at_idx" ON "reminder_leases"("expires_at");
+
+-- CreateIndex
+CREATE INDEX "reminder_leases_claim_id_idx" ON "reminder_leases"("claim_id");
+
+-- AddForeignKey
+ALTER TABLE "reminder_leases" ADD CONSTRAINT "reminder_leases_appointment_id_fkey" FOREIGN KEY ("appointment_id") REFERENCES "appointments"("id") ON DELETE CASCADE ON UPDATE CASCADE;
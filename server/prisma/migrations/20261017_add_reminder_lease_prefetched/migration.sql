@@ -0,0 +1,2 @@
+-- AlterTable
+ALTER TABLE "reminder_leases" ADD COLUMN "prefetched" BOOLEAN NOT NULL DEFAULT false;
@@ -0,0 +1,632 @@
+import { describe, it, expect, vi, beforeEach, afterEach } from 'vitest';
+import request from 'supertest';
+import express from 'express';
+import mobileRemindersRouter from '../../routes/mobileReminders.js';
+import { prisma } from '../../lib/prisma.js';
+
+// Mock Prisma client
+vi.mock('../../lib/prisma.js', () => ({
+  prisma: {
+    appointment: {
+      findMany: vi.fn(),
+      count: vi.fn(),
+      findUnique: vi.fn(),
+      update: vi.fn()
+    },
+    reminder: {
+      findMany: vi.fn()
+    },
+    reminderLease: {
+      createMany: vi.fn(),
+      updateMany: vi.fn(),
+      deleteMany: vi.fn()
+    }
+  }
+}));
+
+vi.mock('../../repositories/reminderRepository.js', () => ({
+  reminderRepository: {
+    findByAppointment: vi.fn(),
+    create: vi.fn()
+  }
+}));
+
+// Mock logger to avoid console spam during tests
+vi.mock('../../utils/logger.js', () => ({
+  logger: {
+    info: vi.fn(),
+    error: vi.fn(),
+    warn: vi.fn(),
+    debug: vi.fn()
+  }
+}));
+
+const NOW = new Date('2026-03-10T08:00:00.000Z');
+
+// Appointment with the relations the reminder message needs
+function appointment(id: string, date: string) {
+  const updatedAt = new Date('2026-03-01T10:00:00.000Z');
+  return {
+    id,
+    customerId: 'customer-1',
+    serviceId: 'service-1',
+    staffId: 'staff-1',
+    date: new Date(date),
+    startTime: '10:00',
+    endTime: '11:00',
+    status: 'confirmed',
+    reminderSent: false,
+    updatedAt,
+    customer: {
+      id: 'customer-1',
+      firstName: 'Mario',
+      lastName: 'Rossi',
+      phone: '+39 333 1234567',
+      email: 'mario.rossi@example.com',
+      smsReminderConsent: true,
+      updatedAt
+    },
+    service: { id: 'service-1', name: 'Massaggio Rilassante', price: 50, duration: 60, updatedAt },
+    staff: { id: 'staff-1', firstName: 'Laura', lastName: 'Bianchi', updatedAt }
+  };
+}
+
+const COMPACT_TYPE = 'application/vnd.sphyra.reminders.compact+json';
+
+function cursorOf(text: string): string {
+  return Buffer.from(text).toString('base64url');
+}
+
+describe('Mobile Reminders Routes - Pending', () => {
+  let app: express.Application;
+
+  beforeEach(() => {
+    app = express();
+    app.use(express.json());
+    app.use('/api/reminders/mobile', mobileRemindersRouter);
+    vi.clearAllMocks();
+    vi.useFakeTimers({ toFake: ['Date'] });
+    vi.setSystemTime(NOW);
+    vi.mocked(prisma.reminder.findMany).mockResolvedValue([]);
+  });
+
+  afterEach(() => {
+    vi.useRealTimers();
+  });
+
+  const pending = [
+    appointment('apt-1', '2026-03-10T15:00:00.000Z'),
+    appointment('apt-2', '2026-03-10T16:00:00.000Z')
+  ];
+
+  describe('GET /api/reminders/mobile/pending', () => {
+    it('should return the whole list with an ETag without limit', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce(pending as any)
+        .mockResolvedValueOnce(pending as any);
+
+      const response = await request(app).get('/api/reminders/mobile/pending');
+
+      expect(response.status).toBe(200);
+      expect(response.body.map((r: any) => r.appointment.id)).toEqual(['apt-1', 'apt-2']);
+      expect(response.headers.etag).toMatch(/^"[\w-]+"$/);
+    });
+
+    it('should answer 304 when the pending set did not change', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValue(pending as any);
+      const first = await request(app).get('/api/reminders/mobile/pending');
+      vi.mocked(prisma.appointment.findMany).mockClear();
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .set('If-None-Match', first.headers.etag);
+
+      expect(response.status).toBe(304);
+      // Only the version query ran
+      expect(prisma.appointment.findMany).toHaveBeenCalledTimes(1);
+    });
+
+    it('should give compact responses their own ETag', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValue(pending as any);
+      const full = await request(app).get('/api/reminders/mobile/pending');
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .set('Accept', COMPACT_TYPE)
+        .set('If-None-Match', full.headers.etag);
+
+      expect(response.status).toBe(200);
+      expect(response.headers.etag).toBe(full.headers.etag.replace(/"$/, '-c"'));
+      expect(response.headers.vary).toContain('Accept');
+    });
+
+    it('should return the first page with cursors and an ETag', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce(pending as any)
+        .mockResolvedValueOnce(pending as any);
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .query({ limit: 1 });
+
+      expect(response.status).toBe(200);
+      expect(response.headers.etag).toBeDefined();
+      expect(response.body.reminders.map((r: any) => r.appointment.id)).toEqual(['apt-1']);
+      expect(response.body.nextCursor).toBe(cursorOf('2026-03-10T15:00:00.000Z|apt-1'));
+      expect(response.body.deltaCursor).toBe(cursorOf('2026-03-10T07:59:55.000Z|2026-03-11T08:00:00.000Z'));
+      expect((vi.mocked(prisma.appointment.findMany).mock.calls[1][0] as any).take).toBe(2);
+    });
+
+    it('should return later pages after the cursor without reading the whole pending set', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValueOnce([pending[1]] as any);
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .query({ limit: 1, cursor: cursorOf('2026-03-10T15:00:00.000Z|apt-1') });
+
+      expect(response.status).toBe(200);
+      expect(response.headers.etag).toBeUndefined();
+      expect(response.body.reminders.map((r: any) => r.appointment.id)).toEqual(['apt-2']);
+      expect(response.body.nextCursor).toBeNull();
+
+      expect(prisma.appointment.findMany).toHaveBeenCalledTimes(1);
+      const after = new Date('2026-03-10T15:00:00.000Z');
+      expect((vi.mocked(prisma.appointment.findMany).mock.calls[0][0] as any).where.OR).toEqual([
+        { date: { gt: after } },
+        { date: after, id: { gt: 'apt-1' } }
+      ]);
+    });
+
+    it('should return 400 for an invalid limit', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValue([]);
+
+      for (const limit of ['0', '201', '1.5', 'ten']) {
+        const response = await request(app)
+          .get('/api/reminders/mobile/pending')
+          .query({ limit });
+
+        expect(response.status).toBe(400);
+        expect(response.body.error).toContain('limit');
+      }
+    });
+
+    it('should label errors as plain JSON when compact reminders were asked for', async () => {
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .set('Accept', COMPACT_TYPE)
+        .query({ limit: 0, cursor: cursorOf('2026-03-10T15:00:00.000Z|apt-1') });
+
+      expect(response.status).toBe(400);
+      expect(response.headers['content-type']).toContain('application/json');
+    });
+
+    it('should label compact pages with the compact type', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValueOnce([pending[1]] as any);
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .set('Accept', COMPACT_TYPE)
+        .query({ limit: 1, cursor: cursorOf('2026-03-10T15:00:00.000Z|apt-1') });
+
+      expect(response.status).toBe(200);
+      expect(response.headers['content-type']).toContain(COMPACT_TYPE);
+      expect(JSON.parse(response.text).reminders[0].id).toBe('apt-2');
+    });
+
+    it('should return 400 for an invalid cursor', async () => {
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .query({ limit: 10, cursor: cursorOf('not-a-date|apt-1') });
+      const noId = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .query({ limit: 10, cursor: cursorOf('2026-03-10T15:00:00.000Z') });
+
+      expect(response.status).toBe(400);
+      expect(response.body.error).toBe('Invalid cursor');
+      expect(noId.status).toBe(400);
+      expect(prisma.appointment.findMany).not.toHaveBeenCalled();
+    });
+
+    it('should return the pending ids and only what changed since the delta cursor', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce(pending as any)
+        .mockResolvedValueOnce([pending[1]] as any);
+      const since = cursorOf('2026-03-10T07:00:00.000Z|2026-03-11T07:00:00.000Z');
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .query({ since });
+
+      expect(response.status).toBe(200);
+      expect(response.headers.etag).toBeDefined();
+      expect(response.body.ids).toEqual(['apt-1', 'apt-2']);
+      expect(response.body.added.map((r: any) => r.appointment.id)).toEqual(['apt-2']);
+      expect(response.body.cursor).toBe(cursorOf('2026-03-10T07:59:55.000Z|2026-03-11T08:00:00.000Z'));
+
+      const changed = (vi.mocked(prisma.appointment.findMany).mock.calls[1][0] as any).where.AND[1].OR;
+      expect(changed).toContainEqual({ updatedAt: { gt: new Date('2026-03-10T07:00:00.000Z') } });
+      expect(changed).toContainEqual({ date: { gt: new Date('2026-03-11T07:00:00.000Z') } });
+    });
+
+    it('should answer a delta request with 304 when nothing changed', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValue(pending as any);
+      const first = await request(app).get('/api/reminders/mobile/pending').query({ limit: 10 });
+      vi.mocked(prisma.appointment.findMany).mockClear();
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .query({ since: first.body.deltaCursor })
+        .set('If-None-Match', first.headers.etag);
+
+      expect(response.status).toBe(304);
+      expect(prisma.appointment.findMany).toHaveBeenCalledTimes(1);
+    });
+
+    it('should return 400 for an invalid since cursor', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValue([]);
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/pending')
+        .query({ since: cursorOf('yesterday|tomorrow') });
+
+      expect(response.status).toBe(400);
+      expect(response.body.error).toBe('Invalid since cursor');
+    });
+  });
+});
+
+describe('Mobile Reminders Routes - Upcoming', () => {
+  let app: express.Application;
+
+  beforeEach(() => {
+    app = express();
+    app.use(express.json());
+    app.use('/api/reminders/mobile', mobileRemindersRouter);
+    vi.clearAllMocks();
+    vi.useFakeTimers({ toFake: ['Date'] });
+    vi.setSystemTime(NOW);
+    vi.mocked(prisma.reminderLease.createMany).mockResolvedValue({ count: 0 });
+    vi.mocked(prisma.reminderLease.updateMany).mockResolvedValue({ count: 0 });
+  });
+
+  afterEach(() => {
+    vi.useRealTimers();
+  });
+
+  // Both enter the 24 hour window within the next 12 hours
+  const upcoming = [
+    { ...appointment('apt-3', '2026-03-11T10:00:00.000Z'), reminderLease: null },
+    { ...appointment('apt-4', '2026-03-11T12:00:00.000Z'), reminderLease: { appointmentId: 'apt-4' } }
+  ];
+
+  describe('GET /api/reminders/mobile/upcoming', () => {
+    it('should lease the reminders to the device until their send time plus the grace period', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce(upcoming as any)
+        .mockResolvedValueOnce(upcoming as any);
+
+      const response = await request(app)
+        .get('/api/reminders/mobile/upcoming')
+        .query({ hours: 12, deviceId: 'phone-a' });
+
+      expect(response.status).toBe(200);
+      expect(response.body.leased).toBe(true);
+      expect(response.body.reminders.map((r: any) => r.sendAt))
+        .toEqual(['2026-03-10T10:00:00.000Z', '2026-03-10T12:00:00.000Z']);
+
+      const { data, skipDuplicates } = vi.mocked(prisma.reminderLease.createMany).mock.calls[0][0] as any;
+      expect(skipDuplicates).toBe(true);
+      expect(data).toEqual([expect.objectContaining({
+        appointmentId: 'apt-3',
+        deviceId: 'phone-a',
+        expiresAt: new Date('2026-03-10T10:15:00.000Z'),
+        prefetched: true
+      })]);
+
+      // A held row is leased again only when expired or already this device's
+      const update = vi.mocked(prisma.reminderLease.updateMany).mock.calls[0][0] as any;
+      expect(update.where).toEqual({
+        appointmentId: 'apt-4',
+        OR: [{ expiresAt: { lte: NOW } }, { deviceId: 'phone-a' }]
+      });
+      expect(update.data).toMatchObject({ expiresAt: new Date('2026-03-10T12:15:00.000Z'), prefetched: true });
+
+      // Only the rows this call leased are returned
+      expect(vi.mocked(prisma.appointment.findMany).mock.calls[1][0]).toMatchObject({
+        where: { reminderLease: { claimId: data[0].claimId } }
+      });
+      expect((vi.mocked(prisma.appointment.findMany).mock.calls[0][0] as any).where.OR).toContainEqual({
+        reminderLease: { deviceId: 'phone-a' }
+      });
+    });
+
+    it('should not lease anything without a deviceId', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValueOnce([upcoming[0]] as any);
+
+      const response = await request(app).get('/api/reminders/mobile/upcoming');
+
+      expect(response.status).toBe(200);
+      expect(response.body.leased).toBe(false);
+      expect(response.body.reminders).toHaveLength(1);
+      expect(prisma.reminderLease.createMany).not.toHaveBeenCalled();
+      expect(prisma.reminderLease.updateMany).not.toHaveBeenCalled();
+      // Reminders leased to a device are still left out
+      expect((vi.mocked(prisma.appointment.findMany).mock.calls[0][0] as any).where.OR).toEqual([
+        { reminderLease: { is: null } },
+        { reminderLease: { expiresAt: { lte: NOW } } }
+      ]);
+    });
+
+    it('should return 400 for invalid hours or deviceId', async () => {
+      const hours = await request(app).get('/api/reminders/mobile/upcoming').query({ hours: 49 });
+      const deviceId = await request(app)
+        .get('/api/reminders/mobile/upcoming')
+        .query({ deviceId: 'x'.repeat(101) });
+
+      expect(hours.status).toBe(400);
+      expect(deviceId.status).toBe(400);
+      expect(deviceId.body.error).toContain('deviceId');
+      expect(prisma.appointment.findMany).not.toHaveBeenCalled();
+    });
+  });
+});
+
+describe('Mobile Reminders Routes - Leases', () => {
+  let app: express.Application;
+
+  beforeEach(() => {
+    app = express();
+    app.use(express.json());
+    app.use('/api/reminders/mobile', mobileRemindersRouter);
+    vi.clearAllMocks();
+    vi.useFakeTimers({ toFake: ['Date'] });
+    vi.setSystemTime(NOW);
+    vi.mocked(prisma.reminderLease.createMany).mockResolvedValue({ count: 0 });
+    vi.mocked(prisma.reminderLease.updateMany).mockResolvedValue({ count: 0 });
+  });
+
+  afterEach(() => {
+    vi.useRealTimers();
+  });
+
+  describe('POST /api/reminders/mobile/claim', () => {
+    it('should lease free reminders to the device and return the rows it won', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce([
+          { id: 'apt-1', reminderLease: null },
+          { id: 'apt-2', reminderLease: null }
+        ] as any)
+        .mockResolvedValueOnce([
+          appointment('apt-1', '2026-03-10T15:00:00.000Z'),
+          appointment('apt-2', '2026-03-10T16:00:00.000Z')
+        ] as any);
+      vi.mocked(prisma.reminderLease.createMany).mockResolvedValue({ count: 2 });
+
+      const response = await request(app)
+        .post('/api/reminders/mobile/claim')
+        .send({ deviceId: 'phone-a', limit: 10, leaseSeconds: 60 });
+
+      expect(response.status).toBe(200);
+      expect(response.body.reminders.map((r: any) => r.appointment.id)).toEqual(['apt-1', 'apt-2']);
+      expect(response.body.leaseExpiresAt).toBe('2026-03-10T08:01:00.000Z');
+      expect(response.body.hasMore).toBe(false);
+      // A short batch emptied the pool: nothing to count
+      expect(response.body.remaining).toBe(0);
+      expect(prisma.appointment.count).not.toHaveBeenCalled();
+
+      const { data, skipDuplicates } = vi.mocked(prisma.reminderLease.createMany).mock.calls[0][0] as any;
+      expect(skipDuplicates).toBe(true);
+      expect(data.map((row: any) => row.appointmentId)).toEqual(['apt-1', 'apt-2']);
+      expect(data[0]).toMatchObject({ deviceId: 'phone-a', leasedAt: NOW, expiresAt: new Date('2026-03-10T08:01:00.000Z') });
+      expect(prisma.reminderLease.updateMany).not.toHaveBeenCalled();
+
+      // The rows returned are the ones leased with this call's claim id
+      const claimId = data[0].claimId;
+      expect(vi.mocked(prisma.appointment.findMany).mock.calls[1][0]).toMatchObject({
+        where: { reminderLease: { claimId } }
+      });
+    });
+
+    it('should only consider free, expired or own prefetched leases as candidates', async () => {
+      vi.mocked(prisma.appointment.findMany).mockResolvedValueOnce([]);
+
+      const response = await request(app)
+        .post('/api/reminders/mobile/claim')
+        .send({ deviceId: 'phone-a' });
+
+      expect(response.status).toBe(200);
+      expect(response.body).toMatchObject({ reminders: [], hasMore: false });
+
+      const query = vi.mocked(prisma.appointment.findMany).mock.calls[0][0] as any;
+      expect(query.take).toBe(50);
+      expect(query.where.OR).toEqual([
+        { reminderLease: { is: null } },
+        { reminderLease: { expiresAt: { lte: NOW } } },
+        { reminderLease: { deviceId: 'phone-a', prefetched: true } }
+      ]);
+      // Nothing to lease: no write and no second query
+      expect(prisma.reminderLease.createMany).not.toHaveBeenCalled();
+      expect(prisma.appointment.findMany).toHaveBeenCalledTimes(1);
+    });
+
+    it('should take over expired leases only while they are still expired', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce([{ id: 'apt-1', reminderLease: { appointmentId: 'apt-1' } }] as any)
+        .mockResolvedValueOnce([appointment('apt-1', '2026-03-10T15:00:00.000Z')] as any);
+      vi.mocked(prisma.reminderLease.updateMany).mockResolvedValue({ count: 1 });
+
+      const response = await request(app)
+        .post('/api/reminders/mobile/claim')
+        .send({ deviceId: 'phone-b', limit: 10 });
+
+      expect(response.status).toBe(200);
+      expect(response.body.reminders).toHaveLength(1);
+      expect(prisma.reminderLease.createMany).not.toHaveBeenCalled();
+
+      const update = vi.mocked(prisma.reminderLease.updateMany).mock.calls[0][0] as any;
+      expect(update.where).toEqual({
+        appointmentId: { in: ['apt-1'] },
+        OR: [
+          { expiresAt: { lte: NOW } },
+          { deviceId: 'phone-b', prefetched: true, expiresAt: { lte: new Date('2026-03-10T08:05:00.000Z') } }
+        ]
+      });
+      expect(update.data).toMatchObject({ deviceId: 'phone-b', leasedAt: NOW, prefetched: false });
+    });
+
+    it('should keep the longer lease of a reminder the device prefetched', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce([{ id: 'apt-1', reminderLease: { appointmentId: 'apt-1' } }] as any)
+        .mockResolvedValueOnce([appointment('apt-1', '2026-03-10T15:00:00.000Z')] as any);
+
+      await request(app)
+        .post('/api/reminders/mobile/claim')
+        .send({ deviceId: 'phone-a', leaseSeconds: 60 });
+
+      // Prefetched leases ending after the new expiry only join this claim
+      const join = vi.mocked(prisma.reminderLease.updateMany).mock.calls[1][0] as any;
+      expect(join.where).toEqual({
+        appointmentId: { in: ['apt-1'] },
+        deviceId: 'phone-a',
+        prefetched: true,
+        expiresAt: { gt: new Date('2026-03-10T08:01:00.000Z') }
+      });
+      expect(join.data).toEqual({ claimId: expect.any(String), prefetched: false });
+    });
+
+    it('should not return rows another device leased in the meantime', async () => {
+      // Both candidates were free when read, but another device's claim got them first
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce([
+          { id: 'apt-1', reminderLease: null },
+          { id: 'apt-2', reminderLease: { appointmentId: 'apt-2' } }
+        ] as any)
+        .mockResolvedValueOnce([]);
+
+      const response = await request(app)
+        .post('/api/reminders/mobile/claim')
+        .send({ deviceId: 'phone-a', limit: 10 });
+
+      expect(response.status).toBe(200);
+      expect(response.body.reminders).toEqual([]);
+      // Lost rows may still be in the pool: the device claims again
+      expect(response.body.hasMore).toBe(true);
+    });
+
+    it('should report more and what is left when the batch is full', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce([{ id: 'apt-1', reminderLease: null }] as any)
+        .mockResolvedValueOnce([appointment('apt-1', '2026-03-10T15:00:00.000Z')] as any);
+      vi.mocked(prisma.appointment.count).mockResolvedValue(120);
+
+      const response = await request(app)
+        .post('/api/reminders/mobile/claim')
+        .send({ deviceId: 'phone-a', limit: 1 });
+
+      expect(response.status).toBe(200);
+      expect(response.body.hasMore).toBe(true);
+      expect(response.body.remaining).toBe(120);
+      // Counted with the same conditions as the claim, after it
+      expect((vi.mocked(prisma.appointment.count).mock.calls[0][0] as any).where)
+        .toEqual((vi.mocked(prisma.appointment.findMany).mock.calls[0][0] as any).where);
+      expect((vi.mocked(prisma.appointment.findMany).mock.calls[0][0] as any).take).toBe(1);
+    });
+
+    it('should return compact reminders when asked for them', async () => {
+      vi.mocked(prisma.appointment.findMany)
+        .mockResolvedValueOnce([{ id: 'apt-1', reminderLease: null }] as any)
+        .mockResolvedValueOnce([appointment('apt-1', '2026-03-10T15:00:00.000Z')] as any);
+
+      const response = await request(app)
+        .post('/api/reminders/mobile/claim')
+        .set('Accept', 'application/vnd.sphyra.reminders.compact+json')
+        .send({ deviceId: 'phone-a' });
+
+      expect(response.status).toBe(200);
+      expect(response.headers['content-type']).toContain('application/vnd.sphyra.reminders.compact+json');
+      expect(JSON.parse(response.text).reminders).toEqual([{
+        id: 'apt-1',
+        phone: '+39 333 1234567',
+        message: expect.stringContaining('Ciao Mario!'),
+        consent: true,
+        at: '2026-03-10T15:00:00.000Z'
+      }]);
+    });
+
+    it('should return 400 when deviceId is missing or too long', async () => {
+      const missing = await request(app)
+        .post('/api/reminders/mobile/claim')
+        .send({ limit: 10 });
+      const tooLong = await request(app)
+        .post('/api/reminders/mobile/claim')
+        .send({ deviceId: 'x'.repeat(101) });
+
+      expect(missing.status).toBe(400);
+      expect(missing.body.error).toContain('deviceId');
+      expect(tooLong.status).toBe(400);
+      expect(prisma.appointment.findMany).not.toHaveBeenCalled();
+    });
+
+    it('should return 400 for an invalid limit', async () => {
+      for (const limit of [0, 201, 2.5, '10']) {
+        const response = await request(app)
+          .post('/api/reminders/mobile/claim')
+          .send({ deviceId: 'phone-a', limit });
+
+        expect(response.status).toBe(400);
+        expect(response.body.error).toContain('limit');
+      }
+      expect(prisma.appointment.findMany).not.toHaveBeenCalled();
+    });
+
+    it('should return 400 for an invalid leaseSeconds', async () => {
+      for (const leaseSeconds of [29, 1801, 60.5]) {
+        const response = await request(app)
+          .post('/api/reminders/mobile/claim')
+          .send({ deviceId: 'phone-a', leaseSeconds });
+
+        expect(response.status).toBe(400);
+        expect(response.body.error).toContain('leaseSeconds');
+      }
+      expect(prisma.appointment.findMany).not.toHaveBeenCalled();
+    });
+  });
+
+  describe('POST /api/reminders/mobile/release', () => {
+    it('should delete only the leases held by the device', async () => {
+      vi.mocked(prisma.reminderLease.deleteMany).mockResolvedValue({ count: 2 });
+
+      const response = await request(app)
+        .post('/api/reminders/mobile/release')
+        .send({ deviceId: 'phone-a', appointmentIds: ['apt-1', 'apt-2'] });
+
+      expect(response.status).toBe(200);
+      expect(response.body).toEqual({ success: true, released: 2 });
+      expect(prisma.reminderLease.deleteMany).toHaveBeenCalledWith({
+        where: { deviceId: 'phone-a', appointmentId: { in: ['apt-1', 'apt-2'] } }
+      });
+    });
+
+    it('should return 400 when deviceId is missing', async () => {
+      const response = await request(app)
+        .post('/api/reminders/mobile/release')
+        .send({ appointmentIds: ['apt-1'] });
+
+      expect(response.status).toBe(400);
+      expect(response.body.error).toContain('deviceId');
+      expect(prisma.reminderLease.deleteMany).not.toHaveBeenCalled();
+    });
+
+    it('should return 400 for invalid appointmentIds', async () => {
+      for (const appointmentIds of ['apt-1', [1, 2], Array.from({ length: 201 }, (_, i) => `apt-${i}`)]) {
+        const response = await request(app)
+          .post('/api/reminders/mobile/release')
+          .send({ deviceId: 'phone-a', appointmentIds });
+
+        expect(response.status).toBe(400);
+        expect(response.body.error).toContain('appointmentIds');
+      }
+      expect(prisma.reminderLease.deleteMany).not.toHaveBeenCalled();
+    });
+  });
+});
@@ -1,7 +1,9 @@
 import { Router } from 'express';
+import type { Request, Response } from 'express';
+import { createHash, randomUUID } from 'crypto';
 import { reminderRepository } from '../repositories/reminderRepository.js';
 import { prisma } from '../lib/prisma.js';
-import type { Appointment, Customer, Service, Staff, AppointmentStatus } from '@prisma/client';
+import type { Appointment, Customer, Service, Staff, AppointmentStatus, Prisma } from '@prisma/client';
 import { logger } from '../utils/logger.js';
 
 const router = Router();
@@ -13,15 +15,80 @@ type AppointmentWithRelations = Appointment & {
   staff: Staff;
 };
 
+// Reminder representation sent to one client: toMobileReminder or toCompactReminder
+type ReminderProjection = (apt: AppointmentWithRelations) => object;
+
 // ============================================
 // MOBILE APP ENDPOINTS (PUBLIC - NO AUTH REQUIRED)
 // ============================================
 
+// A reminder is pending from 24 hours before its appointment
+const PENDING_WINDOW_MS = 24 * 60 * 60 * 1000;
+
+// Page size bounds for GET /pending?limit=
+const MAX_PENDING_PAGE_SIZE = 200;
+
+// Delta cursors look back this far to cover writes still in flight when the cursor was issued
+const DELTA_CURSOR_SKEW_MS = 5000;
+
+// Compact representation of the reminders of /pending, /claim and /upcoming, selected with Accept:
+// { id, phone, message, consent, at } instead of the whole appointment (see toCompactReminder)
+const COMPACT_REMINDERS_TYPE = 'application/vnd.sphyra.reminders.compact+json';
+
 // GET /api/mobile/reminders/pending - Get pending SMS reminders for mobile app
+// Without `limit` the whole list is returned as an array (older app versions);
+// with `limit` (and `cursor` from the previous page) returns { reminders, nextCursor, deltaCursor };
+// with `since` (a deltaCursor) returns { ids, added, cursor }: the ids of every pending
+// reminder plus only the reminders added or changed since the cursor.
+// Every response but the pages after the first carries an ETag for the pending set:
+// If-None-Match answers 304 when nothing changed
+// Accept: application/vnd.sphyra.reminders.compact+json gets the same shapes with compact reminders
+// Leases are not applied here: apps that share the pool use POST /claim instead
 router.get('/pending', async (req, res, next) => {
   try {
-    // Calculate time window: now to +24 hours
     const now = new Date();
+    const project = negotiateProjection(req, res);
+    res.setHeader('Cache-Control', 'no-cache');
+
+    // The version reads the whole pending set: a later page skips it, the client
+    // keeps the first page's ETag for the walk
+    const isLaterPage = req.query.since === undefined && req.query.limit !== undefined
+      && req.query.cursor !== undefined;
+    const version = isLaterPage ? null : await getPendingVersion(now);
+    if (version) {
+      // Each representation has its own validator
+      res.setHeader('ETag', project === toCompactReminder ? version.etag.replace(/"$/, '-c"') : version.etag);
+      if (req.fresh) {
+        return res.status(304).end();
+      }
+    }
+
+    if (req.query.since !== undefined && version) {
+      const since = typeof req.query.since === 'string' ? decodeDeltaCursor(req.query.since) : null;
+      if (!since) {
+        return res.status(400).json({ error: 'Invalid since cursor' });
+      }
+
+      return sendReminders(res, project, await findPendingDelta(now, since, version.ids, project));
+    }
+
+    if (req.query.limit !== undefined) {
+      const limit = Number(req.query.limit);
+      const { cursor } = req.query;
+
+      if (!Number.isInteger(limit) || limit < 1 || limit > MAX_PENDING_PAGE_SIZE) {
+        return res.status(400).json({ error: `limit must be an integer between 1 and ${MAX_PENDING_PAGE_SIZE}` });
+      }
+
+      if (cursor !== undefined && (typeof cursor !== 'string' || !decodePendingCursor(cursor))) {
+        return res.status(400).json({ error: 'Invalid cursor' });
+      }
+
+      return sendReminders(res, project,
+        await findPendingRemindersPage(now, limit, cursor as string | undefined, project));
+    }
+
+    // Calculate time window: now to +24 hours
     const next24Hours = new Date(now.getTime() + 24 * 60 * 60 * 1000);
 
     logger.info(`📱 Mobile app: Looking for appointments from ${now.toISOString()} to ${next24Hours.toISOString()}`);
@@ -96,104 +163,149 @@ router.get('/pending', async (req, res, next) => {
         }
         return true;
       })
-      .map((apt: AppointmentWithRelations) => ({
-        appointment: {
-          id: apt.id,
-          customerId: apt.customerId,
-          serviceId: apt.serviceId,
-          staffId: apt.staffId,
-          date: apt.date.toISOString().split('T')[0],
-          startTime: typeof apt.startTime === 'string' ? apt.startTime : apt.startTime.toISOString().split('T')[1].substring(0, 5),
-          endTime: typeof apt.endTime === 'string' ? apt.endTime : apt.endTime.toISOString().split('T')[1].substring(0, 5),
-          status: apt.status,
-          reminderSent: apt.reminderSent,
-          appointmentDate: apt.date.toISOString(), // Full ISO date for logging
-          customer: {
-            id: apt.customer.id,
-            name: `${apt.customer.firstName} ${apt.customer.lastName}`,
-            firstName: apt.customer.firstName,
-            lastName: apt.customer.lastName,
-            phone: apt.customer.phone,
-            email: apt.customer.email,
-            smsReminderConsent: apt.customer.smsReminderConsent,
-          },
-          service: {
-            id: apt.service.id,
-            name: apt.service.name,
-            price: Number(apt.service.price),
-            duration: apt.service.duration,
-          },
-          staff: {
-            id: apt.staff.id,
-            firstName: apt.staff.firstName,
-            lastName: apt.staff.lastName,
-          },
-        },
-        message: generateSMSMessage(apt),
-      }));
+      .map(project);
 
     logger.info(`📱 Returning ${pendingReminders.length} reminders to mobile app (after GDPR filter)`);
 
-    res.json(pendingReminders);
+    sendReminders(res, project, pendingReminders);
   } catch (error) {
     logger.error('Error fetching mobile pending reminders:', error);
     next(error);
   }
 });
 
-// POST /api/mobile/reminders/mark-sent - Mark reminder as sent from mobile
-router.post('/mark-sent', async (req, res, next) => {
+// Bound for the deviceId of /upcoming and /claim
+const MAX_DEVICE_ID_LENGTH = 100;
+
+// Look-ahead bounds for GET /upcoming?hours=
+const MAX_UPCOMING_HOURS = 48;
+const DEFAULT_UPCOMING_HOURS = 12;
+
+// A prefetched reminder stays leased to its device this long after its send time
+// (the app sends offline copies only within UpcomingReminders.OFFLINE_SEND_MS, 10 minutes)
+const UPCOMING_LEASE_GRACE_MS = 15 * 60 * 1000;
+
+// GET /api/mobile/reminders/upcoming - Reminders that become pending in the next `hours`
+// Returns { reminders: [{ sendAt, appointment, message }], until, leased }: sendAt is when each
+// one enters the pending window. The app keeps them and sends them at that time with an alarm,
+// without depending on a poll (or on the network) landing at the right moment
+// With `deviceId` the reminders are leased to that device until sendAt plus a grace period
+// (leased: true): no other phone claims them meanwhile, so the device may send its copies
+// even if the backend is unreachable at send time. Reminders leased to another device are
+// never returned
+router.get('/upcoming', async (req, res, next) => {
   try {
-    const { appointmentId } = req.body;
+    const hours = req.query.hours !== undefined ? Number(req.query.hours) : DEFAULT_UPCOMING_HOURS;
+    const { deviceId } = req.query;
 
-    if (!appointmentId) {
-      return res.status(400).json({ error: 'appointmentId is required' });
+    if (!Number.isInteger(hours) || hours < 1 || hours > MAX_UPCOMING_HOURS) {
+      return res.status(400).json({ error: `hours must be an integer between 1 and ${MAX_UPCOMING_HOURS}` });
     }
 
-    // Check if appointment exists and is not already marked as sent
-    const appointment = await prisma.appointment.findUnique({
-      where: { id: appointmentId }
-    });
-
-    if (!appointment) {
-      return res.status(404).json({ error: 'Appointment not found' });
+    if (deviceId !== undefined && (typeof deviceId !== 'string' || deviceId.length === 0
+      || deviceId.length > MAX_DEVICE_ID_LENGTH)) {
+      return res.status(400).json({ error: `deviceId must be a string of 1 to ${MAX_DEVICE_ID_LENGTH} characters` });
     }
 
-    if (appointment.reminderSent) {
-      logger.info(`⚠️ Reminder for appointment ${appointmentId} already marked as sent`);
-      return res.json({ success: true, alreadySent: true });
+    res.setHeader('Cache-Control', 'no-cache');
+    const project = negotiateProjection(req, res);
+    sendReminders(res, project, await findUpcomingReminders(new Date(), hours, deviceId as string | undefined,
+      project));
+  } catch (error) {
+    logger.error('Error fetching mobile upcoming reminders:', error);
+    next(error);
+  }
+});
+
+// Claim bounds for POST /claim
+const MAX_CLAIM_SIZE = 200;
+const DEFAULT_CLAIM_SIZE = 50;
+const MIN_LEASE_SECONDS = 30;
+const MAX_LEASE_SECONDS = 30 * 60;
+const DEFAULT_LEASE_SECONDS = 5 * 60;
+
+// POST /api/mobile/reminders/claim - Lease a batch of pending reminders to one device
+// Body: { deviceId, limit?, leaseSeconds? }
+// Returns { reminders, leaseExpiresAt, hasMore, remaining }: reminders nobody else holds
+// (including the ones this device prefetched from /upcoming), leased to this device until
+// leaseExpiresAt at least. Sent acks end the lease; a failed or unacknowledged reminder goes
+// back to the pool when the lease expires, so another phone picks it up if this one went offline.
+// hasMore is true when the batch was full (or lost some rows to another device): claim again
+// remaining is how many more this device could claim right now (progress and foreground decisions)
+router.post('/claim', async (req, res, next) => {
+  try {
+    const { deviceId } = req.body;
+    const limit = req.body.limit ?? DEFAULT_CLAIM_SIZE;
+    const leaseSeconds = req.body.leaseSeconds ?? DEFAULT_LEASE_SECONDS;
+
+    if (typeof deviceId !== 'string' || deviceId.length === 0 || deviceId.length > MAX_DEVICE_ID_LENGTH) {
+      return res.status(400).json({ error: `deviceId must be a string of 1 to ${MAX_DEVICE_ID_LENGTH} characters` });
     }
 
-    // Check if SMS reminder already exists for this appointment
-    const existingReminders = await reminderRepository.findByAppointment(appointmentId);
-    const existingSmsReminder = existingReminders.find(r => r.type === 'sms' && r.sent);
+    if (!Number.isInteger(limit) || limit < 1 || limit > MAX_CLAIM_SIZE) {
+      return res.status(400).json({ error: `limit must be an integer between 1 and ${MAX_CLAIM_SIZE}` });
+    }
 
-    if (existingSmsReminder) {
-      logger.info(`⚠️ SMS reminder already exists for appointment ${appointmentId}`);
-      // Update appointment flag if not already set
-      await prisma.appointment.update({
-        where: { id: appointmentId },
-        data: { reminderSent: true }
+    if (!Number.isInteger(leaseSeconds) || leaseSeconds < MIN_LEASE_SECONDS || leaseSeconds > MAX_LEASE_SECONDS) {
+      return res.status(400).json({
+        error: `leaseSeconds must be an integer between ${MIN_LEASE_SECONDS} and ${MAX_LEASE_SECONDS}`
       });
-      return res.json({ success: true, alreadySent: true });
     }
 
-    // Create reminder record (without sending SMS again!)
-    await reminderRepository.create({
-      appointment: { connect: { id: appointmentId } },
-      type: 'sms',
-      scheduledFor: new Date(),
-      sent: true,
-      sentAt: new Date(),
-    });
+    const project = negotiateProjection(req, res);
+    sendReminders(res, project, await claimPendingReminders(deviceId, limit, leaseSeconds, project));
+  } catch (error) {
+    logger.error('Error claiming mobile reminders:', error);
+    next(error);
+  }
+});
 
-    // Update appointment reminderSent flag (without sending SMS!)
-    await prisma.appointment.update({
-      where: { id: appointmentId },
-      data: { reminderSent: true }
+// POST /api/mobile/reminders/release - Give back leased reminders that were not sent
+// Body: { deviceId, appointmentIds }
+router.post('/release', async (req, res, next) => {
+  try {
+    const { deviceId, appointmentIds } = req.body;
+
+    if (typeof deviceId !== 'string' || deviceId.length === 0) {
+      return res.status(400).json({ error: 'deviceId is required' });
+    }
+
+    if (!Array.isArray(appointmentIds) || appointmentIds.length > MAX_CLAIM_SIZE
+      || !appointmentIds.every((id) => typeof id === 'string')) {
+      return res.status(400).json({ error: `appointmentIds must be an array of at most ${MAX_CLAIM_SIZE} ids` });
+    }
+
+    const { count } = await prisma.reminderLease.deleteMany({
+      where: { deviceId, appointmentId: { in: appointmentIds } }
     });
 
-    logger.info(`✅ Marked SMS reminder as sent for appointment ${appointmentId}`);
+    logger.info(`📱 Device ${deviceId} released ${count} reminder leases`);
+
+    res.json({ success: true, released: count });
+  } catch (error) {
+    logger.error('Error releasing reminder leases:', error);
+    next(error);
+  }
+});
+
+// POST /api/mobile/reminders/mark-sent - Mark reminder as sent from mobile
+router.post('/mark-sent', async (req, res, next) => {
+  try {
+    const { appointmentId } = req.body;
+
+    if (!appointmentId) {
+      return res.status(400).json({ error: 'appointmentId is required' });
+    }
+
+    const status = await markReminderAsSent(appointmentId);
+
+    if (status === 'not_found') {
+      return res.status(404).json({ error: 'Appointment not found' });
+    }
+
+    if (status === 'already_sent') {
+      return res.json({ success: true, alreadySent: true });
+    }
 
     res.json({ success: true });
   } catch (error) {
@@ -211,16 +323,7 @@ router.post('/mark-failed', async (req, res, next) => {
       return res.status(400).json({ error: 'appointmentId is required' });
     }
 
-    // Create failed reminder record
-    await reminderRepository.create({
-      appointment: { connect: { id: appointmentId } },
-      type: 'sms',
-      scheduledFor: new Date(),
-      sent: false,
-      errorMessage: errorMessage || 'SMS send failed from mobile',
-    });
-
-    logger.info(`❌ Marked SMS reminder as failed for appointment ${appointmentId}: ${errorMessage}`);
+    await markReminderAsFailed(appointmentId, errorMessage);
 
     res.json({ success: true });
   } catch (error) {
@@ -229,6 +332,584 @@ router.post('/mark-failed', async (req, res, next) => {
   }
 });
 
+// Max acknowledgements accepted in one ack-batch request
+const MAX_ACK_BATCH_SIZE = 500;
+
+type MarkSentStatus = 'sent' | 'already_sent' | 'not_found';
+type AckResultStatus = MarkSentStatus | 'failed_recorded' | 'error';
+
+// POST /api/mobile/reminders/ack-batch - Acknowledge many dispatch results in one request
+// Body: { acks: [{ appointmentId, status: 'sent' | 'failed', errorMessage? }] }
+router.post('/ack-batch', async (req, res, next) => {
+  try {
+    const { acks } = req.body;
+
+    if (!Array.isArray(acks) || acks.length === 0) {
+      return res.status(400).json({ error: 'acks must be a non-empty array' });
+    }
+
+    if (acks.length > MAX_ACK_BATCH_SIZE) {
+      return res.status(400).json({ error: `acks cannot contain more than ${MAX_ACK_BATCH_SIZE} items` });
+    }
+
+    const results: { appointmentId: string; status: AckResultStatus }[] = [];
+
+    // Sequential on purpose: the same appointment may appear twice (failed, then sent)
+    for (const ack of acks) {
+      const appointmentId = ack?.appointmentId;
+      if (!appointmentId || (ack.status !== 'sent' && ack.status !== 'failed')) {
+        results.push({ appointmentId: appointmentId ?? '', status: 'error' });
+        continue;
+      }
+
+      try {
+        if (ack.status === 'sent') {
+          results.push({ appointmentId, status: await markReminderAsSent(appointmentId) });
+        } else {
+          await markReminderAsFailed(appointmentId, ack.errorMessage);
+          results.push({ appointmentId, status: 'failed_recorded' });
+        }
+      } catch (error) {
+        logger.error(`Error acknowledging reminder for appointment ${appointmentId}:`, error);
+        results.push({ appointmentId, status: 'error' });
+      }
+    }
+
+    logger.info(`📱 Acknowledged ${results.length} reminder results from mobile (batch)`);
+
+    res.json({ success: true, results });
+  } catch (error) {
+    logger.error('Error acknowledging reminder batch:', error);
+    next(error);
+  }
+});
+
+/**
+ * Record an SMS reminder as sent (the SMS was already sent by the phone!)
+ */
+async function markReminderAsSent(appointmentId: string): Promise<MarkSentStatus> {
+  // Check if appointment exists and is not already marked as sent
+  const appointment = await prisma.appointment.findUnique({
+    where: { id: appointmentId }
+  });
+
+  if (!appointment) {
+    return 'not_found';
+  }
+
+  // Sent reminders are no longer pending: whoever held the lease is done with it
+  await prisma.reminderLease.deleteMany({ where: { appointmentId } });
+
+  if (appointment.reminderSent) {
+    logger.info(`⚠️ Reminder for appointment ${appointmentId} already marked as sent`);
+    return 'already_sent';
+  }
+
+  // Check if SMS reminder already exists for this appointment
+  const existingReminders = await reminderRepository.findByAppointment(appointmentId);
+  const existingSmsReminder = existingReminders.find(r => r.type === 'sms' && r.sent);
+
+  if (existingSmsReminder) {
+    logger.info(`⚠️ SMS reminder already exists for appointment ${appointmentId}`);
+    // Update appointment flag if not already set
+    await prisma.appointment.update({
+      where: { id: appointmentId },
+      data: { reminderSent: true }
+    });
+    return 'already_sent';
+  }
+
+  // Create reminder record (without sending SMS again!)
+  await reminderRepository.create({
+    appointment: { connect: { id: appointmentId } },
+    type: 'sms',
+    scheduledFor: new Date(),
+    sent: true,
+    sentAt: new Date(),
+  });
+
+  // Update appointment reminderSent flag (without sending SMS!)
+  await prisma.appointment.update({
+    where: { id: appointmentId },
+    data: { reminderSent: true }
+  });
+
+  logger.info(`✅ Marked SMS reminder as sent for appointment ${appointmentId}`);
+
+  return 'sent';
+}
+
+/**
+ * Record a failed SMS reminder attempt
+ */
+async function markReminderAsFailed(appointmentId: string, errorMessage?: string): Promise<void> {
+  // Create failed reminder record
+  await reminderRepository.create({
+    appointment: { connect: { id: appointmentId } },
+    type: 'sms',
+    scheduledFor: new Date(),
+    sent: false,
+    errorMessage: errorMessage || 'SMS send failed from mobile',
+  });
+
+  logger.info(`❌ Marked SMS reminder as failed for appointment ${appointmentId}: ${errorMessage}`);
+}
+
+/**
+ * Pending SMS reminders in the next 24 hours, with the GDPR filters applied in the database
+ */
+function pendingWhere(now: Date): Prisma.AppointmentWhereInput {
+  return {
+    date: {
+      gte: now,
+      lte: new Date(now.getTime() + PENDING_WINDOW_MS),
+    },
+    status: {
+      in: ['scheduled', 'confirmed'] as AppointmentStatus[]
+    },
+    reminderSent: false,
+    // Skip if already has sent SMS reminder
+    reminders: {
+      none: { type: 'sms', sent: true }
+    },
+    // GDPR filters
+    customer: {
+      smsReminderConsent: true,
+      phone: { not: null },
+    },
+  };
+}
+
+/**
+ * Reminders entering the pending window (appointment within 24 hours) in the next `hours`
+ * Same filters as pendingWhere, on the window as it will be at each send time
+ * With a deviceId each reminder is leased to the device until its send time plus
+ * UPCOMING_LEASE_GRACE_MS, with the same conditional statements as claimPendingReminders
+ */
+async function findUpcomingReminders(now: Date, hours: number, deviceId: string | undefined,
+  project: ReminderProjection) {
+  const windowEnd = new Date(now.getTime() + PENDING_WINDOW_MS);
+  const until = new Date(now.getTime() + hours * 60 * 60 * 1000);
+  const include = {
+    customer: true,
+    service: true,
+    staff: true,
+  };
+  const orderBy = [
+    { date: 'asc' as const },
+    { id: 'asc' as const },
+  ];
+
+  const candidates = await prisma.appointment.findMany({
+    where: {
+      ...pendingWhere(now),
+      date: {
+        gt: windowEnd,
+        lte: new Date(until.getTime() + PENDING_WINDOW_MS),
+      },
+      OR: [
+        { reminderLease: { is: null } },
+        { reminderLease: { expiresAt: { lte: now } } },
+        ...(deviceId ? [{ reminderLease: { deviceId } }] : []),
+      ],
+    },
+    include: {
+      ...include,
+      reminderLease: { select: { appointmentId: true } },
+    },
+    orderBy,
+  });
+
+  let appointments: AppointmentWithRelations[] = candidates;
+  if (deviceId && candidates.length > 0) {
+    const claimId = randomUUID();
+    const leaseOf = (apt: AppointmentWithRelations) => ({
+      deviceId,
+      claimId,
+      leasedAt: now,
+      expiresAt: new Date(sendTimeOf(apt).getTime() + UPCOMING_LEASE_GRACE_MS),
+      prefetched: true,
+    });
+    const free = candidates.filter((apt) => !apt.reminderLease);
+    const held = candidates.filter((apt) => apt.reminderLease);
+
+    if (free.length > 0) {
+      // ON CONFLICT DO NOTHING: a row inserted meanwhile by another device stays theirs
+      await prisma.reminderLease.createMany({
+        data: free.map((apt) => ({ appointmentId: apt.id, ...leaseOf(apt) })),
+        skipDuplicates: true,
+      });
+    }
+
+    // One statement per row (each has its own expiry); expired or own leases only
+    for (const apt of held) {
+      await prisma.reminderLease.updateMany({
+        where: {
+          appointmentId: apt.id,
+          OR: [
+            { expiresAt: { lte: now } },
+            { deviceId },
+          ],
+        },
+        data: leaseOf(apt),
+      });
+    }
+
+    appointments = await prisma.appointment.findMany({
+      where: { reminderLease: { claimId } },
+      include,
+      orderBy,
+    });
+  }
+
+  logger.info(`📱 Returning ${appointments.length} upcoming reminders until ${until.toISOString()}`
+    + (deviceId ? `, leased to device ${deviceId}` : ''));
+
+  return {
+    reminders: appointments.map((apt) => ({
+      sendAt: sendTimeOf(apt).toISOString(),
+      ...project(apt),
+    })),
+    until: until.toISOString(),
+    leased: Boolean(deviceId),
+  };
+}
+
+/**
+ * When a reminder enters the pending window
+ */
+function sendTimeOf(apt: Appointment): Date {
+  return new Date(apt.date.getTime() - PENDING_WINDOW_MS);
+}
+
+/**
+ * Lease up to `limit` pending reminders to a device
+ * Each row is taken with a single conditional statement (insert if free, update if
+ * expired), so two devices claiming at once never get the same reminder: the loser
+ * of a row just gets a shorter batch. The claim id tells which rows this call won.
+ */
+async function claimPendingReminders(deviceId: string, limit: number, leaseSeconds: number,
+  project: ReminderProjection) {
+  const now = new Date();
+  const expiresAt = new Date(now.getTime() + leaseSeconds * 1000);
+  const claimId = randomUUID();
+
+  const candidates = await prisma.appointment.findMany({
+    where: claimableWhere(deviceId, now),
+    select: {
+      id: true,
+      reminderLease: { select: { appointmentId: true } },
+    },
+    orderBy: [
+      { date: 'asc' },
+      { id: 'asc' },
+    ],
+    take: limit,
+  });
+
+  const free = candidates.filter((row) => !row.reminderLease).map((row) => row.id);
+  const held = candidates.filter((row) => row.reminderLease).map((row) => row.id);
+  const lease = { deviceId, claimId, leasedAt: now, expiresAt, prefetched: false };
+
+  if (free.length > 0) {
+    // ON CONFLICT DO NOTHING: a row inserted meanwhile by another device stays theirs
+    await prisma.reminderLease.createMany({
+      data: free.map((appointmentId) => ({ appointmentId, ...lease })),
+      skipDuplicates: true,
+    });
+  }
+
+  if (held.length > 0) {
+    // The expiry condition is checked again under the row lock: only one device takes over.
+    // A prefetched lease is renewed but never shortened: it stays this device's until its
+    // grace period ends, as /upcoming told the device
+    await prisma.reminderLease.updateMany({
+      where: {
+        appointmentId: { in: held },
+        OR: [
+          { expiresAt: { lte: now } },
+          { deviceId, prefetched: true, expiresAt: { lte: expiresAt } },
+        ],
+      },
+      data: lease,
+    });
+    await prisma.reminderLease.updateMany({
+      where: { appointmentId: { in: held }, deviceId, prefetched: true, expiresAt: { gt: expiresAt } },
+      data: { claimId, prefetched: false },
+    });
+  }
+
+  const appointments = candidates.length === 0 ? [] : await prisma.appointment.findMany({
+    where: { reminderLease: { claimId } },
+    include: {
+      customer: true,
+      service: true,
+      staff: true,
+    },
+    orderBy: [
+      { date: 'asc' },
+      { id: 'asc' },
+    ],
+  });
+
+  const remaining = candidates.length < limit ? 0 : await prisma.appointment.count({
+    where: claimableWhere(deviceId, now),
+  });
+
+  logger.info(`📱 Device ${deviceId} claimed ${appointments.length}/${candidates.length} reminders `
+    + `until ${expiresAt.toISOString()}, ${remaining} left`);
+
+  return {
+    reminders: appointments.map(project),
+    leaseExpiresAt: expiresAt.toISOString(),
+    hasMore: candidates.length === limit || appointments.length < candidates.length,
+    remaining,
+  };
+}
+
+/**
+ * Pending reminders a device can claim: free, lease expired, or prefetched by this device
+ */
+function claimableWhere(deviceId: string, now: Date): Prisma.AppointmentWhereInput {
+  return {
+    ...pendingWhere(now),
+    OR: [
+      { reminderLease: { is: null } },
+      { reminderLease: { expiresAt: { lte: now } } },
+      // Prefetched by this device: it claims them when they come due
+      { reminderLease: { deviceId, prefetched: true } },
+    ],
+  };
+}
+
+/**
+ * Version of the pending set, from ids and update times only (no message rendering)
+ * Changes when a reminder is added or removed, or when anything its message uses changes
+ */
+async function getPendingVersion(now: Date): Promise<{ etag: string; ids: string[] }> {
+  const rows = await prisma.appointment.findMany({
+    where: pendingWhere(now),
+    select: {
+      id: true,
+      updatedAt: true,
+      customer: { select: { updatedAt: true } },
+      service: { select: { updatedAt: true } },
+      staff: { select: { updatedAt: true } },
+    },
+    orderBy: [
+      { date: 'asc' },
+      { id: 'asc' },
+    ],
+  });
+
+  const hash = createHash('sha1');
+  for (const row of rows) {
+    hash.update(`${row.id}:${row.updatedAt.getTime()}:${row.customer.updatedAt.getTime()}:`
+      + `${row.service.updatedAt.getTime()}:${row.staff.updatedAt.getTime()}\n`);
+  }
+
+  return {
+    etag: `"${hash.digest('base64url')}"`,
+    ids: rows.map((row) => row.id),
+  };
+}
+
+/**
+ * One page of pending reminders, ordered by (date, id)
+ * Filters run in the database so every page is full until the last one
+ */
+async function findPendingRemindersPage(now: Date, limit: number, cursor: string | undefined,
+  project: ReminderProjection) {
+  const after = cursor ? decodePendingCursor(cursor) : null;
+
+  const appointments = await prisma.appointment.findMany({
+    where: {
+      ...pendingWhere(now),
+      // Keyset pagination: strictly after the last appointment of the previous page
+      ...(after ? {
+        OR: [
+          { date: { gt: after.date } },
+          { date: after.date, id: { gt: after.id } },
+        ],
+      } : {}),
+    },
+    include: {
+      customer: true,
+      service: true,
+      staff: true,
+    },
+    orderBy: [
+      { date: 'asc' },
+      { id: 'asc' },
+    ],
+    take: limit + 1,
+  });
+
+  const hasMore = appointments.length > limit;
+  const page = hasMore ? appointments.slice(0, limit) : appointments;
+  const last = page[page.length - 1];
+
+  logger.info(`📱 Returning page of ${page.length} reminders to mobile app (more: ${hasMore})`);
+
+  return {
+    reminders: page.map(project),
+    nextCursor: hasMore && last ? encodePendingCursor(last.date, last.id) : null,
+    deltaCursor: encodeDeltaCursor(now),
+  };
+}
+
+/**
+ * Changes since a delta cursor: reminders whose message data changed or that
+ * entered the 24 hour window; removals show up as ids missing from `ids`
+ */
+async function findPendingDelta(now: Date, since: { updatedAfter: Date; windowEnd: Date }, ids: string[],
+  project: ReminderProjection) {
+  const added = await prisma.appointment.findMany({
+    where: {
+      AND: [
+        pendingWhere(now),
+        {
+          OR: [
+            { updatedAt: { gt: since.updatedAfter } },
+            { customer: { updatedAt: { gt: since.updatedAfter } } },
+            { service: { updatedAt: { gt: since.updatedAfter } } },
+            { staff: { updatedAt: { gt: since.updatedAfter } } },
+            { date: { gt: since.windowEnd } },
+          ],
+        },
+      ],
+    },
+    include: {
+      customer: true,
+      service: true,
+      staff: true,
+    },
+    orderBy: [
+      { date: 'asc' },
+      { id: 'asc' },
+    ],
+  });
+
+  logger.info(`📱 Returning delta to mobile app: ${added.length} added/changed, ${ids.length} pending`);
+
+  return {
+    ids,
+    added: added.map(project),
+    cursor: encodeDeltaCursor(now),
+  };
+}
+
+/**
+ * Opaque page cursor: base64url of "<date ISO>|<appointment id>"
+ */
+function encodePendingCursor(date: Date, id: string): string {
+  return Buffer.from(`${date.toISOString()}|${id}`).toString('base64url');
+}
+
+function decodePendingCursor(cursor: string): { date: Date; id: string } | null {
+  const [iso, id] = Buffer.from(cursor, 'base64url').toString().split('|');
+  const date = new Date(iso);
+  if (!id || Number.isNaN(date.getTime())) {
+    return null;
+  }
+  return { date, id };
+}
+
+/**
+ * Opaque delta cursor: base64url of "<updated after ISO>|<window end ISO>"
+ */
+function encodeDeltaCursor(now: Date): string {
+  const updatedAfter = new Date(now.getTime() - DELTA_CURSOR_SKEW_MS);
+  const windowEnd = new Date(now.getTime() + 24 * 60 * 60 * 1000);
+  return Buffer.from(`${updatedAfter.toISOString()}|${windowEnd.toISOString()}`).toString('base64url');
+}
+
+function decodeDeltaCursor(cursor: string): { updatedAfter: Date; windowEnd: Date } | null {
+  const [updatedIso, windowIso] = Buffer.from(cursor, 'base64url').toString().split('|');
+  const updatedAfter = new Date(updatedIso);
+  const windowEnd = new Date(windowIso);
+  if (Number.isNaN(updatedAfter.getTime()) || Number.isNaN(windowEnd.getTime())) {
+    return null;
+  }
+  return { updatedAfter, windowEnd };
+}
+
+/**
+ * Pick the reminder representation from the Accept header
+ * The full format stays the default: only clients that list the compact type get it
+ */
+function negotiateProjection(req: Request, res: Response): ReminderProjection {
+  res.vary('Accept');
+  return req.accepts(['application/json', COMPACT_REMINDERS_TYPE]) === COMPACT_REMINDERS_TYPE
+    ? toCompactReminder
+    : toMobileReminder;
+}
+
+/**
+ * Send reminders in the negotiated representation
+ * Only successful responses are labeled compact: errors stay plain JSON
+ */
+function sendReminders(res: Response, project: ReminderProjection, body: object) {
+  if (project === toCompactReminder) {
+    res.setHeader('Content-Type', `${COMPACT_REMINDERS_TYPE}; charset=utf-8`);
+  }
+  return res.json(body);
+}
+
+/**
+ * Compact format: only what the phone sends with, `at` is the appointment date and time (ISO)
+ */
+function toCompactReminder(apt: AppointmentWithRelations) {
+  return {
+    id: apt.id,
+    phone: apt.customer.phone,
+    message: generateSMSMessage(apt),
+    consent: apt.customer.smsReminderConsent,
+    at: apt.date.toISOString(),
+  };
+}
+
+/**
+ * Transform to mobile-friendly format with SMS message
+ */
+function toMobileReminder(apt: AppointmentWithRelations) {
+  return {
+    appointment: {
+      id: apt.id,
+      customerId: apt.customerId,
+      serviceId: apt.serviceId,
+      staffId: apt.staffId,
+      date: apt.date.toISOString().split('T')[0],
+      startTime: typeof apt.startTime === 'string' ? apt.startTime : apt.startTime.toISOString().split('T')[1].substring(0, 5),
+      endTime: typeof apt.endTime === 'string' ? apt.endTime : apt.endTime.toISOString().split('T')[1].substring(0, 5),
+      status: apt.status,
+      reminderSent: apt.reminderSent,
+      appointmentDate: apt.date.toISOString(), // Full ISO date for logging
+      customer: {
+        id: apt.customer.id,
+        name: `${apt.customer.firstName} ${apt.customer.lastName}`,
+        firstName: apt.customer.firstName,
+        lastName: apt.customer.lastName,
+        phone: apt.customer.phone,
+        email: apt.customer.email,
+        smsReminderConsent: apt.customer.smsReminderConsent,
+      },
+      service: {
+        id: apt.service.id,
+        name: apt.service.name,
+        price: Number(apt.service.price),
+        duration: apt.service.duration,
+      },
+      staff: {
+        id: apt.staff.id,
+        firstName: apt.staff.firstName,
+        lastName: apt.staff.lastName,
+      },
+    },
+    message: generateSMSMessage(apt),
+  };
+}
+
 /**
  * Generate SMS message for appointment reminder
  */